@@ -27,7 +27,7 @@ import com.streamsets.pipeline.api.service.ServiceDependency;
 import com.streamsets.pipeline.api.service.dataformats.DataFormatParserService;
 
 @StageDef(
-    version = 11,
+    version = 12,
     label = "Amazon S3",
     description = "Reads files from Amazon S3",
     icon="s3.png",
@@ -60,6 +60,9 @@ public class AmazonS3SourceUpgrader implements StageUpgrader {
         // fall through
       case 10:
         upgradeV10ToV11(configs);
+        // fall through
+      case 11:
+        upgradeV11ToV12(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", context.getFromVersion()));
@@ -186,4 +189,9 @@ public class AmazonS3SourceUpgrader implements StageUpgrader {
   private static void upgradeV10ToV11(List<Config> configs) {
     configs.add(new Config(S3ConfigBean.S3_CONFIG_BEAN_PREFIX + "numberOfThreads", 1));
   }
+
+  private static void upgradeV11ToV12(List<Config> configs) {
+    configs.add(new Config(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "listingThreads", 10));
+    configs.add(new Config(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "emptyListingIntervalSecs", 60));
+  }
 }
@@ -27,17 +27,22 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.SSECustomerKey;
+import com.google.common.base.Throwables;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.credential.CredentialValue;
 import com.streamsets.pipeline.common.InterfaceAudience;
 import com.streamsets.pipeline.common.InterfaceStability;
 import com.streamsets.pipeline.lib.util.AntPathMatcher;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @InterfaceAudience.Private
 @InterfaceStability.Unstable
@@ -45,6 +50,15 @@ public class AmazonS3Util {
 
   public static final int BATCH_SIZE = 1000;
 
+  private static final Comparator<S3ObjectSummary> CHRONOLOGICAL_ORDER = (o1, o2) -> {
+    int result = o1.getLastModified().compareTo(o2.getLastModified());
+    if(result != 0) {
+      //same modified time. Use name to sort
+      return result;
+    }
+    return o1.getKey().compareTo(o2.getKey());
+  };
+
   private AmazonS3Util() {}
 
   /**
@@ -125,43 +139,143 @@ public class AmazonS3Util {
     //Algorithm:
     // - Full scan all objects that match the file name pattern and which are later than the file in the offset
     // - Select the oldest "fetchSize" number of files and return them.
-    TreeSet<S3ObjectSummary> treeSet = new TreeSet<>((o1, o2) -> {
-      int result = o1.getLastModified().compareTo(o2.getLastModified());
-      if(result != 0) {
-        //same modified time. Use name to sort
-        return result;
-      }
-      return o1.getKey().compareTo(o2.getKey());
-    });
+    TreeSet<S3ObjectSummary> treeSet = new TreeSet<>(CHRONOLOGICAL_ORDER);
 
     S3Objects s3ObjectSummaries = S3Objects
       .withPrefix(s3Client, s3ConfigBean.s3Config.bucket, s3ConfigBean.s3Config.commonPrefix);
 
     // SDC-9413: since the s3ObjectSummaries is in lexical order, we should get all list of files in one api call
     for (S3ObjectSummary s : s3ObjectSummaries) {
-      String fullPrefix = s.getKey();
-      String remainingPrefix = fullPrefix.substring(s3ConfigBean.s3Config.commonPrefix.length(), fullPrefix.length());
-      if (!remainingPrefix.isEmpty()) {
-        // remainingPrefix can be empty.
-        // If the user manually creates a prefix "myFolder/mySubFolder" in bucket "myBucket" and uploads "myObject",
-        // then the first objects returned here are:
-        // myFolder/mySubFolder
-        // myFolder/mySubFolder/myObject
-        //
-        // All is good when pipeline is run but preview returns with no data. So we should ignore the empty file as it
-        // has no data
-        if (pathMatcher.match(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix) && isEligible(s, s3Offset)) {
-          treeSet.add(s);
+      addIfEligible(treeSet, s, s3ConfigBean, pathMatcher, s3Offset, fetchSize);
+    }
+
+    return new ArrayList<>(treeSet);
+  }
+
+  /**
+   * Lists objects from AmazonS3 in chronological order like
+   * {@link #listObjectsChronologically(AmazonS3, S3ConfigBean, AntPathMatcher, S3Offset, int)}, but lists the first
+   * level prefixes under the common prefix in parallel. Prefixes that can not contain objects matching the file name
+   * pattern are not listed at all.
+   *
+   * @param s3Client
+   * @param s3ConfigBean
+   * @param pathMatcher glob patterns to match file name against
+   * @param s3Offset current offset which provides the timestamp of the previous object
+   * @param fetchSize number of objects to fetch in one go
+   * @param executor executor listing the prefixes
+   * @return
+   * @throws AmazonClientException
+   */
+  static List<S3ObjectSummary> listObjectsChronologically(
+      AmazonS3 s3Client,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset,
+      int fetchSize,
+      ExecutorService executor
+  ) {
+    String commonPrefix = s3ConfigBean.s3Config.commonPrefix;
+    String delimiter = s3ConfigBean.s3Config.delimiter;
+    TreeSet<S3ObjectSummary> treeSet = new TreeSet<>(CHRONOLOGICAL_ORDER);
+    List<Future<TreeSet<S3ObjectSummary>>> partitions = new ArrayList<>();
+
+    try {
+      // Objects directly under the common prefix are returned with the first level prefixes
+      ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+      listObjectsRequest.setBucketName(s3ConfigBean.s3Config.bucket);
+      listObjectsRequest.setPrefix(commonPrefix);
+      listObjectsRequest.setDelimiter(delimiter);
+      listObjectsRequest.setMaxKeys(BATCH_SIZE);
+      ObjectListing objectListing = s3Client.listObjects(listObjectsRequest);
+
+      while (true) {
+        for (S3ObjectSummary s : objectListing.getObjectSummaries()) {
+          addIfEligible(treeSet, s, s3ConfigBean, pathMatcher, s3Offset, fetchSize);
         }
-        if (treeSet.size() > fetchSize) {
-          treeSet.pollLast();
+        for (String prefix : objectListing.getCommonPrefixes()) {
+          String remainingPrefix = prefix.substring(commonPrefix.length(), prefix.length() - delimiter.length());
+          if (remainingPrefix.isEmpty() ||
+              pathMatcher.matchStart(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix)) {
+            partitions.add(executor.submit(
+                () -> listPartitionChronologically(s3Client, s3ConfigBean, pathMatcher, s3Offset, fetchSize, prefix)
+            ));
+          }
+        }
+        if (!objectListing.isTruncated()) {
+          break;
+        }
+        objectListing = s3Client.listNextBatchOfObjects(objectListing);
+      }
+
+      for (Future<TreeSet<S3ObjectSummary>> partition : partitions) {
+        for (S3ObjectSummary s : partition.get()) {
+          treeSet.add(s);
+          if (treeSet.size() > fetchSize) {
+            treeSet.pollLast();
+          }
         }
       }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new AmazonClientException("Interrupted while listing objects", ex);
+    } catch (ExecutionException ex) {
+      Throwables.propagateIfPossible(ex.getCause());
+      throw new AmazonClientException(ex.getCause().toString(), ex.getCause());
+    } finally {
+      // No-op for the listings that completed
+      partitions.forEach(partition -> partition.cancel(true));
     }
 
     return new ArrayList<>(treeSet);
   }
 
+  private static TreeSet<S3ObjectSummary> listPartitionChronologically(
+      AmazonS3 s3Client,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset,
+      int fetchSize,
+      String prefix
+  ) {
+    TreeSet<S3ObjectSummary> treeSet = new TreeSet<>(CHRONOLOGICAL_ORDER);
+    for (S3ObjectSummary s : S3Objects.withPrefix(s3Client, s3ConfigBean.s3Config.bucket, prefix)) {
+      addIfEligible(treeSet, s, s3ConfigBean, pathMatcher, s3Offset, fetchSize);
+    }
+    return treeSet;
+  }
+
+  /**
+   * Adds the object to the oldest "fetchSize" objects if it matches the file name pattern and is eligible.
+   */
+  private static void addIfEligible(
+      TreeSet<S3ObjectSummary> treeSet,
+      S3ObjectSummary s,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset,
+      int fetchSize
+  ) {
+    String fullPrefix = s.getKey();
+    String remainingPrefix = fullPrefix.substring(s3ConfigBean.s3Config.commonPrefix.length(), fullPrefix.length());
+    if (!remainingPrefix.isEmpty()) {
+      // remainingPrefix can be empty.
+      // If the user manually creates a prefix "myFolder/mySubFolder" in bucket "myBucket" and uploads "myObject",
+      // then the first objects returned here are:
+      // myFolder/mySubFolder
+      // myFolder/mySubFolder/myObject
+      //
+      // All is good when pipeline is run but preview returns with no data. So we should ignore the empty file as it
+      // has no data
+      if (pathMatcher.match(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix) && isEligible(s, s3Offset)) {
+        treeSet.add(s);
+      }
+      if (treeSet.size() > fetchSize) {
+        treeSet.pollLast();
+      }
+    }
+  }
+
   private static boolean isEligible(S3ObjectSummary s, S3Offset s3Offset) {
 
     //The object is eligible if
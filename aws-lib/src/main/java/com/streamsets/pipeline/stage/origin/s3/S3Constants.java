@@ -24,6 +24,7 @@ public class S3Constants {
   static final String MINUS_ONE = "-1";
   static final String ZERO = "0";
   static final String AMAZON_S3_THREAD_PREFIX = "Amazon S3 Runner - ";
+  static final String AMAZON_S3_LISTING_THREAD_PREFIX = "Amazon S3 Listing - ";
   static final String AMAZON_S3_METRICS = "Amazon S3 Metrics for Thread - ";
 
   static final long DEFAULT_FETCH_SIZE = 1024 * 1024L;
@@ -53,6 +53,38 @@ public class S3FileConfig {
   @ValueChooserModel(ObjectOrderingChooseValues.class)
   public ObjectOrdering objectOrdering = ObjectOrdering.LEXICOGRAPHICAL;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "10",
+      label = "Listing Threads",
+      description = "Number of threads that list the objects under the common prefix in parallel. Every listing " +
+          "still reads all keys under the common prefix, so its cost grows with the number of keys even when " +
+          "there are no new objects.",
+      displayPosition = 111,
+      group = "#0",
+      dependsOn = "objectOrdering",
+      triggeredByValue = "TIMESTAMP",
+      min = 1,
+      max = Integer.MAX_VALUE
+  )
+  public int listingThreads = 10;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "60",
+      label = "Empty Listing Interval (secs)",
+      description = "Time to wait before listing the objects again after a listing found no new objects",
+      displayPosition = 112,
+      group = "#0",
+      dependsOn = "objectOrdering",
+      triggeredByValue = "TIMESTAMP",
+      min = 0,
+      max = Integer.MAX_VALUE
+  )
+  public int emptyListingIntervalSecs = 60;
+
   @ConfigDef(
     required = true,
     type = ConfigDef.Type.NUMBER,
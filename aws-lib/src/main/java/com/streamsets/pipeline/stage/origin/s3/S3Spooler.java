@@ -20,6 +20,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.codahale.metrics.Meter;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.PostProcessingOptions;
@@ -27,9 +28,14 @@ import com.streamsets.pipeline.lib.util.AntPathMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -37,6 +43,9 @@ public class S3Spooler {
 
   private static final Logger LOG = LoggerFactory.getLogger(S3Spooler.class);
 
+  // Bounds the objects kept from one listing for timestamp ordering
+  private static final int MAX_INDEXED_OBJECTS = 10000;
+
   private final PushSource.Context context;
   private final S3ConfigBean s3ConfigBean;
   private final AmazonS3 s3Client;
@@ -52,6 +61,11 @@ public class S3Spooler {
   private volatile S3ObjectSummary currentObject;
   private ArrayBlockingQueue<S3ObjectSummary> objectQueue;
   private Meter spoolQueueMeter;
+  // Oldest objects of the last listing for timestamp ordering that were not queued yet, in order
+  private final Deque<S3ObjectSummary> indexedObjects = new ArrayDeque<>();
+  private ExecutorService listingExecutor;
+  // Earliest time to list again for timestamp ordering, set when a listing found no objects
+  private long nextListingTime;
 
   public void init() {
     try {
@@ -59,6 +73,14 @@ public class S3Spooler {
       objectQueue = new ArrayBlockingQueue<>(s3ConfigBean.s3FileConfig.poolSize);
       spoolQueueMeter = context.createMeter("spoolQueue");
       pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
+      if (s3ConfigBean.s3FileConfig.objectOrdering == ObjectOrdering.TIMESTAMP) {
+        listingExecutor = Executors.newFixedThreadPool(
+            s3ConfigBean.s3FileConfig.listingThreads,
+            new ThreadFactoryBuilder().setNameFormat(S3Constants.AMAZON_S3_LISTING_THREAD_PREFIX + "%d")
+                .setDaemon(true)
+                .build()
+        );
+      }
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
@@ -69,6 +91,11 @@ public class S3Spooler {
       objectQueue.clear();
       objectQueue = null;
     }
+    indexedObjects.clear();
+    if (listingExecutor != null) {
+      listingExecutor.shutdownNow();
+      listingExecutor = null;
+    }
   }
 
   S3ObjectSummary findAndQueueObjects(S3Offset s3offset, boolean checkCurrent) throws AmazonClientException {
@@ -76,13 +103,7 @@ public class S3Spooler {
     ObjectOrdering objectOrdering = s3ConfigBean.s3FileConfig.objectOrdering;
     switch (objectOrdering) {
       case TIMESTAMP:
-        s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(
-            s3Client,
-            s3ConfigBean,
-            pathMatcher,
-            s3offset,
-            objectQueue.remainingCapacity()
-        );
+        s3ObjectSummaries = pollIndexedObjects(s3offset, objectQueue.remainingCapacity());
         break;
       case LEXICOGRAPHICAL:
         s3ObjectSummaries = AmazonS3Util.listObjectsLexicographically(
@@ -104,6 +125,36 @@ public class S3Spooler {
     return (s3ObjectSummaries.isEmpty()) ? null : s3ObjectSummaries.get(s3ObjectSummaries.size() - 1);
   }
 
+  /**
+   * Returns the next objects in timestamp order. All objects under the common prefix have to be listed to find them,
+   * so the listing keeps the oldest objects (up to {@link #MAX_INDEXED_OBJECTS}) and the bucket is listed again only
+   * once all of them were queued. Objects uploaded in the meantime are newer than the ones kept, so the order holds.
+   * A listing still reads every key under the common prefix, so after one that found nothing the bucket is not listed
+   * again before the empty listing interval elapsed.
+   */
+  private List<S3ObjectSummary> pollIndexedObjects(S3Offset s3offset, int fetchSize) {
+    if (indexedObjects.isEmpty() && System.currentTimeMillis() >= nextListingTime) {
+      indexedObjects.addAll(AmazonS3Util.listObjectsChronologically(
+          s3Client,
+          s3ConfigBean,
+          pathMatcher,
+          s3offset,
+          Math.max(fetchSize, MAX_INDEXED_OBJECTS),
+          listingExecutor
+      ));
+      LOG.debug("Listed '{}' objects", indexedObjects.size());
+      if (indexedObjects.isEmpty()) {
+        nextListingTime = System.currentTimeMillis() +
+            TimeUnit.SECONDS.toMillis(s3ConfigBean.s3FileConfig.emptyListingIntervalSecs);
+      }
+    }
+    List<S3ObjectSummary> s3ObjectSummaries = new ArrayList<>(Math.min(fetchSize, indexedObjects.size()));
+    while (s3ObjectSummaries.size() < fetchSize && !indexedObjects.isEmpty()) {
+      s3ObjectSummaries.add(indexedObjects.poll());
+    }
+    return s3ObjectSummaries;
+  }
+
   void addObjectToQueue(S3ObjectSummary objectSummary, boolean checkCurrent) {
     Preconditions.checkNotNull(objectSummary, "file cannot be null");
     if (checkCurrent) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.StageUpgrader;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestAmazonS3SourceUpgrader {
+
+  private static Map<String, Object> getConfigValues(List<Config> configs) {
+    Map<String, Object> configValues = new HashMap<>();
+    for (Config config : configs) {
+      configValues.put(config.getName(), config.getValue());
+    }
+    return configValues;
+  }
+
+  @Test
+  public void testUpgradeV11ToV12() throws StageException {
+    List<Config> configs = new ArrayList<>();
+    StageUpgrader.Context context = Mockito.mock(StageUpgrader.Context.class);
+    Mockito.doReturn(11).when(context).getFromVersion();
+    Mockito.doReturn(12).when(context).getToVersion();
+
+    new AmazonS3SourceUpgrader().upgrade(configs, context);
+
+    Map<String, Object> configValues = getConfigValues(configs);
+    Assert.assertEquals(2, configs.size());
+    Assert.assertEquals(10, configValues.get(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "listingThreads"));
+    Assert.assertEquals(60, configValues.get(S3ConfigBean.S3_FILE_CONFIG_PREFIX + "emptyListingIntervalSecs"));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import com.streamsets.pipeline.stage.common.AmazonS3TestSuite;
+import com.streamsets.pipeline.stage.common.TestUtil;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestAmazonS3Util extends AmazonS3TestSuite {
+
+  private static final String BUCKET_NAME = "listing-bucket";
+  private static final String DELIMITER = "/";
+
+  private static AmazonS3 s3client;
+  private static ExecutorService listingExecutor;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    setupS3();
+
+    BasicAWSCredentials credentials = new BasicAWSCredentials("foo", "bar");
+    s3client = AmazonS3ClientBuilder
+        .standard()
+        .withCredentials(new AWSStaticCredentialsProvider(credentials))
+        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration("http://localhost:" + port, null))
+        .withPathStyleAccessEnabled(true)
+        .withChunkedEncodingDisabled(true)
+        .build();
+
+    TestUtil.createBucket(s3client, BUCKET_NAME);
+    s3client.putObject(BUCKET_NAME, "logs/top.log", "top");
+    for (String partition : new String[] {"2017", "2018", "2019"}) {
+      for (int i = 0; i < 3; i++) {
+        s3client.putObject(BUCKET_NAME, "logs/" + partition + "/file" + i + ".log", partition + i);
+        s3client.putObject(BUCKET_NAME, "logs/" + partition + "/nested/file" + i + ".log", partition + i);
+        s3client.putObject(BUCKET_NAME, "logs/" + partition + "/file" + i + ".txt", partition + i);
+      }
+    }
+    s3client.putObject(BUCKET_NAME, "other/file.log", "other");
+
+    listingExecutor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    if (listingExecutor != null) {
+      listingExecutor.shutdownNow();
+    }
+    teardownS3();
+  }
+
+  private static S3ConfigBean createConfigBean(String prefixPattern) {
+    S3ConfigBean s3ConfigBean = new S3ConfigBean();
+    s3ConfigBean.s3Config = new S3ConnectionSourceConfig();
+    s3ConfigBean.s3Config.bucket = BUCKET_NAME;
+    s3ConfigBean.s3Config.commonPrefix = "logs/";
+    s3ConfigBean.s3Config.delimiter = DELIMITER;
+    s3ConfigBean.s3FileConfig = new S3FileConfig();
+    s3ConfigBean.s3FileConfig.prefixPattern = prefixPattern;
+    return s3ConfigBean;
+  }
+
+  private static List<String> getKeys(List<S3ObjectSummary> s3ObjectSummaries) {
+    List<String> keys = new ArrayList<>();
+    for (S3ObjectSummary s : s3ObjectSummaries) {
+      keys.add(s.getKey());
+    }
+    return keys;
+  }
+
+  private static void assertSameListing(String prefixPattern, S3Offset s3Offset, int fetchSize) {
+    S3ConfigBean s3ConfigBean = createConfigBean(prefixPattern);
+    AntPathMatcher pathMatcher = new AntPathMatcher(DELIMITER);
+    List<String> expected = getKeys(
+        AmazonS3Util.listObjectsChronologically(s3client, s3ConfigBean, pathMatcher, s3Offset, fetchSize)
+    );
+    List<String> actual = getKeys(AmazonS3Util.listObjectsChronologically(
+        s3client,
+        s3ConfigBean,
+        pathMatcher,
+        s3Offset,
+        fetchSize,
+        listingExecutor
+    ));
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testPartitionedListing() {
+    S3Offset initialOffset = new S3Offset(null, S3Constants.ZERO, null, S3Constants.ZERO);
+    assertSameListing("**/*.log", initialOffset, 100);
+    assertSameListing("*.log", initialOffset, 100);
+    assertSameListing("2018/*.log", initialOffset, 100);
+    assertSameListing("20*/nested/*", initialOffset, 100);
+    // only the oldest objects are kept
+    assertSameListing("**/*.log", initialOffset, 4);
+  }
+
+  @Test
+  public void testPartitionedListingFromOffset() {
+    S3ConfigBean s3ConfigBean = createConfigBean("**/*.log");
+    AntPathMatcher pathMatcher = new AntPathMatcher(DELIMITER);
+    S3Offset initialOffset = new S3Offset(null, S3Constants.ZERO, null, S3Constants.ZERO);
+    List<S3ObjectSummary> all = AmazonS3Util.listObjectsChronologically(
+        s3client,
+        s3ConfigBean,
+        pathMatcher,
+        initialOffset,
+        100
+    );
+    Assert.assertEquals(19, all.size());
+
+    // everything after a completely read object
+    S3ObjectSummary read = all.get(5);
+    S3Offset s3Offset = new S3Offset(
+        read.getKey(),
+        S3Constants.MINUS_ONE,
+        read.getETag(),
+        String.valueOf(read.getLastModified().getTime())
+    );
+    assertSameListing("**/*.log", s3Offset, 100);
+    Assert.assertEquals(
+        getKeys(all.subList(6, all.size())),
+        getKeys(AmazonS3Util.listObjectsChronologically(
+            s3client,
+            s3ConfigBean,
+            pathMatcher,
+            s3Offset,
+            100,
+            listingExecutor
+        ))
+    );
+  }
+}
@@ -27,14 +27,13 @@ import com.streamsets.pipeline.lib.eventhubs.Errors;
 import com.streamsets.pipeline.lib.eventhubs.EventHubCommon;
 import com.streamsets.pipeline.lib.eventhubs.EventHubConfigBean;
 import com.streamsets.pipeline.lib.eventhubs.Groups;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -47,6 +46,7 @@ public class EventHubProducerTarget extends BaseTarget {
   private EventHubProducerConfigBean producerConfigBean;
   private EventHubCommon eventHubCommon;
   private DataGeneratorFactory generatorFactory;
+  private DataGeneratorBuffer buffer;
   private ErrorRecordHandler errorRecordHandler;
   private EventHubClient eventHubClient = null;
 
@@ -67,6 +67,7 @@ public class EventHubProducerTarget extends BaseTarget {
         issues
     );
     generatorFactory = producerConfigBean.dataGeneratorFormatConfig.getDataGeneratorFactory();
+    buffer = new DataGeneratorBuffer();
     if(issues.size() == 0) {
       try {
         eventHubClient = eventHubCommon.createEventHubClient("event-hub-producer-pool-%d");
@@ -89,11 +90,8 @@ public class EventHubProducerTarget extends BaseTarget {
       List<EventData> eventDataList = new ArrayList<>();
       while (records.hasNext()) {
         Record record = records.next();
-        ByteArrayOutputStream byteBufferOutputStream = new ByteArrayOutputStream();
-        try (DataGenerator dataGenerator = generatorFactory.getGenerator(byteBufferOutputStream)) {
-          dataGenerator.write(record);
-          dataGenerator.flush();
-          eventDataList.add(EventData.create(byteBufferOutputStream.toByteArray()));
+        try {
+          eventDataList.add(EventData.create(generatorFactory.serialize(record, buffer)));
         } catch(Exception ex) {
           LOG.error(Errors.EVENT_HUB_00.getMessage(), ex.toString(), ex);
           errorRecordHandler.onError(new OnRecordErrorException(record, Errors.EVENT_HUB_00, ex.getMessage()));
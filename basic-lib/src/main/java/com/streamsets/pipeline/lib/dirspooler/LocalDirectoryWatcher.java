@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * {@link DirectoryWatcher} backed by a {@link WatchService} (inotify on Linux).
+ * <p/>
+ * In recursive mode the directories created in a watched directory are registered when their creation is reported,
+ * the files already in them are reported as created.
+ */
+class LocalDirectoryWatcher implements DirectoryWatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(LocalDirectoryWatcher.class);
+
+  private final WatchService watchService;
+  private final boolean recursive;
+  private final Map<WatchKey, Path> keys;
+
+  LocalDirectoryWatcher(FileSystem fs, List<Path> dirs, boolean recursive) throws IOException {
+    this.watchService = fs.newWatchService();
+    this.recursive = recursive;
+    keys = new HashMap<>();
+    try {
+      for (Path dir : dirs) {
+        register(dir);
+      }
+    } catch (IOException ex) {
+      watchService.close();
+      throw ex;
+    }
+  }
+
+  private void register(Path dir) throws IOException {
+    keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+  }
+
+  @Override
+  public synchronized Set<String> poll() {
+    Set<String> changed = new HashSet<>();
+    boolean lost = false;
+    WatchKey key;
+    while ((key = watchService.poll()) != null) {
+      Path dir = keys.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW || dir == null) {
+          lost = true;
+          continue;
+        }
+        Path path = dir.resolve((Path) event.context());
+        if (recursive && event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+          try {
+            registerTree(path, changed);
+          } catch (IOException ex) {
+            LOG.warn("Could not watch directory '{}': {}", path, ex.toString(), ex);
+            lost = true;
+          }
+        } else {
+          changed.add(path.toString());
+        }
+      }
+      if (!key.reset()) {
+        // the directory is not accessible anymore
+        keys.remove(key);
+      }
+    }
+    return lost ? null : changed;
+  }
+
+  // files may have been created in the new directory before it was registered, they are reported as created
+  private void registerTree(Path root, Set<String> changed) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+        register(dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        changed.add(file.toString());
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    keys.clear();
+    watchService.close();
+  }
+}
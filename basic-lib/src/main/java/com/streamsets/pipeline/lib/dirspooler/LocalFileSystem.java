@@ -300,6 +300,14 @@ public class LocalFileSystem implements WrappedFileSystem {
     return !watcher.find().isEmpty();
   }
 
+  public DirectoryWatcher watchDirectories(List<WrappedFile> dirPaths, boolean recursive) throws IOException {
+    List<Path> dirs = new ArrayList<>();
+    for (WrappedFile dirPath : dirPaths) {
+      dirs.add(Paths.get(dirPath.getAbsolutePath()));
+    }
+    return new LocalDirectoryWatcher(fs, dirs, recursive);
+  }
+
   public AbstractSpoolerFileRef.Builder getFileRefBuilder() {
     return new LocalFileRef.Builder();
   }
@@ -21,7 +21,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.http.Groups;
 import com.streamsets.pipeline.lib.http.HttpClientCommon;
@@ -38,7 +38,6 @@ import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.util.Iterator;
 import java.util.List;
 
@@ -49,6 +48,7 @@ public class MqttClientTarget extends BaseTarget implements MqttCallback {
   private final MqttClientTargetConfigBean publisherConf;
   private final MqttClientCommon mqttClientCommon;
   private DataGeneratorFactory generatorFactory;
+  private DataGeneratorBuffer buffer;
   private ErrorRecordHandler errorRecordHandler;
   private MqttClient mqttClient = null;
 
@@ -71,6 +71,7 @@ public class MqttClientTarget extends BaseTarget implements MqttCallback {
           issues
       );
       generatorFactory = publisherConf.dataGeneratorFormatConfig.getDataGeneratorFactory();
+      buffer = new DataGeneratorBuffer();
 
       try {
         this.mqttClientCommon.init(getContext(), issues);
@@ -93,11 +94,8 @@ public class MqttClientTarget extends BaseTarget implements MqttCallback {
       Iterator<Record> records = batch.getRecords();
       while (records.hasNext()) {
         Record record = records.next();
-        ByteArrayOutputStream byteBufferOutputStream = new ByteArrayOutputStream();
-        try (DataGenerator dataGenerator = generatorFactory.getGenerator(byteBufferOutputStream)) {
-          dataGenerator.write(record);
-          dataGenerator.flush();
-          MqttMessage message = new MqttMessage(byteBufferOutputStream.toByteArray());
+        try {
+          MqttMessage message = new MqttMessage(generatorFactory.serialize(record, buffer));
           message.setQos(commonConf.qos.getValue());
           message.setRetained(publisherConf.retained);
           mqttClient.publish(publisherConf.topic, message);
@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
@@ -124,6 +125,28 @@ public class SdcIpcTarget extends BaseTarget {
     return conn;
   }
 
+  /**
+   * Reads the response to its end, so the connection (and its TLS session) is kept alive and reused for the next
+   * batch sent to the same host instead of opening a new one.
+   */
+  static void consumeResponse(HttpURLConnection conn) {
+    try {
+      InputStream is = (conn.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST)
+          ? conn.getInputStream()
+          : conn.getErrorStream();
+      if (is != null) {
+        try (InputStream in = is) {
+          byte[] buffer = new byte[1024];
+          while (in.read(buffer) > -1) {
+            // discard
+          }
+        }
+      }
+    } catch (IOException ex) {
+      LOG.debug("Could not read the response, the connection will not be reused: {}", ex.toString(), ex);
+    }
+  }
+
   @Override
   public void write(Batch batch) throws StageException {
     ContextExtensions ext = (ContextExtensions) getContext();
@@ -154,6 +177,7 @@ public class SdcIpcTarget extends BaseTarget {
         writer.close();
         os.close();
         ok = conn.getResponseCode() == HttpURLConnection.HTTP_OK;
+        consumeResponse(conn);
         if (!ok) {
           errorReason = conn.getResponseMessage();
           LOG.warn("Batch for entity '{}' and offset '{}' could not be written out: {}", batch.getSourceEntity(), batch.getSourceOffset(), errorReason);
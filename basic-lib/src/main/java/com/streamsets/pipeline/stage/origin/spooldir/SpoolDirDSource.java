@@ -31,7 +31,7 @@ import com.streamsets.pipeline.lib.dirspooler.SpoolDirConfigBean;
 import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
 
 @StageDef(
-    version = 10,
+    version = 12,
     label = "Directory",
     description = "Reads files from a directory",
     icon="directory.png",
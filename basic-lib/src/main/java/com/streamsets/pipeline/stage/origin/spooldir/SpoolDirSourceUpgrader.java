@@ -93,6 +93,18 @@ public class SpoolDirSourceUpgrader implements StageUpgrader {
         // fall through
       case 9:
         upgradeV9ToV10(configs);
+        if (toVersion == 10) {
+          break;
+        }
+        // fall through
+      case 10:
+        upgradeV10ToV11(configs);
+        if (toVersion == 11) {
+          break;
+        }
+        // fall through
+      case 11:
+        upgradeV11ToV12(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -100,6 +112,17 @@ public class SpoolDirSourceUpgrader implements StageUpgrader {
     return configs;
   }
 
+  private void upgradeV11ToV12(List<Config> configs) {
+    configs.add(new Config(joiner.join(CONF, "splitLargeFiles"), false));
+    configs.add(new Config(joiner.join(CONF, "splitSizeMB"), 128));
+  }
+
+  private void upgradeV10ToV11(List<Config> configs) {
+    configs.add(new Config(joiner.join(CONF, "incrementalDiscovery"), false));
+    configs.add(new Config(joiner.join(CONF, "reconciliationPeriod"), 300));
+    configs.add(new Config(joiner.join(CONF, "discoveryIndexDir"), ""));
+  }
+
   private void upgradeV9ToV10(List<Config> configs) {
     configs.add(new Config(joiner.join(CONF, "spoolingPeriod"), 5));
   }
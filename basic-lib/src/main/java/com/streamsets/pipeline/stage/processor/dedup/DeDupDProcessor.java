@@ -30,14 +30,15 @@ import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 import java.util.List;
 
 @StageDef(
-    version = 1,
+    version = 2,
     label = "Record Deduplicator",
     description = "Separates unique and duplicate records based on field comparison",
     icon="dedup.png",
     outputStreams = OutputStreams.class,
     execution = ExecutionMode.STANDALONE,
     flags = StageBehaviorFlags.PASSTHROUGH,
-    onlineHelpRefUrl ="index.html?contextID=task_ikr_c2f_zq"
+    onlineHelpRefUrl ="index.html?contextID=task_ikr_c2f_zq",
+    upgrader = DeDupProcessorUpgrader.class
 )
 @ConfigGroups(Groups.class)
 @HideConfigs(onErrorRecord = true)
@@ -92,9 +93,42 @@ public class DeDupDProcessor extends DProcessor {
   @FieldSelectorModel
   public List<String> fieldsToCompare;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "HEAP",
+      label = "Hash Storage",
+      description = "Off-heap storage keeps the record hashes outside of the Java heap, allowing much larger windows",
+      displayPosition = 50,
+      group = "DE_DUP"
+  )
+  @ValueChooserModel(HashStorageChooserValues.class)
+  public HashStorage hashStorage;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.STRING,
+      defaultValue = "",
+      label = "Storage Directory",
+      description = "Local directory to keep the record hashes in across pipeline restarts. Leave empty to keep " +
+          "the hashes in off-heap memory only.",
+      displayPosition = 60,
+      group = "DE_DUP",
+      dependsOn = "hashStorage",
+      triggeredByValue = "OFF_HEAP"
+  )
+  public String storageDirectory;
+
   @Override
   protected Processor createProcessor() {
-    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare);
+    return new DeDupProcessor(
+        recordCountWindow,
+        timeWindowSecs,
+        compareFields,
+        fieldsToCompare,
+        hashStorage,
+        storageDirectory
+    );
   }
 
 }
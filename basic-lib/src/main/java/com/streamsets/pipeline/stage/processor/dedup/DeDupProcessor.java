@@ -28,9 +28,13 @@ import com.streamsets.pipeline.api.base.RecordProcessor;
 import com.streamsets.pipeline.lib.cache.CacheCleaner;
 import com.streamsets.pipeline.lib.hashing.HashingUtil;
 import com.streamsets.pipeline.lib.queue.XEvictingQueue;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -40,20 +44,30 @@ import java.util.concurrent.TimeUnit;
 public class DeDupProcessor extends RecordProcessor {
   private static final long MEMORY_USAGE_PER_HASH = 85;
   private static final String CACHE_KEY = "cache";
+  private static final String OFF_HEAP_CACHE_KEY = "offHeapCache";
   private static final Logger LOG = LoggerFactory.getLogger(DeDupProcessor.class);
 
   private final  int recordCountWindow;
   private final  int timeWindowSecs;
   private final  SelectFields compareFields;
   private final  List<String> fieldsToCompare;
+  private final  HashStorage hashStorage;
+  private final  String storageDirectory;
   private CacheCleaner cacheCleaner;
 
   public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
       SelectFields compareFields, List<String> fieldsToCompare) {
+    this(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, HashStorage.HEAP, null);
+  }
+
+  public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
+      SelectFields compareFields, List<String> fieldsToCompare, HashStorage hashStorage, String storageDirectory) {
     this.recordCountWindow = recordCountWindow;
     this.timeWindowSecs = timeWindowSecs;
     this.compareFields = compareFields;
     this.fieldsToCompare = fieldsToCompare;
+    this.hashStorage = hashStorage;
+    this.storageDirectory = storageDirectory;
   }
 
   private static final Object VOID = new Object();
@@ -62,6 +76,8 @@ public class DeDupProcessor extends RecordProcessor {
   private HashingUtil.RecordFunnel funnel;
   private Cache<HashCode, HashCode> hashCache;
   private XEvictingQueue<HashCode> hashBuffer;
+  private OffHeapHashSet offHeapHashes;
+  private MemoryUsageReporter memoryUsage;
   private String uniqueLane;
   private String duplicateLane;
 
@@ -85,7 +101,8 @@ public class DeDupProcessor extends RecordProcessor {
 
     long estimatedMemory = MEMORY_USAGE_PER_HASH * recordCountWindow;
     long maxPipelineMemoryBytes = getContext().getPipelineMaxMemory() * 1000 * 1000;
-    if (estimatedMemory > maxPipelineMemoryBytes) {
+    // Off-heap hashes are not accounted against the pipeline memory limit
+    if (hashStorage == HashStorage.HEAP && estimatedMemory > maxPipelineMemoryBytes) {
       issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "recordCountWindow", Errors.DEDUP_03,
         recordCountWindow, estimatedMemory / (1000 * 1000), getContext().getPipelineMaxMemory()));
         //MiB to bytes conversion, use  1000 * 1000 instead of 1024 * 1024
@@ -100,26 +117,12 @@ public class DeDupProcessor extends RecordProcessor {
           '\u0000'
       ) : HashingUtil.getRecordFunnel(fieldsToCompare, false, true, '\u0000');
 
-      Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
-      synchronized (runnerSharedMap) {
-        if(!runnerSharedMap.containsKey(CACHE_KEY)) {
-          CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
-          if (timeWindowSecs > 0) {
-            cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
-          }
-          if(LOG.isDebugEnabled()) {
-            cacheBuilder.recordStats();
-          }
-          hashCache = cacheBuilder.build();
-
-          runnerSharedMap.put(CACHE_KEY, hashCache);
-        } else {
-          hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
-        }
+      if (hashStorage == HashStorage.OFF_HEAP) {
+        initOffHeapHashes(issues);
+      } else {
+        initHeapHashes();
+        memoryUsage = new MemoryUsageReporter(getContext());
       }
-      cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
-
-      hashBuffer = XEvictingQueue.create(recordCountWindow);
       hashAttrName = getInfo() + ".hash";
       uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
       duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
@@ -127,10 +130,66 @@ public class DeDupProcessor extends RecordProcessor {
     return issues;
   }
 
+  @SuppressWarnings("unchecked")
+  private void initHeapHashes() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      if(!runnerSharedMap.containsKey(CACHE_KEY)) {
+        CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
+        if (timeWindowSecs > 0) {
+          cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
+        }
+        if(LOG.isDebugEnabled()) {
+          cacheBuilder.recordStats();
+        }
+        hashCache = cacheBuilder.build();
+
+        runnerSharedMap.put(CACHE_KEY, hashCache);
+      } else {
+        hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
+      }
+    }
+    cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
+
+    hashBuffer = XEvictingQueue.create(recordCountWindow);
+  }
+
+  private void initOffHeapHashes(List<ConfigIssue> issues) {
+    File file = null;
+    if (storageDirectory != null && !storageDirectory.isEmpty()) {
+      file = new File(storageDirectory, getContext().getPipelineId() + "-" + getInfo().getInstanceName() + ".dedup");
+    }
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      offHeapHashes = (OffHeapHashSet) runnerSharedMap.get(OFF_HEAP_CACHE_KEY);
+      if (offHeapHashes == null) {
+        try {
+          if (file != null && !file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Can't create directory");
+          }
+          offHeapHashes = new OffHeapHashSet(recordCountWindow, TimeUnit.SECONDS.toMillis(timeWindowSecs), file);
+          if (offHeapHashes.isRestored()) {
+            LOG.info("Restored {} hashes from '{}'", offHeapHashes.size(), file);
+          }
+          runnerSharedMap.put(OFF_HEAP_CACHE_KEY, offHeapHashes);
+        } catch (IOException|OutOfMemoryError e) {
+          LOG.error("Can't create hash storage for {} records", recordCountWindow, e);
+          issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "hashStorage", Errors.DEDUP_05,
+              OffHeapHashSet.getRequiredBytes(recordCountWindow) / (1000 * 1000), file == null ? "memory" : file, e.toString()));
+        }
+      }
+    }
+  }
+
   boolean duplicateCheck(Record record) throws ExecutionException {
     HashCode hash = hasher.hashObject(record, funnel);
     record.getHeader().setAttribute(hashAttrName, hash.toString());
 
+    if (offHeapHashes != null) {
+      ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+      return !offHeapHashes.add(bytes.getLong(0), bytes.getLong(8), System.currentTimeMillis());
+    }
+
     HashCode hashInstance = hashCache.get(hash, () -> hash);
     // We are riding on the fact that if the instance is the same we just added and it is not a dup
     boolean dup = hashInstance != hash;
@@ -151,9 +210,17 @@ public class DeDupProcessor extends RecordProcessor {
   public void process(Batch batch, BatchMaker batchMaker) throws StageException {
     if (!batch.getRecords().hasNext()) {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
-      cacheCleaner.periodicCleanUp();
+      if (offHeapHashes != null) {
+        offHeapHashes.evictExpired(System.currentTimeMillis());
+      } else {
+        cacheCleaner.periodicCleanUp();
+      }
     }
     super.process(batch, batchMaker);
+    if (memoryUsage != null) {
+      // The cache is shared by all runners, each runner reports all of it
+      memoryUsage.set(hashCache.size() * MEMORY_USAGE_PER_HASH);
+    }
   }
 
   @Override
@@ -170,4 +237,17 @@ public class DeDupProcessor extends RecordProcessor {
     }
   }
 
+  @Override
+  public void destroy() {
+    if (offHeapHashes != null) {
+      // Shared by all runners, closing is idempotent
+      try {
+        offHeapHashes.close();
+      } catch (IOException e) {
+        LOG.warn("Error closing hash storage: {}", e.toString(), e);
+      }
+    }
+    super.destroy();
+  }
+
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.base.Preconditions;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded set of 128 bit hashes kept outside of the Java heap.
+ *
+ * Hashes are stored in an open addressing table with linear probing that is sized to twice the window, insertion
+ * order is kept in a ring buffer of the same size as the window together with the insertion time. Oldest hashes are
+ * evicted once the window is full or once they are older than the time window. There are no per entry objects, every
+ * hash takes 56 bytes (32 in the table and 24 in the ring buffer).
+ *
+ * The memory is either allocated directly or mapped from a file. Mapped file is marked clean when the set is closed
+ * and reused by next instance with the same parameters, so that the hashes survive pipeline restarts. File that
+ * was not closed properly (or was created with different parameters) is discarded.
+ */
+class OffHeapHashSet implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapHashSet.class);
+
+  private static final long MAGIC = 0x5344434465447570L;
+  private static final long VERSION = 1;
+
+  // Header layout (in longs)
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 1;
+  private static final int HEADER_CAPACITY = 2;
+  private static final int HEADER_WINDOW = 3;
+  private static final int HEADER_TIME_WINDOW = 4;
+  private static final int HEADER_HEAD = 5;
+  private static final int HEADER_SIZE = 6;
+  private static final int HEADER_CLEAN = 7;
+  private static final int HEADER_LONGS = 8;
+
+  // Table slot is hash (high, low), ring buffer entry is hash (high, low) and insertion time
+  private static final int SLOT_LONGS = 2;
+  private static final int ENTRY_LONGS = 3;
+
+  // Single buffer can't be bigger than 2GB, we're using segments of 1GB
+  private static final int SEGMENT_SHIFT = 27;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+  private final int window;
+  private final long timeWindowMillis;
+  private final long capacity;
+  private final long mask;
+  private final long ringOffset;
+  private final FileChannel channel;
+  private final FileLock lock;
+  private final boolean restored;
+  private ByteBuffer[] segments;
+  private long head;
+  private int size;
+
+  /**
+   * @param window Maximum number of hashes kept
+   * @param timeWindowMillis Time after which hashes are evicted, 0 for no time based eviction
+   * @param file File to map the memory from, null to allocate it directly
+   */
+  OffHeapHashSet(int window, long timeWindowMillis, File file) throws IOException {
+    Preconditions.checkArgument(window > 0, "window must be greater than zero");
+    Preconditions.checkArgument(timeWindowMillis >= 0, "timeWindowMillis cannot be negative");
+    this.window = window;
+    this.timeWindowMillis = timeWindowMillis;
+    this.capacity = getCapacity(window);
+    this.mask = capacity - 1;
+    this.ringOffset = HEADER_LONGS + capacity * SLOT_LONGS;
+    long totalBytes = getLongs(capacity, window) * 8;
+
+    if (file == null) {
+      channel = null;
+      lock = null;
+      restored = false;
+      segments = allocate(totalBytes, null);
+    } else {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        lock = lockFile(file);
+        restored = readHeader(totalBytes);
+        if (!restored) {
+          // Discard the content, the file is zero filled when extended
+          channel.truncate(0);
+          channel.write(ByteBuffer.allocate(1), totalBytes - 1);
+        }
+        segments = allocate(totalBytes, channel);
+      } catch (IOException|RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+      LOG.debug("Hash storage '{}' {}", file, restored ? "restored with " + size + " hashes" : "created");
+    }
+    set(HEADER_MAGIC, MAGIC);
+    set(HEADER_VERSION, VERSION);
+    set(HEADER_CAPACITY, capacity);
+    set(HEADER_WINDOW, window);
+    set(HEADER_TIME_WINDOW, timeWindowMillis);
+    // Content can't be trusted until properly closed
+    set(HEADER_CLEAN, 0);
+    force();
+  }
+
+  /**
+   * Returns number of bytes needed for the given window.
+   */
+  static long getRequiredBytes(int window) {
+    return getLongs(getCapacity(window), window) * 8;
+  }
+
+  private static long getCapacity(int window) {
+    // Smallest power of two that keeps the load factor at most 0.5
+    return Long.highestOneBit(2L * window - 1) << 1;
+  }
+
+  private static long getLongs(long capacity, int window) {
+    return HEADER_LONGS + capacity * SLOT_LONGS + (long) window * ENTRY_LONGS;
+  }
+
+  private FileLock lockFile(File file) throws IOException {
+    FileLock fileLock;
+    try {
+      fileLock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      fileLock = null;
+    }
+    if (fileLock == null) {
+      throw new IOException(Utils.format("File '{}' is in use", file));
+    }
+    return fileLock;
+  }
+
+  private boolean readHeader(long totalBytes) throws IOException {
+    if (channel.size() != totalBytes) {
+      return false;
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LONGS * 8).order(ByteOrder.nativeOrder());
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        return false;
+      }
+    }
+    boolean valid = header.getLong(HEADER_MAGIC * 8) == MAGIC
+        && header.getLong(HEADER_VERSION * 8) == VERSION
+        && header.getLong(HEADER_CAPACITY * 8) == capacity
+        && header.getLong(HEADER_WINDOW * 8) == window
+        && header.getLong(HEADER_TIME_WINDOW * 8) == timeWindowMillis
+        && header.getLong(HEADER_CLEAN * 8) == 1;
+    if (valid) {
+      head = header.getLong(HEADER_HEAD * 8);
+      size = (int) header.getLong(HEADER_SIZE * 8);
+    }
+    return valid;
+  }
+
+  private static ByteBuffer[] allocate(long totalBytes, FileChannel channel) throws IOException {
+    long segmentBytes = (SEGMENT_MASK + 1) * 8;
+    ByteBuffer[] buffers = new ByteBuffer[(int) ((totalBytes + segmentBytes - 1) / segmentBytes)];
+    for (int i = 0; i < buffers.length; i++) {
+      long position = i * segmentBytes;
+      int length = (int) Math.min(segmentBytes, totalBytes - position);
+      ByteBuffer buffer = (channel == null)
+          ? ByteBuffer.allocateDirect(length)
+          : channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+      buffers[i] = buffer.order(ByteOrder.nativeOrder());
+    }
+    return buffers;
+  }
+
+  private long get(long index) {
+    return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & SEGMENT_MASK) << 3);
+  }
+
+  private void set(long index, long value) {
+    segments[(int) (index >>> SEGMENT_SHIFT)].putLong((int) (index & SEGMENT_MASK) << 3, value);
+  }
+
+  /**
+   * Adds the hash to the set, evicting the oldest hash if the set is full.
+   *
+   * @return true if the hash was not present in the set
+   */
+  synchronized boolean add(long high, long low, long now) {
+    Preconditions.checkState(segments != null, "Hash set is closed");
+    // All zeros marks an empty slot
+    if (high == 0 && low == 0) {
+      low = 1;
+    }
+    evictExpired(now);
+    if (find(high, low) >= 0) {
+      return false;
+    }
+    if (size == window) {
+      removeOldest();
+    }
+    long slot = low & mask;
+    while (!isEmpty(slot)) {
+      slot = (slot + 1) & mask;
+    }
+    setSlot(slot, high, low);
+    long entry = ringOffset + ((head + size) % window) * ENTRY_LONGS;
+    set(entry, high);
+    set(entry + 1, low);
+    set(entry + 2, now);
+    size++;
+    return true;
+  }
+
+  /**
+   * Evicts the hashes that are older than the time window.
+   */
+  synchronized void evictExpired(long now) {
+    if (timeWindowMillis > 0 && segments != null) {
+      while (size > 0 && get(ringOffset + head * ENTRY_LONGS + 2) <= now - timeWindowMillis) {
+        removeOldest();
+      }
+    }
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the hashes were loaded from a previously closed file.
+   */
+  boolean isRestored() {
+    return restored;
+  }
+
+  private void removeOldest() {
+    long entry = ringOffset + head * ENTRY_LONGS;
+    remove(get(entry), get(entry + 1));
+    head = (head + 1) % window;
+    size--;
+  }
+
+  private long find(long high, long low) {
+    long slot = low & mask;
+    while (!isEmpty(slot)) {
+      if (get(HEADER_LONGS + slot * SLOT_LONGS + 1) == low && get(HEADER_LONGS + slot * SLOT_LONGS) == high) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void remove(long high, long low) {
+    long hole = find(high, low);
+    if (hole < 0) {
+      return;
+    }
+    // Backward shift deletion, move up following entries whose probe sequence passes through the hole
+    long slot = hole;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (isEmpty(slot)) {
+        break;
+      }
+      long home = get(HEADER_LONGS + slot * SLOT_LONGS + 1) & mask;
+      boolean stays = (hole <= slot) ? (hole < home && home <= slot) : (hole < home || home <= slot);
+      if (!stays) {
+        setSlot(hole, get(HEADER_LONGS + slot * SLOT_LONGS), get(HEADER_LONGS + slot * SLOT_LONGS + 1));
+        hole = slot;
+      }
+    }
+    setSlot(hole, 0, 0);
+  }
+
+  private boolean isEmpty(long slot) {
+    return get(HEADER_LONGS + slot * SLOT_LONGS) == 0 && get(HEADER_LONGS + slot * SLOT_LONGS + 1) == 0;
+  }
+
+  private void setSlot(long slot, long high, long low) {
+    set(HEADER_LONGS + slot * SLOT_LONGS, high);
+    set(HEADER_LONGS + slot * SLOT_LONGS + 1, low);
+  }
+
+  private void force() {
+    for (ByteBuffer segment : segments) {
+      if (segment instanceof MappedByteBuffer) {
+        ((MappedByteBuffer) segment).force();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (segments == null) {
+      return;
+    }
+    try {
+      if (channel != null) {
+        set(HEADER_HEAD, head);
+        set(HEADER_SIZE, size);
+        force();
+        set(HEADER_CLEAN, 1);
+        force();
+        lock.release();
+        channel.close();
+      }
+    } finally {
+      // Memory is released once the buffers are garbage collected
+      segments = null;
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.selector;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.el.ELVars;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds record accessors (record:value('/path'), record:type(), record:exists() and record:attribute() with a literal
+ * argument) that are used more than once across the given predicates and rewrites the predicates to use a variable
+ * instead. The accessors are then evaluated only once per record in {@link #setVariables(ELVars, Record)}.
+ */
+class CommonSubExpressions {
+
+  private static final String VARIABLE_PREFIX = "sdcSelectorExpr";
+
+  // Only plain literals without escape sequences, so that the argument is exactly what is between the quotes
+  private static final Pattern ACCESSOR = Pattern.compile(
+      "record:(value|type|exists|attribute)\\(\\s*(?:'([^'\\\\]*)'|\"([^\"\\\\]*)\")\\s*\\)"
+  );
+
+  private enum Kind {
+    VALUE,
+    TYPE,
+    EXISTS,
+    ATTRIBUTE,
+  }
+
+  private static class Accessor {
+    private final Kind kind;
+    private final String argument;
+    private final String variable;
+    private int occurrences;
+
+    Accessor(Kind kind, String argument, String variable) {
+      this.kind = kind;
+      this.argument = argument;
+      this.variable = variable;
+    }
+
+    Object evaluate(Record record) {
+      switch (kind) {
+        case VALUE:
+          Field field = record.get(argument);
+          return field == null ? null : field.getValue();
+        case TYPE:
+          field = record.get(argument);
+          return field == null ? null : field.getType();
+        case EXISTS:
+          return record.has(argument);
+        case ATTRIBUTE:
+          return record.getHeader().getAttribute(argument);
+        default:
+          throw new IllegalStateException("Unknown accessor: " + kind);
+      }
+    }
+  }
+
+  private static class Occurrence {
+    private final Accessor accessor;
+    private final String text;
+
+    Occurrence(Accessor accessor, String text) {
+      this.accessor = accessor;
+      this.text = text;
+    }
+  }
+
+  private final String[] predicates;
+  private final Accessor[] accessors;
+
+  CommonSubExpressions(List<String> originalPredicates) {
+    // Kind and argument -> accessor
+    Map<String, Accessor> found = new LinkedHashMap<>();
+    List<List<Object>> parsed = new ArrayList<>(originalPredicates.size());
+    for (String predicate : originalPredicates) {
+      parsed.add(parse(predicate, found));
+    }
+
+    List<Accessor> shared = new ArrayList<>();
+    for (Accessor accessor : found.values()) {
+      if (accessor.occurrences > 1) {
+        shared.add(accessor);
+      }
+    }
+    accessors = shared.toArray(new Accessor[shared.size()]);
+
+    predicates = new String[originalPredicates.size()];
+    for (int i = 0; i < predicates.length; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (Object part : parsed.get(i)) {
+        if (part instanceof Occurrence) {
+          Occurrence occurrence = (Occurrence) part;
+          sb.append(occurrence.accessor.occurrences > 1 ? occurrence.accessor.variable : occurrence.text);
+        } else {
+          sb.append(part);
+        }
+      }
+      predicates[i] = sb.toString();
+    }
+  }
+
+  /**
+   * Split the predicate to text and accessors. Accessors are only looked for inside ${...} and outside of string
+   * literals.
+   */
+  private static List<Object> parse(String predicate, Map<String, Accessor> found) {
+    List<Object> parts = new ArrayList<>();
+    Matcher matcher = ACCESSOR.matcher(predicate);
+    int textStart = 0;
+    boolean inExpression = false;
+    char quote = 0;
+    int i = 0;
+    while (i < predicate.length()) {
+      char c = predicate.charAt(i);
+      if (!inExpression) {
+        if (c == '$' && i + 1 < predicate.length() && predicate.charAt(i + 1) == '{') {
+          inExpression = true;
+          i++;
+        }
+      } else if (quote != 0) {
+        if (c == '\\') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '}') {
+        inExpression = false;
+      } else if (c == 'r' && isAccessorStart(predicate, i) && matcher.region(i, predicate.length()).lookingAt()) {
+        Kind kind = Kind.valueOf(matcher.group(1).toUpperCase());
+        String argument = matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+        String key = kind + ":" + argument;
+        Accessor accessor = found.get(key);
+        if (accessor == null) {
+          accessor = new Accessor(kind, argument, VARIABLE_PREFIX + found.size());
+          found.put(key, accessor);
+        }
+        accessor.occurrences++;
+        parts.add(predicate.substring(textStart, i));
+        parts.add(new Occurrence(accessor, matcher.group()));
+        i = matcher.end();
+        textStart = i;
+        continue;
+      }
+      i++;
+    }
+    parts.add(predicate.substring(textStart));
+    return parts;
+  }
+
+  private static boolean isAccessorStart(String predicate, int index) {
+    if (index == 0) {
+      return true;
+    }
+    char previous = predicate.charAt(index - 1);
+    return !Character.isJavaIdentifierPart(previous) && previous != ':' && previous != '.';
+  }
+
+  /**
+   * @return true if at least one accessor is shared between predicates.
+   */
+  boolean hasCommonSubExpressions() {
+    return accessors.length > 0;
+  }
+
+  /**
+   * @return Predicates using the variables for the shared accessors, in the same order as the original ones.
+   */
+  String[] getPredicates() {
+    return predicates;
+  }
+
+  /**
+   * Evaluate all shared accessors for given record and store the results as variables.
+   */
+  void setVariables(ELVars variables, Record record) {
+    for (Accessor accessor : accessors) {
+      variables.addVariable(accessor.variable, accessor.evaluate(record));
+    }
+  }
+
+}
@@ -28,6 +28,7 @@ import com.streamsets.pipeline.lib.el.ELUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,9 @@ public class SelectorProcessor extends RecordProcessor {
   private ELEval predicateLanesEval;
   private ELVars variables;
   private String defaultLane;
+  // Predicates with record accessors shared between lanes replaced by variables, null if there is nothing to share
+  private CommonSubExpressions commonSubExpressions;
+  private String[] sharedPredicates;
 
   private ELEval createPredicateLanesEval(ELContext elContext) {
     return elContext.createELEval("lanePredicates");
@@ -80,11 +84,27 @@ public class SelectorProcessor extends RecordProcessor {
           }
         }
         defaultLane = predicateLanes[predicateLanes.length - 1][1];
+        if (issues.isEmpty()) {
+          initCommonSubExpressions();
+        }
       }
     }
     return issues;
   }
 
+  private void initCommonSubExpressions() {
+    List<String> predicates = new ArrayList<>(predicateLanes.length - 1);
+    for (int i = 0; i < predicateLanes.length - 1; i++) {
+      predicates.add(predicateLanes[i][0]);
+    }
+    CommonSubExpressions subExpressions = new CommonSubExpressions(predicates);
+    if (subExpressions.hasCommonSubExpressions()) {
+      commonSubExpressions = subExpressions;
+      sharedPredicates = subExpressions.getPredicates();
+      LOG.debug("Conditions with shared record accessors: {}", (Object) sharedPredicates);
+    }
+  }
+
   private String[][] parsePredicateLanes(List<Map<String, String>> predicateLanesList, List<ConfigIssue> issues) {
     String[][] predicateLanes = new String[predicateLanesList.size()][];
     int count = 0;
@@ -109,10 +129,21 @@ public class SelectorProcessor extends RecordProcessor {
   protected void process(Record record, BatchMaker batchMaker) throws StageException {
     boolean matchedAtLeastOnePredicate = false;
     RecordEL.setRecordInContext(variables, record);
+    String[] predicates = null;
+    if (commonSubExpressions != null) {
+      try {
+        commonSubExpressions.setVariables(variables, record);
+        predicates = sharedPredicates;
+      } catch (RuntimeException ex) {
+        // Such as invalid field path, the original conditions will report it (if they get to evaluate it at all)
+        LOG.trace("Can't evaluate shared record accessors for record '{}': {}", record.getHeader().getSourceId(),
+                  ex.toString());
+      }
+    }
     for (int i = 0; i < predicateLanes.length - 1; i ++) {
       String[] pl = predicateLanes[i];
       try {
-        if (predicateLanesEval.eval(variables, pl[0], Boolean.class)) {
+        if (predicateLanesEval.eval(variables, predicates != null ? predicates[i] : pl[0], Boolean.class)) {
           LOG.trace("Record '{}' satisfies condition '{}', going to '{}' output stream",
                     record.getHeader().getSourceId(), pl[0], pl[1]);
           batchMaker.addRecord(record, pl[1]);
@@ -817,4 +817,53 @@ public class TestDirectorySpooler {
 
     spooler.destroy();
   }
+
+  @Test
+  public void testIncrementalDiscovery() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    File indexDir = new File(spoolDir.getParentFile(), "index").getAbsoluteFile();
+    assertTrue(indexDir.mkdirs());
+
+    File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+    new FileWriter(logFile1).close();
+
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setIncrementalDiscovery(true)
+        .setDiscoveryIndexDir(indexDir.getAbsolutePath());
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("");
+    Assert.assertEquals(logFile1.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+
+    File logFile2 = new File(spoolDir, "x2.log").getAbsoluteFile();
+    new FileWriter(logFile2).close();
+    File ignored = new File(spoolDir, "y.log").getAbsoluteFile();
+    new FileWriter(ignored).close();
+
+    // the watcher reports the events asynchronously, run the finder until it queues the new file
+    long lastReconciliation = Whitebox.getInternalState(spooler, "lastReconciliation");
+    long deadline = System.currentTimeMillis() + intervalMillis;
+    WrappedFile found = null;
+    while (found == null && System.currentTimeMillis() < deadline) {
+      spooler.finder.run();
+      found = spooler.poolForFile(100, TimeUnit.MILLISECONDS);
+    }
+    Assert.assertNotNull(found);
+    Assert.assertEquals(logFile2.getAbsolutePath(), found.getAbsolutePath());
+    // the new file is found without scanning the directory
+    Assert.assertEquals(lastReconciliation, (long) Whitebox.getInternalState(spooler, "lastReconciliation"));
+    Assert.assertNull(spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+    spooler.destroy();
+
+    // the files handed out for processing are persisted
+    File[] indexFiles = indexDir.listFiles();
+    Assert.assertEquals(1, indexFiles.length);
+    FileDiscoveryIndex index = new FileDiscoveryIndex(indexFiles[0]);
+    index.load();
+    Assert.assertEquals(2, index.size());
+    Assert.assertTrue(index.contains(logFile1.getAbsolutePath(), Files.getLastModifiedTime(logFile1.toPath()).toMillis(), 0));
+    Assert.assertTrue(index.contains(logFile2.getAbsolutePath(), Files.getLastModifiedTime(logFile2.toPath()).toMillis(), 0));
+    index.close();
+  }
 }
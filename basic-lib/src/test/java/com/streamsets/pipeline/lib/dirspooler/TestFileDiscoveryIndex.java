@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.UUID;
+
+public class TestFileDiscoveryIndex {
+  private File indexFile;
+
+  @Before
+  public void setUp() {
+    File dir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(dir.mkdirs());
+    indexFile = new File(dir, "discovery.index");
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    FileDiscoveryIndex index = new FileDiscoveryIndex(null);
+    index.load();
+    index.add("/dir/a", 1, 10);
+    Assert.assertTrue(index.contains("/dir/a"));
+    Assert.assertTrue(index.contains("/dir/a", 1, 10));
+    Assert.assertFalse(index.contains("/dir/a", 2, 10));
+    Assert.assertFalse(index.contains("/dir/a", 1, 20));
+    Assert.assertFalse(index.contains("/dir/b"));
+
+    // a changed file replaces its entry
+    index.add("/dir/a", 2, 20);
+    Assert.assertTrue(index.contains("/dir/a", 2, 20));
+    Assert.assertEquals(1, index.size());
+    index.close();
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    FileDiscoveryIndex index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    index.add("/dir/a", 1, 10);
+    index.add("/dir/b", 2, 20);
+    index.add("/dir/a", 3, 30);
+    index.close();
+
+    index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    Assert.assertEquals(2, index.size());
+    Assert.assertTrue(index.contains("/dir/a", 3, 30));
+    Assert.assertTrue(index.contains("/dir/b", 2, 20));
+
+    // entries dropped by a reconciliation scan are dropped from the file too
+    index.retain(ImmutableSet.of("/dir/b", "/dir/c"));
+    Assert.assertEquals(1, index.size());
+    index.close();
+
+    index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    Assert.assertEquals(1, index.size());
+    Assert.assertFalse(index.contains("/dir/a"));
+    Assert.assertTrue(index.contains("/dir/b", 2, 20));
+    index.close();
+  }
+
+  @Test
+  public void testTruncatedEntry() throws Exception {
+    FileDiscoveryIndex index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    index.add("/dir/a", 1, 10);
+    index.add("/dir/b", 2, 20);
+    index.close();
+
+    // simulate a crash while appending the last entry
+    long length = indexFile.length();
+    try (FileOutputStream out = new FileOutputStream(indexFile, true)) {
+      out.getChannel().truncate(length - 4);
+    }
+
+    index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    Assert.assertEquals(1, index.size());
+    Assert.assertTrue(index.contains("/dir/a", 1, 10));
+    index.add("/dir/c", 3, 30);
+    index.close();
+
+    index = new FileDiscoveryIndex(indexFile);
+    index.load();
+    Assert.assertEquals(2, index.size());
+    Assert.assertTrue(index.contains("/dir/c", 3, 30));
+    index.close();
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+
+import static com.streamsets.pipeline.lib.dirspooler.PathMatcherMode.GLOB;
+
+public class TestSplitFile {
+  private static final String HEADER = "id,value\n";
+
+  private WrappedFileSystem fs = new LocalFileSystem("*", GLOB);
+  private File dir;
+  private WrappedFile file;
+  private String content;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(dir.mkdirs());
+    StringBuilder sb = new StringBuilder(HEADER);
+    for (int i = 0; i < 100; i++) {
+      sb.append(i).append(",value").append(i).append("\n");
+    }
+    content = sb.toString();
+    File f = new File(dir, "large.csv");
+    Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    file = fs.getFile(f.getAbsolutePath());
+  }
+
+  private WrappedFile createFile(String name, String data) throws Exception {
+    File f = new File(dir, name);
+    Files.write(f.toPath(), data.getBytes(StandardCharsets.UTF_8));
+    return fs.getFile(f.getAbsolutePath());
+  }
+
+  private static String read(SplitFile.Split split) throws Exception {
+    try (InputStream is = split.open()) {
+      return new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void testSplitsAtLineBoundaries() throws Exception {
+    SplitFile splitFile = SplitFile.create("large.csv", file, 200, false);
+    List<SplitFile.Split> splits = splitFile.getSplits();
+    Assert.assertTrue(splits.size() > 1);
+
+    StringBuilder sb = new StringBuilder();
+    long start = 0;
+    for (SplitFile.Split split : splits) {
+      Assert.assertEquals(start, split.getStart());
+      String data = read(split);
+      Assert.assertTrue(data.endsWith("\n"));
+      sb.append(data);
+      start = split.getEnd();
+    }
+    Assert.assertEquals(content.length(), start);
+    Assert.assertEquals(content, sb.toString());
+  }
+
+  @Test
+  public void testHeaderPrefix() throws Exception {
+    SplitFile splitFile = SplitFile.create("large.csv", file, 200, true);
+    List<SplitFile.Split> splits = splitFile.getSplits();
+
+    Assert.assertTrue(read(splits.get(0)).startsWith(HEADER));
+    Assert.assertFalse(read(splits.get(0)).substring(HEADER.length()).startsWith(HEADER));
+    for (SplitFile.Split split : splits.subList(1, splits.size())) {
+      String data = read(split);
+      Assert.assertTrue(data.startsWith(HEADER));
+      Assert.assertEquals(split.getEnd() - split.getStart(), data.length() - HEADER.length());
+    }
+  }
+
+  @Test
+  public void testCommitAndRestore() throws Exception {
+    SplitFile splitFile = SplitFile.create("large.csv", file, 200, false);
+    List<SplitFile.Split> splits = splitFile.getSplits();
+    int count = splits.size();
+
+    Assert.assertFalse(splitFile.commit(splits.get(0), "-1", 10, 0));
+    Assert.assertFalse(splitFile.commit(splits.get(1), "25", 1, 1));
+
+    Offset offset = new Offset(Offset.VERSION_ONE, "large.csv", splitFile.getOffsetString(splits.get(2), "30"));
+    Assert.assertEquals("0", offset.getOffset());
+    Assert.assertNotNull(offset.getSplits());
+
+    SplitFile restored = SplitFile.restore("large.csv", file, offset.getSplits(), false);
+    Assert.assertEquals(count, restored.getSplits().size());
+    List<SplitFile.Split> pending = restored.getPendingSplits();
+    Assert.assertEquals(count - 1, pending.size());
+    Assert.assertEquals("25", pending.get(0).getPosition());
+    Assert.assertEquals("30", pending.get(1).getPosition());
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(splits.get(i).getStart(), restored.getSplits().get(i).getStart());
+      Assert.assertEquals(splits.get(i).getEnd(), restored.getSplits().get(i).getEnd());
+    }
+
+    // only the commit of the last split completes the file
+    for (int i = 1; i < count; i++) {
+      Assert.assertEquals(i == count - 1, splitFile.commit(splits.get(i), "-1", 1, 0));
+    }
+    Assert.assertFalse(splitFile.commit(splits.get(count - 1), "-1", 0, 0));
+    Assert.assertEquals(10 + 1 + count - 1, splitFile.getRecordCount());
+    Assert.assertEquals(1, splitFile.getErrorCount());
+
+    offset = new Offset(Offset.VERSION_ONE, "large.csv", splitFile.getFinishedOffsetString());
+    Assert.assertEquals("-1", offset.getOffset());
+    Assert.assertNull(offset.getSplits());
+  }
+
+  private static void checkDelimitedStarts(SplitFile splitFile, int quote, int escape) throws IOException {
+    for (SplitFile.Split split : splitFile.getSplits()) {
+      split.checkDelimitedStart(quote, escape);
+    }
+  }
+
+  @Test
+  public void testDelimitedRecordsAcrossSplits() throws Exception {
+    SplitFile splitFile = SplitFile.create("large.csv", file, 200, true);
+    checkDelimitedStarts(splitFile, '"', -1);
+
+    // quotes in quoted fields are doubled
+    String data = "1,\"a \"\"quoted\"\" value\"\n2,\"a multi\nline value\"\n3,value\n";
+    WrappedFile multiLine = createFile("multiline.csv", data);
+    int nextRecord = data.indexOf("3,value");
+    checkDelimitedStarts(SplitFile.create("multiline.csv", multiLine, nextRecord - 1, false), '"', -1);
+    int quotedLine = data.indexOf("line value");
+    splitFile = SplitFile.create("multiline.csv", multiLine, quotedLine - 1, false);
+    Assert.assertEquals(quotedLine, splitFile.getSplits().get(1).getStart());
+    // the first split is fine on its own
+    splitFile.getSplits().get(0).checkDelimitedStart('"', -1);
+    try {
+      splitFile.getSplits().get(1).checkDelimitedStart('"', -1);
+      Assert.fail();
+    } catch (IOException ex) {
+      // the second split starts inside the quoted value
+    }
+
+    data = "1,a value\n2,a multi\\\nline value\n3,value\n";
+    WrappedFile escaped = createFile("escaped.csv", data);
+    int lineFeed = data.indexOf("multi\\\n") + "multi\\\n".length();
+    splitFile = SplitFile.create("escaped.csv", escaped, lineFeed - 2, false);
+    Assert.assertEquals(lineFeed, splitFile.getSplits().get(1).getStart());
+    try {
+      splitFile.getSplits().get(1).checkDelimitedStart(-1, '\\');
+      Assert.fail();
+    } catch (IOException ex) {
+      // the second split starts after an escaped line feed
+    }
+    checkDelimitedStarts(splitFile, '"', -1);
+  }
+
+  @Test
+  public void testJsonObjectsAcrossSplits() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      sb.append("{\"id\": ").append(i).append(", \"value\": {\"nested\": true}}\n");
+    }
+    SplitFile splitFile = SplitFile.create("objects.json", createFile("objects.json", sb.toString()), 200, false);
+    Assert.assertTrue(splitFile.getSplits().size() > 1);
+    splitFile.checkJsonObjects();
+
+    sb = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      sb.append("{\n  \"id\": ").append(i).append(",\n  \"value\": {\n    \"nested\": true\n  }\n}\n");
+    }
+    splitFile = SplitFile.create("pretty.json", createFile("pretty.json", sb.toString()), 200, false);
+    Assert.assertTrue(splitFile.getSplits().size() > 1);
+    try {
+      splitFile.checkJsonObjects();
+      Assert.fail();
+    } catch (IOException ex) {
+      // the splits would start inside the pretty printed objects
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.localfilesystem;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.config.AvroCompression;
+import com.streamsets.pipeline.config.ChecksumAlgorithm;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.DestinationAvroSchemaSource;
+import com.streamsets.pipeline.config.WholeFileExistsAction;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import com.streamsets.pipeline.sdk.TargetRunner;
+import com.streamsets.pipeline.stage.destination.hdfs.CompressionMode;
+import com.streamsets.pipeline.stage.destination.hdfs.HdfsFileType;
+import com.streamsets.pipeline.stage.destination.hdfs.HdfsTarget;
+import com.streamsets.pipeline.stage.destination.hdfs.LateRecordsAction;
+import com.streamsets.pipeline.stage.destination.lib.DataGeneratorFormatConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class TestLocalFileSystemTarget {
+
+  private static final String AVRO_SCHEMA = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+      "{\"name\": \"name\", \"type\": \"string\"}," +
+      "{\"name\": \"age\", \"type\": [\"null\", \"int\"]}" +
+      "]}";
+
+  private static LocalFileSystemConfigBean createConfigBean(String dirPathTemplate) {
+    LocalFileSystemConfigBean configs = new LocalFileSystemConfigBean();
+    configs.uniquePrefix = "sdc";
+    configs.fileNameSuffix = "parquet";
+    configs.dirPathTemplateInHeader = false;
+    configs.dirPathTemplate = dirPathTemplate;
+    configs.timeZoneID = "UTC";
+    configs.timeDriver = "${time:now()}";
+    configs.maxRecordsPerFile = 0;
+    configs.maxFileSize = 0;
+    configs.idleTimeout = "-1";
+    configs.compression = CompressionMode.GZIP;
+    configs.fileType = HdfsFileType.PARQUET_FILE;
+    configs.keyEl = "${uuid()}";
+    configs.lateRecordsLimit = "${1 * HOURS}";
+    configs.lateRecordsAction = LateRecordsAction.SEND_TO_ERROR;
+    configs.lateRecordsDirPathTemplate = "";
+    configs.rollIfHeader = false;
+    configs.rollHeaderName = "roll";
+    configs.dataFormat = DataFormat.AVRO;
+    configs.dataGeneratorFormatConfig = new DataGeneratorFormatConfig();
+    configs.dataGeneratorFormatConfig.avroSchemaSource = DestinationAvroSchemaSource.INLINE;
+    configs.dataGeneratorFormatConfig.avroSchema = AVRO_SCHEMA;
+    configs.dataGeneratorFormatConfig.avroCompression = AvroCompression.NULL;
+    configs.dataGeneratorFormatConfig.fileNameEL = "";
+    configs.dataGeneratorFormatConfig.wholeFileExistsAction = WholeFileExistsAction.TO_ERROR;
+    configs.dataGeneratorFormatConfig.checksumAlgorithm = ChecksumAlgorithm.MD5;
+    return configs;
+  }
+
+  @Test
+  public void testParquetFile() throws Exception {
+    File dir = new File("target", UUID.randomUUID().toString()).getAbsoluteFile();
+    Assert.assertTrue(dir.mkdirs());
+
+    TargetRunner runner = new TargetRunner.Builder(
+        LocalFileSystemDTarget.class,
+        new HdfsTarget(createConfigBean(dir.getAbsolutePath()))
+    ).setOnRecordError(OnRecordError.STOP_PIPELINE).build();
+    runner.runInit();
+
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Map<String, Field> map = new LinkedHashMap<>();
+      map.put("name", Field.create("a" + i));
+      map.put("age", Field.create(Field.Type.INTEGER, i == 1 ? null : i));
+      Record record = RecordCreator.create();
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    runner.runWrite(records);
+    // the file is only readable once closed
+    runner.runDestroy();
+
+    File[] files = dir.listFiles((parent, name) -> name.startsWith("sdc_"));
+    Assert.assertNotNull(files);
+    Assert.assertEquals(1, files.length);
+    Assert.assertTrue(files[0].getName().endsWith(".parquet"));
+
+    try (ParquetReader<Group> reader = ParquetReader.builder(
+        new GroupReadSupport(),
+        new Path(files[0].getAbsolutePath())
+    ).withConf(new Configuration()).build()) {
+      for (int i = 0; i < 3; i++) {
+        Group group = reader.read();
+        Assert.assertNotNull(group);
+        Assert.assertEquals("a" + i, group.getString("name", 0));
+        if (i == 1) {
+          Assert.assertEquals(0, group.getFieldRepetitionCount("age"));
+        } else {
+          Assert.assertEquals(i, group.getInteger("age", 0));
+        }
+      }
+      Assert.assertNull(reader.read());
+    }
+  }
+}
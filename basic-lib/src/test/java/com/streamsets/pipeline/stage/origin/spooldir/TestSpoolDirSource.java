@@ -22,6 +22,7 @@ import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.api.lineage.LineageEvent;
@@ -29,15 +30,18 @@ import com.streamsets.pipeline.api.lineage.LineageEventType;
 import com.streamsets.pipeline.api.lineage.LineageSpecificAttribute;
 import com.streamsets.pipeline.config.Compression;
 import com.streamsets.pipeline.config.CsvHeader;
+import com.streamsets.pipeline.config.CsvMode;
 import com.streamsets.pipeline.config.DataFormat;
 import com.streamsets.pipeline.config.JsonMode;
 import com.streamsets.pipeline.config.OnParseError;
 import com.streamsets.pipeline.config.PostProcessingOptions;
+import com.streamsets.pipeline.lib.dirspooler.Errors;
 import com.streamsets.pipeline.lib.dirspooler.FileOrdering;
 import com.streamsets.pipeline.lib.dirspooler.Offset;
 import com.streamsets.pipeline.lib.dirspooler.PathMatcherMode;
 import com.streamsets.pipeline.sdk.DataCollectorServicesUtils;
 import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.StageRunner;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 import com.streamsets.pipeline.lib.dirspooler.SpoolDirConfigBean;
 import org.apache.commons.io.IOUtils;
@@ -49,6 +53,7 @@ import org.mockito.Mockito;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -58,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class TestSpoolDirSource {
@@ -931,6 +937,174 @@ public class TestSpoolDirSource {
 
   }
 
+  private static final int SPLIT_FILE_LINES = 250000;
+
+  // 2.25 MB of 9 byte lines, which is cut in 3 splits of 1 MB
+  private static File createSplitFile(String spoolDir) throws IOException {
+    File file = new File(spoolDir, "file-0.log");
+    try (FileOutputStream outputStream = new FileOutputStream(file)) {
+      for (int i = 0; i < SPLIT_FILE_LINES; i++) {
+        outputStream.write(String.format("%08d\n", i).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return file;
+  }
+
+  private SpoolDirConfigBean createSplitConfig(String spoolDir) {
+    SpoolDirConfigBean conf = new SpoolDirConfigBean();
+    conf.dataFormat = DataFormat.TEXT;
+    conf.spoolDir = spoolDir;
+    conf.batchSize = 1000;
+    conf.overrunLimit = 100;
+    conf.poolingTimeoutSecs = 1;
+    conf.filePattern = "file-[0-9].log";
+    conf.pathMatcherMode = PathMatcherMode.GLOB;
+    conf.maxSpoolFiles = 10;
+    conf.initialFileToProcess = null;
+    conf.dataFormatConfig.compression = Compression.NONE;
+    conf.dataFormatConfig.filePatternInArchive = "*";
+    conf.errorArchiveDir = null;
+    conf.postProcessing = PostProcessingOptions.ARCHIVE;
+    conf.archiveDir = createTestDir();
+    conf.retentionTimeMins = 10;
+    conf.dataFormatConfig.textMaxLineLen = 20;
+    conf.dataFormatConfig.onParseError = OnParseError.ERROR;
+    conf.dataFormatConfig.maxStackTraceLines = 0;
+    conf.allowLateDirectory = false;
+    conf.numberOfThreads = 4;
+    conf.splitLargeFiles = true;
+    conf.splitSizeMB = 1;
+    return conf;
+  }
+
+  private static boolean isFinishedOffset(StageRunner.Output output) throws StageException {
+    if (output.getOffsetEntity() == null || !output.getOffsetEntity().equals("file-0.log")) {
+      return false;
+    }
+    Offset offset = new Offset(Offset.VERSION_ONE, output.getOffsetEntity(), output.getNewOffset());
+    return Offset.MINUS_ONE.equals(offset.getOffset()) && offset.getSplits() == null;
+  }
+
+  /**
+   * Reads the split file with several runners from the given offsets, failing the first batch of records read from a
+   * split, and returns the values read.
+   */
+  private List<Integer> readSplitFile(SpoolDirConfigBean conf, Map<String, String> lastSourceOffsetMap)
+      throws Exception {
+    SpoolDirSource source = new SpoolDirSource(conf);
+    PushSourceRunner runner = new PushSourceRunner.Builder(SpoolDirDSource.class, source).addOutputLane("lane").build();
+
+    AtomicInteger batchCount = new AtomicInteger(0);
+    AtomicInteger failedBatches = new AtomicInteger(0);
+    final List<Integer> values = Collections.synchronizedList(new ArrayList<>());
+    runner.runInit();
+    try {
+      runner.runProduce(lastSourceOffsetMap, 1000, output -> {
+        List<Record> records = output.getRecords().get("lane");
+        // the split is read again from its last committed position
+        if (!records.isEmpty() && failedBatches.getAndIncrement() == 0) {
+          throw new StageException(Errors.SPOOLDIR_35, "failed batch");
+        }
+        for (Record record : records) {
+          values.add(Integer.parseInt(record.get("/text").getValueAsString()));
+        }
+        if (isFinishedOffset(output) || batchCount.incrementAndGet() > 1000) {
+          runner.setStop();
+        }
+      });
+      runner.waitOnProduce();
+
+      Assert.assertEquals(Offset.MINUS_ONE, new Offset(
+          Offset.VERSION_ONE,
+          "file-0.log",
+          runner.getOffsets().get("file-0.log")
+      ).getOffset());
+
+      // the runner completing the last split sends the events of the file and does the post processing
+      List<EventRecord> finished = new ArrayList<>();
+      for (EventRecord event : runner.getEventRecords()) {
+        if ("finished-file".equals(event.getEventType())) {
+          finished.add(event);
+        }
+      }
+      Assert.assertEquals(1, finished.size());
+      Assert.assertEquals(values.size(), finished.get(0).get("/record-count").getValueAsInteger());
+      Assert.assertEquals(0, finished.get(0).get("/error-count").getValueAsInteger());
+      Assert.assertFalse(new File(conf.spoolDir, "file-0.log").exists());
+      Assert.assertTrue(new File(conf.archiveDir, "file-0.log").exists());
+    } finally {
+      runner.runDestroy();
+    }
+    List<Integer> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  @Test
+  public void testSplitLargeFile() throws Exception {
+    String spoolDir = createTestDir();
+    createSplitFile(spoolDir);
+
+    List<Integer> values = readSplitFile(createSplitConfig(spoolDir), new HashMap<>());
+
+    // every line is read once, including the ones of the failed batch
+    Assert.assertEquals(IntStream.range(0, SPLIT_FILE_LINES).boxed().collect(Collectors.toList()), values);
+  }
+
+  @Test
+  public void testSplitLargeFileFromOffset() throws Exception {
+    String spoolDir = createTestDir();
+    createSplitFile(spoolDir);
+
+    // the first split was read, the second one half way through, the third one not at all
+    Map<String, String> lastSourceOffsetMap = ImmutableMap.of(
+        SpoolDirSource.OFFSET_VERSION, OFFSET_VERSION_ONE,
+        "file-0.log", new Offset(
+            Offset.VERSION_ONE,
+            "file-0.log",
+            "0",
+            "0-900000:-1;900000-1800000:450000;1800000-2250000:0"
+        ).getOffsetString()
+    );
+
+    List<Integer> values = readSplitFile(createSplitConfig(spoolDir), lastSourceOffsetMap);
+
+    Assert.assertEquals(
+        IntStream.range(SPLIT_FILE_LINES * 3 / 5, SPLIT_FILE_LINES).boxed().collect(Collectors.toList()),
+        values
+    );
+  }
+
+  private static boolean hasSplitIssue(SpoolDirConfigBean conf) throws StageException {
+    List<Stage.ConfigIssue> issues = new PushSourceRunner.Builder(SpoolDirDSource.class, new SpoolDirSource(conf))
+        .addOutputLane("lane")
+        .build()
+        .runValidateConfigs();
+    return issues.stream().anyMatch(issue -> issue.toString().contains(Errors.SPOOLDIR_36.getCode()));
+  }
+
+  @Test
+  public void testSplitLargeFilesValidation() throws Exception {
+    SpoolDirConfigBean conf = createSplitConfig(createTestDir());
+    Assert.assertFalse(hasSplitIssue(conf));
+
+    conf = createSplitConfig(createTestDir());
+    conf.dataFormat = DataFormat.JSON;
+    conf.dataFormatConfig.jsonContent = JsonMode.ARRAY_OBJECTS;
+    Assert.assertTrue(hasSplitIssue(conf));
+
+    conf = createSplitConfig(createTestDir());
+    conf.dataFormat = DataFormat.DELIMITED;
+    Assert.assertFalse(hasSplitIssue(conf));
+
+    // quotes are looked for byte by byte
+    conf = createSplitConfig(createTestDir());
+    conf.dataFormat = DataFormat.DELIMITED;
+    conf.dataFormatConfig.csvFileFormat = CsvMode.CUSTOM;
+    conf.dataFormatConfig.csvCustomQuote = '\u00ab';
+    Assert.assertTrue(hasSplitIssue(conf));
+  }
+
   @Test
   public void testErrorFileWithoutPreview() throws Exception {
     errorFile(false);
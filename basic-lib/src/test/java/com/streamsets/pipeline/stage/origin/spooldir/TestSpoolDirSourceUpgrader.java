@@ -77,4 +77,34 @@ public class TestSpoolDirSourceUpgrader {
     assertEquals(5, upgraded.get(0).getValue());
     assertEquals("conf.spoolingPeriod", upgraded.get(0).getName());
   }
+
+  @Test
+  public void testV10toV11() throws StageException {
+    SpoolDirSourceUpgrader spoolDirSourceUpgrader = new SpoolDirSourceUpgrader();
+
+    List<Config> configs = new ArrayList<>();
+    List<Config> upgraded = spoolDirSourceUpgrader.upgrade("x", "y", "z", 10, 11, configs);
+
+    assertEquals(3, upgraded.size());
+    assertEquals("conf.incrementalDiscovery", upgraded.get(0).getName());
+    assertEquals(false, upgraded.get(0).getValue());
+    assertEquals("conf.reconciliationPeriod", upgraded.get(1).getName());
+    assertEquals(300, upgraded.get(1).getValue());
+    assertEquals("conf.discoveryIndexDir", upgraded.get(2).getName());
+    assertEquals("", upgraded.get(2).getValue());
+  }
+
+  @Test
+  public void testV11toV12() throws StageException {
+    SpoolDirSourceUpgrader spoolDirSourceUpgrader = new SpoolDirSourceUpgrader();
+
+    List<Config> configs = new ArrayList<>();
+    List<Config> upgraded = spoolDirSourceUpgrader.upgrade("x", "y", "z", 11, 12, configs);
+
+    assertEquals(2, upgraded.size());
+    assertEquals("conf.splitLargeFiles", upgraded.get(0).getName());
+    assertEquals(false, upgraded.get(0).getValue());
+    assertEquals("conf.splitSizeMB", upgraded.get(1).getName());
+    assertEquals(128, upgraded.get(1).getValue());
+  }
 }
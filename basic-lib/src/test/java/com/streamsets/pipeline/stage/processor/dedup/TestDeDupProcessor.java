@@ -27,12 +27,14 @@ import com.streamsets.pipeline.sdk.StageRunner;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class TestDeDupProcessor {
 
@@ -493,6 +495,53 @@ public class TestDeDupProcessor {
     return record;
   }
 
+  @Test
+  public void testOffHeapDupWithinRecordTail() throws Exception {
+    Processor processor = new DeDupProcessor(2, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        HashStorage.OFF_HEAP, null);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+    try {
+      List<Record> input = ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("b"),
+          createRecordWithValue("b"),
+          createRecordWithValue("c"),
+          createRecordWithValue("a")
+      );
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(4, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+      Assert.assertEquals("b", output.getRecords().get("duplicate").get(0).get("/value").getValueAsString());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testOffHeapStorageSurvivesRestart() throws Exception {
+    String dir = new File("target", UUID.randomUUID().toString()).getAbsolutePath();
+    for (int run = 0; run < 2; run++) {
+      Processor processor = new DeDupProcessor(4, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+          HashStorage.OFF_HEAP, dir);
+      ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+          .addOutputLane("unique")
+          .addOutputLane("duplicate")
+          .build();
+      runner.runInit();
+      try {
+        StageRunner.Output output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+        Assert.assertEquals(run == 0 ? 1 : 0, output.getRecords().get("unique").size());
+        Assert.assertEquals(run == 0 ? 0 : 1, output.getRecords().get("duplicate").size());
+      } finally {
+        runner.runDestroy();
+      }
+    }
+  }
+
   private long getDefaultMemoryLimitMiB() {
     long maxMemoryMiB = Runtime.getRuntime().maxMemory() / 1000 / 1000;
     return (long)(maxMemoryMiB * 0.65);
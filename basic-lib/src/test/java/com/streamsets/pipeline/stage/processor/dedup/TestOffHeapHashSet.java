@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+public class TestOffHeapHashSet {
+
+  @Test
+  public void testAddAndCountEviction() throws Exception {
+    try (OffHeapHashSet set = new OffHeapHashSet(3, 0, null)) {
+      Assert.assertTrue(set.add(1, 1, 0));
+      Assert.assertTrue(set.add(1, 2, 0));
+      Assert.assertFalse(set.add(1, 1, 0));
+      Assert.assertTrue(set.add(1, 3, 0));
+      Assert.assertEquals(3, set.size());
+
+      // Evicts the oldest one (1, 1)
+      Assert.assertTrue(set.add(1, 4, 0));
+      Assert.assertEquals(3, set.size());
+      Assert.assertTrue(set.add(1, 1, 0));
+      Assert.assertFalse(set.add(1, 3, 0));
+      Assert.assertFalse(set.add(1, 4, 0));
+
+      // All zero hash is a valid hash
+      Assert.assertTrue(set.add(0, 0, 0));
+      Assert.assertFalse(set.add(0, 0, 0));
+    }
+  }
+
+  @Test
+  public void testTimeEviction() throws Exception {
+    try (OffHeapHashSet set = new OffHeapHashSet(10, 100, null)) {
+      Assert.assertTrue(set.add(1, 1, 1000));
+      Assert.assertTrue(set.add(1, 2, 1050));
+      Assert.assertFalse(set.add(1, 1, 1099));
+
+      set.evictExpired(1100);
+      Assert.assertEquals(1, set.size());
+      Assert.assertTrue(set.add(1, 1, 1100));
+      Assert.assertFalse(set.add(1, 2, 1100));
+      Assert.assertTrue(set.add(1, 2, 1150));
+    }
+  }
+
+  @Test
+  public void testCollidingHashes() throws Exception {
+    // Same low bits make all hashes land in the same probe sequence, evictions have to keep it consistent
+    int window = 100;
+    try (OffHeapHashSet set = new OffHeapHashSet(window, 0, null)) {
+      for (int i = 0; i < 10 * window; i++) {
+        Assert.assertTrue(set.add(i, 5, 0));
+        for (int j = Math.max(0, i - window + 1); j <= i; j++) {
+          Assert.assertFalse(set.add(j, 5, 0));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRandomAgainstReference() throws Exception {
+    int window = 1000;
+    Random random = new Random(42);
+    long[] ring = new long[window];
+    Set<Long> reference = new HashSet<>();
+    int head = 0;
+    try (OffHeapHashSet set = new OffHeapHashSet(window, 0, null)) {
+      for (int i = 0; i < 100000; i++) {
+        long hash = 1 + random.nextInt(3 * window);
+        boolean added = set.add(hash >> 4, hash, 0);
+        Assert.assertEquals(!reference.contains(hash), added);
+        if (added) {
+          if (reference.size() == window) {
+            reference.remove(ring[head]);
+          }
+          reference.add(hash);
+          ring[head] = hash;
+          head = (head + 1) % window;
+        }
+        Assert.assertEquals(reference.size(), set.size());
+      }
+    }
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    File dir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(dir.mkdirs());
+    File file = new File(dir, "hashes");
+
+    OffHeapHashSet set = new OffHeapHashSet(3, 0, file);
+    Assert.assertFalse(set.isRestored());
+    set.add(1, 1, 0);
+    set.add(1, 2, 0);
+    set.add(1, 3, 0);
+    set.add(1, 4, 0);
+
+    // File is locked while in use
+    try {
+      new OffHeapHashSet(3, 0, file);
+      Assert.fail();
+    } catch (IOException e) {
+      // Expected
+    }
+    set.close();
+
+    set = new OffHeapHashSet(3, 0, file);
+    Assert.assertTrue(set.isRestored());
+    Assert.assertEquals(3, set.size());
+    Assert.assertFalse(set.add(1, 2, 0));
+    Assert.assertFalse(set.add(1, 4, 0));
+    // Oldest remaining one is evicted
+    Assert.assertTrue(set.add(1, 5, 0));
+    Assert.assertTrue(set.add(1, 2, 0));
+    set.close();
+
+    // Different parameters discard the content
+    set = new OffHeapHashSet(4, 0, file);
+    Assert.assertFalse(set.isRestored());
+    Assert.assertEquals(0, set.size());
+    Assert.assertTrue(set.add(1, 5, 0));
+    set.close();
+  }
+}
@@ -247,4 +247,76 @@ public class TestSelectorProcessor {
     }
   }
 
+  @Test
+  public void testCommonSubExpressions() throws Exception {
+    CommonSubExpressions subExpressions = new CommonSubExpressions(ImmutableList.of(
+        "${record:value('/type') == 'a' && record:exists(\"/x\")}",
+        "${record:value( '/type' ) == 'record:value(\\'/type\\')' || record:value('/other') == 1}",
+        "${record:exists('/x') ? myrecord:value('/type') : str:contains('/type', 'a')}"
+    ));
+    Assert.assertTrue(subExpressions.hasCommonSubExpressions());
+    Assert.assertArrayEquals(
+        new String[] {
+            "${sdcSelectorExpr0 == 'a' && sdcSelectorExpr1}",
+            "${sdcSelectorExpr0 == 'record:value(\\'/type\\')' || record:value('/other') == 1}",
+            "${sdcSelectorExpr1 ? myrecord:value('/type') : str:contains('/type', 'a')}"
+        },
+        subExpressions.getPredicates()
+    );
+
+    subExpressions = new CommonSubExpressions(ImmutableList.of("${record:value('/a') == 1}", "${record:value('/b')}"));
+    Assert.assertFalse(subExpressions.hasCommonSubExpressions());
+  }
+
+  @Test
+  public void testSelectWithCommonSubExpressions() throws Exception {
+    ProcessorRunner runner = new ProcessorRunner.Builder(SelectorDProcessor.class)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addConfiguration("lanePredicates", createLanePredicates(
+            "a", "${record:value('/type') == 'a'}",
+            "b", "${record:value('/type') == 'b' || record:attribute('type') == 'b'}",
+            "c", "${record:exists('/missing') || record:type('/type') == 'INTEGER' || record:attribute('type') == 'c'}",
+            "d", "default"
+        ))
+        .addOutputLane("a")
+        .addOutputLane("b")
+        .addOutputLane("c")
+        .addOutputLane("d")
+        .build();
+
+    runner.runInit();
+    try {
+      List<Record> input = ImmutableList.of(
+          createTypeRecord(Field.create("a")),
+          createTypeRecord(Field.create("b")),
+          createTypeRecord(Field.create(1)),
+          createTypeRecord(Field.create("x")),
+          createTypeRecord(Field.create("y"))
+      );
+      input.get(3).getHeader().setAttribute("type", "c");
+
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(ImmutableSet.of("a", "b", "c", "d"), output.getRecords().keySet());
+      Assert.assertEquals(1, output.getRecords().get("a").size());
+      Assert.assertEquals("a", output.getRecords().get("a").get(0).get("/type").getValue());
+      Assert.assertEquals(1, output.getRecords().get("b").size());
+      Assert.assertEquals("b", output.getRecords().get("b").get(0).get("/type").getValue());
+      Assert.assertEquals(2, output.getRecords().get("c").size());
+      Assert.assertEquals(1, output.getRecords().get("c").get(0).get("/type").getValue());
+      Assert.assertEquals("x", output.getRecords().get("c").get(1).get("/type").getValue());
+      Assert.assertEquals(1, output.getRecords().get("d").size());
+      Assert.assertEquals("y", output.getRecords().get("d").get(0).get("/type").getValue());
+      Assert.assertTrue(runner.getErrorRecords().isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  private Record createTypeRecord(Field type) {
+    Record record = RecordCreator.create();
+    Map<String, Field> map = new HashMap<>();
+    map.put("type", type);
+    record.set(Field.create(map));
+    return record;
+  }
 }
@@ -25,11 +25,13 @@ import com.datastax.driver.core.KeyspaceMetadata;
 import com.datastax.driver.core.PlainTextAuthProvider;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.RemoteEndpointAwareJdkSSLOptions;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.TypeCodec;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import com.datastax.driver.core.exceptions.CodecNotFoundException;
+import com.datastax.driver.core.exceptions.DriverException;
 import com.datastax.driver.core.exceptions.InvalidTypeException;
 import com.datastax.driver.core.exceptions.NoHostAvailableException;
 import com.datastax.driver.dse.auth.DseGSSAPIAuthProvider;
@@ -42,6 +44,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
@@ -72,6 +75,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -295,8 +299,15 @@ public class CassandraTarget extends BaseTarget {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public void write(Batch batch) throws StageException {
+    if (conf.asyncWrites) {
+      writeAsync(batch);
+    } else {
+      writeBatches(batch);
+    }
+  }
+
+  private void writeBatches(Batch batch) throws StageException {
     // The batch holding the current batch to INSERT.
     BatchStatement batchedStatement = new BatchStatement(conf.batchType);
 
@@ -314,7 +325,7 @@ public class CassandraTarget extends BaseTarget {
         // this latest statement to it.
         if (batchedStatement.size() == conf.maxBatchSize) {
           session.execute(batchedStatement);
-          batchedStatement = new BatchStatement();
+          batchedStatement = new BatchStatement(conf.batchType);
         }
         batchedStatement.add(boundStmt);
       }
@@ -326,6 +337,56 @@ public class CassandraTarget extends BaseTarget {
     }
   }
 
+  /**
+   * Executes one statement per record asynchronously, with at most maxConcurrentWrites of them in flight. Bound
+   * prepared statements carry their routing key, so the (default) token aware policy sends each one to a replica.
+   * Once all the statements are submitted, the results are collected and failed records handled individually.
+   */
+  private void writeAsync(Batch batch) throws StageException {
+    Semaphore permits = new Semaphore(conf.maxConcurrentWrites);
+    List<Record> records = new ArrayList<>();
+    List<ResultSetFuture> futures = new ArrayList<>();
+
+    Iterator<Record> it = batch.getRecords();
+    try {
+      while (it.hasNext()) {
+        final Record record = it.next();
+
+        BoundStatement boundStmt = recordToBoundStatement(record);
+        // null bound statement means the record was an error record, see writeBatches()
+        if (boundStmt != null) {
+          permits.acquire();
+          ResultSetFuture future = session.executeAsync(boundStmt);
+          future.addListener(permits::release, MoreExecutors.directExecutor());
+          records.add(record);
+          futures.add(future);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(future -> future.cancel(true));
+      throw new StageException(Errors.CASSANDRA_07, e.toString(), e);
+    }
+
+    for (int i = 0; i < futures.size(); i++) {
+      Record record = records.get(i);
+      try {
+        futures.get(i).getUninterruptibly();
+      } catch (DriverException e) {
+        LOG.debug("Could not insert record '{}'", record.getHeader().getSourceId(), e);
+        errorRecordHandler.onError(
+            new OnRecordErrorException(
+                record,
+                Errors.CASSANDRA_11,
+                record.getHeader().getSourceId(),
+                e.toString(),
+                e
+            )
+        );
+      }
+    }
+  }
+
   /**
    * Convert a Record into a fully-bound statement.
    */
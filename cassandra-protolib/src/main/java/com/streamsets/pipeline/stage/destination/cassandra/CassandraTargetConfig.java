@@ -85,13 +85,41 @@ public class CassandraTargetConfig {
   @ValueChooserModel(CompressionChooserValues.class)
   public CassandraCompressionCodec compression = CassandraCompressionCodec.LZ4;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Asynchronous Writes",
+      description = "Writes each record with its own asynchronous statement instead of batches. Records that could " +
+          "not be written are handled individually. Records with the same primary key may be written out of order.",
+      displayPosition = 55,
+      group = "CASSANDRA"
+  )
+  public boolean asyncWrites = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "256",
+      min = 1,
+      label = "Max Concurrent Writes",
+      description = "Maximum number of asynchronous writes in flight at the same time",
+      displayPosition = 57,
+      group = "CASSANDRA",
+      dependsOn = "asyncWrites",
+      triggeredByValue = "true"
+  )
+  public int maxConcurrentWrites = 256;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
       defaultValue = "LOGGED",
       label = "Batch Type",
       description = "Un-logged batches do not use the Cassandra distributed batch log and as such as nonatomic.",
-      displayPosition = 60
+      displayPosition = 60,
+      dependsOn = "asyncWrites",
+      triggeredByValue = "false"
   )
   @ValueChooserModel(BatchTypeChooserValues.class)
   public BatchStatement.Type batchType = BatchStatement.Type.LOGGED;
@@ -104,7 +132,9 @@ public class CassandraTargetConfig {
       max = 65535,
       label = "Max Batch Size",
       description = "Maximum statements to batch prior to submission.",
-      displayPosition = 70
+      displayPosition = 70,
+      dependsOn = "asyncWrites",
+      triggeredByValue = "false"
   )
   public int maxBatchSize = 65535;
 
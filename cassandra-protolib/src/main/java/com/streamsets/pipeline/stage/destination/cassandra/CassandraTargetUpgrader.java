@@ -58,6 +58,12 @@ public class CassandraTargetUpgrader implements StageUpgrader {
         // fall through
       case 4:
         newConfigs = upgradeV4ToV5(newConfigs);
+        if (toVersion == 5) {
+          break;
+        }
+        // fall through
+      case 5:
+        upgradeV5ToV6(newConfigs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -73,6 +79,11 @@ public class CassandraTargetUpgrader implements StageUpgrader {
         .collect(Collectors.toList());
   }
 
+  private void upgradeV5ToV6(List<Config> configs) {
+    configs.add(new Config("conf.asyncWrites", false));
+    configs.add(new Config("conf.maxConcurrentWrites", 256));
+  }
+
   private void upgradeV1ToV2(List<Config> configs) {
     configs.add(new Config("compression", CassandraCompressionCodec.NONE));
   }
@@ -15,12 +15,16 @@
  */
 package com.streamsets.pipeline.stage.destination.cassandra;
 
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.LocalDate;
 import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.DriverException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.Field;
@@ -37,6 +41,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.CassandraContainer;
@@ -45,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static org.junit.Assert.fail;
 
@@ -569,6 +577,138 @@ public class TestCassandraTarget {
     Assert.assertEquals(1000, allRows.size());
   }
 
+  @Test
+  public void testAsyncWrites() throws Exception {
+    final String tableName = "test.trips";
+    List<CassandraFieldMappingConfig> fieldMappings = ImmutableList.of(
+        new CassandraFieldMappingConfig("[0]", "driver_id"),
+        new CassandraFieldMappingConfig("[1]", "trip_id"),
+        new CassandraFieldMappingConfig("[2]", "time"),
+        new CassandraFieldMappingConfig("[3]", "x"),
+        new CassandraFieldMappingConfig("[4]", "y"),
+        new CassandraFieldMappingConfig("[5]", "time_id"),
+        new CassandraFieldMappingConfig("[6]", "unique_id")
+    );
+
+    CassandraTargetConfig conf = new CassandraTargetConfig();
+    conf.contactPoints.add(cassandra.getContainerIpAddress());
+    conf.port = cassandra.getMappedPort(CASSANDRA_NATIVE_PORT);
+    conf.protocolVersion = ProtocolVersion.V4;
+    conf.authProviderOption = AuthProviderOption.NONE;
+    conf.compression = CassandraCompressionCodec.NONE;
+    conf.columnNames = fieldMappings;
+    conf.qualifiedTableName = tableName;
+    conf.asyncWrites = true;
+    conf.maxConcurrentWrites = 16;
+
+    Target target = new CassandraTarget(conf);
+    TargetRunner targetRunner = new TargetRunner.Builder(CassandraDTarget.class, target)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Record record = RecordCreator.create();
+      List<Field> fields = new ArrayList<>();
+      fields.add(Field.create(i));
+      fields.add(Field.create(2));
+      fields.add(Field.create(3));
+      fields.add(Field.create(4.0));
+      fields.add(Field.create(5.0));
+      fields.add(Field.create(SAMPLE_TIMEUUID));
+      fields.add(Field.create(SAMPLE_UUID));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+    targetRunner.runInit();
+    targetRunner.runWrite(records);
+
+    Assert.assertTrue(targetRunner.getErrorRecords().isEmpty());
+    Assert.assertTrue(targetRunner.getErrors().isEmpty());
+
+    targetRunner.runDestroy();
+
+    ResultSet resultSet = session.execute("SELECT * FROM test.trips");
+    List<Row> allRows = resultSet.all();
+    Assert.assertEquals(1000, allRows.size());
+  }
+
+  @Test
+  public void testAsyncWriteFailures() throws Exception {
+    final String tableName = "test.trips";
+    List<CassandraFieldMappingConfig> fieldMappings = ImmutableList.of(
+        new CassandraFieldMappingConfig("[0]", "driver_id"),
+        new CassandraFieldMappingConfig("[1]", "trip_id"),
+        new CassandraFieldMappingConfig("[2]", "time"),
+        new CassandraFieldMappingConfig("[3]", "x"),
+        new CassandraFieldMappingConfig("[4]", "y")
+    );
+
+    CassandraTargetConfig conf = new CassandraTargetConfig();
+    conf.contactPoints.add(cassandra.getContainerIpAddress());
+    conf.port = cassandra.getMappedPort(CASSANDRA_NATIVE_PORT);
+    conf.protocolVersion = ProtocolVersion.V4;
+    conf.authProviderOption = AuthProviderOption.NONE;
+    conf.compression = CassandraCompressionCodec.NONE;
+    conf.columnNames = fieldMappings;
+    conf.qualifiedTableName = tableName;
+    conf.asyncWrites = true;
+    conf.maxConcurrentWrites = 16;
+
+    Target target = new CassandraTarget(conf);
+    TargetRunner targetRunner = new TargetRunner.Builder(CassandraDTarget.class, target)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+    targetRunner.runInit();
+
+    // every 100th insert fails once executed, the rest go to the real session
+    Session realSession = (Session) Whitebox.getInternalState(target, "session");
+    Session failingSession = Mockito.mock(Session.class, AdditionalAnswers.delegatesTo(realSession));
+    Mockito.doAnswer(invocation -> {
+      BoundStatement statement = (BoundStatement) invocation.getArguments()[0];
+      if (statement.getInt("driver_id") % 100 != 0) {
+        return realSession.executeAsync(statement);
+      }
+      ResultSetFuture future = Mockito.mock(ResultSetFuture.class);
+      Mockito.when(future.getUninterruptibly()).thenThrow(new DriverException("Write failed"));
+      Mockito.doAnswer(listener -> {
+        ((Runnable) listener.getArguments()[0]).run();
+        return null;
+      }).when(future).addListener(Mockito.any(Runnable.class), Mockito.any(Executor.class));
+      return future;
+    }).when(failingSession).executeAsync(Mockito.any(Statement.class));
+    Whitebox.setInternalState(target, "session", failingSession);
+
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Record record = RecordCreator.create();
+      List<Field> fields = new ArrayList<>();
+      fields.add(Field.create(i));
+      fields.add(Field.create(2));
+      fields.add(Field.create(3));
+      fields.add(Field.create(4.0));
+      fields.add(Field.create(5.0));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+    targetRunner.runWrite(records);
+
+    List<Record> errorRecords = targetRunner.getErrorRecords();
+    Assert.assertEquals(10, errorRecords.size());
+    for (int i = 0; i < errorRecords.size(); i++) {
+      Assert.assertEquals(Errors.CASSANDRA_11.getCode(), errorRecords.get(i).getHeader().getErrorCode());
+      Assert.assertEquals(i * 100, errorRecords.get(i).get("[0]").getValueAsInteger());
+    }
+    Assert.assertTrue(targetRunner.getErrors().isEmpty());
+
+    Whitebox.setInternalState(target, "session", realSession);
+    targetRunner.runDestroy();
+
+    ResultSet resultSet = session.execute("SELECT * FROM test.trips");
+    List<Row> allRows = resultSet.all();
+    Assert.assertEquals(990, allRows.size());
+  }
+
   @Test
   public void testWriteNullValuedColumns() throws Exception {
     final String tableName = "test.test_null_values";
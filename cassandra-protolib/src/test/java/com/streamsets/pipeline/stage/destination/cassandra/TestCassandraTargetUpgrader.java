@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.cassandra;
+
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.api.StageUpgrader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestCassandraTargetUpgrader {
+
+  @Test
+  public void testV5ToV6() throws Exception {
+    StageUpgrader upgrader = new CassandraTargetUpgrader();
+    List<Config> configs = new ArrayList<>();
+    configs.add(new Config("conf.maxBatchSize", 65535));
+
+    configs = upgrader.upgrade("lib", "stage", "instance", 5, 6, configs);
+
+    Map<String, Object> values = new HashMap<>();
+    for (Config config : configs) {
+      values.put(config.getName(), config.getValue());
+    }
+    Assert.assertEquals(3, values.size());
+    Assert.assertEquals(false, values.get("conf.asyncWrites"));
+    Assert.assertEquals(256, values.get("conf.maxConcurrentWrites"));
+  }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.csv;
+
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunException;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Delimited parser with the same behavior and API as {@link OverrunCsvParser}, but tokenizing the data itself
+ * instead of going through commons-csv.
+ *
+ * The data is scanned in a single pass over a reusable char buffer, quotes and escapes are handled while scanning,
+ * and the token and row buffers are reused across records. Only the returned column values and arrays are allocated
+ * per record. The {@link CSVFormat} is used for its parsing settings only and is tokenized the same way commons-csv
+ * does it. The one difference is the reader position after comment lines, commons-csv does not account for the
+ * comment lines while this parser always returns the actual position in the stream.
+ */
+public class FastCsvParser implements Closeable, AutoCloseable {
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final int EOF = -1;
+  // last char before anything was read
+  private static final int UNDEFINED = -2;
+  // value for format chars that are not set, it never matches a char
+  private static final int DISABLED = -3;
+
+  private static final int CR = '\r';
+  private static final int LF = '\n';
+
+  // token types
+  private static final int TOKEN = 0;
+  private static final int EORECORD = 1;
+  private static final int EOS = 2;
+  private static final int COMMENT = 3;
+
+  private final OverrunReader reader;
+  private final int maxObjectLen;
+  private final int delimiter;
+  private final int quote;
+  private final int escape;
+  private final int commentMarker;
+  private final boolean ignoreEmptyLines;
+  private final boolean ignoreSurroundingSpaces;
+  private final boolean trim;
+  private final boolean trailingDelimiter;
+  private final String nullString;
+
+  private final char[] buffer = new char[BUFFER_SIZE];
+  // position in the stream of the first char in the buffer
+  private long bufferOffset;
+  private int bufferPos;
+  private int bufferLen;
+  private boolean eos;
+  private int lastChar = UNDEFINED;
+
+  private char[] token = new char[128];
+  private int tokenLen;
+  // true if an EOS token still has a value
+  private boolean tokenReady;
+  private String[] values = new String[16];
+  private int valuesLen;
+
+  private long currentPos;
+  private boolean started;
+  private String[] nextRecord;
+  private final String[] headers;
+  private boolean overrun;
+  private boolean closed;
+
+  public FastCsvParser(
+      OverrunReader reader,
+      CSVFormat format,
+      long initialPosition,
+      int skipStartLines,
+      int maxObjectLen
+  ) throws IOException {
+    Utils.checkNotNull(reader, "reader");
+    Utils.checkArgument(reader.getPos() == 0,
+        "reader must be in position zero, the FastCsvParser will fast-forward to the initialPosition");
+    Utils.checkNotNull(format, "format");
+    Utils.checkArgument(format.getHeader() == null, "format must not define the header, it is read from the data");
+    Utils.checkArgument(initialPosition >= 0, "initialPosition must be greater or equal than zero");
+    Utils.checkArgument(skipStartLines >= 0, "skipStartLines must be greater or equal than zero");
+    this.reader = reader;
+    this.maxObjectLen = maxObjectLen;
+    delimiter = format.getDelimiter();
+    quote = toInt(format.getQuoteCharacter());
+    escape = toInt(format.getEscapeCharacter());
+    commentMarker = toInt(format.getCommentMarker());
+    ignoreEmptyLines = format.getIgnoreEmptyLines();
+    ignoreSurroundingSpaces = format.getIgnoreSurroundingSpaces();
+    trim = format.getTrim();
+    trailingDelimiter = format.getTrailingDelimiter();
+    nullString = format.getNullString();
+    reader.setEnabled(true);
+
+    currentPos = initialPosition;
+    if (initialPosition == 0) {
+      if (skipStartLines > 0) {
+        skipLines(skipStartLines);
+        currentPos = getPosition();
+      }
+      headers = (format.getSkipHeaderRecord()) ? read() : null;
+    } else {
+      if (format.getSkipHeaderRecord()) {
+        headers = read();
+        while (getReaderPosition() < initialPosition && read() != null) {
+        }
+        if (getReaderPosition() != initialPosition) {
+          throw new IOException(Utils.format("Could not position reader at position '{}', got '{}' instead",
+              initialPosition, getReaderPosition()));
+        }
+      } else {
+        IOUtils.skipFully(reader, initialPosition);
+        bufferOffset = initialPosition;
+        headers = null;
+      }
+    }
+    fixNullHeaderNames();
+  }
+
+  private static int toInt(Character c) {
+    return (c == null) ? DISABLED : c;
+  }
+
+  private void fixNullHeaderNames() {
+    // makes sure any blank column names in the header get replaced with an incremental string value
+    if (headers == null) return;
+    for (int x = 0; x < headers.length; x++) {
+      if (StringUtils.isEmpty(headers[x])) {
+        headers[x] = "empty-" + x;
+      }
+    }
+  }
+
+  private void skipLines(int lines) throws IOException {
+    int skipped = 0;
+    while (skipped < lines) {
+      int c = readChar();
+      if (c == EOF) {
+        throw new IOException(Utils.format("Could not skip '{}' lines, reached EOF", lines));
+      }
+      // this is enough to handle \n and \r\n EOL files
+      if (c == LF) {
+        skipped++;
+      }
+    }
+    // the records start as a new stream
+    lastChar = UNDEFINED;
+  }
+
+  public String[] getHeaders() throws IOException {
+    return headers;
+  }
+
+  public long getReaderPosition() {
+    return currentPos;
+  }
+
+  public String[] read() throws IOException {
+    if (closed) {
+      throw new IOException("Parser has been closed");
+    }
+    try {
+      if (!started) {
+        started = true;
+        nextRecord = nextRecord();
+      }
+      String[] record = nextRecord;
+      long nextPos = getPosition();
+      if (nextRecord != null) {
+        nextRecord = nextRecord();
+      }
+      long prevPos = currentPos;
+      currentPos = (nextRecord != null) ? nextPos : getPosition();
+      if (maxObjectLen > -1) {
+        if (currentPos - prevPos > maxObjectLen) {
+          throw new ObjectLengthException(Utils.format(
+              "CSV Object at offset '{}' exceeds max length '{}'", prevPos, maxObjectLen), prevPos);
+        }
+      }
+      return record;
+    } catch (OverrunException ex) {
+      overrun = true;
+      throw ex;
+    }
+  }
+
+  private String[] nextRecord() throws IOException {
+    if (overrun) {
+      throw new IOException("The parser is unusable, the underlying reader had an overrun");
+    }
+    reader.resetCount();
+    valuesLen = 0;
+    int type;
+    do {
+      type = nextToken();
+      switch (type) {
+        case TOKEN:
+          addValue(false);
+          break;
+        case EORECORD:
+          addValue(true);
+          break;
+        case EOS:
+          if (tokenReady) {
+            addValue(true);
+          }
+          break;
+        case COMMENT:
+          // comment lines are skipped, keep reading the record
+          type = TOKEN;
+          break;
+        default:
+          throw new IllegalStateException(Utils.format("Unknown token type '{}'", type));
+      }
+    } while (type == TOKEN);
+    return (valuesLen == 0) ? null : Arrays.copyOf(values, valuesLen);
+  }
+
+  private void addValue(boolean lastValue) {
+    String value = (tokenLen == 0) ? "" : new String(token, 0, tokenLen);
+    if (trim) {
+      value = value.trim();
+    }
+    if (lastValue && value.isEmpty() && trailingDelimiter) {
+      return;
+    }
+    if (valuesLen == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+    values[valuesLen++] = value.equals(nullString) ? null : value;
+  }
+
+  // Tokenizer, it follows the commons-csv lexer so the data is tokenized in the same way.
+
+  private int nextToken() throws IOException {
+    tokenLen = 0;
+    tokenReady = false;
+    int last = lastChar;
+    int c = readChar();
+    boolean eol = readEndOfLine(c);
+    if (ignoreEmptyLines) {
+      while (eol && isStartOfLine(last)) {
+        last = c;
+        c = readChar();
+        eol = readEndOfLine(c);
+        if (c == EOF) {
+          return EOS;
+        }
+      }
+    }
+    if (last == EOF || (last != delimiter && c == EOF)) {
+      return EOS;
+    }
+    if (isStartOfLine(last) && c == commentMarker) {
+      return skipComment();
+    }
+    if (ignoreSurroundingSpaces) {
+      while (isWhitespace(c) && !eol) {
+        c = readChar();
+        eol = readEndOfLine(c);
+      }
+    }
+    if (c == delimiter) {
+      return TOKEN;
+    } else if (eol) {
+      return EORECORD;
+    } else if (c == quote) {
+      return parseEncapsulatedToken();
+    } else if (c == EOF) {
+      tokenReady = true;
+      return EOS;
+    } else {
+      return parseSimpleToken(c);
+    }
+  }
+
+  private int skipComment() throws IOException {
+    int c = readChar();
+    if (c == EOF) {
+      return EOS;
+    }
+    while (c != EOF && c != LF && c != CR) {
+      c = readChar();
+    }
+    if (c == CR && lookAhead() == LF) {
+      readChar();
+    }
+    lastChar = LF;
+    return COMMENT;
+  }
+
+  private int parseSimpleToken(int c) throws IOException {
+    int type;
+    while (true) {
+      if (readEndOfLine(c)) {
+        type = EORECORD;
+        break;
+      } else if (c == EOF) {
+        tokenReady = true;
+        type = EOS;
+        break;
+      } else if (c == delimiter) {
+        type = TOKEN;
+        break;
+      } else if (c == escape) {
+        appendEscaped(c);
+      } else {
+        append((char) c);
+        // copy the run of plain chars in one go
+        int start = bufferPos;
+        while (bufferPos < bufferLen) {
+          char next = buffer[bufferPos];
+          if (next == delimiter || next == CR || next == LF || next == escape) {
+            break;
+          }
+          bufferPos++;
+        }
+        appendRun(start);
+      }
+      c = readChar();
+    }
+    if (ignoreSurroundingSpaces) {
+      while (tokenLen > 0 && Character.isWhitespace(token[tokenLen - 1])) {
+        tokenLen--;
+      }
+    }
+    return type;
+  }
+
+  private int parseEncapsulatedToken() throws IOException {
+    long startPos = getPosition() - 1;
+    while (true) {
+      int c = readChar();
+      if (c == escape) {
+        appendEscaped(c);
+      } else if (c == quote) {
+        if (lookAhead() == quote) {
+          append((char) readChar());
+        } else {
+          while (true) {
+            c = readChar();
+            if (c == delimiter) {
+              return TOKEN;
+            } else if (c == EOF) {
+              tokenReady = true;
+              return EOS;
+            } else if (readEndOfLine(c)) {
+              return EORECORD;
+            } else if (!isWhitespace(c)) {
+              throw new IOException(Utils.format(
+                  "(position {}) invalid char between encapsulated token and delimiter", getPosition() - 1));
+            }
+          }
+        }
+      } else if (c == EOF) {
+        throw new IOException(Utils.format(
+            "(start position {}) EOF reached before encapsulated token finished", startPos));
+      } else {
+        append((char) c);
+        // copy the run of plain chars in one go
+        int start = bufferPos;
+        while (bufferPos < bufferLen) {
+          char next = buffer[bufferPos];
+          if (next == quote || next == escape) {
+            break;
+          }
+          bufferPos++;
+        }
+        appendRun(start);
+      }
+    }
+  }
+
+  private void appendEscaped(int c) throws IOException {
+    int unescaped = readEscape();
+    if (unescaped == EOF) {
+      // not an escape sequence, keep both chars
+      append((char) c);
+      append((char) lastChar);
+    } else {
+      append((char) unescaped);
+    }
+  }
+
+  private int readEscape() throws IOException {
+    int c = readChar();
+    switch (c) {
+      case 'r':
+        return CR;
+      case 'n':
+        return LF;
+      case 't':
+        return '\t';
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case CR:
+      case LF:
+      case '\f':
+      case '\t':
+      case '\b':
+        return c;
+      case EOF:
+        throw new IOException("EOF whilst processing escape sequence");
+      default:
+        if (c == delimiter || c == escape || c == quote || c == commentMarker) {
+          return c;
+        }
+        return EOF;
+    }
+  }
+
+  private boolean readEndOfLine(int c) throws IOException {
+    if (c == CR && lookAhead() == LF) {
+      c = readChar();
+    }
+    return c == LF || c == CR;
+  }
+
+  private static boolean isStartOfLine(int c) {
+    return c == LF || c == CR || c == UNDEFINED;
+  }
+
+  private boolean isWhitespace(int c) {
+    return c != delimiter && c != EOF && Character.isWhitespace((char) c);
+  }
+
+  private void append(char c) {
+    if (tokenLen == token.length) {
+      token = Arrays.copyOf(token, token.length * 2);
+    }
+    token[tokenLen++] = c;
+  }
+
+  // appends the buffer chars from start to the current buffer position
+  private void appendRun(int start) {
+    int len = bufferPos - start;
+    if (len > 0) {
+      if (tokenLen + len > token.length) {
+        token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLen + len));
+      }
+      System.arraycopy(buffer, start, token, tokenLen, len);
+      tokenLen += len;
+      lastChar = buffer[bufferPos - 1];
+    }
+  }
+
+  // Buffer
+
+  private long getPosition() {
+    return bufferOffset + bufferPos;
+  }
+
+  private int readChar() throws IOException {
+    if (bufferPos == bufferLen && !fill()) {
+      lastChar = EOF;
+    } else {
+      lastChar = buffer[bufferPos++];
+    }
+    return lastChar;
+  }
+
+  private int lookAhead() throws IOException {
+    return (bufferPos == bufferLen && !fill()) ? EOF : buffer[bufferPos];
+  }
+
+  private boolean fill() throws IOException {
+    if (eos) {
+      return false;
+    }
+    bufferOffset += bufferLen;
+    bufferPos = 0;
+    bufferLen = 0;
+    int read = reader.read(buffer, 0, buffer.length);
+    if (read == -1) {
+      eos = true;
+      return false;
+    }
+    bufferLen = read;
+    return read > 0 || fill();
+  }
+
+  @Override
+  public void close() {
+    try {
+      closed = true;
+      reader.close();
+    } catch (IOException ex) {
+      //NOP
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.csv;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunException;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TestFastCsvParser {
+
+  private static final List<CSVFormat> FORMATS = ImmutableList.of(
+      CSVFormat.DEFAULT,
+      CSVFormat.RFC4180,
+      CSVFormat.EXCEL,
+      CSVFormat.MYSQL,
+      CSVFormat.TDF,
+      CSVFormat.POSTGRESQL_CSV,
+      CSVFormat.POSTGRESQL_TEXT,
+      CSVFormat.DEFAULT.withDelimiter('|').withEscape('\\').withQuote('\''),
+      CSVFormat.DEFAULT.withTrim().withTrailingDelimiter(),
+      CSVFormat.DEFAULT.withHeader((String[]) null).withSkipHeaderRecord(true)
+  );
+
+  @Before
+  public void setUp() {
+    System.getProperties().remove(OverrunReader.READ_LIMIT_SYS_PROP);
+    OverrunReader.reInitializeDefaultReadLimit();
+  }
+
+  @After
+  public void cleanUp() {
+    setUp();
+  }
+
+  private static OverrunReader createReader(String data) {
+    return new OverrunReader(new StringReader(data), OverrunReader.getDefaultReadLimit(), false, false);
+  }
+
+  // Returns headers, records with the reader positions and the type of the exception that stopped the parsing
+  private static List<String> parseWithCommonsCsv(String data, CSVFormat format, long offset, int maxObjectLen) {
+    List<String> result = new ArrayList<>();
+    try (OverrunCsvParser parser = new OverrunCsvParser(createReader(data), format, offset, 0, maxObjectLen)) {
+      result.add(Arrays.toString(parser.getHeaders()) + "@" + parser.getReaderPosition());
+      readAll(result, parser::read, parser::getReaderPosition);
+    } catch (IOException | RuntimeException ex) {
+      result.add(ex.getClass().getSimpleName());
+    }
+    return result;
+  }
+
+  private static List<String> parseWithFastCsv(String data, CSVFormat format, long offset, int maxObjectLen) {
+    List<String> result = new ArrayList<>();
+    try (FastCsvParser parser = new FastCsvParser(createReader(data), format, offset, 0, maxObjectLen)) {
+      result.add(Arrays.toString(parser.getHeaders()) + "@" + parser.getReaderPosition());
+      readAll(result, parser::read, parser::getReaderPosition);
+    } catch (IOException | RuntimeException ex) {
+      result.add(ex.getClass().getSimpleName());
+    }
+    return result;
+  }
+
+  private interface Reader {
+    String[] read() throws IOException;
+  }
+
+  private interface Position {
+    long get();
+  }
+
+  private static void readAll(List<String> result, Reader reader, Position position) throws IOException {
+    while (true) {
+      try {
+        String[] record = reader.read();
+        result.add(Arrays.toString(record) + "@" + position.get());
+        if (record == null) {
+          break;
+        }
+      } catch (ObjectLengthException ex) {
+        result.add("ObjectLengthException@" + position.get());
+      }
+    }
+  }
+
+  private static String randomData(Random random, String chars, int maxLength) {
+    StringBuilder sb = new StringBuilder();
+    int length = random.nextInt(maxLength);
+    for (int i = 0; i < length; i++) {
+      sb.append(chars.charAt(random.nextInt(chars.length())));
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testSameAsCommonsCsv() throws Exception {
+    Random random = new Random(0);
+    for (int i = 0; i < 2000; i++) {
+      String data = randomData(random, "ab ,|\t\"'\\\n\rN", 60);
+      for (CSVFormat format : FORMATS) {
+        Assert.assertEquals(
+            format + " " + data,
+            parseWithCommonsCsv(data, format, 0, -1),
+            parseWithFastCsv(data, format, 0, -1)
+        );
+        Assert.assertEquals(
+            format + " " + data,
+            parseWithCommonsCsv(data, format, 0, 10),
+            parseWithFastCsv(data, format, 0, 10)
+        );
+      }
+    }
+  }
+
+  @Test
+  public void testSameAsCommonsCsvFromOffset() throws Exception {
+    String data = "h1,h2\na,b\n\n\"c\nc\",d\r\ne,\"f\"\"f\"\n";
+    for (CSVFormat format : FORMATS) {
+      for (long offset : new long[] {6, 10, 11, 19, 21}) {
+        Assert.assertEquals(
+            format + " " + offset,
+            parseWithCommonsCsv(data, format, offset, -1),
+            parseWithFastCsv(data, format, offset, -1)
+        );
+      }
+    }
+  }
+
+  @Test
+  public void testComments() throws Exception {
+    CSVFormat format = CSVFormat.DEFAULT.withCommentMarker('#');
+    FastCsvParser parser = new FastCsvParser(createReader("#c\na,b\n#c\r\nc#,d\n#"), format, 0, 0, -1);
+    Assert.assertArrayEquals(new String[] {"a", "b"}, parser.read());
+    Assert.assertEquals(7, parser.getReaderPosition());
+    Assert.assertArrayEquals(new String[] {"c#", "d"}, parser.read());
+    Assert.assertEquals(17, parser.getReaderPosition());
+    Assert.assertNull(parser.read());
+    parser.close();
+  }
+
+  @Test
+  public void testSkipStartLines() throws Exception {
+    CSVFormat format = CSVFormat.DEFAULT.withSkipHeaderRecord(true);
+    FastCsvParser parser = new FastCsvParser(createReader("x\ny\nh1,h2\na,b\n"), format, 0, 2, -1);
+    Assert.assertArrayEquals(new String[] {"h1", "h2"}, parser.getHeaders());
+    Assert.assertEquals(10, parser.getReaderPosition());
+    Assert.assertArrayEquals(new String[] {"a", "b"}, parser.read());
+    Assert.assertNull(parser.read());
+    parser.close();
+  }
+
+  @Test
+  public void testWideAndNarrow() throws Exception {
+    for (int columns : new int[] {3, 200}) {
+      StringBuilder sb = new StringBuilder();
+      for (int row = 0; row < 2000; row++) {
+        for (int column = 0; column < columns; column++) {
+          sb.append(column == 0 ? "" : ",").append(column % 2 == 0 ? "value" + row : "\"quoted, \"\"value\"\"\"");
+        }
+        sb.append("\n");
+      }
+      String data = sb.toString();
+      Assert.assertEquals(
+          parseWithCommonsCsv(data, CSVFormat.DEFAULT, 0, -1),
+          parseWithFastCsv(data, CSVFormat.DEFAULT, 0, -1)
+      );
+    }
+  }
+
+  @Test(expected = OverrunException.class)
+  public void testOverrun() throws Exception {
+    System.setProperty(OverrunReader.READ_LIMIT_SYS_PROP, "10000");
+    OverrunReader.reInitializeDefaultReadLimit();
+    String data = "a,b\n" + "a," + Strings.repeat("b", 20000) + ",c\na,b\n";
+    FastCsvParser parser = new FastCsvParser(createReader(data), CSVFormat.DEFAULT, 0, 0, -1);
+    parser.read();
+  }
+
+}
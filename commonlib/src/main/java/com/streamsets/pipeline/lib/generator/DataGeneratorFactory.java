@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.lib.generator;
 
 
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.lib.data.DataFactory;
 import org.apache.commons.io.IOUtils;
 
@@ -53,7 +54,22 @@ public abstract class DataGeneratorFactory extends DataFactory {
 
   public abstract DataGenerator getGenerator(OutputStream os) throws IOException;
 
+  /**
+   * Serializes a single record with a generator on the given buffer, which is reset first. The buffer should be
+   * reused for all the records, generators created on it reuse their writers and encoders across the records.
+   */
+  public byte[] serialize(Record record, DataGeneratorBuffer buffer) throws IOException, DataGeneratorException {
+    buffer.reset();
+    try (DataGenerator generator = getGenerator(buffer)) {
+      generator.write(record);
+    }
+    return buffer.toByteArray();
+  }
+
   public Writer createWriter(OutputStream os) {
+    if (os instanceof DataGeneratorBuffer) {
+      return ((DataGeneratorBuffer) os).getWriter(getSettings().getCharset());
+    }
     return new OutputStreamWriter(os, getSettings().getCharset());
   }
 
@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.DestinationAvroSchemaSource;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
 import com.streamsets.pipeline.lib.util.SchemaRegistryException;
@@ -140,6 +141,19 @@ public class AvroDataGeneratorFactory extends DataGeneratorFactory {
           schemaHelper,
           schemaId
       );
+    } else if (os instanceof DataGeneratorBuffer) {
+      DataGeneratorBuffer buffer = (DataGeneratorBuffer) os;
+      dataGenerator = new AvroMessageGenerator(
+        schemaInHeader,
+        os,
+        schema,
+        defaultValuesFromSchema,
+        schemaSubject,
+        schemaHelper,
+        schemaId,
+        (AvroMessageGenerator) buffer.getState(this)
+      );
+      buffer.setState(this, dataGenerator);
     } else {
       dataGenerator = new AvroMessageGenerator(
         schemaInHeader,
@@ -19,8 +19,8 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.util.AvroJavaSnappyCodec;
+import com.streamsets.pipeline.lib.util.AvroRecordEncoder;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
-import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileWriter;
@@ -44,6 +44,7 @@ public class AvroDataOutputStreamGenerator extends BaseAvroDataGenerator {
   private OutputStream outputStream;
   private String compressionCodec;
   private DataFileWriter<GenericRecord> dataFileWriter;
+  private AvroRecordEncoder recordEncoder;
 
   public AvroDataOutputStreamGenerator(
       boolean schemaInHeader,
@@ -69,12 +70,13 @@ public class AvroDataOutputStreamGenerator extends BaseAvroDataGenerator {
     dataFileWriter = new DataFileWriter<>(datumWriter);
     dataFileWriter.setCodec(CodecFactory.fromString(compressionCodec));
     dataFileWriter.create(schema, outputStream);
+    recordEncoder = new AvroRecordEncoder(schema, defaultValueMap);
   }
 
   @Override
   protected void writeRecord(Record record) throws IOException, DataGeneratorException {
     try {
-      dataFileWriter.append((GenericRecord)AvroTypeUtil.sdcRecordToAvro(record, schema, defaultValueMap));
+      dataFileWriter.appendEncoded(recordEncoder.encode(record));
     } catch (StageException e) {
       throw new DataGeneratorException(e.getErrorCode(), e.getParams()); // params includes cause
     }
@@ -18,12 +18,10 @@ package com.streamsets.pipeline.lib.generator.avro;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.util.AvroRecordEncoder;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
-import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
 
 import java.io.Closeable;
@@ -34,8 +32,10 @@ import java.util.Map;
 
 public class AvroMessageGenerator extends BaseAvroDataGenerator {
 
-  private DatumWriter<Object> datumWriter;
+  private AvroRecordEncoder recordEncoder;
   private BinaryEncoder binaryEncoder;
+  private Schema writerSchema;
+  private AvroMessageGenerator previous;
   private final OutputStream outputStream;
 
   public AvroMessageGenerator(
@@ -46,10 +46,38 @@ public class AvroMessageGenerator extends BaseAvroDataGenerator {
       String schemaSubject,
       AvroSchemaHelper schemaHelper,
       int schemaId
+  ) throws IOException {
+    this(schemaInHeader, outputStream, schema, defaultValueMap, schemaSubject, schemaHelper, schemaId, null);
+  }
+
+  /**
+   * Creates a generator reusing the binary encoder, and the record encoder and schema if they still apply, of the
+   * generator that wrote the previous message. The previous generator must not be used anymore.
+   */
+  public AvroMessageGenerator(
+      boolean schemaInHeader,
+      OutputStream outputStream,
+      Schema schema,
+      Map<String, Object> defaultValueMap,
+      String schemaSubject,
+      AvroSchemaHelper schemaHelper,
+      int schemaId,
+      AvroMessageGenerator previous
   ) throws IOException {
     super(schemaInHeader, schema, defaultValueMap, schemaHelper, schemaSubject, schemaId);
     this.outputStream = outputStream;
-    this.binaryEncoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+    this.binaryEncoder = EncoderFactory.get().binaryEncoder(
+        outputStream,
+        previous == null ? null : previous.binaryEncoder
+    );
+    // A generator that failed before initializing passes on what it got from its own previous generator
+    if (previous != null && previous.previous != null) {
+      previous = previous.previous;
+    }
+    this.previous = previous;
+    if (schemaInHeader) {
+      setPrevious(previous);
+    }
 
     if(!schemaInHeader) {
       initialize();
@@ -58,7 +86,14 @@ public class AvroMessageGenerator extends BaseAvroDataGenerator {
 
   @Override
   protected void initializeWriter() {
-    datumWriter = new GenericDatumWriter<>(schema);
+    if (previous != null && previous.recordEncoder != null && previous.writerSchema == schema &&
+        previous.defaultValueMap == defaultValueMap) {
+      recordEncoder = previous.recordEncoder;
+    } else {
+      recordEncoder = new AvroRecordEncoder(schema, defaultValueMap);
+    }
+    writerSchema = schema;
+    previous = null;
   }
 
   @Override
@@ -72,10 +107,7 @@ public class AvroMessageGenerator extends BaseAvroDataGenerator {
   @Override
   public void writeRecord(Record record) throws IOException, DataGeneratorException {
     try {
-      datumWriter.write(
-          AvroTypeUtil.sdcRecordToAvro(record, schema, defaultValueMap),
-          binaryEncoder
-      );
+      recordEncoder.write(record, binaryEncoder);
     } catch (StageException e) {
       throw new DataGeneratorException(e.getErrorCode(), e.getParams()); // params includes cause
     }
@@ -115,6 +115,11 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
   }
   private State state;
 
+  /**
+   * Generator that wrote the previous record to the same output, its parsed schema is reused when possible.
+   */
+  private BaseAvroDataGenerator previous;
+
   public BaseAvroDataGenerator(
       boolean schemaInHeader,
       Schema schema,
@@ -132,6 +137,13 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
     this.schemaId = schemaId;
   }
 
+  /**
+   * Reuse the schema parsed from record header by the given generator if the next record carries the same one.
+   */
+  protected void setPrevious(BaseAvroDataGenerator previous) {
+    this.previous = previous;
+  }
+
   protected void initialize() throws IOException {
     initializeWriter();
 
@@ -154,8 +166,14 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
   private void initializeSchemaFromRecord(Record record) throws IOException, DataGeneratorException {
     String jsonSchema = AvroTypeUtil.getAvroSchemaFromHeader(record, AVRO_SCHEMA_HEADER);
     schemaHashCode = jsonSchema.hashCode();
-    schema = AvroTypeUtil.parseSchema(jsonSchema);
-    defaultValueMap = AvroTypeUtil.getDefaultValuesFromSchema(schema, new HashSet<String>());
+    if (previous != null && previous.state != State.CREATED && previous.schemaHashCode == schemaHashCode) {
+      schema = previous.schema;
+      defaultValueMap = previous.defaultValueMap;
+    } else {
+      schema = AvroTypeUtil.parseSchema(jsonSchema);
+      defaultValueMap = AvroTypeUtil.getDefaultValuesFromSchema(schema, new HashSet<String>());
+    }
+    previous = null;
     initialize();
   }
 
@@ -85,6 +85,19 @@ public class XmlCharDataGenerator implements DataGenerator {
     this.prettyFormat = prettyFormat;
   }
 
+  /**
+   * Creates a generator with the same configuration as the given one, reusing its document builder, transformer
+   * factory and compiled schema. The given generator must not be used anymore.
+   */
+  public XmlCharDataGenerator(Writer writer, XmlCharDataGenerator template) {
+    this.writer = writer;
+    this.documentBuilder = template.documentBuilder;
+    this.transformerFactory = template.transformerFactory;
+    this.schemaValidation = template.schemaValidation;
+    this.schema = template.schema;
+    this.prettyFormat = template.prettyFormat;
+  }
+
   boolean isSchemaValidation() {
     return schemaValidation;
   }
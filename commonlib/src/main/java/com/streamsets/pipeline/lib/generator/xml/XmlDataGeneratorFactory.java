@@ -18,6 +18,7 @@ package com.streamsets.pipeline.lib.generator.xml;
 import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 
 import java.io.IOException;
@@ -64,6 +65,15 @@ public class XmlDataGeneratorFactory extends DataGeneratorFactory {
 
   @Override
   public DataGenerator getGenerator(OutputStream os) throws IOException {
+    if (os instanceof DataGeneratorBuffer) {
+      DataGeneratorBuffer buffer = (DataGeneratorBuffer) os;
+      XmlCharDataGenerator previous = (XmlCharDataGenerator) buffer.getState(this);
+      XmlCharDataGenerator generator = (previous == null)
+          ? new XmlCharDataGenerator(createWriter(os), isSchemaValidation(), getSchemas(), isPrettyFormat())
+          : new XmlCharDataGenerator(createWriter(os), previous);
+      buffer.setState(this, generator);
+      return generator;
+    }
     return new XmlCharDataGenerator(createWriter(os), isSchemaValidation(), getSchemas(), isPrettyFormat());
   }
 
@@ -24,6 +24,7 @@ import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.CsvHeader;
 import com.streamsets.pipeline.config.CsvRecordType;
+import com.streamsets.pipeline.lib.csv.FastCsvParser;
 import com.streamsets.pipeline.lib.csv.OverrunCsvParser;
 import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
@@ -32,6 +33,7 @@ import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -40,10 +42,14 @@ import java.util.Map;
 public class DelimitedCharDataParser extends AbstractDataParser {
   private final ProtoConfigurableEntity.Context context;
   private final String readerId;
-  private final OverrunCsvParser parser;
+  // Exactly one of the parsers is used, see the constructor
+  private final FastCsvParser parser;
+  private final OverrunCsvParser legacyParser;
   private final DelimitedDataParserSettings settings;
 
   private List<Field> headers;
+  // column keys of LIST_MAP records without headers, reused across records
+  private String[] columnKeys = new String[0];
   private boolean eof;
 
   public DelimitedCharDataParser(
@@ -69,14 +75,28 @@ public class DelimitedCharDataParser extends AbstractDataParser {
       default:
         throw new ParserRuntimeException(Utils.format("Unknown header error: {}", settings.getHeader()));
     }
-    parser = new OverrunCsvParser(
-        reader,
-        settings.getFormat(),
-        readerOffset,
-        settings.getSkipStartLines(),
-        settings.getMaxObjectLen()
-    );
-    String[] hs = parser.getHeaders();
+    // The commons-csv based parser doesn't count comment lines in the reader positions. Formats with comments keep
+    // using it, so that offsets stored before the single pass parser was introduced still point to the same records.
+    if (settings.getFormat().getCommentMarker() != null) {
+      parser = null;
+      legacyParser = new OverrunCsvParser(
+          reader,
+          settings.getFormat(),
+          readerOffset,
+          settings.getSkipStartLines(),
+          settings.getMaxObjectLen()
+      );
+    } else {
+      parser = new FastCsvParser(
+          reader,
+          settings.getFormat(),
+          readerOffset,
+          settings.getSkipStartLines(),
+          settings.getMaxObjectLen()
+      );
+      legacyParser = null;
+    }
+    String[] hs = (parser != null) ? parser.getHeaders() : legacyParser.getHeaders();
     if (settings.getHeader() != CsvHeader.IGNORE_HEADER && hs != null) {
       headers = new ArrayList<>();
       for (String h : hs) {
@@ -88,8 +108,8 @@ public class DelimitedCharDataParser extends AbstractDataParser {
   @Override
   public Record parse() throws IOException, DataParserException {
     Record record = null;
-    long offset = parser.getReaderPosition();
-    String[] columns = parser.read();
+    long offset = getReaderPosition();
+    String[] columns = (parser != null) ? parser.read() : legacyParser.read();
     if (columns != null) {
       record = createRecord(offset, columns);
     } else {
@@ -137,14 +157,14 @@ public class DelimitedCharDataParser extends AbstractDataParser {
       }
       record.set(Field.create(row));
     } else {
-      LinkedHashMap<String, Field> listMap = new LinkedHashMap<>();
+      LinkedHashMap<String, Field> listMap = new LinkedHashMap<>(columns.length * 4 / 3 + 1);
       for (int i = 0; i < columns.length; i++) {
         String key;
         Field header = (headers != null) ? headers.get(i) : null;
         if(header != null) {
           key = header.getValueAsString();
         } else {
-          key = Integer.toString(i);
+          key = getColumnKey(i);
         }
         listMap.put(key, getField(columns[i]));
       }
@@ -154,6 +174,17 @@ public class DelimitedCharDataParser extends AbstractDataParser {
     return record;
   }
 
+  private String getColumnKey(int column) {
+    if (column >= columnKeys.length) {
+      int length = columnKeys.length;
+      columnKeys = Arrays.copyOf(columnKeys, Math.max(column + 1, length * 2));
+      for (int i = length; i < columnKeys.length; i++) {
+        columnKeys[i] = Integer.toString(i);
+      }
+    }
+    return columnKeys[column];
+  }
+
   private Field getListField(String... values) {
     ImmutableList.Builder<Field> listBuilder = ImmutableList.builder();
     for(String value : values) {
@@ -173,12 +204,20 @@ public class DelimitedCharDataParser extends AbstractDataParser {
 
   @Override
   public String getOffset() {
-    return eof ? String.valueOf(-1) : String.valueOf(parser.getReaderPosition());
+    return eof ? String.valueOf(-1) : String.valueOf(getReaderPosition());
+  }
+
+  private long getReaderPosition() {
+    return (parser != null) ? parser.getReaderPosition() : legacyParser.getReaderPosition();
   }
 
   @Override
   public void close() throws IOException {
-    parser.close();
+    if (parser != null) {
+      parser.close();
+    } else {
+      legacyParser.close();
+    }
   }
 
 }
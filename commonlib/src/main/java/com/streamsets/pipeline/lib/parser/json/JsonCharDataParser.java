@@ -40,6 +40,8 @@ public class JsonCharDataParser extends AbstractDataParser {
   private final String readerId;
   private final int maxObjectLen;
   private final JsonObjectReader parser;
+  // True if the reader returns already built fields
+  private final boolean fieldReader;
   private boolean eof;
 
   public JsonCharDataParser(
@@ -58,8 +60,10 @@ public class JsonCharDataParser extends AbstractDataParser {
         readerOffset,
         maxObjectLen,
         mode,
-        Object.class
+        Field.class
     );
+    // Data collector provides field reader only when enabled, otherwise we get plain Java objects
+    fieldReader = parser.getExpectedClass() == Field.class;
   }
 
   @Override
@@ -97,6 +101,9 @@ public class JsonCharDataParser extends AbstractDataParser {
 
   @SuppressWarnings("unchecked")
   protected Field jsonToField(Object json, long offset) throws DataParserException {
+    if (fieldReader) {
+      return (Field) json;
+    }
     Field field;
     if (json == null) {
       field = Field.create(Field.Type.STRING, null);
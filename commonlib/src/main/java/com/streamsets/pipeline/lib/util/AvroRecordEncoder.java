@@ -0,0 +1,556 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import org.apache.avro.Schema;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.codehaus.jackson.JsonNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes SDC records in Avro binary encoding, the same encoding {@link AvroTypeUtil#sdcRecordToAvro} followed by a
+ * {@link GenericDatumWriter} produces, without building the intermediate Avro generic objects.
+ * <p/>
+ * The schema is compiled once into a tree of writers with the record field names, default values, union shapes and
+ * logical types resolved. The field paths used to look up the union type indexes in the record header are only built
+ * when the record has such headers or when the schema has unions that must be resolved from the field values.
+ * <p/>
+ * Each record is encoded into a buffer first, so a record failing half way does not leave partial data in the
+ * output. Instances are not thread safe.
+ */
+public class AvroRecordEncoder {
+
+  private final Node root;
+  private final boolean hasUnions;
+  private final boolean hasResolvedUnions;
+  private final Buffer buffer = new Buffer();
+  private BinaryEncoder encoder;
+  private boolean dirty = true;
+
+  public AvroRecordEncoder(Schema schema, Map<String, Object> defaultValueMap) {
+    SchemaCompiler compiler = new SchemaCompiler(defaultValueMap);
+    root = compiler.compile(schema);
+    hasUnions = compiler.hasUnions;
+    hasResolvedUnions = compiler.hasResolvedUnions;
+  }
+
+  /**
+   * Encodes the record, the returned buffer is only valid until the next call.
+   */
+  public ByteBuffer encode(Record record) throws StageException, IOException {
+    if (dirty) {
+      // the encoder may still hold bytes of a record that failed, configuring it again flushes them to the buffer
+      encoder = EncoderFactory.get().binaryEncoder(buffer, encoder);
+    }
+    buffer.reset();
+    dirty = true;
+    String path = (hasResolvedUnions || (hasUnions && hasUnionTypeIndexes(record))) ? "" : null;
+    root.write(record, record.get(), path, encoder);
+    encoder.flush();
+    dirty = false;
+    return buffer.toByteBuffer();
+  }
+
+  /**
+   * Encodes the record and writes it to the given encoder, nothing is written if the record cannot be encoded.
+   */
+  public void write(Record record, Encoder out) throws StageException, IOException {
+    ByteBuffer bytes = encode(record);
+    out.writeFixed(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+  }
+
+  private static boolean hasUnionTypeIndexes(Record record) {
+    for (String name : record.getHeader().getAttributeNames()) {
+      if (name.startsWith(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Buffer extends ByteArrayOutputStream {
+    Buffer() {
+      super(1024);
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
+
+  private static class SchemaCompiler {
+    private final Map<String, Object> defaultValueMap;
+    // records already compiled, for recursive schemas
+    private final Map<Schema, RecordNode> records = new IdentityHashMap<>();
+    private boolean hasUnions;
+    private boolean hasResolvedUnions;
+
+    SchemaCompiler(Map<String, Object> defaultValueMap) {
+      this.defaultValueMap = defaultValueMap;
+    }
+
+    Node compile(Schema schema) {
+      switch (schema.getType()) {
+        case RECORD:
+          RecordNode record = records.get(schema);
+          if (record == null) {
+            record = new RecordNode(schema);
+            records.put(schema, record);
+            List<Schema.Field> schemaFields = schema.getFields();
+            FieldNode[] fields = new FieldNode[schemaFields.size()];
+            for (int i = 0; i < fields.length; i++) {
+              Schema.Field f = schemaFields.get(i);
+              // There is bug in avro where the f.schema() doesn't return the schema properly - all the props are missing.
+              Schema fieldSchema = f.schema();
+              for (Map.Entry<String, JsonNode> entry : f.getJsonProps().entrySet()) {
+                fieldSchema.addProp(entry.getKey(), entry.getValue());
+              }
+              String key = schema.getFullName() + AvroTypeUtil.SCHEMA_PATH_SEPARATOR + f.name();
+              fields[i] = new FieldNode(
+                  f.name(),
+                  key,
+                  compile(fieldSchema),
+                  defaultValueMap.containsKey(key),
+                  defaultValueMap.get(key)
+              );
+            }
+            record.fields = fields;
+          }
+          return record;
+        case ARRAY:
+          return new ArrayNode(schema, compile(schema.getElementType()));
+        case MAP:
+          return new MapNode(schema, compile(schema.getValueType()));
+        case UNION:
+          hasUnions = true;
+          List<Schema> types = schema.getTypes();
+          Node[] branches = new Node[types.size()];
+          int nullIndex = -1;
+          for (int i = 0; i < branches.length; i++) {
+            branches[i] = compile(types.get(i));
+            if (types.get(i).getType() == Schema.Type.NULL && nullIndex < 0) {
+              nullIndex = i;
+            }
+          }
+          // union of null and actual type (which is very common), a non null value is always of the second type
+          boolean optional = types.size() == 2 && nullIndex == 0;
+          hasResolvedUnions |= !optional;
+          return new UnionNode(schema, branches, nullIndex, optional);
+        default:
+          return new ValueNode(schema);
+      }
+    }
+  }
+
+  private abstract static class Node {
+    final Schema schema;
+
+    Node(Schema schema) {
+      this.schema = schema;
+    }
+
+    boolean isNull() {
+      return false;
+    }
+
+    void write(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      if (field == null || field.getValue() == null) {
+        writeNull(record, out);
+      } else {
+        try {
+          writeValue(record, field, path, out);
+        } catch (IllegalArgumentException ex) {
+          throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, schema.getType(), field.getType());
+        }
+      }
+    }
+
+    void writeNull(Record record, Encoder out) throws StageException, IOException {
+      // only null and unions with null accept null values
+      throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, schema.getType(), "null");
+    }
+
+    abstract void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException;
+  }
+
+  private static class ValueNode extends Node {
+    private enum Kind {
+      NULL, BOOLEAN, INT, LONG, FLOAT, DOUBLE, STRING, BYTES, ENUM, FIXED,
+      DECIMAL, DATE, TIME_MILLIS, TIMESTAMP_MILLIS, LONG_MICROS, INVALID_LOGICAL_TYPE
+    }
+
+    private final Kind kind;
+    private final String logicalType;
+    private final Map<String, Integer> enumOrdinals;
+
+    ValueNode(Schema schema) {
+      super(schema);
+      String logicalType = schema.getProp(AvroTypeUtil.LOGICAL_TYPE);
+      Kind kind = (logicalType == null || logicalType.isEmpty()) ? null : getLogicalKind(logicalType, schema.getType());
+      if (kind == null) {
+        logicalType = null;
+        kind = getKind(schema.getType());
+      }
+      this.kind = kind;
+      this.logicalType = logicalType;
+      if (kind == Kind.ENUM) {
+        enumOrdinals = new HashMap<>();
+        for (String symbol : schema.getEnumSymbols()) {
+          enumOrdinals.put(symbol, schema.getEnumOrdinal(symbol));
+        }
+      } else {
+        enumOrdinals = null;
+      }
+    }
+
+    // null when the logical type is unknown, the value is then written as its physical type
+    private static Kind getLogicalKind(String logicalType, Schema.Type type) {
+      switch (logicalType) {
+        case AvroTypeUtil.LOGICAL_TYPE_DECIMAL:
+          return type == Schema.Type.BYTES ? Kind.DECIMAL : Kind.INVALID_LOGICAL_TYPE;
+        case AvroTypeUtil.LOGICAL_TYPE_DATE:
+          return type == Schema.Type.INT ? Kind.DATE : Kind.INVALID_LOGICAL_TYPE;
+        case AvroTypeUtil.LOGICAL_TYPE_TIME_MILLIS:
+          return type == Schema.Type.INT ? Kind.TIME_MILLIS : Kind.INVALID_LOGICAL_TYPE;
+        case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MILLIS:
+          return type == Schema.Type.LONG ? Kind.TIMESTAMP_MILLIS : Kind.INVALID_LOGICAL_TYPE;
+        case AvroTypeUtil.LOGICAL_TYPE_TIME_MICROS:
+        case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MICROS:
+          return type == Schema.Type.LONG ? Kind.LONG_MICROS : Kind.INVALID_LOGICAL_TYPE;
+        default:
+          return null;
+      }
+    }
+
+    private static Kind getKind(Schema.Type type) {
+      switch (type) {
+        case NULL:
+          return Kind.NULL;
+        case BOOLEAN:
+          return Kind.BOOLEAN;
+        case INT:
+          return Kind.INT;
+        case LONG:
+          return Kind.LONG;
+        case FLOAT:
+          return Kind.FLOAT;
+        case DOUBLE:
+          return Kind.DOUBLE;
+        case STRING:
+          return Kind.STRING;
+        case BYTES:
+          return Kind.BYTES;
+        case ENUM:
+          return Kind.ENUM;
+        case FIXED:
+          return Kind.FIXED;
+        default:
+          throw new IllegalStateException("Unexpected schema type " + type);
+      }
+    }
+
+    @Override
+    boolean isNull() {
+      return kind == Kind.NULL;
+    }
+
+    @Override
+    void writeNull(Record record, Encoder out) throws StageException, IOException {
+      if (kind == Kind.NULL) {
+        out.writeNull();
+      } else {
+        super.writeNull(record, out);
+      }
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      if (logicalType != null) {
+        writeLogicalValue(field, out);
+        return;
+      }
+      switch (kind) {
+        case NULL:
+          out.writeNull();
+          break;
+        case BOOLEAN:
+          out.writeBoolean(field.getValueAsBoolean());
+          break;
+        case INT:
+          out.writeInt(field.getValueAsInteger());
+          break;
+        case LONG:
+          out.writeLong(field.getValueAsLong());
+          break;
+        case FLOAT:
+          out.writeFloat(field.getValueAsFloat());
+          break;
+        case DOUBLE:
+          out.writeDouble(field.getValueAsDouble());
+          break;
+        case STRING:
+          out.writeString(field.getValueAsString());
+          break;
+        case BYTES:
+          out.writeBytes(field.getValueAsByteArray());
+          break;
+        case ENUM:
+          Integer ordinal = enumOrdinals.get(field.getValueAsString());
+          if (ordinal == null) {
+            throw new IllegalArgumentException("Not an enum symbol: " + field.getValueAsString());
+          }
+          out.writeEnum(ordinal);
+          break;
+        case FIXED:
+          byte[] bytes = field.getValueAsByteArray();
+          if (bytes.length < schema.getFixedSize()) {
+            throw new IllegalArgumentException("Fixed value too short: " + bytes.length);
+          }
+          out.writeFixed(bytes, 0, schema.getFixedSize());
+          break;
+        default:
+          throw new IllegalStateException("Unexpected kind " + kind);
+      }
+    }
+
+    private void writeLogicalValue(Field field, Encoder out) throws StageException, IOException {
+      try {
+        switch (kind) {
+          case DECIMAL:
+            out.writeBytes(field.getValueAsDecimal().unscaledValue().toByteArray());
+            break;
+          case DATE:
+            out.writeInt(AvroTypeUtil.millisToDays(field.getValueAsDate().getTime()));
+            break;
+          case TIME_MILLIS:
+            out.writeInt((int) field.getValueAsTime().getTime());
+            break;
+          case TIMESTAMP_MILLIS:
+            out.writeLong(field.getValueAsDatetime().getTime());
+            break;
+          case LONG_MICROS:
+            out.writeLong(field.getValueAsLong());
+            break;
+          default:
+            throw new IllegalStateException(
+                "Unexpected physical type for logical " + logicalType + " type: " + schema.getType()
+            );
+        }
+      } catch (IllegalArgumentException ex) {
+        throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, "logical type: " + logicalType, field.getType());
+      }
+    }
+  }
+
+  private static class ArrayNode extends Node {
+    private final Node element;
+
+    ArrayNode(Schema schema, Node element) {
+      super(schema);
+      this.element = element;
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      List<Field> list = field.getValueAsList();
+      out.writeArrayStart();
+      out.setItemCount(list.size());
+      for (int i = 0; i < list.size(); i++) {
+        out.startItem();
+        element.write(record, list.get(i), (path == null) ? null : path + "[" + i + "]", out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  private static class MapNode extends Node {
+    private final Node value;
+
+    MapNode(Schema schema, Node value) {
+      super(schema);
+      this.value = value;
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      Map<String, Field> map = field.getValueAsMap();
+      out.writeMapStart();
+      out.setItemCount(map.size());
+      for (Map.Entry<String, Field> e : map.entrySet()) {
+        out.startItem();
+        out.writeString(e.getKey());
+        value.write(record, e.getValue(), (path == null) ? null : path + "/" + e.getKey(), out);
+      }
+      out.writeMapEnd();
+    }
+  }
+
+  private static class UnionNode extends Node {
+    private final Node[] branches;
+    private final int nullIndex;
+    private final boolean optional;
+
+    UnionNode(Schema schema, Node[] branches, int nullIndex, boolean optional) {
+      super(schema);
+      this.branches = branches;
+      this.nullIndex = nullIndex;
+      this.optional = optional;
+    }
+
+    int resolve(Record record, Field field, String path) throws StageException {
+      if (path != null) {
+        String typeIndex = record.getHeader().getAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + path);
+        if (typeIndex != null && !typeIndex.isEmpty()) {
+          return Integer.parseInt(typeIndex);
+        }
+      }
+      if (optional) {
+        return 1;
+      }
+      Schema match = AvroTypeUtil.resolveUnion(record, field, path, schema);
+      List<Schema> types = schema.getTypes();
+      for (int i = 0; i < types.size(); i++) {
+        if (types.get(i) == match) {
+          return i;
+        }
+      }
+      throw new IllegalStateException("Resolved type is not part of the union: " + match);
+    }
+
+    Node getBranch(int index) {
+      return branches[index];
+    }
+
+    void writeBranch(int index, Record record, Field field, String path, Encoder out)
+        throws StageException, IOException {
+      out.writeIndex(index);
+      branches[index].write(record, field, path, out);
+    }
+
+    @Override
+    void writeNull(Record record, Encoder out) throws IOException {
+      if (nullIndex < 0) {
+        throw new UnresolvedUnionException(schema, null);
+      }
+      out.writeIndex(nullIndex);
+      out.writeNull();
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      writeBranch(resolve(record, field, path), record, field, path, out);
+    }
+  }
+
+  private static class RecordNode extends Node {
+    private FieldNode[] fields;
+
+    RecordNode(Schema schema) {
+      super(schema);
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, Encoder out) throws StageException, IOException {
+      Map<String, Field> map = field.getValueAsMap();
+      for (FieldNode f : fields) {
+        f.write(record, map, path, out);
+      }
+    }
+  }
+
+  private static class FieldNode {
+    private final String name;
+    private final String key;
+    private final String pathSuffix;
+    private final Node node;
+    private final boolean hasDefault;
+    private final Object defaultValue;
+    private DatumWriter<Object> defaultWriter;
+
+    FieldNode(String name, String key, Node node, boolean hasDefault, Object defaultValue) {
+      this.name = name;
+      this.key = key;
+      this.pathSuffix = "/" + name;
+      this.node = node;
+      this.hasDefault = hasDefault;
+      this.defaultValue = defaultValue;
+    }
+
+    void write(Record record, Map<String, Field> map, String path, Encoder out) throws StageException, IOException {
+      // If the record does not contain a field corresponding to the schema field, use the default value from the
+      // schema, if there is none it's an error record.
+      if (!map.containsKey(name)) {
+        if (!hasDefault) {
+          throw new DataGeneratorException(Errors.AVRO_GENERATOR_00, record.getHeader().getSourceId(), key);
+        }
+        writeDefault(out);
+        return;
+      }
+
+      Field field = map.get(name);
+      String fieldPath = (path == null) ? null : path + pathSuffix;
+      if (field == null || field.getValue() == null || node.isNull()) {
+        writeNull(record, out);
+      } else if (node instanceof UnionNode) {
+        UnionNode union = (UnionNode) node;
+        int index = union.resolve(record, field, fieldPath);
+        if (union.getBranch(index).isNull()) {
+          writeNull(record, out);
+        } else {
+          union.writeBranch(index, record, field, fieldPath, out);
+        }
+      } else {
+        node.write(record, field, fieldPath, out);
+      }
+    }
+
+    // null values are replaced by the default value, if there is none only null and union types can be null
+    private void writeNull(Record record, Encoder out) throws StageException, IOException {
+      if (hasDefault) {
+        writeDefault(out);
+      } else if (node instanceof UnionNode || node.isNull()) {
+        node.writeNull(record, out);
+      } else {
+        throw new DataGeneratorException(Errors.AVRO_GENERATOR_01, record.getHeader().getSourceId(), key);
+      }
+    }
+
+    private void writeDefault(Encoder out) throws IOException {
+      // default values are rare, they are written from their generic representation
+      if (defaultWriter == null) {
+        defaultWriter = new GenericDatumWriter<>(node.schema);
+      }
+      defaultWriter.write(defaultValue, out);
+    }
+  }
+}
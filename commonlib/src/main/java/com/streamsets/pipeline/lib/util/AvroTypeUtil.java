@@ -115,7 +115,7 @@ public class AvroTypeUtil {
    *
    * This function has been copied from Apache Hive project.
    */
-  private static int millisToDays(long millisLocal) {
+  public static int millisToDays(long millisLocal) {
     // We assume millisLocal is midnight of some date. What we are basically trying to do
     // here is go from local-midnight to UTC-midnight (or whatever time that happens to be).
     long millisUtc = millisLocal + localTimeZone.getOffset(millisLocal);
@@ -344,30 +344,7 @@ public class AvroTypeUtil {
       } else {
         //Record does not have the avro union type index which means this record was not created from avro data.
         //try our best to resolve the union type.
-        Object object = JsonUtil.fieldToJsonObject(record, field);
-
-        // Avro GenericData expects certain encoding for some types
-        if(field.getType() == Field.Type.DECIMAL || field.getType() ==  Field.Type.BYTE_ARRAY) {
-          object = ByteBuffer.wrap(new byte[]{});
-        }
-        if(field.getType() == Field.Type.DATE) {
-          object = 0;
-        }
-
-        try {
-          int typeIndex = GenericData.get().resolveUnion(schema, object);
-          schema = schema.getTypes().get(typeIndex);
-        } catch (AvroRuntimeException e) {
-          //Avro could not resolve schema. Make a best effort resolve
-          Schema match = bestEffortResolve(schema, field, object);
-          if(match == null) {
-            String objectType = object == null ? "null" : object.getClass().getName();
-            throw new StageException(CommonError.CMN_0106, avroFieldPath, field.getType().name(), objectType, e.toString(),
-                e);
-          } else {
-            schema = match;
-          }
-        }
+        schema = resolveUnion(record, field, avroFieldPath, schema);
       }
     }
 
@@ -554,6 +531,35 @@ public class AvroTypeUtil {
     return obj;
   }
 
+  /**
+   * Resolves the type of the union for a field that was not read from avro data, from the type of its value.
+   */
+  static Schema resolveUnion(Record record, Field field, String avroFieldPath, Schema schema) throws StageException {
+    Object object = JsonUtil.fieldToJsonObject(record, field);
+
+    // Avro GenericData expects certain encoding for some types
+    if(field.getType() == Field.Type.DECIMAL || field.getType() ==  Field.Type.BYTE_ARRAY) {
+      object = ByteBuffer.wrap(new byte[]{});
+    }
+    if(field.getType() == Field.Type.DATE) {
+      object = 0;
+    }
+
+    try {
+      int typeIndex = GenericData.get().resolveUnion(schema, object);
+      return schema.getTypes().get(typeIndex);
+    } catch (AvroRuntimeException e) {
+      //Avro could not resolve schema. Make a best effort resolve
+      Schema match = bestEffortResolve(schema, field, object);
+      if(match == null) {
+        String objectType = object == null ? "null" : object.getClass().getName();
+        throw new StageException(CommonError.CMN_0106, avroFieldPath, field.getType().name(), objectType, e.toString(),
+            e);
+      }
+      return match;
+    }
+  }
+
   private static Field.Type getFieldType(Schema schema) {
     String logicalType = schema.getProp(LOGICAL_TYPE);
     if(logicalType != null && !logicalType.isEmpty()) {
@@ -23,6 +23,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.lib.data.DataFactory;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactoryBuilder;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFormat;
@@ -36,6 +37,7 @@ import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.SeekableByteArrayInput;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.util.Utf8;
 import org.junit.Assert;
 import org.junit.Test;
@@ -56,6 +58,7 @@ import java.util.Map;
 
 import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.COMPRESSION_CODEC_DEFAULT;
 import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.DEFAULT_VALUES_KEY;
+import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.INCLUDE_SCHEMA_KEY;
 import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.SCHEMA_KEY;
 
 public class TestAvroDataGenerator {
@@ -809,4 +812,58 @@ public class TestAvroDataGenerator {
     }
   }
 
+  @Test
+  public void testSerializeWithBuffer() throws Exception {
+    Stage.Context context = ContextInfoCreator.createTargetContext("i", false, OnRecordError.TO_ERROR);
+    AvroDataGeneratorFactory factory = (AvroDataGeneratorFactory) new DataGeneratorFactoryBuilder(
+        context,
+        DataGeneratorFormat.AVRO
+    ).setConfig(SCHEMA_KEY, AVRO_SCHEMA).setConfig(INCLUDE_SCHEMA_KEY, false).build();
+
+    DataGeneratorBuffer buffer = new DataGeneratorBuffer();
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+    AvroMessageGenerator previous = null;
+    for (int i = 0; i < 3; i++) {
+      byte[] message = factory.serialize(createRecord(), buffer);
+      GenericRecord readRecord = reader.read(null, DecoderFactory.get().binaryDecoder(message, null));
+      Assert.assertEquals("hari", readRecord.get("name").toString());
+      Assert.assertEquals(3100, readRecord.get("age"));
+
+      // Encoder and datum writer are carried over from the previous message
+      AvroMessageGenerator generator = (AvroMessageGenerator) buffer.getState(factory);
+      if (previous != null) {
+        Assert.assertNotSame(previous, generator);
+        Assert.assertSame(previous.getFlushable(), generator.getFlushable());
+      }
+      previous = generator;
+    }
+  }
+
+  @Test
+  public void testSchemaInHeaderReusedFromPreviousMessage() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    Record record = createRecord();
+    record.getHeader().setAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER, AVRO_SCHEMA);
+
+    AvroMessageGenerator first = new AvroMessageGenerator(true, baos, null, null, null, null, 0, null);
+    first.write(record);
+    first.close();
+
+    AvroMessageGenerator second = new AvroMessageGenerator(true, baos, null, null, null, null, 0, first);
+    second.write(record);
+    second.close();
+    Assert.assertSame(first.schema, second.schema);
+
+    // Different schema in the header is parsed again
+    record.getHeader().setAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER, RECORD_SCHEMA);
+    AvroMessageGenerator third = new AvroMessageGenerator(true, baos, null, null, null, null, 0, second);
+    try {
+      third.write(record);
+    } catch (DataGeneratorException e) {
+      // Only the schema matters here
+    }
+    third.close();
+    Assert.assertEquals(new Schema.Parser().parse(RECORD_SCHEMA), third.schema);
+  }
+
 }
@@ -16,14 +16,20 @@
 package com.streamsets.pipeline.lib.generator.xml;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.lib.data.DataFactory;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFormat;
+import com.streamsets.pipeline.sdk.RecordCreator;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
@@ -113,4 +119,35 @@ public class TestXmlDataGeneratorFactory {
     Assert.assertTrue(factory instanceof XmlDataGeneratorFactory);
   }
 
+  @Test
+  public void testSerializeWithBuffer() throws Exception {
+    DataFactory.Settings settings = Mockito.mock(DataFactory.Settings.class);
+    Mockito.when(settings.getConfig(Mockito.eq(XmlDataGeneratorFactory.SCHEMA_VALIDATION))).thenReturn(true);
+    Mockito.when(settings.getConfig(Mockito.eq(XmlDataGeneratorFactory.SCHEMAS))).thenReturn(ImmutableList.of(SCHEMA));
+    Mockito.when(settings.getConfig(Mockito.eq(XmlDataGeneratorFactory.PRETTY_FORMAT))).thenReturn(false);
+    Mockito.when(settings.getCharset()).thenReturn(Charset.forName("UTF-8"));
+    XmlDataGeneratorFactory factory = new XmlDataGeneratorFactory(settings);
+
+    DataGeneratorBuffer buffer = new DataGeneratorBuffer();
+    XmlCharDataGenerator previous = null;
+    for (String value : ImmutableList.of("a", "b")) {
+      Record record = RecordCreator.create();
+      record.set(Field.create(ImmutableMap.of("root", Field.create(value))));
+
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      try (DataGenerator generator = factory.getGenerator(expected)) {
+        generator.write(record);
+      }
+      Assert.assertArrayEquals(expected.toByteArray(), factory.serialize(record, buffer));
+
+      // Compiled schema is carried over from the previous message
+      XmlCharDataGenerator generator = (XmlCharDataGenerator) buffer.getState(factory);
+      if (previous != null) {
+        Assert.assertNotSame(previous, generator);
+        Assert.assertSame(previous.getSchema(), generator.getSchema());
+      }
+      previous = generator;
+    }
+  }
+
 }
@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.lib.parser.delimited;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
@@ -23,6 +24,7 @@ import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.config.CsvHeader;
 import com.streamsets.pipeline.config.CsvRecordType;
+import com.streamsets.pipeline.lib.csv.OverrunCsvParser;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
 import com.streamsets.pipeline.sdk.ContextInfoCreator;
@@ -32,6 +34,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -540,4 +544,65 @@ public class TestDelimitedCharDataParser {
       Assert.assertEquals("c", columns.get(2).getValueAsString());
     }
   }
+
+  // Records (as the LIST_MAP values) and the offset after each record as read by the commons-csv based parser
+  private static List<String> readWithLegacyParser(String data, CSVFormat format, long offset) throws IOException {
+    List<String> result = new ArrayList<>();
+    OverrunReader reader = new OverrunReader(new StringReader(data), 1000, true, false);
+    try (OverrunCsvParser parser = new OverrunCsvParser(reader, format, offset, 0, -1)) {
+      String[] columns;
+      while ((columns = parser.read()) != null) {
+        result.add(Arrays.toString(columns) + "@" + parser.getReaderPosition());
+      }
+    }
+    return result;
+  }
+
+  private List<String> readWithDataParser(String data, CSVFormat format, long offset) throws Exception {
+    List<String> result = new ArrayList<>();
+    OverrunReader reader = new OverrunReader(new StringReader(data), 1000, true, false);
+    DelimitedDataParserSettings settings = DelimitedDataParserSettings.builder()
+        .withSkipStartLines(0)
+        .withFormat(format)
+        .withHeader(CsvHeader.NO_HEADER)
+        .withMaxObjectLen(-1)
+        .withRecordType(CsvRecordType.LIST_MAP)
+        .withParseNull(false)
+        .withNullConstant(null)
+        .withAllowExtraColumns(false)
+        .build();
+    try (DataParser parser = new DelimitedCharDataParser(getContext(), "id", reader, offset, settings)) {
+      Record record;
+      while ((record = parser.parse()) != null) {
+        List<String> columns = new ArrayList<>();
+        for (Field field : record.get().getValueAsListMap().values()) {
+          columns.add(field.getValueAsString());
+        }
+        result.add(columns + "@" + parser.getOffset());
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testResumeFromLegacyOffset() throws Exception {
+    List<CSVFormat> formats = ImmutableList.of(
+        CSVFormat.DEFAULT,
+        CSVFormat.DEFAULT.withCommentMarker('#')
+    );
+    String data = "#comment\na,b\n\"c\nc\",d\n#comment\r\ne,f\n#comment\ng,h\n";
+    for (CSVFormat format : formats) {
+      // Every offset stored by the previous parser resumes on the same record with the same following offsets
+      List<String> legacy = readWithLegacyParser(data, format, 0);
+      Assert.assertEquals(format.toString(), legacy, readWithDataParser(data, format, 0));
+      for (String record : legacy) {
+        long offset = Long.parseLong(record.substring(record.lastIndexOf('@') + 1));
+        Assert.assertEquals(
+            format + " " + offset,
+            readWithLegacyParser(data, format, offset),
+            readWithDataParser(data, format, offset)
+        );
+      }
+    }
+  }
 }
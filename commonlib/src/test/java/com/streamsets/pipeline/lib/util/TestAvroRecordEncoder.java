@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TestAvroRecordEncoder {
+
+  private static final String SCHEMA = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+      "{\"name\": \"name\", \"type\": \"string\"}," +
+      "{\"name\": \"age\", \"type\": \"int\"}," +
+      "{\"name\": \"active\", \"type\": \"boolean\"}," +
+      "{\"name\": \"salary\", \"type\": {\"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 10, \"scale\": 2}}," +
+      "{\"name\": \"hired\", \"type\": {\"type\": \"int\", \"logicalType\": \"date\"}}," +
+      "{\"name\": \"updated\", \"type\": {\"type\": \"long\", \"logicalType\": \"timestamp-millis\"}}," +
+      "{\"name\": \"level\", \"type\": {\"type\": \"enum\", \"name\": \"Level\", \"symbols\": [\"JUNIOR\", \"SENIOR\"]}}," +
+      "{\"name\": \"badge\", \"type\": {\"type\": \"fixed\", \"name\": \"Badge\", \"size\": 2}}," +
+      "{\"name\": \"skills\", \"type\": {\"type\": \"array\", \"items\": \"string\"}}," +
+      "{\"name\": \"scores\", \"type\": {\"type\": \"map\", \"values\": \"double\"}}," +
+      "{\"name\": \"nickname\", \"type\": [\"null\", \"string\"]}," +
+      "{\"name\": \"extra\", \"type\": [\"string\", \"long\", \"null\"]}," +
+      "{\"name\": \"dept\", \"type\": \"string\", \"default\": \"none\"}," +
+      "{\"name\": \"boss\", \"type\": [\"null\", \"Employee\"], \"default\": null}" +
+      "]}";
+
+  private static Map<String, Field> createEmployee(String name) {
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("name", Field.create(name));
+    map.put("age", Field.create(42));
+    map.put("active", Field.create(true));
+    map.put("salary", Field.create(new BigDecimal("1234.56")));
+    map.put("hired", Field.createDate(new Date(0)));
+    map.put("updated", Field.createDatetime(new Date(1234567890123L)));
+    map.put("level", Field.create("SENIOR"));
+    map.put("badge", Field.create(new byte[] {1, 2}));
+    map.put("skills", Field.create(ImmutableList.of(Field.create("java"), Field.create("avro"))));
+    Map<String, Field> scores = new LinkedHashMap<>();
+    scores.put("q1", Field.create(1.5));
+    scores.put("q2", Field.create(2.5));
+    map.put("scores", Field.create(scores));
+    map.put("nickname", Field.create("nick"));
+    map.put("extra", Field.create(7L));
+    return map;
+  }
+
+  private static Record createRecord() {
+    Map<String, Field> employee = createEmployee("alice");
+    Map<String, Field> boss = createEmployee("bob");
+    boss.put("nickname", Field.create(Field.Type.STRING, null));
+    boss.put("dept", Field.create("board"));
+    employee.put("boss", Field.create(boss));
+    Record record = RecordCreator.create();
+    record.set(Field.create(employee));
+    return record;
+  }
+
+  private static byte[] encodeGeneric(Schema schema, Map<String, Object> defaults, Record record) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema).write(AvroTypeUtil.sdcRecordToAvro(record, schema, defaults), encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    return Arrays.copyOfRange(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.limit());
+  }
+
+  private static Map<String, Object> getDefaults(Schema schema) throws Exception {
+    return AvroTypeUtil.getDefaultValuesFromSchema(schema, new HashSet<String>());
+  }
+
+  @Test
+  public void testSameEncodingAsGenericWriter() throws Exception {
+    Schema schema = AvroTypeUtil.parseSchema(SCHEMA);
+    Map<String, Object> defaults = getDefaults(schema);
+    Record record = createRecord();
+
+    AvroRecordEncoder encoder = new AvroRecordEncoder(schema, defaults);
+    Assert.assertArrayEquals(encodeGeneric(schema, defaults, record), toBytes(encoder.encode(record)));
+    // the encoder is reused for the following records
+    Assert.assertArrayEquals(encodeGeneric(schema, defaults, record), toBytes(encoder.encode(record)));
+  }
+
+  @Test
+  public void testUnionTypeIndexFromHeader() throws Exception {
+    Schema schema = AvroTypeUtil.parseSchema(SCHEMA);
+    Map<String, Object> defaults = getDefaults(schema);
+    Record record = createRecord();
+    record.set("/extra", Field.create("7"));
+    record.getHeader().setAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/extra", "0");
+    record.getHeader().setAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/boss/extra", "2");
+
+    byte[] expected = encodeGeneric(schema, defaults, record);
+    Assert.assertArrayEquals(expected, toBytes(new AvroRecordEncoder(schema, defaults).encode(record)));
+  }
+
+  @Test
+  public void testFailedRecordNotWritten() throws Exception {
+    Schema schema = AvroTypeUtil.parseSchema(SCHEMA);
+    Map<String, Object> defaults = getDefaults(schema);
+    AvroRecordEncoder encoder = new AvroRecordEncoder(schema, defaults);
+
+    Record invalid = createRecord();
+    invalid.delete("/boss/age");
+    try {
+      encoder.encode(invalid);
+      Assert.fail();
+    } catch (DataGeneratorException ex) {
+      Assert.assertEquals(Errors.AVRO_GENERATOR_00, ex.getErrorCode());
+    }
+
+    invalid = createRecord();
+    invalid.set("/age", Field.create("not a number"));
+    try {
+      encoder.encode(invalid);
+      Assert.fail();
+    } catch (DataGeneratorException ex) {
+      Assert.assertEquals(Errors.AVRO_GENERATOR_05, ex.getErrorCode());
+    }
+
+    Record record = createRecord();
+    Assert.assertArrayEquals(encodeGeneric(schema, defaults, record), toBytes(encoder.encode(record)));
+  }
+}
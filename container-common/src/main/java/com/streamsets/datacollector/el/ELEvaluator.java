@@ -21,6 +21,7 @@ import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.Utils;
+import org.apache.commons.el.ExpressionCompiler;
 import org.apache.commons.el.LruExpressionEvaluatorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +34,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ELEvaluator extends ELEval {
   private static final Logger LOG = LoggerFactory.getLogger(ELEvaluator.class);
@@ -43,10 +45,15 @@ public class ELEvaluator extends ELEval {
   private final List<ElFunctionDefinition> elFunctionDefinitions;
   private final List<ElConstantDefinition> elConstantDefinitions;
   private final ELDefinitionExtractor elDefinitionExtractor;
+  private final Map<String, ExpressionCompiler.CompiledExpression> compiledExpressions;
+  private volatile boolean compilationEnabled;
 
   // ExpressionEvaluatorImpl can be used as a singleton
   private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl();
 
+  // Upper bound of compiled expressions kept per evaluator, expressions over the limit are interpreted
+  private static final int MAX_COMPILED_EXPRESSIONS = 1000;
+
   public ELEvaluator(String configName, boolean explicit, Map<String, Object> constants, ELDefinitionExtractor elDefinitionExtractor, List<Class> elFuncConstDefClasses) {
     this(configName, explicit, constants, elDefinitionExtractor, elFuncConstDefClasses.toArray(new Class[elFuncConstDefClasses.size()]));
   }
@@ -60,6 +67,7 @@ public class ELEvaluator extends ELEval {
     this.elDefinitionExtractor = elDefinitionExtractor;
     populateConstantsAndFunctions(explicit, elFuncConstDefClasses);
     this.functionMapper = new FunctionMapperImpl();
+    this.compiledExpressions = new ConcurrentHashMap<>();
   }
 
   public ELEvaluator(String configName, ELDefinitionExtractor elDefinitionExtractor, Class<?>... elFuncConstDefClasses) {
@@ -116,6 +124,18 @@ public class ELEvaluator extends ELEval {
     return new ELVariables(constants);
   }
 
+  /**
+   * When enabled, expressions are compiled on their first evaluation with functions bound upfront rather than
+   * interpreted on each evaluation.
+   */
+  public void setCompilationEnabled(boolean compilationEnabled) {
+    this.compilationEnabled = compilationEnabled;
+  }
+
+  public boolean isCompilationEnabled() {
+    return compilationEnabled;
+  }
+
   public static void parseEL(String el) throws ELEvalException {
     try {
       EVALUATOR.parseExpressionString(el);
@@ -144,6 +164,10 @@ public class ELEvaluator extends ELEval {
       }
     };
     try {
+      ExpressionCompiler.CompiledExpression compiled = compilationEnabled ? getCompiledExpression(expression) : null;
+      if (compiled != null) {
+        return (T) compiled.evaluate(returnType, variableResolver, functionMapper);
+      }
       return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
     } catch (ELException e) {
       // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
@@ -161,6 +185,18 @@ public class ELEvaluator extends ELEval {
     }
   }
 
+  private ExpressionCompiler.CompiledExpression getCompiledExpression(String expression) throws ELException {
+    if (expression == null) {
+      return null;
+    }
+    ExpressionCompiler.CompiledExpression compiled = compiledExpressions.get(expression);
+    if (compiled == null && compiledExpressions.size() < MAX_COMPILED_EXPRESSIONS) {
+      compiled = ExpressionCompiler.compile(EVALUATOR.parseExpressionString(expression), functionMapper);
+      compiledExpressions.put(expression, compiled);
+    }
+    return compiled;
+  }
+
   private class FunctionMapperImpl implements FunctionMapper {
 
     @Override
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.el;
+
+import javax.servlet.jsp.el.ELException;
+import javax.servlet.jsp.el.FunctionMapper;
+import javax.servlet.jsp.el.VariableResolver;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StreamSets specific compiler of already parsed expressions.
+ *
+ * Functions invocations are bound to their methods once during compilation and invoked through method handles rather
+ * then being resolved through the function mapper and invoked reflectively on each evaluation. Arguments that are
+ * literals are coerced to the parameter type upfront. Everything else (operators, coercions, variable resolution) is
+ * delegated to the regular commons-el expression classes, so the compiled expression yields the same results as the
+ * interpreted one. Invocations that can't be bound (unknown function, wrong number of arguments, ...) are kept
+ * interpreted so that they fail the same way during evaluation.
+ *
+ * Record paths given as literals (e.g. record:value('/a/b')) are resolved to a single string instance that is passed
+ * on every evaluation, the record then finds the parsed path in its interned path cache without parsing it again. The
+ * record functions only get the public Record interface, so they can't be handed the parsed path itself.
+ */
+@SuppressWarnings("unchecked")
+public class ExpressionCompiler {
+
+  // Same logger as ExpressionEvaluatorImpl is using
+  private static final Logger LOGGER = new Logger(System.out);
+
+  private ExpressionCompiler() {
+  }
+
+  /**
+   * Compiles the output of {@link ExpressionEvaluatorImpl#parseExpressionString(String)} using the given function
+   * mapper for binding the functions.
+   */
+  public static CompiledExpression compile(Object parsedExpression, FunctionMapper functions) {
+    Object compiled = parsedExpression;
+    if (parsedExpression instanceof Expression) {
+      compiled = compile((Expression) parsedExpression, functions);
+    } else if (parsedExpression instanceof ExpressionString) {
+      Object[] elements = ((ExpressionString) parsedExpression).getElements();
+      Object[] compiledElements = new Object[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        compiledElements[i] = (elements[i] instanceof Expression)
+            ? compile((Expression) elements[i], functions)
+            : elements[i];
+      }
+      compiled = new ExpressionString(compiledElements);
+    }
+    return new CompiledExpression(compiled);
+  }
+
+  private static Expression compile(Expression expression, FunctionMapper functions) {
+    if (expression instanceof FunctionInvocation) {
+      return compileFunction((FunctionInvocation) expression, functions);
+    } else if (expression instanceof BinaryOperatorExpression) {
+      BinaryOperatorExpression binary = (BinaryOperatorExpression) expression;
+      return new BinaryOperatorExpression(
+          compile(binary.getExpression(), functions),
+          binary.getOperators(),
+          compile(binary.getExpressions(), functions)
+      );
+    } else if (expression instanceof UnaryOperatorExpression) {
+      UnaryOperatorExpression unary = (UnaryOperatorExpression) expression;
+      return new UnaryOperatorExpression(
+          unary.getOperator(),
+          unary.getOperators(),
+          compile(unary.getExpression(), functions)
+      );
+    } else if (expression instanceof ConditionalExpression) {
+      ConditionalExpression conditional = (ConditionalExpression) expression;
+      return new ConditionalExpression(
+          compile(conditional.getCondition(), functions),
+          compile(conditional.getTrueBranch(), functions),
+          compile(conditional.getFalseBranch(), functions)
+      );
+    } else if (expression instanceof ComplexValue) {
+      ComplexValue complex = (ComplexValue) expression;
+      return new ComplexValue(compile(complex.getPrefix(), functions), complex.getSuffixes());
+    }
+    // Literals and named values are already as fast as they can be
+    return expression;
+  }
+
+  private static List compile(List expressions, FunctionMapper functions) {
+    List compiled = new ArrayList(expressions.size());
+    for (Object expression : expressions) {
+      compiled.add(compile((Expression) expression, functions));
+    }
+    return compiled;
+  }
+
+  private static Expression compileFunction(FunctionInvocation invocation, FunctionMapper functions) {
+    String functionName = invocation.getFunctionName();
+    List arguments = compile(invocation.getArgumentList(), functions);
+
+    int index = functionName.indexOf(':');
+    Method method = (functions == null) ? null : (index == -1)
+        ? functions.resolveFunction("", functionName)
+        : functions.resolveFunction(functionName.substring(0, index), functionName.substring(index + 1));
+
+    if (method == null
+        || !Modifier.isStatic(method.getModifiers())
+        || method.getParameterTypes().length != arguments.size()) {
+      return new FunctionInvocation(functionName, arguments);
+    }
+
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.publicLookup()
+          .unreflect(method)
+          .asSpreader(Object[].class, arguments.size())
+          .asType(MethodType.methodType(Object.class, Object[].class));
+    } catch (IllegalAccessException e) {
+      return new FunctionInvocation(functionName, arguments);
+    }
+    return new BoundFunctionInvocation(invocation, method.getParameterTypes(), handle, arguments);
+  }
+
+  /**
+   * Compiled form of an expression, not bound to particular variables.
+   */
+  public static final class CompiledExpression {
+    // One of String, Expression or ExpressionString, the same as ExpressionEvaluatorImpl.parseExpressionString()
+    private final Object compiled;
+
+    private CompiledExpression(Object compiled) {
+      this.compiled = compiled;
+    }
+
+    /**
+     * Evaluates the expression the same way as ExpressionEvaluatorImpl.evaluate() does.
+     */
+    public Object evaluate(
+        Class expectedType,
+        VariableResolver resolver,
+        FunctionMapper functions
+    ) throws ELException {
+      Object value;
+      if (compiled instanceof String) {
+        if (expectedType == String.class || expectedType == Object.class) {
+          return compiled;
+        }
+        value = compiled;
+      } else if (compiled instanceof Expression) {
+        value = ((Expression) compiled).evaluate(resolver, functions, LOGGER);
+      } else if (compiled instanceof ExpressionString) {
+        value = ((ExpressionString) compiled).evaluate(resolver, functions, LOGGER);
+      } else {
+        return null;
+      }
+      return Coercions.coerce(value, expectedType, LOGGER);
+    }
+  }
+
+  /**
+   * Function invocation with method resolved upfront and invoked through method handle.
+   */
+  private static class BoundFunctionInvocation extends Expression {
+    private final FunctionInvocation invocation;
+    private final Class[] parameterTypes;
+    private final MethodHandle handle;
+    private final Expression[] arguments;
+    // Pre-coerced values of the literal arguments, only valid where literals[i] is true
+    private final Object[] literalValues;
+    private final boolean[] literals;
+
+    BoundFunctionInvocation(
+        FunctionInvocation invocation,
+        Class[] parameterTypes,
+        MethodHandle handle,
+        List arguments
+    ) {
+      this.invocation = invocation;
+      this.parameterTypes = parameterTypes;
+      this.handle = handle;
+      this.arguments = (Expression[]) arguments.toArray(new Expression[arguments.size()]);
+      this.literalValues = new Object[this.arguments.length];
+      this.literals = new boolean[this.arguments.length];
+      for (int i = 0; i < this.arguments.length; i++) {
+        if (this.arguments[i] instanceof Literal) {
+          try {
+            literalValues[i] = Coercions.coerce(this.arguments[i].evaluate(null, null, LOGGER), parameterTypes[i], LOGGER);
+            literals[i] = true;
+          } catch (ELException e) {
+            // Coercion will fail again during evaluation and report the error there
+          }
+        }
+      }
+    }
+
+    @Override
+    public String getExpressionString() {
+      return invocation.getExpressionString();
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver, FunctionMapper functions, Logger logger) throws ELException {
+      Object[] values = new Object[arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        values[i] = literals[i]
+            ? literalValues[i]
+            : Coercions.coerce(arguments[i].evaluate(resolver, functions, logger), parameterTypes[i], logger);
+      }
+      try {
+        return (Object) handle.invokeExact(values);
+      } catch (Throwable t) {
+        throw new ELException("Problems calling function '" + invocation.getFunctionName() + "'", t);
+      }
+    }
+  }
+}
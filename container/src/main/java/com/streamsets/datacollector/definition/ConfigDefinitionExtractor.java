@@ -55,7 +55,8 @@ public abstract class ConfigDefinitionExtractor {
 
   private static final ConfigDefinitionExtractor EXTRACTOR = new ConfigDefinitionExtractor() {};
 
-  private Set<String> cycles = new HashSet<>();
+  // stage libraries are loaded concurrently
+  private final ThreadLocal<Set<String>> cyclesInThread = ThreadLocal.withInitial(HashSet::new);
 
   public static ConfigDefinitionExtractor get() {
     return EXTRACTOR;
@@ -72,7 +73,7 @@ public abstract class ConfigDefinitionExtractor {
 
   @VisibleForTesting
   Set<String> getCycles() {
-    return cycles;
+    return cyclesInThread.get();
   }
 
   private List<ErrorMessage> validate(String configPrefix, Class klass, List<String> stageGroups,
@@ -228,6 +229,7 @@ public abstract class ConfigDefinitionExtractor {
       isFullyProcessed.put(def.getName(), false);
     }
 
+    Set<String> cycles = cyclesInThread.get();
     cycles.clear();
 
     for (ConfigDefinition def : defs) {
@@ -26,6 +26,26 @@ public class Constants {
   public static final String PIPELINE_CLUSTER_TOKEN_KEY = "pipeline.cluster.token";
   public static final String MAX_BATCH_SIZE_KEY = "production.maxBatchSize";
   public static final int MAX_BATCH_SIZE_DEFAULT = 1000;
+  public static final String COPY_ON_WRITE_RECORDS_KEY = "production.copyOnWriteRecords";
+  public static final boolean COPY_ON_WRITE_RECORDS_DEFAULT = false;
+  public static final String RUNNER_THREAD_AFFINITY_KEY = "production.runnerThreadAffinity";
+  public static final boolean RUNNER_THREAD_AFFINITY_DEFAULT = false;
+  public static final String PARALLEL_BRANCHES_KEY = "production.parallelBranches";
+  public static final boolean PARALLEL_BRANCHES_DEFAULT = false;
+  public static final String PARALLEL_BRANCHES_THREADS_KEY = "production.parallelBranches.threads";
+  public static final int PARALLEL_BRANCHES_THREADS_DEFAULT = 4;
+  public static final String PIPELINED_BATCHES_KEY = "production.pipelinedBatches";
+  public static final int PIPELINED_BATCHES_DEFAULT = 0;
+  public static final String PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_KEY = "production.pipelinedBatches.shutdownTimeout.ms";
+  public static final long PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_DEFAULT = 60000;
+  public static final String OFFSET_GROUP_COMMIT_KEY = "production.offset.groupCommit";
+  public static final boolean OFFSET_GROUP_COMMIT_DEFAULT = false;
+  public static final String OFFSET_GROUP_COMMIT_WINDOW_MS_KEY = "production.offset.groupCommit.window.ms";
+  public static final long OFFSET_GROUP_COMMIT_WINDOW_MS_DEFAULT = 0;
+  public static final String OFFSET_JOURNAL_KEY = "production.offset.journal";
+  public static final boolean OFFSET_JOURNAL_DEFAULT = false;
+  public static final String OFFSET_JOURNAL_COMPACTION_ENTRIES_KEY = "production.offset.journal.compactionEntries";
+  public static final int OFFSET_JOURNAL_COMPACTION_ENTRIES_DEFAULT = 1000;
   public static final String DELIVERY_GUARANTEE = "deliveryGuarantee";
   public static final String MAX_ERROR_FILE_SIZE_KEY = "production.maxErrorFileSize";
   public static final String MAX_ERROR_FILE_SIZE_DEFAULT = "1024MB";
@@ -119,6 +119,12 @@ public class ProductionPipeline {
               stateChanged(PipelineStatus.RUNNING_ERROR, runningErrorMsg, null);
               errorWhileRunning = true;
               isRecoverable = isRecoverableThrowable(e);
+            } else if (isStopFailure(e)) {
+              // Pipeline was stopped, but part of it is still running, so the stop itself failed
+              runningErrorMsg = e.toString();
+              LOG.warn("Error while stopping: {}", runningErrorMsg, e);
+              stateChanged(PipelineStatus.STOPPING_ERROR, runningErrorMsg, null);
+              errorWhileDestroying = true;
             }
             throw e;
           }
@@ -204,6 +210,14 @@ public class ProductionPipeline {
     return true;
   }
 
+  /**
+   * Whether given Throwable means that the pipeline couldn't be stopped completely.
+   */
+  private boolean isStopFailure(Throwable e) {
+    return e instanceof PipelineRuntimeException
+      && ((PipelineRuntimeException) e).getErrorCode() == ContainerError.CONTAINER_0804;
+  }
+
   public PipelineConfiguration getPipelineConf() {
     return pipelineConf;
   }
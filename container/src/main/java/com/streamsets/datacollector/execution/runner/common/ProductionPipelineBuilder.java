@@ -26,6 +26,7 @@ import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
 import com.streamsets.datacollector.runner.UserContext;
 import com.streamsets.datacollector.runner.production.ProductionSourceOffsetCommitterOffsetTracker;
+import com.streamsets.datacollector.runner.production.GroupCommitSourceOffsetTracker;
 import com.streamsets.datacollector.runner.production.ProductionSourceOffsetTracker;
 import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
 import com.streamsets.datacollector.usagestats.StatsCollector;
@@ -121,6 +122,18 @@ public class ProductionPipelineBuilder {
     if (pipeline.getSource() instanceof OffsetCommitter) {
       sourceOffsetTracker = new ProductionSourceOffsetCommitterOffsetTracker(name, rev, runtimeInfo,
         (OffsetCommitter) pipeline.getSource());
+    } else if (configuration.get(Constants.OFFSET_GROUP_COMMIT_KEY, Constants.OFFSET_GROUP_COMMIT_DEFAULT)) {
+      sourceOffsetTracker = new GroupCommitSourceOffsetTracker(
+          name,
+          rev,
+          runtimeInfo,
+          configuration.get(Constants.OFFSET_GROUP_COMMIT_WINDOW_MS_KEY, Constants.OFFSET_GROUP_COMMIT_WINDOW_MS_DEFAULT),
+          configuration.get(Constants.OFFSET_JOURNAL_KEY, Constants.OFFSET_JOURNAL_DEFAULT),
+          configuration.get(
+              Constants.OFFSET_JOURNAL_COMPACTION_ENTRIES_KEY,
+              Constants.OFFSET_JOURNAL_COMPACTION_ENTRIES_DEFAULT
+          )
+      );
     } else {
       sourceOffsetTracker = new ProductionSourceOffsetTracker(name, rev, runtimeInfo);
     }
@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.datacollector.bundles.SupportBundleManager;
 import com.streamsets.datacollector.config.MemoryLimitConfiguration;
 import com.streamsets.datacollector.config.MemoryLimitExceeded;
@@ -81,6 +82,7 @@ import com.streamsets.pipeline.api.BatchContext;
 import com.streamsets.pipeline.api.DeliveryGuarantee;
 import com.streamsets.pipeline.api.ErrorListener;
 import com.streamsets.pipeline.api.OffsetCommitTrigger;
+import com.streamsets.pipeline.api.OffsetCommitter;
 import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Source;
@@ -91,6 +93,7 @@ import com.streamsets.pipeline.api.impl.ErrorMessage;
 import com.streamsets.pipeline.api.impl.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -102,9 +105,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -149,8 +159,23 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   private final Counter batchErrorMessagesCounter;
   private final Counter memoryConsumedCounter;
   private final Histogram runnersHistogram;
+  private final Counter inFlightBatchesCounter;
+  private final Timer originStallTimer;
+  private final Timer processingStallTimer;
   private MetricRegistryJson metricRegistryJson;
   private Long rateLimit;
+  private final boolean copyOnWriteRecords;
+  private final boolean runnerThreadAffinity;
+  private final boolean parallelBranches;
+  private final int parallelBranchesThreads;
+  // Executor for processing independent pipeline branches concurrently, null when disabled
+  private volatile ExecutorService branchExecutor;
+  // Instance names of all stages in the pipe order, used to keep the batch output stable with parallel branches
+  private List<String> stageOrder;
+  // Number of batches the origin can read ahead, 0 when disabled
+  private final int pipelinedBatches;
+  // How long to wait for the origin thread to finish when the pipelined execution ends
+  private final long pipelinedBatchesShutdownTimeout;
 
   private RateLimiter rateLimiter;
 
@@ -211,6 +236,30 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     stageToErrorRecordsMap = new HashMap<>();
     stageToErrorMessagesMap = new HashMap<>();
     this.errorListeners = new ArrayList<>();
+    this.copyOnWriteRecords = configuration.get(
+        Constants.COPY_ON_WRITE_RECORDS_KEY,
+        Constants.COPY_ON_WRITE_RECORDS_DEFAULT
+    );
+    this.runnerThreadAffinity = configuration.get(
+        Constants.RUNNER_THREAD_AFFINITY_KEY,
+        Constants.RUNNER_THREAD_AFFINITY_DEFAULT
+    );
+    this.parallelBranches = configuration.get(
+        Constants.PARALLEL_BRANCHES_KEY,
+        Constants.PARALLEL_BRANCHES_DEFAULT
+    );
+    this.parallelBranchesThreads = configuration.get(
+        Constants.PARALLEL_BRANCHES_THREADS_KEY,
+        Constants.PARALLEL_BRANCHES_THREADS_DEFAULT
+    );
+    this.pipelinedBatches = configuration.get(
+        Constants.PIPELINED_BATCHES_KEY,
+        Constants.PIPELINED_BATCHES_DEFAULT
+    );
+    this.pipelinedBatchesShutdownTimeout = configuration.get(
+        Constants.PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_KEY,
+        Constants.PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_DEFAULT
+    );
 
     MetricsConfigurator.registerPipeline(pipelineName, revision);
     batchProcessingTimer = MetricsConfigurator.createTimer(metrics, "pipeline.batchProcessing", pipelineName, revision);
@@ -243,6 +292,10 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     memoryConsumedCounter = MetricsConfigurator.createCounter(metrics, "pipeline.memoryConsumed", pipelineName,
       revision);
     runnersHistogram = MetricsConfigurator.createHistogram5Min(metrics, "pipeline.runners", pipelineName, revision);
+    inFlightBatchesCounter = MetricsConfigurator.createCounter(metrics, "pipeline.inFlightBatches", pipelineName,
+      revision);
+    originStallTimer = MetricsConfigurator.createTimer(metrics, "pipeline.originStall", pipelineName, revision);
+    processingStallTimer = MetricsConfigurator.createTimer(metrics, "pipeline.processingStall", pipelineName, revision);
   }
 
   public void setObserveRequests(BlockingQueue<Object> observeRequests) {
@@ -385,7 +438,24 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     this.pipes = pipes;
     this.badRecordsHandler = badRecordsHandler;
     this.statsAggregationHandler = statsAggregationHandler;
-    this.runnerPool = new RunnerPool<>(pipes, pipeContext.getRuntimeStats(), runnersHistogram);
+    this.runnerPool = new RunnerPool<>(pipes, pipeContext.getRuntimeStats(), runnersHistogram, runnerThreadAffinity);
+    if (parallelBranches) {
+      Preconditions.checkArgument(
+          parallelBranchesThreads > 0,
+          Utils.format("{} must be positive", Constants.PARALLEL_BRANCHES_THREADS_KEY)
+      );
+      List<String> order = new ArrayList<>();
+      order.add(originPipe.getStage().getInfo().getInstanceName());
+      for (Pipe pipe : pipes.get(0).getPipes()) {
+        order.add(pipe.getStage().getInfo().getInstanceName());
+      }
+      this.stageOrder = order;
+      this.branchExecutor = Executors.newFixedThreadPool(parallelBranchesThreads, new ThreadFactoryBuilder()
+          .setNameFormat("Pipeline Branch Runner - " + pipelineName + " - %d")
+          .setDaemon(true)
+          .build()
+      );
+    }
 
     // And we're officially running!
     this.running = true;
@@ -442,6 +512,13 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       pipeBatch = new FullPipeBatch(entityName, previousOffset, configuration.get(Constants.MAX_BATCH_SIZE_KEY, Constants.MAX_BATCH_SIZE_DEFAULT), false);
     }
     pipeBatch.setRateLimiter(rateLimiter);
+    if (branchExecutor != null) {
+      // Branches modify their records concurrently, so each of them needs its own copies
+      pipeBatch.setCopyOnWrite(false);
+      pipeBatch.setStageOrder(stageOrder);
+    } else {
+      pipeBatch.setCopyOnWrite(copyOnWriteRecords);
+    }
 
     return pipeBatch;
   }
@@ -478,8 +555,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   public boolean processBatch(BatchContext batchCtx, String entity, String offset) {
     BatchContextImpl batchContext = (BatchContextImpl) batchCtx;
 
-    Map<String, Long> memoryConsumedByStage = new HashMap<>();
-    Map<String, Object> stageBatchMetrics = new HashMap<>();
+    Map<String, Long> memoryConsumedByStage = new ConcurrentHashMap<>();
+    Map<String, Object> stageBatchMetrics = new ConcurrentHashMap<>();
 
     try {
       Map<String, Object> batchMetrics = originPipe.finishBatchContext(batchContext);
@@ -545,6 +622,18 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   }
 
   public void runPollSource() throws StageException, PipelineException {
+    if (pipelinedBatches > 0) {
+      if (pipes.get(0).getOffsetCommitTrigger() != null) {
+        LOG.warn("Pipeline contains offset commit trigger, ignoring '{}'", Constants.PIPELINED_BATCHES_KEY);
+      } else if (originPipe.getStage().getStage() instanceof OffsetCommitter) {
+        // Origin commits the offsets on its own, it can't read ahead of the last committed batch
+        LOG.warn("Pipeline origin commits its own offsets, ignoring '{}'", Constants.PIPELINED_BATCHES_KEY);
+      } else {
+        runPipelinedPollSource();
+        return;
+      }
+    }
+
     while (!offsetTracker.isFinished() && !stop && !finished) {
       if (threadHealthReporter != null) {
         threadHealthReporter.reportHealth(ProductionPipelineRunnable.RUNNABLE_NAME, -1, System.currentTimeMillis());
@@ -563,12 +652,12 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       FullPipeBatch pipeBatch = createFullPipeBatch(Source.POLL_SOURCE_OFFSET_KEY, offsetTracker.getOffsets().get(Source.POLL_SOURCE_OFFSET_KEY));
 
       // Run origin
-      Map<String, Long> memoryConsumedByStage = new HashMap<>();
-      Map<String, Object> stageBatchMetrics = new HashMap<>();
+      Map<String, Long> memoryConsumedByStage = new ConcurrentHashMap<>();
+      Map<String, Object> stageBatchMetrics = new ConcurrentHashMap<>();
       processPipe(
         originPipe,
         pipeBatch,
-        false,
+        new AtomicBoolean(false),
         null,
         null,
         memoryConsumedByStage,
@@ -603,6 +692,246 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     }
   }
 
+  /**
+   * Batch read by the origin that is waiting to be processed by the rest of the pipeline.
+   */
+  private static class PipelinedBatch {
+    // Marks end of the batches (origin is done or was stopped)
+    private static final PipelinedBatch END = new PipelinedBatch(0, null, null, null, null);
+
+    private final long start;
+    private final FullPipeBatch pipeBatch;
+    private final Map<String, Long> memoryConsumedByStage;
+    private final Map<String, Object> stageBatchMetrics;
+    private final Throwable failure;
+
+    PipelinedBatch(
+      long start,
+      FullPipeBatch pipeBatch,
+      Map<String, Long> memoryConsumedByStage,
+      Map<String, Object> stageBatchMetrics,
+      Throwable failure
+    ) {
+      this.start = start;
+      this.pipeBatch = pipeBatch;
+      this.memoryConsumedByStage = memoryConsumedByStage;
+      this.stageBatchMetrics = stageBatchMetrics;
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Variant of runPollSource() where origin runs in a separate thread and reads up to pipelinedBatches ahead of the
+   * rest of the pipeline. The batches are processed in the order in which they were read in this thread, so offsets
+   * are still committed in order and only after the batch was fully processed. The batch listeners and the observer
+   * run in this thread too, right before the rest of the pipeline processes the batch, so each preBatch() is paired
+   * with its postBatch(). On stop or failure the batches read ahead are discarded without committing their offsets.
+   */
+  private void runPipelinedPollSource() throws StageException, PipelineException {
+    BlockingQueue<PipelinedBatch> batches = new ArrayBlockingQueue<>(pipelinedBatches);
+    AtomicBoolean producing = new AtomicBoolean(true);
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+    ExecutorService originExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("Pipeline Origin Runner - " + pipelineName)
+        .setDaemon(true)
+        .build()
+    );
+    Future<?> origin = originExecutor.submit(() -> {
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      produceBatches(batches, producing);
+    });
+
+    Throwable failure = null;
+    try {
+      while (!offsetTracker.isFinished() && !stop && !finished) {
+        if (threadHealthReporter != null) {
+          threadHealthReporter.reportHealth(ProductionPipelineRunnable.RUNNABLE_NAME, -1, System.currentTimeMillis());
+        }
+
+        long waitStart = System.currentTimeMillis();
+        PipelinedBatch batch;
+        try {
+          batch = batches.take();
+        } catch (InterruptedException e) {
+          LOG.debug("Interrupted while waiting for next batch");
+          Thread.currentThread().interrupt();
+          return;
+        }
+        processingStallTimer.update(System.currentTimeMillis() - waitStart, TimeUnit.MILLISECONDS);
+
+        if (batch.failure != null) {
+          Throwables.propagateIfInstanceOf(batch.failure, StageException.class);
+          Throwables.propagateIfInstanceOf(batch.failure, PipelineException.class);
+          Throwables.propagate(batch.failure);
+        }
+        if (batch == PipelinedBatch.END) {
+          return;
+        }
+        inFlightBatchesCounter.dec();
+
+        for (BatchListener batchListener : batchListenerList) {
+          batchListener.preBatch();
+        }
+
+        if(observer != null) {
+          observer.reconfigure();
+        }
+
+        FullPipeBatch pipeBatch = batch.pipeBatch;
+        try {
+          // Run rest of the pipeline
+          runSourceLessBatch(
+            batch.start,
+            pipeBatch,
+            Source.POLL_SOURCE_OFFSET_KEY,
+            pipeBatch.getNewOffset(),
+            batch.memoryConsumedByStage,
+            batch.stageBatchMetrics
+          );
+        } catch (Throwable t) {
+          // We try to create partial batch on processing failure
+          createFailureBatch(pipeBatch);
+
+          Throwables.propagateIfInstanceOf(t, StageException.class);
+          Throwables.propagateIfInstanceOf(t, PipelineRuntimeException.class);
+          Throwables.propagate(t);
+        }
+
+        for (BatchListener batchListener : batchListenerList) {
+          batchListener.postBatch();
+        }
+      }
+    } catch (Throwable t) {
+      failure = t;
+      throw t;
+    } finally {
+      // Origin must not be running by the time we return, otherwise it could be still running during destroy
+      producing.set(false);
+      originExecutor.shutdown();
+      boolean originStopped = true;
+      try {
+        origin.get(pipelinedBatchesShutdownTimeout, TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+        LOG.error("Origin thread failed", e);
+      } catch (TimeoutException e) {
+        LOG.error("Origin didn't finish its batch in {} ms, interrupting it", pipelinedBatchesShutdownTimeout);
+        originStopped = interruptOrigin(originExecutor);
+      } catch (InterruptedException e) {
+        LOG.debug("Interrupted while waiting for origin to finish");
+        originStopped = interruptOrigin(originExecutor);
+        Thread.currentThread().interrupt();
+      }
+
+      // Discard batches that were read ahead, their offsets were not committed
+      List<PipelinedBatch> discarded = new ArrayList<>();
+      batches.drainTo(discarded);
+      for (PipelinedBatch batch : discarded) {
+        if (batch.pipeBatch != null) {
+          inFlightBatchesCounter.dec();
+        }
+      }
+
+      if (!originStopped) {
+        PipelineRuntimeException e = new PipelineRuntimeException(
+          ContainerError.CONTAINER_0804,
+          pipelinedBatchesShutdownTimeout
+        );
+        if (failure == null) {
+          throw e;
+        }
+        // Don't hide the original failure
+        failure.addSuppressed(e);
+      }
+    }
+  }
+
+  /**
+   * Interrupt the origin thread and wait for it to terminate.
+   *
+   * @return true if the origin thread terminated
+   */
+  private boolean interruptOrigin(ExecutorService originExecutor) {
+    originExecutor.shutdownNow();
+    try {
+      if (originExecutor.awaitTermination(pipelinedBatchesShutdownTimeout, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOG.error("Origin thread didn't stop in {} ms after it was interrupted", pipelinedBatchesShutdownTimeout);
+    return originExecutor.isTerminated();
+  }
+
+  /**
+   * Run the origin until it's done, stopped or the processing side is no longer interested in batches.
+   *
+   * As the offsets are not committed yet, the origin always gets offset of the previous batch it produced.
+   */
+  private void produceBatches(BlockingQueue<PipelinedBatch> batches, AtomicBoolean producing) {
+    String lastOffset = offsetTracker.getOffsets().get(Source.POLL_SOURCE_OFFSET_KEY);
+    try {
+      while (producing.get() && !stop && !finished) {
+        // Start of the batch execution
+        long start = System.currentTimeMillis();
+        FullPipeBatch pipeBatch = createFullPipeBatch(Source.POLL_SOURCE_OFFSET_KEY, lastOffset);
+
+        // Run origin
+        Map<String, Long> memoryConsumedByStage = new ConcurrentHashMap<>();
+        Map<String, Object> stageBatchMetrics = new ConcurrentHashMap<>();
+        processPipe(
+          originPipe,
+          pipeBatch,
+          new AtomicBoolean(false),
+          null,
+          null,
+          memoryConsumedByStage,
+          stageBatchMetrics
+        );
+        lastOffset = pipeBatch.getNewOffset();
+
+        inFlightBatchesCounter.inc();
+        if (!enqueue(batches, producing, new PipelinedBatch(start, pipeBatch, memoryConsumedByStage, stageBatchMetrics, null))) {
+          inFlightBatchesCounter.dec();
+          return;
+        }
+
+        // Null offset means that origin is done
+        if (lastOffset == null) {
+          break;
+        }
+      }
+      enqueue(batches, producing, PipelinedBatch.END);
+    } catch (Throwable t) {
+      enqueue(batches, producing, new PipelinedBatch(0, null, null, null, t));
+    }
+  }
+
+  /**
+   * Wait for a free slot in the queue for as long as the processing side is interested in batches.
+   */
+  private boolean enqueue(BlockingQueue<PipelinedBatch> batches, AtomicBoolean producing, PipelinedBatch batch) {
+    long waitStart = System.currentTimeMillis();
+    try {
+      while (producing.get()) {
+        if (batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      if (batch.pipeBatch != null) {
+        originStallTimer.update(System.currentTimeMillis() - waitStart, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
   @Override
   public void errorNotification(SourcePipe originPipe, List<PipeRunner> pipes, Throwable throwable) {
     Set<ErrorListener> listeners = Sets.newIdentityHashSet();
@@ -754,6 +1083,10 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         statsAggregationHandler.handle(null, null, stats);
       }
     } finally {
+        if (branchExecutor != null) {
+          branchExecutor.shutdown();
+          branchExecutor = null;
+        }
         destroyLock.unlock();
     }
   }
@@ -798,10 +1131,10 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     }
   }
 
-  private boolean processPipe(
+  private void processPipe(
     Pipe pipe,
     FullPipeBatch pipeBatch,
-    boolean committed,
+    AtomicBoolean committed,
     String entityName,
     String newOffset,
     Map<String, Long> memoryConsumedByStage,
@@ -814,11 +1147,16 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     if(!pipeBatch.isIdleBatch()) {
       if (deliveryGuarantee == DeliveryGuarantee.AT_MOST_ONCE
         && pipe.getStage().getDefinition().getType() == StageType.TARGET
-        && !committed
+        && !committed.get()
       ) {
-        // target cannot control offset commit in AT_MOST_ONCE mode
-        offsetTracker.commitOffset(entityName, newOffset);
-        committed = true;
+        // Targets in parallel branches can get here at the same time, all of them must wait for the commit to finish
+        synchronized (committed) {
+          if (!committed.get()) {
+            // target cannot control offset commit in AT_MOST_ONCE mode
+            offsetTracker.commitOffset(entityName, newOffset);
+            committed.set(true);
+          }
+        }
       }
     }
     pipe.process(pipeBatch);
@@ -828,8 +1166,6 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         stageBatchMetrics.put(pipe.getStage().getInfo().getInstanceName(), ((StagePipe) pipe).getBatchMetrics());
       }
     }
-
-    return committed;
   }
 
   private void runSourceLessBatch(
@@ -865,9 +1201,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
 
     OffsetCommitTrigger offsetCommitTrigger = pipeRunner.getOffsetCommitTrigger();
 
-    pipeRunner.executeBatch(entityName, newOffset, start, pipe -> {
-      committed.set(processPipe(pipe, pipeBatch, committed.get(), entityName, newOffset, memoryConsumedByStage, stageBatchMetrics));
-
+    pipeRunner.executeBatch(entityName, newOffset, start, branchExecutor, pipe -> {
+      processPipe(pipe, pipeBatch, committed, entityName, newOffset, memoryConsumedByStage, stageBatchMetrics);
     });
 
     enforceMemoryLimit(memoryConsumedByStage);
@@ -1006,8 +1341,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
             pipeBatch,
             null,
             null,
-            new HashMap<>(),
-            new HashMap<>()
+            new ConcurrentHashMap<>(),
+            new ConcurrentHashMap<>()
           );
         } finally {
           if(runner != null) {
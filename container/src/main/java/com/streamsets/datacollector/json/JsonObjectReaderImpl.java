@@ -178,7 +178,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
     }
     JsonToken token = jsonParser.nextToken();
     if (token != null && token != JsonToken.END_ARRAY) {
-      value = jsonParser.readValueAs(Object.class);
+      value = readValue(Object.class);
     }
     return value;
   }
@@ -196,7 +196,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
       nextToken = jsonParser.nextToken();
     }
     if (nextToken != null) {
-      value = jsonParser.readValueAs(getExpectedClass());
+      value = readValue(getExpectedClass());
       nextToken = jsonParser.nextToken();
       if (nextToken == null) {
         // if we reached the EOF Jackson JSON parser keeps the as getTokenLocation() the location of the last token,
@@ -207,6 +207,13 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
     return value;
   }
 
+  /**
+   * Read value starting at the current token, leaving the parser at the last token of the value.
+   */
+  protected Object readValue(Class<?> type) throws IOException {
+    return jsonParser.readValueAs(type);
+  }
+
   protected void fastForwardToNextRootObject() throws IOException {
     Preconditions.checkState(mode == Mode.MULTIPLE_OBJECTS, "Parser must be in MULTIPLE_OBJECT mode");
     JsonToken token = jsonParser.getCurrentToken();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Overrun JSON reader that returns {@link Field} instances built directly from the parser tokens, rather than
+ * reading plain Java maps and lists first and converting them to fields afterwards.
+ *
+ * Values are mapped to the same field types as the conversion of the plain Java structures. Field names are not
+ * copied per record, Jackson canonicalizes (and interns) them in the parser's symbol table.
+ */
+public class OverrunFieldJsonObjectReaderImpl extends OverrunJsonObjectReaderImpl {
+
+  public OverrunFieldJsonObjectReaderImpl(
+      Reader reader,
+      long initialPosition,
+      int maxObjectLen,
+      Mode mode
+  ) throws IOException {
+    super(reader, initialPosition, maxObjectLen, mode, Field.class);
+  }
+
+  @Override
+  protected Object readValue(Class<?> type) throws IOException {
+    try {
+      return readField(getJsonParser());
+    } catch (ObjectLengthException ex) {
+      // The overrun handling looks for the length violation among the causes, as wrapped by Jackson's databind
+      throw new IOException(ex.toString(), ex);
+    }
+  }
+
+  private Field readField(JsonParser parser) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if (token == null) {
+      throw new JsonParseException("Unexpected end of input", parser.getTokenLocation());
+    }
+    switch (token) {
+      case START_OBJECT:
+        LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          parser.nextToken();
+          map.put(name, readField(parser));
+          checkObjectLength();
+        }
+        return Field.create(map);
+      case START_ARRAY:
+        List<Field> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readField(parser));
+          checkObjectLength();
+        }
+        return Field.create(list);
+      case VALUE_STRING:
+        return Field.create(parser.getText());
+      case VALUE_NUMBER_INT:
+        switch (parser.getNumberType()) {
+          case INT:
+            return Field.create(parser.getIntValue());
+          case LONG:
+            return Field.create(parser.getLongValue());
+          default:
+            return Field.create(new BigDecimal(parser.getBigIntegerValue()));
+        }
+      case VALUE_NUMBER_FLOAT:
+        return Field.create(parser.getDoubleValue());
+      case VALUE_TRUE:
+        return Field.create(true);
+      case VALUE_FALSE:
+        return Field.create(false);
+      case VALUE_NULL:
+        return Field.create(Field.Type.STRING, null);
+      default:
+        throw new JsonParseException(
+            Utils.format("Unexpected token '{}'", token),
+            parser.getTokenLocation()
+        );
+    }
+  }
+
+}
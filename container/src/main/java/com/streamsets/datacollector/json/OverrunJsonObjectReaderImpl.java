@@ -214,11 +214,18 @@ public class OverrunJsonObjectReaderImpl extends JsonObjectReaderImpl {
 
   private static void checkIfLengthExceededForObjectRead(Object json) {
     OverrunJsonObjectReaderImpl enforcer = TL.get();
-    if (checkNotNull(enforcer, "Enforcer was null").maxObjectLen > -1) {
-      if (enforcer.getJsonParser().getCurrentLocation().getCharOffset() > enforcer.limitOffset) {
+    checkNotNull(enforcer, "Enforcer was null").checkObjectLength();
+  }
+
+  /**
+   * Fail with ObjectLengthException if the object currently being read exceeds the max object length.
+   */
+  protected void checkObjectLength() {
+    if (maxObjectLen > -1) {
+      if (getJsonParser().getCurrentLocation().getCharOffset() > limitOffset) {
         ExceptionUtils.throwUndeclared(new ObjectLengthException(Utils.format(
-            "JSON Object at offset '{}' exceeds max length '{}'", enforcer.startOffset, enforcer.maxObjectLen),
-            enforcer.startOffset));
+            "JSON Object at offset '{}' exceeds max length '{}'", startOffset, maxObjectLen),
+            startOffset));
       }
     }
   }
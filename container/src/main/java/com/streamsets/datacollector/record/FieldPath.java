@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Field path parsed once into its path elements, single quote escaped like the paths given to the record.
+ * <p/>
+ * The compiled paths are interned in a bounded cache shared by all the records, stages keep asking for the same
+ * few paths on every record of every batch.
+ */
+public final class FieldPath {
+  static final int MAX_CACHED_PATHS = 10000;
+
+  private static final Cache<String, FieldPath> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_PATHS)
+      .build();
+
+  private final String path;
+  private final List<PathElement> elements;
+
+  private FieldPath(String path, List<PathElement> elements) {
+    this.path = path;
+    this.elements = Collections.unmodifiableList(elements);
+  }
+
+  /**
+   * Returns the compiled field path, parsing it only if it is not in the cache.
+   *
+   * @throws IllegalArgumentException if the field path is not valid, invalid paths are not cached.
+   */
+  public static FieldPath compile(String path) {
+    Preconditions.checkNotNull(path, "fieldPath cannot be null");
+    FieldPath fieldPath = CACHE.getIfPresent(path);
+    if (fieldPath == null) {
+      // parsing twice the same new path in concurrent threads is harmless, no need to lock
+      fieldPath = new FieldPath(path, PathElement.parse(path, true));
+      CACHE.put(path, fieldPath);
+    }
+    return fieldPath;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  List<PathElement> getElements() {
+    return elements;
+  }
+
+  public boolean isRoot() {
+    return elements.size() == 1;
+  }
+
+  static long getCacheSize() {
+    return CACHE.size();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj || (obj instanceof FieldPath && path.equals(((FieldPath) obj).path));
+  }
+
+  @Override
+  public int hashCode() {
+    return path.hashCode();
+  }
+}
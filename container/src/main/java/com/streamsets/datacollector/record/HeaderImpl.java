@@ -60,6 +60,8 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
   //Note: additional fields should also define in ScriptRecord
 
   private Map<String, Object> map;
+  // true while the map is shared with other headers created via createCopyOnWrite(), it is copied on first write
+  private transient boolean shared;
 
   public HeaderImpl() {
     map = new HashMap<>();
@@ -71,6 +73,20 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
     this.map = new HashMap<>(header.map);
   }
 
+  // for createCopyOnWrite() purposes
+  private HeaderImpl(Map<String, Object> sharedMap) {
+    this.map = sharedMap;
+    this.shared = true;
+  }
+
+  private Map<String, Object> writableMap() {
+    if (shared) {
+      map = new HashMap<>(map);
+      shared = false;
+    }
+    return map;
+  }
+
   // Predicate interface
 
   @Override
@@ -185,14 +201,14 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
     Preconditions.checkNotNull(name, "name cannot be null");
     Preconditions.checkArgument(!name.startsWith(RESERVED_PREFIX), RESERVED_PREFIX_EXCEPTION_MSG);
     Preconditions.checkNotNull(value, "value cannot be null");
-    map.put(name, value);
+    writableMap().put(name, value);
   }
 
   @Override
   public void deleteAttribute(String name) {
     Preconditions.checkNotNull(name, "name cannot be null");
     Preconditions.checkArgument(!name.startsWith(RESERVED_PREFIX), RESERVED_PREFIX_EXCEPTION_MSG);
-    map.remove(name);
+    writableMap().remove(name);
   }
 
   // For Json serialization
@@ -253,42 +269,42 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
 
   public void setStageCreator(String stateCreator) {
     Preconditions.checkNotNull(stateCreator, "stateCreator cannot be null");
-    map.put(STAGE_CREATOR_INSTANCE_ATTR, stateCreator);
+    writableMap().put(STAGE_CREATOR_INSTANCE_ATTR, stateCreator);
   }
 
   public void setSourceId(String sourceId) {
     Preconditions.checkNotNull(sourceId, "sourceId cannot be null");
-    map.put(RECORD_SOURCE_ID_ATTR, sourceId);
+    writableMap().put(RECORD_SOURCE_ID_ATTR, sourceId);
   }
 
   public void setStagesPath(String stagePath) {
     Preconditions.checkNotNull(stagePath, "stagePath cannot be null");
-    map.put(STAGES_PATH_ATTR, stagePath);
+    writableMap().put(STAGES_PATH_ATTR, stagePath);
   }
 
   public void setTrackingId(String trackingId) {
     Preconditions.checkNotNull(trackingId, "trackingId cannot be null");
-    map.put(TRACKING_ID_ATTR, trackingId);
+    writableMap().put(TRACKING_ID_ATTR, trackingId);
   }
 
   public void setPreviousTrackingId(String previousTrackingId) {
     Preconditions.checkNotNull(previousTrackingId, "previousTrackingId cannot be null");
-    map.put(PREVIOUS_TRACKING_ID_ATTR, previousTrackingId);
+    writableMap().put(PREVIOUS_TRACKING_ID_ATTR, previousTrackingId);
   }
 
   public void setRaw(byte[] raw) {
     Preconditions.checkNotNull(raw, "raw cannot be null");
-    map.put(RAW_DATA_ATTR, raw.clone());
+    writableMap().put(RAW_DATA_ATTR, raw.clone());
   }
 
   public void setRawMimeType(String rawMime) {
     Preconditions.checkNotNull(rawMime, "rawMime cannot be null");
-    map.put(RAW_MIME_TYPE_ATTR, rawMime);
+    writableMap().put(RAW_MIME_TYPE_ATTR, rawMime);
   }
 
   public void setErrorJobId(String errorJobId) {
     Preconditions.checkNotNull(errorJobId, "errorJobId cannot be null");
-    map.put(ERROR_JOB_ID, errorJobId);
+    writableMap().put(ERROR_JOB_ID, errorJobId);
   }
 
   public void setError(String errorStage, String errorStageName, ErrorMessage errorMessage) {
@@ -316,8 +332,9 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
   }
 
   public void setErrorContext(String datacollector, String pipelineName) {
-    map.put(ERROR_DATACOLLECTOR_ID_ATTR, datacollector);
-    map.put(ERROR_PIPELINE_NAME_ATTR, pipelineName);
+    Map<String, Object> attributes = writableMap();
+    attributes.put(ERROR_DATACOLLECTOR_ID_ATTR, datacollector);
+    attributes.put(ERROR_PIPELINE_NAME_ATTR, pipelineName);
   }
 
   private void setError(
@@ -328,16 +345,17 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
     long errorTimestamp,
     String errorStackTrace
   ) {
-    map.put(ERROR_STAGE_ATTR, errorStage);
-    map.put(ERROR_STAGE_LABEL_ATTR, errorStageName);
-    map.put(ERROR_CODE_ATTR, errorCode);
-    map.put(ERROR_MESSAGE_ATTR, errorMessage);
-    map.put(ERROR_TIMESTAMP_ATTR, errorTimestamp);
-    map.put(ERROR_STACKTRACE, errorStackTrace);
+    Map<String, Object> attributes = writableMap();
+    attributes.put(ERROR_STAGE_ATTR, errorStage);
+    attributes.put(ERROR_STAGE_LABEL_ATTR, errorStageName);
+    attributes.put(ERROR_CODE_ATTR, errorCode);
+    attributes.put(ERROR_MESSAGE_ATTR, errorMessage);
+    attributes.put(ERROR_TIMESTAMP_ATTR, errorTimestamp);
+    attributes.put(ERROR_STACKTRACE, errorStackTrace);
   }
 
   public void setSourceRecord(Record record) {
-    map.put(SOURCE_RECORD_ATTR, record);
+    writableMap().put(SOURCE_RECORD_ATTR, record);
   }
 
   public Record getSourceRecord() {
@@ -394,6 +412,15 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
     return new HeaderImpl(this);
   }
 
+  /**
+   * Returns a header that shares the attributes with this one. Both headers copy the attributes on their first
+   * modification, so a change done through one of them is never visible through the other.
+   */
+  public HeaderImpl createCopyOnWrite() {
+    shared = true;
+    return new HeaderImpl(map);
+  }
+
   @Override
   public String toString() {
     return Utils.format("HeaderImpl[{}]", getSourceId());
@@ -447,6 +474,7 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
     // ImmutableMap can't have null values and our map could have, so use unmodifiable map
     Map<String, Object> old = Collections.unmodifiableMap(map);
     map = new HashMap<>(newAttrs);
+    shared = false;
     return old;
   }
 
@@ -465,6 +493,7 @@ public class HeaderImpl implements Record.Header, Predicate<String>, Cloneable,
 
     //Set current map to just the Reserved System Attributes
     map = getSystemAttributes();
+    shared = false;
     // Add and validate each of the new user attributes
     newAttributes.forEach((k,v) -> setAttribute(k, v.toString()));
     return old;
@@ -40,6 +40,8 @@ public class RecordImpl implements Record, Cloneable {
   //Default true: so as to denote the record is just created
   //and initialized in a stage and did not pass through any other stage.
   private boolean isInitialRecord = true;
+  // true while the value is shared with other records created via createCopyOnWrite(), it is copied on first write
+  private boolean sharedValue;
 
   // need default constructor for deserialization purposes (Kryo)
   private RecordImpl() {
@@ -82,6 +84,31 @@ public class RecordImpl implements Record, Cloneable {
     isInitialRecord = record.isInitialRecord();
   }
 
+  // for createCopyOnWrite() purposes
+  private RecordImpl(HeaderImpl header, Field value, boolean isInitialRecord) {
+    this.header = header;
+    this.value = value;
+    this.sharedValue = value != null;
+    this.isInitialRecord = isInitialRecord;
+  }
+
+  /**
+   * Returns a copy of this record that shares the field tree and the header attributes with this record. Either
+   * record makes its own copy of the shared state the first time it is modified via set(), delete() or a header
+   * setter. Fields obtained via get() are shared as well, so they must not be modified in place.
+   */
+  public RecordImpl createCopyOnWrite() {
+    sharedValue = value != null;
+    return new RecordImpl(header.createCopyOnWrite(), value, isInitialRecord);
+  }
+
+  private void ensureValueNotShared() {
+    if (sharedValue) {
+      value = value.clone();
+      sharedValue = false;
+    }
+  }
+
   public void addStageToStagePath(String stage) {
     Preconditions.checkNotNull(stage, "stage cannot be null");
     String currentPath = (header.getStagesPath() == null) ? "" : header.getStagesPath() + ":";
@@ -119,6 +146,7 @@ public class RecordImpl implements Record, Cloneable {
   public Field set(Field field) {
     Field oldData = value;
     value = field;
+    sharedValue = false;
     return oldData;
   }
 
@@ -271,10 +299,6 @@ public class RecordImpl implements Record, Cloneable {
     return createFieldWithPath("", "", get());
   }
 
-  List<PathElement> parse(String fieldPath) {
-    return PathElement.parse(fieldPath, true);
-  }
-
   private List<Field> get(List<PathElement> elements) {
     List<Field> fields = new ArrayList<>(elements.size());
     if (value != null) {
@@ -329,20 +353,36 @@ public class RecordImpl implements Record, Cloneable {
       // if asking for the root field we can return it without and fieldpath parsing
       return value;
     } else {
-      List<PathElement> elements = parse(fieldPath);
-      List<Field> fields = get(elements);
-      return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
+      return get(FieldPath.compile(fieldPath));
     }
   }
 
+  public Field get(FieldPath fieldPath) {
+    if (fieldPath.isRoot()) {
+      return value;
+    }
+    List<PathElement> elements = fieldPath.getElements();
+    List<Field> fields = get(elements);
+    return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
+  }
+
 
   @Override
   public Field delete(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
+    return delete(FieldPath.compile(fieldPath));
+  }
+
+  public Field delete(FieldPath fieldPath) {
+    List<PathElement> elements = fieldPath.getElements();
     List<Field> fields = get(elements);
     Field deleted = null;
     int fieldPos = fields.size();
     if (elements.size() == fieldPos) {
+      if (sharedValue) {
+        // the path exists, take our own copy of the fields before removing anything from them
+        ensureValueNotShared();
+        fields = get(elements);
+      }
       fieldPos--;
 
       if (fieldPos == 0) {
@@ -370,7 +410,11 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public boolean has(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
+    return has(FieldPath.compile(fieldPath));
+  }
+
+  public boolean has(FieldPath fieldPath) {
+    List<PathElement> elements = fieldPath.getElements();
     List<Field> fields = get(elements);
     return (elements.size() == fields.size());
   }
@@ -530,16 +574,30 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field set(String fieldPath, Field newField) {
-    Field fieldToReplace;
     if ("/".equals(fieldPath) || fieldPath.isEmpty()) {
       // if asking for the root field we can set it without any field path parsing
-      fieldToReplace = value;
-      value = newField;
+      return setRoot(newField);
+    }
+    return set(FieldPath.compile(fieldPath), newField);
+  }
+
+  private Field setRoot(Field newField) {
+    Field fieldToReplace = value;
+    value = newField;
+    sharedValue = false;
+    return fieldToReplace;
+  }
+
+  public Field set(FieldPath fieldPath, Field newField) {
+    Field fieldToReplace;
+    if (fieldPath.isRoot()) {
+      fieldToReplace = setRoot(newField);
     } else {
+      ensureValueNotShared();
       //get all the elements present in the fieldPath, including the newest element
       //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the parser returns three
       // elements - a, b and d
-      List<PathElement> elements = parse(fieldPath);
+      List<PathElement> elements = fieldPath.getElements();
       //return all *existing* fields form the list of elements
       //In the above case it is going to return only field a and field b. Field d does not exist.
       List<Field> fields = get(elements);
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.pipeline.api.Field;
+
+/**
+ * Layout of the BIN1 record encoding.
+ * <p/>
+ * A BIN1 stream is the sequence of its records, each one is its header followed by its root field. All the integer
+ * values are varints (negative ones zigzag encoded), strings are UTF-8 bytes prefixed with their length.
+ * <p/>
+ * Field names, header attribute names and the header values repeated across the records (stage creator, stages
+ * path, error context) are dictionary encoded: the first occurrence of a string in the stream is written in full
+ * and assigned the next index of the dictionary, any following occurrence is written as that index.
+ * <p/>
+ * Each field starts with a tag byte, its type code ORed with the {@link #NULL_VALUE} and {@link #HAS_ATTRIBUTES}
+ * flags, tag {@link #NULL_FIELD} stands for a missing field.
+ */
+final class BinaryRecordConstants {
+
+  static final int NULL_FIELD = 0;
+  static final int HAS_ATTRIBUTES = 0x80;
+  static final int NULL_VALUE = 0x40;
+  static final int TYPE_MASK = 0x3F;
+
+  // Type codes are part of the encoding, new types must be appended
+  private static final Field.Type[] TYPES = {
+      null,
+      Field.Type.BOOLEAN,
+      Field.Type.CHAR,
+      Field.Type.BYTE,
+      Field.Type.SHORT,
+      Field.Type.INTEGER,
+      Field.Type.LONG,
+      Field.Type.FLOAT,
+      Field.Type.DOUBLE,
+      Field.Type.DATE,
+      Field.Type.DATETIME,
+      Field.Type.TIME,
+      Field.Type.DECIMAL,
+      Field.Type.STRING,
+      Field.Type.BYTE_ARRAY,
+      Field.Type.MAP,
+      Field.Type.LIST,
+      Field.Type.LIST_MAP,
+      Field.Type.ZONED_DATETIME,
+  };
+
+  private static final int[] TYPE_CODES = new int[Field.Type.values().length];
+
+  static {
+    for (int code = 1; code < TYPES.length; code++) {
+      TYPE_CODES[TYPES[code].ordinal()] = code;
+    }
+  }
+
+  // String references: null, a new dictionary entry, or (index + FIRST_INDEX) of an existing one
+  static final int NULL_STRING = 0;
+  static final int NEW_STRING = 1;
+  static final int FIRST_INDEX = 2;
+
+  private BinaryRecordConstants() {}
+
+  /**
+   * Returns the code of the given type, 0 if the type can not be encoded.
+   */
+  static int getTypeCode(Field.Type type) {
+    return TYPE_CODES[type.ordinal()];
+  }
+
+  /**
+   * Returns the type of the given code, null if the code is unknown.
+   */
+  static Field.Type getType(int code) {
+    return (code > 0 && code < TYPES.length) ? TYPES[code] : null;
+  }
+
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.datacollector.record.HeaderImpl;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordReader;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.FIRST_INDEX;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.HAS_ATTRIBUTES;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NEW_STRING;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_FIELD;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_STRING;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_VALUE;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.TYPE_MASK;
+
+/**
+ * Reads records in the BIN1 encoding, see {@link BinaryRecordConstants} for the layout.
+ * <p/>
+ * As the dictionary is built from the beginning of the stream, starting at a non zero position decodes (and
+ * discards) the records before that position.
+ */
+public class BinaryRecordReader implements RecordReader {
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final InputStream inputStream;
+  private final int maxObjectLen;
+  private final List<String> dictionary;
+  private final byte[] buffer;
+  private int pos;
+  private int limit;
+  // stream position of the first byte in the buffer
+  private long bufferPosition;
+  private boolean closed;
+
+  public BinaryRecordReader(InputStream inputStream, long initialPosition, int maxObjectLen) throws IOException {
+    this.inputStream = inputStream;
+    this.maxObjectLen = maxObjectLen;
+    dictionary = new ArrayList<>();
+    buffer = new byte[BUFFER_SIZE];
+    while (getPosition() < initialPosition) {
+      if (readRecord() == null) {
+        throw new IOException(Utils.format("Position '{}' is past the end of the data", initialPosition));
+      }
+    }
+    if (getPosition() != initialPosition) {
+      throw new IOException(Utils.format("Position '{}' is not at a record boundary", initialPosition));
+    }
+  }
+
+  @Override
+  public String getEncoding() {
+    return RecordEncoding.BIN1.name();
+  }
+
+  @Override
+  public long getPosition() {
+    return bufferPosition + pos;
+  }
+
+  @Override
+  public Record readRecord() throws IOException {
+    if (closed) {
+      throw new IOException("input has been closed");
+    }
+    if (pos == limit && !fill(1)) {
+      return null;
+    }
+    long start = getPosition();
+    HeaderImpl header = readHeader();
+    Field field = readField();
+    long length = getPosition() - start;
+    if (maxObjectLen > 0 && length > maxObjectLen) {
+      throw new ObjectLengthException(
+          Utils.format("Record at position '{}' is '{}' bytes, exceeding the maximum '{}'", start, length, maxObjectLen),
+          start
+      );
+    }
+    return new RecordImpl(header, field);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      inputStream.close();
+    }
+  }
+
+  private HeaderImpl readHeader() throws IOException {
+    String stageCreator = readDictionaryString();
+    String sourceId = readString();
+    String stagesPath = readDictionaryString();
+    String trackingId = readString();
+    String previousTrackingId = readString();
+    byte[] raw = readBytes();
+    String rawMimeType = readDictionaryString();
+    String errorDataCollectorId = readDictionaryString();
+    String errorPipelineName = readDictionaryString();
+    String errorStage = readDictionaryString();
+    String errorStageLabel = readDictionaryString();
+    String errorCode = readDictionaryString();
+    String errorMessage = readString();
+    long errorTimestamp = unzigzag(readVarLong());
+    String errorStackTrace = readString();
+    String errorJobId = readDictionaryString();
+    int size = readLength();
+    Map<String, Object> attributes = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      attributes.put(readDictionaryString(), readString());
+    }
+    return new HeaderImpl(
+        stageCreator,
+        sourceId,
+        stagesPath,
+        trackingId,
+        previousTrackingId,
+        raw,
+        rawMimeType,
+        errorDataCollectorId,
+        errorPipelineName,
+        errorStage,
+        errorStageLabel,
+        errorCode,
+        errorMessage,
+        errorTimestamp,
+        errorStackTrace,
+        attributes,
+        errorJobId
+    );
+  }
+
+  private Field readField() throws IOException {
+    int tag = readByte() & 0xFF;
+    if (tag == NULL_FIELD) {
+      return null;
+    }
+    Field.Type type = BinaryRecordConstants.getType(tag & TYPE_MASK);
+    if (type == null) {
+      throw new IOException(Utils.format("Invalid field tag '{}' at position '{}'", tag, getPosition() - 1));
+    }
+    Map<String, String> attributes = null;
+    if ((tag & HAS_ATTRIBUTES) != 0) {
+      int size = readLength();
+      attributes = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        attributes.put(readDictionaryString(), readString());
+      }
+    }
+    Object value = ((tag & NULL_VALUE) != 0) ? null : readValue(type);
+    return Field.create(type, value, attributes);
+  }
+
+  private Object readValue(Field.Type type) throws IOException {
+    switch (type) {
+      case BOOLEAN:
+        return readByte() != 0;
+      case CHAR:
+        return (char) readVarLong();
+      case BYTE:
+        return readByte();
+      case SHORT:
+        return (short) unzigzag(readVarLong());
+      case INTEGER:
+        return (int) unzigzag(readVarLong());
+      case LONG:
+        return unzigzag(readVarLong());
+      case FLOAT:
+        return Float.intBitsToFloat((int) readFixed(4));
+      case DOUBLE:
+        return Double.longBitsToDouble(readFixed(8));
+      case DATE:
+      case DATETIME:
+      case TIME:
+        return new Date(unzigzag(readVarLong()));
+      case DECIMAL:
+        int scale = (int) unzigzag(readVarLong());
+        byte[] unscaled = readBytes();
+        if (unscaled == null) {
+          throw new IOException(Utils.format("Missing decimal value at position '{}'", getPosition()));
+        }
+        return new BigDecimal(new BigInteger(unscaled), scale);
+      case STRING:
+        return readString();
+      case BYTE_ARRAY:
+        return readBytes();
+      case MAP:
+      case LIST_MAP:
+        int mapSize = readLength();
+        Map<String, Field> map = new LinkedHashMap<>(mapSize * 4 / 3 + 1);
+        for (int i = 0; i < mapSize; i++) {
+          map.put(readDictionaryString(), readField());
+        }
+        return map;
+      case LIST:
+        int listSize = readLength();
+        List<Field> list = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+          list.add(readField());
+        }
+        return list;
+      case ZONED_DATETIME:
+        String zonedDatetime = readString();
+        return (zonedDatetime == null) ? null : ZonedDateTime.parse(zonedDatetime);
+      default:
+        throw new IllegalStateException(Utils.format("Unexpected field type '{}'", type));
+    }
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  // Makes sure there are at least the given number of bytes in the buffer, false if the stream ended before
+  private boolean fill(int length) throws IOException {
+    if (limit - pos >= length) {
+      return true;
+    }
+    if (pos > 0) {
+      System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+      bufferPosition += pos;
+      limit -= pos;
+      pos = 0;
+    }
+    while (limit < length) {
+      int read = inputStream.read(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        return false;
+      }
+      limit += read;
+    }
+    return true;
+  }
+
+  private byte readByte() throws IOException {
+    if (pos == limit && !fill(1)) {
+      throw new EOFException(Utils.format("Truncated record at position '{}'", getPosition()));
+    }
+    return buffer[pos++];
+  }
+
+  private long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException(Utils.format("Invalid varint at position '{}'", getPosition()));
+  }
+
+  private long readFixed(int length) throws IOException {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | (readByte() & 0xFF);
+    }
+    return value;
+  }
+
+  // Reads a size or length, checked against the maximum record length so corrupted data does not exhaust memory
+  private int readLength() throws IOException {
+    long length = readVarLong();
+    if (length < 0 || length > Integer.MAX_VALUE - 8 || (maxObjectLen > 0 && length > maxObjectLen)) {
+      throw new IOException(Utils.format("Invalid length '{}' at position '{}'", length, getPosition()));
+    }
+    return (int) length;
+  }
+
+  private byte[] readBytes() throws IOException {
+    int length = readLength();
+    if (length == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length - 1];
+    readFully(bytes);
+    return bytes;
+  }
+
+  private void readFully(byte[] bytes) throws IOException {
+    int copied = Math.min(limit - pos, bytes.length);
+    System.arraycopy(buffer, pos, bytes, 0, copied);
+    pos += copied;
+    while (copied < bytes.length) {
+      int read = inputStream.read(bytes, copied, bytes.length - copied);
+      if (read < 0) {
+        throw new EOFException(Utils.format("Truncated record at position '{}'", getPosition()));
+      }
+      copied += read;
+      bufferPosition += read;
+    }
+  }
+
+  private String readString() throws IOException {
+    int length = readLength();
+    return (length == NULL_STRING) ? null : readUtf8(length - 1);
+  }
+
+  private String readDictionaryString() throws IOException {
+    long reference = readVarLong();
+    if (reference == NULL_STRING) {
+      return null;
+    } else if (reference == NEW_STRING) {
+      String value = readUtf8(readLength());
+      dictionary.add(value);
+      return value;
+    } else {
+      long index = reference - FIRST_INDEX;
+      if (index < 0 || index >= dictionary.size()) {
+        throw new IOException(Utils.format("Invalid dictionary index '{}' at position '{}'", index, getPosition()));
+      }
+      return dictionary.get((int) index);
+    }
+  }
+
+  private String readUtf8(int length) throws IOException {
+    if (length <= buffer.length) {
+      if (!fill(length)) {
+        throw new EOFException(Utils.format("Truncated record at position '{}'", getPosition()));
+      }
+      String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return value;
+    }
+    byte[] bytes = new byte[length];
+    readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
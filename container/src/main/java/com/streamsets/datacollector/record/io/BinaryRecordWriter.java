@@ -0,0 +1,321 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordWriter;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.FIRST_INDEX;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.HAS_ATTRIBUTES;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NEW_STRING;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_FIELD;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_STRING;
+import static com.streamsets.datacollector.record.io.BinaryRecordConstants.NULL_VALUE;
+
+/**
+ * Writes records in the BIN1 encoding, see {@link BinaryRecordConstants} for the layout.
+ */
+public class BinaryRecordWriter implements RecordWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(BinaryRecordWriter.class);
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final OutputStream outputStream;
+  private final Map<String, Integer> dictionary;
+  private byte[] buffer;
+  private int count;
+  private boolean closed;
+
+  public BinaryRecordWriter(OutputStream outputStream) {
+    this.outputStream = outputStream;
+    dictionary = new HashMap<>();
+    buffer = new byte[BUFFER_SIZE];
+  }
+
+  @Override
+  public String getEncoding() {
+    return RecordEncoding.BIN1.name();
+  }
+
+  @Override
+  public void write(Record record) throws IOException {
+    if (closed) {
+      throw new IOException("writer has been closed");
+    }
+    Utils.checkNotNull(record, "record");
+    writeHeader(record.getHeader());
+    writeField(record.get());
+    if (count >= BUFFER_SIZE) {
+      flushBuffer();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (closed) {
+      throw new IOException("writer has been closed");
+    }
+    flushBuffer();
+    outputStream.flush();
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      try (OutputStream os = outputStream) {
+        flushBuffer();
+      } catch (IOException ex) {
+        LOG.warn("Error on close: {}", ex, ex);
+      }
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (count > 0) {
+      outputStream.write(buffer, 0, count);
+      count = 0;
+    }
+  }
+
+  private void writeHeader(Record.Header header) throws IOException {
+    writeDictionaryString(header.getStageCreator());
+    writeString(header.getSourceId());
+    writeDictionaryString(header.getStagesPath());
+    writeString(header.getTrackingId());
+    writeString(header.getPreviousTrackingId());
+    writeBytes(header.getRaw());
+    writeDictionaryString(header.getRawMimeType());
+    writeDictionaryString(header.getErrorDataCollectorId());
+    writeDictionaryString(header.getErrorPipelineName());
+    writeDictionaryString(header.getErrorStage());
+    writeDictionaryString(header.getErrorStageLabel());
+    writeDictionaryString(header.getErrorCode());
+    writeString(header.getErrorMessage());
+    writeVarLong(zigzag(header.getErrorTimestamp()));
+    writeString(header.getErrorStackTrace());
+    writeDictionaryString(header.getErrorJobId());
+    Set<String> names = header.getAttributeNames();
+    writeVarInt(names.size());
+    for (String name : names) {
+      writeDictionaryString(name);
+      writeString(header.getAttribute(name));
+    }
+  }
+
+  private void writeField(Field field) throws IOException {
+    if (field == null) {
+      ensureCapacity(1);
+      buffer[count++] = NULL_FIELD;
+      return;
+    }
+    Field.Type type = field.getType();
+    int tag = BinaryRecordConstants.getTypeCode(type);
+    if (tag == 0) {
+      throw new IOException(Utils.format("Cannot serialize '{}' fields", type));
+    }
+    Object value = field.getValue();
+    Map<String, String> attributes = field.getAttributes();
+    if (value == null) {
+      tag |= NULL_VALUE;
+    }
+    if (attributes != null && !attributes.isEmpty()) {
+      tag |= HAS_ATTRIBUTES;
+    }
+    ensureCapacity(1);
+    buffer[count++] = (byte) tag;
+    if ((tag & HAS_ATTRIBUTES) != 0) {
+      writeVarInt(attributes.size());
+      for (Map.Entry<String, String> entry : attributes.entrySet()) {
+        writeDictionaryString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+    if (value != null) {
+      writeValue(type, field);
+    }
+  }
+
+  private void writeValue(Field.Type type, Field field) throws IOException {
+    switch (type) {
+      case BOOLEAN:
+        ensureCapacity(1);
+        buffer[count++] = (byte) (field.getValueAsBoolean() ? 1 : 0);
+        break;
+      case CHAR:
+        writeVarInt(field.getValueAsChar());
+        break;
+      case BYTE:
+        ensureCapacity(1);
+        buffer[count++] = field.getValueAsByte();
+        break;
+      case SHORT:
+        writeVarLong(zigzag(field.getValueAsShort()));
+        break;
+      case INTEGER:
+        writeVarLong(zigzag(field.getValueAsInteger()));
+        break;
+      case LONG:
+        writeVarLong(zigzag(field.getValueAsLong()));
+        break;
+      case FLOAT:
+        writeFixed(Float.floatToIntBits(field.getValueAsFloat()), 4);
+        break;
+      case DOUBLE:
+        writeFixed(Double.doubleToLongBits(field.getValueAsDouble()), 8);
+        break;
+      case DATE:
+      case DATETIME:
+      case TIME:
+        writeVarLong(zigzag(((Date) field.getValue()).getTime()));
+        break;
+      case DECIMAL:
+        BigDecimal decimal = field.getValueAsDecimal();
+        writeVarLong(zigzag(decimal.scale()));
+        writeBytes(decimal.unscaledValue().toByteArray());
+        break;
+      case STRING:
+        writeString(field.getValueAsString());
+        break;
+      case BYTE_ARRAY:
+        writeBytes(field.getValueAsByteArray());
+        break;
+      case MAP:
+      case LIST_MAP:
+        Map<String, Field> map = field.getValueAsMap();
+        writeVarInt(map.size());
+        for (Map.Entry<String, Field> entry : map.entrySet()) {
+          writeDictionaryString(entry.getKey());
+          writeField(entry.getValue());
+        }
+        break;
+      case LIST:
+        List<Field> list = field.getValueAsList();
+        writeVarInt(list.size());
+        for (Field element : list) {
+          writeField(element);
+        }
+        break;
+      case ZONED_DATETIME:
+        writeString(field.getValue().toString());
+        break;
+      default:
+        throw new IllegalStateException(Utils.format("Unexpected field type '{}'", type));
+    }
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private void ensureCapacity(int length) {
+    if (count + length > buffer.length) {
+      byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + length)];
+      System.arraycopy(buffer, 0, newBuffer, 0, count);
+      buffer = newBuffer;
+    }
+  }
+
+  private void writeVarInt(int value) {
+    writeVarLong(value & 0xFFFFFFFFL);
+  }
+
+  private void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[count++] = (byte) value;
+  }
+
+  private void writeFixed(long value, int length) {
+    ensureCapacity(length);
+    for (int i = length - 1; i >= 0; i--) {
+      buffer[count++] = (byte) (value >>> (i * 8));
+    }
+  }
+
+  private void writeBytes(byte[] bytes) {
+    if (bytes == null) {
+      writeVarInt(0);
+    } else {
+      writeVarInt(bytes.length + 1);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, count, bytes.length);
+      count += bytes.length;
+    }
+  }
+
+  private void writeString(String value) {
+    if (value == null) {
+      writeVarInt(NULL_STRING);
+    } else {
+      writeStringBytes(value, 1);
+    }
+  }
+
+  private void writeDictionaryString(String value) {
+    if (value == null) {
+      writeVarInt(NULL_STRING);
+    } else {
+      Integer index = dictionary.get(value);
+      if (index != null) {
+        writeVarInt(index + FIRST_INDEX);
+      } else {
+        dictionary.put(value, dictionary.size());
+        writeVarInt(NEW_STRING);
+        writeStringBytes(value, 0);
+      }
+    }
+  }
+
+  // Writes the UTF-8 length (plus the given offset) and bytes, ASCII strings are encoded without an intermediate array
+  private void writeStringBytes(String value, int lengthOffset) {
+    int length = value.length();
+    boolean ascii = true;
+    for (int i = 0; ascii && i < length; i++) {
+      ascii = value.charAt(i) < 0x80;
+    }
+    if (ascii) {
+      writeVarInt(length + lengthOffset);
+      ensureCapacity(length);
+      for (int i = 0; i < length; i++) {
+        buffer[count++] = (byte) value.charAt(i);
+      }
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length + lengthOffset);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, count, bytes.length);
+      count += bytes.length;
+    }
+  }
+
+}
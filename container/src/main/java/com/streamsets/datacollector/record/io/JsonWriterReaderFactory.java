@@ -18,7 +18,9 @@ package com.streamsets.datacollector.record.io;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.datacollector.json.JsonObjectReaderImpl;
 import com.streamsets.datacollector.json.JsonRecordWriterImpl;
+import com.streamsets.datacollector.json.OverrunFieldJsonObjectReaderImpl;
 import com.streamsets.datacollector.json.OverrunJsonObjectReaderImpl;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.ext.JsonObjectReader;
 import com.streamsets.pipeline.api.ext.JsonRecordWriter;
 import com.streamsets.pipeline.api.ext.io.OverrunReader;
@@ -42,13 +44,18 @@ public class JsonWriterReaderFactory {
       int maxObjectLen
   ) throws IOException {
     // overrun
+    OverrunReader overrunReader = new OverrunReader(
+        reader,
+        OverrunReader.getDefaultReadLimit(),
+        false,
+        false
+    );
+    if (objectClass == Field.class) {
+      // Fields are built directly from the parser
+      return new OverrunFieldJsonObjectReaderImpl(overrunReader, initialPosition, maxObjectLen, mode);
+    }
     return new OverrunJsonObjectReaderImpl(
-        new OverrunReader(
-            reader,
-            OverrunReader.getDefaultReadLimit(),
-            false,
-            false
-        ),
+        overrunReader,
         initialPosition,
         maxObjectLen,
         mode,
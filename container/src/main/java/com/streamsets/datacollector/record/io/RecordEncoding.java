@@ -27,6 +27,8 @@ class RecordEncodingConstants {
   static final byte KRYO1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x02;
   //10100001
   static final byte JSON1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x01;
+  //10100100
+  static final byte BIN1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x04;
 
   private RecordEncodingConstants() {}
 }
@@ -34,6 +36,7 @@ class RecordEncodingConstants {
 public enum RecordEncoding {
   JSON1(RecordEncodingConstants.JSON1_MAGIC_NUMBER),
   KRYO1(RecordEncodingConstants.KRYO1_MAGIC_NUMBER),
+  BIN1(RecordEncodingConstants.BIN1_MAGIC_NUMBER),
 
   ;
 
@@ -512,4 +512,17 @@ public class StageLibraryResource {
     List<ClasspathValidatorResult> results = stageLibrary.validateStageLibClasspath();
     return Response.ok().entity(results).build();
   }
+
+  @GET
+  @Path("/stageLibraries/startupTimings")
+  @ApiOperation(
+      value = "Returns the time spent in each phase of the stage libraries initialization, in milliseconds.",
+      response = Object.class,
+      authorizations = @Authorization(value = "basic")
+  )
+  @RolesAllowed({AuthzRole.ADMIN, AuthzRole.ADMIN_REMOTE})
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response startupTimings() {
+    return Response.ok().entity(stageLibrary.getStartupTimings()).build();
+  }
 }
@@ -26,6 +26,7 @@ import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageType;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +51,10 @@ public class BatchMakerImpl implements BatchMaker {
   private int recordAllowance;
   private int size;
   private boolean recordByRef;
+  private final boolean estimateRecordBytes;
+  // Only every MemoryUsageReporter.ESTIMATE_SAMPLING-th record is estimated, the rest is extrapolated
+  private int sampledRecords;
+  private long sampledRecordBytes;
   private Optional<RateLimiter> rateLimiterOptional = Optional.absent();
 
   public BatchMakerImpl(StagePipe stagePipe, boolean keepSnapshot) {
@@ -74,6 +79,7 @@ public class BatchMakerImpl implements BatchMaker {
     // we can skip one copy here (just here though), except if we are in preview
     recordByRef = !stagePipe.getStage().getContext().isPreview() &&
                   stagePipe.getStage().getDefinition().getRecordsByRef();
+    estimateRecordBytes = stagePipe.isIncrementalMemoryAccounting();
   }
 
   boolean isRecordByRef() {
@@ -149,6 +155,10 @@ public class BatchMakerImpl implements BatchMaker {
         }
       }
     }
+    if (estimateRecordBytes && size % MemoryUsageReporter.ESTIMATE_SAMPLING == 0) {
+      sampledRecordBytes += MemoryUsageReporter.estimate(recordCopy);
+      sampledRecords++;
+    }
     size++;
   }
 
@@ -164,6 +174,14 @@ public class BatchMakerImpl implements BatchMaker {
     return size;
   }
 
+  /**
+   * @return Estimated number of bytes of all records added to this batch maker, 0 unless incremental memory accounting
+   * is enabled. Extrapolated from the sampled records.
+   */
+  public long getRecordBytes() {
+    return sampledRecords == 0 ? 0 : sampledRecordBytes * size / sampledRecords;
+  }
+
   public int getSize(String lane) {
     return stageOutput.get(lane).size();
   }
@@ -25,6 +25,7 @@ import com.streamsets.pipeline.api.interceptor.Interceptor;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -34,6 +35,8 @@ import java.util.Set;
 
 /**
  * Error sink is an entity that ends up collecting error records as they are generated by the stages.
+ *
+ * Stages of independent pipeline branches can report errors concurrently, hence all methods are synchronized.
  */
 public class ErrorSink implements ReportErrorDelegate {
 
@@ -43,6 +46,8 @@ public class ErrorSink implements ReportErrorDelegate {
   private int size;
   private int totalErrorRecords;
   private int totalErrorMessages;
+  // Position of the stages in the pipeline, errors are kept in this order if set
+  private Map<String, Integer> stageOrder;
 
   public ErrorSink() {
     stageErrors = new LinkedHashMap<>();
@@ -54,42 +59,65 @@ public class ErrorSink implements ReportErrorDelegate {
   }
 
   // for SDK
-  public void clear() {
+  public synchronized void clear() {
     stageErrors.clear();
     errorRecords.clear();
   }
 
   @Override
-  public void reportError(String stage, ErrorMessage errorMessage) {
+  public synchronized void reportError(String stage, ErrorMessage errorMessage) {
     addError(stageErrors, stage, errorMessage);
     totalErrorMessages++;
   }
 
-  public void registerInterceptorsForStage(String stage, List<? extends Interceptor> interceptors) {
+  public synchronized void registerInterceptorsForStage(String stage, List<? extends Interceptor> interceptors) {
     Preconditions.checkState(!this.interceptors.containsKey(stage), Utils.format("Interceptors for stage '{}' already registered", stage));
     this.interceptors.put(stage, interceptors);
   }
 
-  public void addRecord(String stage, Record errorRecord) {
+  public synchronized void addRecord(String stage, Record errorRecord) {
     addError(errorRecords, stage, errorRecord);
     totalErrorRecords++;
   }
 
-  public Map<String, List<ErrorMessage>> getStageErrors() {
+  public synchronized Map<String, List<ErrorMessage>> getStageErrors() {
     return stageErrors;
   }
 
   // TODO: THis needs to be dropped as it's unprotected
-  public Map<String, List<Record>> getErrorRecords() {
+  public synchronized Map<String, List<Record>> getErrorRecords() {
     return errorRecords;
   }
 
+  /**
+   * Keep errors of the stages in the given order rather than in the order the stages reported them.
+   */
+  public synchronized void setStageOrder(Map<String, Integer> stageOrder) {
+    this.stageOrder = stageOrder;
+  }
+
   private <T> void addError(Map<String, List<T>> map, String stage, T error) {
-    List<T> errors = map.computeIfAbsent(stage, k -> new ArrayList<>());
+    List<T> errors = map.get(stage);
+    if (errors == null) {
+      errors = new ArrayList<>();
+      map.put(stage, errors);
+      if (stageOrder != null) {
+        sortStages(map);
+      }
+    }
     errors.add(error);
     size++;
   }
 
+  private <T> void sortStages(Map<String, List<T>> map) {
+    List<Map.Entry<String, List<T>>> entries = new ArrayList<>(map.entrySet());
+    entries.sort(Comparator.comparingInt(entry -> stageOrder.getOrDefault(entry.getKey(), -1)));
+    map.clear();
+    for (Map.Entry<String, List<T>> entry : entries) {
+      map.put(entry.getKey(), entry.getValue());
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private <T> List<T> getErrors(Map<String, List<T>> map, String stage) {
     List<T> errors = map.get(stage);
@@ -97,35 +125,40 @@ public class ErrorSink implements ReportErrorDelegate {
   }
 
   public List<Record> getErrorRecords(String stage) throws StageException {
-    Preconditions.checkState(interceptors.containsKey(stage), Utils.format("No interceptors registered for stage '{}'", stage));
-    List<Record> records = getErrors(errorRecords, stage);
+    List<Record> records;
+    List<? extends Interceptor> stageInterceptors;
+    synchronized (this) {
+      Preconditions.checkState(interceptors.containsKey(stage), Utils.format("No interceptors registered for stage '{}'", stage));
+      records = getErrors(errorRecords, stage);
+      stageInterceptors = interceptors.get(stage);
+    }
     if(records.isEmpty()) {
       return records;
     }
 
-    return intercept(records, interceptors.get(stage));
+    return intercept(records, stageInterceptors);
   }
 
-  public List<ErrorMessage> getStageErrors(String stage) {
+  public synchronized List<ErrorMessage> getStageErrors(String stage) {
     return getErrors(stageErrors, stage);
   }
 
-  public int size() {
+  public synchronized int size() {
     return size;
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     Set<String> stages = new HashSet<>(errorRecords.keySet());
     stages.addAll(stageErrors.keySet());
     return Utils.format("ErrorSink[reportingInstances='{}' size='{}']", stages, size());
   }
 
-  public int getTotalErrorRecords() {
+  public synchronized int getTotalErrorRecords() {
     return totalErrorRecords;
   }
 
-  public int getTotalErrorMessages() {
+  public synchronized int getTotalErrorMessages() {
     return totalErrorMessages;
   }
 
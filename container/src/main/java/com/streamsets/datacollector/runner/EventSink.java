@@ -32,6 +32,8 @@ import java.util.Map;
 
 /**
  * Sink for catching all event records.
+ *
+ * Stages of independent pipeline branches can generate events concurrently, hence the sink is synchronized.
  */
 public class EventSink {
   private Map<String, List<EventRecord>> eventRecords;
@@ -42,22 +44,25 @@ public class EventSink {
     interceptors = new HashMap<>();
   }
 
-  public void registerInterceptorsForStage(String stage, List<? extends Interceptor> interceptors) {
+  public synchronized void registerInterceptorsForStage(String stage, List<? extends Interceptor> interceptors) {
     Preconditions.checkState(!this.interceptors.containsKey(stage), Utils.format("Interceptors for stage '{}' already registered", stage));
     this.interceptors.put(stage, interceptors);
   }
 
-  public void addEvent(String stage, EventRecord event) {
+  public synchronized void addEvent(String stage, EventRecord event) {
     List<EventRecord> events = eventRecords.computeIfAbsent(stage, k -> new ArrayList<>());
     events.add(event);
   }
 
   public List<EventRecord> getStageEventsAsEventRecords(String stage) throws StageException {
-    Preconditions.checkState(interceptors.containsKey(stage), Utils.format("No interceptors registered for stage '{}'", stage));
-    return intercept(
-      eventRecords.getOrDefault(stage, Collections.emptyList()),
-      interceptors.get(stage)
-    );
+    List<EventRecord> records;
+    List<? extends Interceptor> stageInterceptors;
+    synchronized (this) {
+      Preconditions.checkState(interceptors.containsKey(stage), Utils.format("No interceptors registered for stage '{}'", stage));
+      records = eventRecords.getOrDefault(stage, Collections.emptyList());
+      stageInterceptors = interceptors.get(stage);
+    }
+    return intercept(records, stageInterceptors);
   }
 
   public List<Record> getStageEvents(String stage) throws StageException {
@@ -69,7 +74,7 @@ public class EventSink {
     return records;
   }
 
-  public void clear() {
+  public synchronized void clear() {
     this.eventRecords.clear();
   }
 
@@ -31,14 +31,22 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * Pipe batch holding all data of a single batch.
+ *
+ * The batch can be used concurrently by pipes of independent pipeline branches, hence the internal structures are
+ * thread safe.
+ */
 public class FullPipeBatch implements PipeBatch {
   private static final Logger LOG = LoggerFactory.getLogger(FullPipeBatch.class);
 
@@ -53,9 +61,12 @@ public class FullPipeBatch implements PipeBatch {
   private final ProcessedSink processedSink;
   private final SourceResponseSink sourceResponseSink;
   private String newOffset;
-  private int inputRecords;
-  private int outputRecords;
+  private final AtomicInteger inputRecords;
+  private final AtomicInteger outputRecords;
   private RateLimiter rateLimiter;
+  private boolean copyOnWrite;
+  // Position of the stages in the pipeline, null if the stages are processed one after another
+  private Map<String, Integer> stageOrder;
 
   // True if the batch was created by a framework rather then origin
   private boolean isIdleBatch;
@@ -64,9 +75,12 @@ public class FullPipeBatch implements PipeBatch {
     this.sourceEntity = sourceEntity;
     this.lastOffset = lastOffset;
     this.batchSize = batchSize;
-    fullPayload = new HashMap<>();
-    processedStages = new HashSet<>();
-    stageOutputSnapshot = (snapshotStagesOutput) ? new ArrayList<StageOutput>() : null;
+    // Payload contains null values for lanes of stages that are running, so we can't use ConcurrentHashMap
+    fullPayload = Collections.synchronizedMap(new HashMap<>());
+    processedStages = Collections.synchronizedSet(new HashSet<>());
+    stageOutputSnapshot = (snapshotStagesOutput) ? Collections.synchronizedList(new ArrayList<StageOutput>()) : null;
+    inputRecords = new AtomicInteger();
+    outputRecords = new AtomicInteger();
     errorSink = new ErrorSink();
     eventSink = new EventSink();
     processedSink = new ProcessedSink();
@@ -75,7 +89,9 @@ public class FullPipeBatch implements PipeBatch {
 
   @VisibleForTesting
   Map<String, List<Record>> getFullPayload() {
-    return fullPayload;
+    synchronized (fullPayload) {
+      return new HashMap<>(fullPayload);
+    }
   }
 
   @Override
@@ -101,6 +117,27 @@ public class FullPipeBatch implements PipeBatch {
     this.rateLimiter = rateLimiter;
   }
 
+  /**
+   * When enabled, records of a stream that diverges to multiple stages are shared between the streams and copied
+   * only when a stage modifies them. Batches capturing snapshots always use full copies.
+   */
+  public void setCopyOnWrite(boolean copyOnWrite) {
+    this.copyOnWrite = copyOnWrite;
+  }
+
+  /**
+   * Stages of independent pipeline branches complete in any order. When the order is set, the stage output snapshots
+   * and the error records are kept in this order rather than in the order the stages completed.
+   */
+  public void setStageOrder(List<String> stageNames) {
+    Map<String, Integer> order = new HashMap<>();
+    for (int i = 0; i < stageNames.size(); i++) {
+      order.put(stageNames.get(i), i);
+    }
+    this.stageOrder = order;
+    this.errorSink.setStageOrder(order);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public BatchImpl getBatch(final Pipe pipe) throws StageException {
@@ -110,7 +147,7 @@ public class FullPipeBatch implements PipeBatch {
       records.addAll(fullPayload.get(inputLane));
     }
     if (pipe.getStage().getDefinition().getType().isOneOf(StageType.TARGET, StageType.EXECUTOR)) {
-      outputRecords += records.size();
+      outputRecords.addAndGet(records.size());
     }
 
     // Run interceptors as part before providing data to the stage
@@ -123,9 +160,8 @@ public class FullPipeBatch implements PipeBatch {
   @Override
   public BatchMakerImpl startStage(StagePipe pipe) {
     String stageName = pipe.getStage().getInfo().getInstanceName();
-    Preconditions.checkState(!processedStages.contains(stageName), Utils.formatL(
+    Preconditions.checkState(processedStages.add(stageName), Utils.formatL(
       "The stage '{}' has been processed already", stageName));
-    processedStages.add(stageName);
     // Keep interceptors for this batch and stage
     this.errorSink.registerInterceptorsForStage(stageName, pipe.getStage().getPreInterceptors());
     this.eventSink.registerInterceptorsForStage(stageName, pipe.getStage().getPostInterceptors());
@@ -159,8 +195,8 @@ public class FullPipeBatch implements PipeBatch {
   public void completeStage(BatchMakerImpl batchMaker) throws StageException {
     StagePipe pipe = batchMaker.getStagePipe();
     if (pipe.getStage().getDefinition().getType() == StageType.SOURCE) {
-      inputRecords += batchMaker.getSize() +
-          errorSink.getErrorRecords(pipe.getStage().getInfo().getInstanceName()).size();
+      inputRecords.addAndGet(batchMaker.getSize() +
+          errorSink.getErrorRecords(pipe.getStage().getInfo().getInstanceName()).size());
     }
     Map<String, List<Record>> stageOutput = batchMaker.getStageOutput();
     List<? extends Interceptor> interceptors = pipe.getStage().getPostInterceptors();
@@ -185,7 +221,7 @@ public class FullPipeBatch implements PipeBatch {
       stageOutputSnapshot.add(new StageOutput(instanceName, records, errorSink, eventSink));
     }
     if (pipe.getStage().getDefinition().getType().isOneOf(StageType.TARGET, StageType.EXECUTOR)) {
-      outputRecords -= errorSink.getErrorRecords(pipe.getStage().getInfo().getInstanceName()).size();
+      outputRecords.addAndGet(-errorSink.getErrorRecords(pipe.getStage().getInfo().getInstanceName()).size());
     }
     completeStage(pipe);
   }
@@ -253,7 +289,15 @@ public class FullPipeBatch implements PipeBatch {
 
   @Override
   public List<StageOutput> getSnapshotsOfAllStagesOutput() {
-    return stageOutputSnapshot;
+    if (stageOutputSnapshot == null || stageOrder == null) {
+      return stageOutputSnapshot;
+    }
+    List<StageOutput> ordered;
+    synchronized (stageOutputSnapshot) {
+      ordered = new ArrayList<>(stageOutputSnapshot);
+    }
+    ordered.sort(Comparator.comparingInt(output -> stageOrder.getOrDefault(output.getInstanceName(), -1)));
+    return ordered;
   }
 
   @Override
@@ -336,9 +380,10 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   private List<Record> createCopy(List<Record> records) {
+    boolean shareRecords = copyOnWrite && stageOutputSnapshot == null;
     List<Record> list = new ArrayList<>(records.size());
     for (Record record : records) {
-      list.add(((RecordImpl) record).clone());
+      list.add(shareRecords ? ((RecordImpl) record).createCopyOnWrite() : ((RecordImpl) record).clone());
     }
     return list;
   }
@@ -351,12 +396,12 @@ public class FullPipeBatch implements PipeBatch {
 
   @Override
   public int getInputRecords() {
-    return inputRecords;
+    return inputRecords.get();
   }
 
   @Override
   public int getOutputRecords() {
-    return outputRecords;
+    return outputRecords.get();
   }
 
   @Override
@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.runner;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.metrics.MetricsConfigurator;
 import com.streamsets.datacollector.util.PipelineException;
@@ -27,9 +28,16 @@ import com.streamsets.pipeline.api.Target;
 import com.streamsets.pipeline.lib.log.LogConstants;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Pipe Runner that wraps one source-less instance of the pipeline.
@@ -62,6 +70,21 @@ public class PipeRunner {
    */
   private final List<Pipe> pipes;
 
+  /**
+   * For each pipe indexes of the pipes that produce its input lanes (and hence have to be processed before it).
+   */
+  private final int[][] predecessors;
+
+  /**
+   * For each pipe number of the pipes that consume its output and event lanes.
+   */
+  private final int[] successors;
+
+  /**
+   * True if there are at least two pipes that don't depend on each other (e.g. branches after a fan-out).
+   */
+  private final boolean independentBranches;
+
   /**
    * Gauge with runtime metrics of this runner.
    */
@@ -77,6 +100,40 @@ public class PipeRunner {
     this.runnerId = runnerId;
     this.pipes = ImmutableList.copyOf(pipes);
 
+    // Pipes are sorted topologically, so all producers of a lane are known before we get to its consumers
+    this.predecessors = new int[this.pipes.size()][];
+    this.successors = new int[this.pipes.size()];
+    Map<String, Integer> producers = new HashMap<>();
+    int roots = 0;
+    for (int i = 0; i < this.pipes.size(); i++) {
+      Pipe pipe = this.pipes.get(i);
+      Set<Integer> producedBy = new LinkedHashSet<>();
+      for (Object lane : pipe.getInputLanes()) {
+        Integer producer = producers.get(lane);
+        if (producer != null) {
+          producedBy.add(producer);
+        }
+      }
+      predecessors[i] = producedBy.stream().mapToInt(Integer::intValue).toArray();
+      for (int producer : predecessors[i]) {
+        successors[producer]++;
+      }
+      if (predecessors[i].length == 0) {
+        roots++;
+      }
+      for (Object lane : pipe.getOutputLanes()) {
+        producers.put((String) lane, i);
+      }
+      for (Object lane : pipe.getEventLanes()) {
+        producers.put((String) lane, i);
+      }
+    }
+    boolean fanOut = roots > 1;
+    for (int count : successors) {
+      fanOut |= count > 1;
+    }
+    this.independentBranches = fanOut;
+
     // Create metric gauge for this particular runner
     this.runtimeMetricGauge = MetricsConfigurator.createStageGauge(
       metricRegistry,
@@ -117,6 +174,26 @@ public class PipeRunner {
       String offsetValue,
       long batchStartTime,
       ThrowingConsumer<Pipe> consumer
+  ) throws PipelineRuntimeException, StageException {
+    executeBatch(offsetKey, offsetValue, batchStartTime, null, consumer);
+  }
+
+  /**
+   * Run batch with given consumer for each pipe.
+   *
+   * If branch executor is given, pipes that do not depend on each other (e.g. independent branches after a fan-out)
+   * are processed concurrently on the executor, otherwise one pipe at a time in the calling thread. Pipe is always
+   * processed only after all the pipes producing its input. In both cases this method returns only after all pipes
+   * were processed. The consumer must be thread safe when executor is given.
+   *
+   * This method will also set the logger appropriately and calculate the runner specific metrics.
+   */
+  public void executeBatch(
+      String offsetKey,
+      String offsetValue,
+      long batchStartTime,
+      ExecutorService branchExecutor,
+      ThrowingConsumer<Pipe> consumer
   ) throws PipelineRuntimeException, StageException {
     MDC.put(LogConstants.RUNNER, String.valueOf(runnerId));
     // Persist static information for the batch (this won't change as the batch progresses)
@@ -125,17 +202,13 @@ public class PipeRunner {
     this.runtimeMetricGauge.put(METRIC_OFFSET_VALUE, Optional.ofNullable(offsetValue).orElse(""));
     this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
     try {
-      // Run one pipe at a time
-      for(Pipe p : pipes) {
-        String instanceName = p.getStage().getInfo().getInstanceName();
-        this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, instanceName);
-        MDC.put(LogConstants.STAGE, instanceName);
-        if(p instanceof StagePipe) {
-          this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+      if (branchExecutor != null && independentBranches) {
+        executeBranches(branchExecutor, consumer);
+      } else {
+        // Run one pipe at a time
+        for (Pipe p : pipes) {
+          executePipe(p, consumer);
         }
-
-        // Process pipe
-        consumer.accept(p);
       }
 
       // We've successfully finished batch
@@ -147,6 +220,91 @@ public class PipeRunner {
     }
   }
 
+  private void executePipe(Pipe p, ThrowingConsumer<Pipe> consumer) throws PipelineRuntimeException, StageException {
+    String instanceName = p.getStage().getInfo().getInstanceName();
+    this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, instanceName);
+    MDC.put(LogConstants.STAGE, instanceName);
+    if(p instanceof StagePipe) {
+      this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+    }
+
+    // Process pipe
+    consumer.accept(p);
+  }
+
+  /**
+   * Process all pipes on the executor, each one as soon as all its predecessors are done.
+   *
+   * Pipe with a single predecessor that has no other successors continues in the same thread, a new task is submitted
+   * only where the graph fans out. If a pipe fails, the pipes depending on it are not processed at all, but the
+   * independent branches are still waited for. The first failure (in topological order) is then rethrown.
+   */
+  private void executeBranches(
+      ExecutorService executor,
+      ThrowingConsumer<Pipe> consumer
+  ) throws PipelineRuntimeException, StageException {
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+    // Nothing is run until the whole graph is built
+    CompletableFuture<Void> start = new CompletableFuture<>();
+    List<CompletableFuture<Void>> futures = new ArrayList<>(pipes.size());
+    for (int i = 0; i < pipes.size(); i++) {
+      Pipe pipe = pipes.get(i);
+      Runnable task = () -> executeBranchPipe(pipe, consumer, mdc);
+
+      CompletableFuture<Void> future;
+      if (predecessors[i].length == 0) {
+        future = start.thenRunAsync(task, executor);
+      } else if (predecessors[i].length == 1) {
+        CompletableFuture<Void> predecessor = futures.get(predecessors[i][0]);
+        future = successors[predecessors[i][0]] > 1 ? predecessor.thenRunAsync(task, executor) : predecessor.thenRun(task);
+      } else {
+        CompletableFuture[] waitFor = new CompletableFuture[predecessors[i].length];
+        for (int j = 0; j < waitFor.length; j++) {
+          waitFor[j] = futures.get(predecessors[i][j]);
+        }
+        future = CompletableFuture.allOf(waitFor).thenRun(task);
+      }
+      futures.add(future);
+    }
+    start.complete(null);
+
+    Throwable failure = null;
+    for (CompletableFuture<Void> future : futures) {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = e.getCause() != null ? e.getCause() : e;
+        }
+      }
+    }
+
+    if (failure != null) {
+      Throwables.propagateIfInstanceOf(failure, PipelineRuntimeException.class);
+      Throwables.propagateIfInstanceOf(failure, StageException.class);
+      throw Throwables.propagate(failure);
+    }
+  }
+
+  private void executeBranchPipe(Pipe pipe, ThrowingConsumer<Pipe> consumer, Map<String, String> mdc) {
+    Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+    if (mdc != null) {
+      MDC.setContextMap(mdc);
+    }
+    try {
+      executePipe(pipe, consumer);
+    } catch (PipelineRuntimeException|StageException e) {
+      throw new CompletionException(e);
+    } finally {
+      if (previousMdc == null) {
+        MDC.clear();
+      } else {
+        MDC.setContextMap(previousMdc);
+      }
+    }
+  }
+
   private void resetBatchSpecificMetrics() {
     // Fill in default values when there is no batch running
     this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, IDLE);
@@ -30,6 +30,8 @@ import java.util.Optional;
 
 /**
  * Sink for catching all processed records.
+ *
+ * Stages of independent pipeline branches can use the sink concurrently, hence all methods are synchronized.
  */
 public class ProcessedSink {
   private Map<String, List<Record>> processedRecords;
@@ -38,21 +40,21 @@ public class ProcessedSink {
     this.processedRecords = new LinkedHashMap<>();
   }
 
-  public void addRecord(String stage, Record record) {
+  public synchronized void addRecord(String stage, Record record) {
     List<Record> records = processedRecords.computeIfAbsent(stage, k -> new LinkedList<>());
     records.add(record);
   }
 
-  public void addRecords(String stage, Collection<Record> records) {
+  public synchronized void addRecords(String stage, Collection<Record> records) {
     Collection<Record> r = processedRecords.computeIfAbsent(stage, k -> new LinkedList<>());
     r.addAll(records);
   }
 
-  public Optional<List<Record>> getProcessedRecords(String stage) {
+  public synchronized Optional<List<Record>> getProcessedRecords(String stage) {
     return Optional.ofNullable(processedRecords.get(stage));
   }
 
-  public void clear() {
+  public synchronized void clear() {
     this.processedRecords.clear();
   }
 }
\ No newline at end of file
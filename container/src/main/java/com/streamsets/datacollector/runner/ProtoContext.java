@@ -38,6 +38,7 @@ import com.streamsets.datacollector.util.ElUtil;
 import com.streamsets.datacollector.validation.Issue;
 import com.streamsets.pipeline.api.ConfigIssue;
 import com.streamsets.pipeline.api.ErrorCode;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.ProtoConfigurableEntity;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
@@ -79,6 +80,8 @@ public abstract class ProtoContext implements ProtoConfigurableEntity.Context, C
   protected static final String STAGE_CONF_PREFIX = "stage.conf_";
   private static final String SDC_RECORD_SAMPLING_POPULATION_SIZE = "sdc.record.sampling.population.size";
   private static final String SDC_RECORD_SAMPLING_SAMPLE_SIZE = "sdc.record.sampling.sample.size";
+  private static final String EL_COMPILATION_ENABLED = "el.compilation.enabled";
+  private static final String JSON_PARSER_FIELDS_ENABLED = "parser.json.fields.enabled";
 
   private final Configuration configuration;
   private final Map<String, Class<?>[]> configToElDefMap;
@@ -91,6 +94,8 @@ public abstract class ProtoContext implements ProtoConfigurableEntity.Context, C
   protected int runnerCount;
   protected final String rev;
   private final Sampler sampler;
+  private final boolean elCompilationEnabled;
+  private final boolean jsonParserFieldsEnabled;
   protected final String stageInstanceName;
   protected final String serviceInstanceName;
   protected final String resourcesDir;
@@ -126,6 +131,9 @@ public abstract class ProtoContext implements ProtoConfigurableEntity.Context, C
     int sampleSize = configuration.get(SDC_RECORD_SAMPLING_SAMPLE_SIZE, 1);
     int populationSize = configuration.get(SDC_RECORD_SAMPLING_POPULATION_SIZE, 10000);
     this.sampler = new RecordSampler(this, stageType == StageType.SOURCE, sampleSize, populationSize);
+
+    this.elCompilationEnabled = configuration.get(EL_COMPILATION_ENABLED, false);
+    this.jsonParserFieldsEnabled = configuration.get(JSON_PARSER_FIELDS_ENABLED, false);
   }
 
   protected static Map<String, Class<?>[]> getConfigToElDefMap(List<ConfigDefinition> configs) {
@@ -303,7 +311,9 @@ public abstract class ProtoContext implements ProtoConfigurableEntity.Context, C
       Collections.addAll(classes, elDefClasses);
     }
     // assert non of the EL functions is implicit only
-    return new ELEvaluator(configName, true, constants, ConcreteELDefinitionExtractor.get(), classes.toArray(new Class[classes.size()]));
+    ELEvaluator evaluator = new ELEvaluator(configName, true, constants, ConcreteELDefinitionExtractor.get(), classes.toArray(new Class[classes.size()]));
+    evaluator.setCompilationEnabled(elCompilationEnabled);
+    return evaluator;
   }
 
   // ContextExtensions
@@ -355,6 +365,10 @@ public abstract class ProtoContext implements ProtoConfigurableEntity.Context, C
         Mode mode,
         Class<?> objectClass
   ) throws IOException {
+    // Readers returning fields have to be explicitly enabled, callers check the expected class of the returned reader
+    if (objectClass == Field.class && !jsonParserFieldsEnabled) {
+      objectClass = Object.class;
+    }
     return JsonWriterReaderFactory.createObjectReader(reader, initialPosition, mode, objectClass, maxObjectLen);
   }
 
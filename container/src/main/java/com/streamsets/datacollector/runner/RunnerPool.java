@@ -17,46 +17,55 @@ package com.streamsets.datacollector.runner;
 
 import com.codahale.metrics.Histogram;
 import com.streamsets.datacollector.util.ContainerError;
-import org.jetbrains.annotations.NotNull;
 
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Small abstraction on top of blocking queue to model a pool of runners.
+ * Lock-free pool of runners.
+ *
+ * Every runner has its own slot that is empty while the runner is in use. Runners are taken from the slots using
+ * compare-and-set, the number of available runners is tracked by a semaphore so that a thread only blocks when there
+ * is no runner available. By default the runner that has been returned first is handed out first. With thread
+ * affinity enabled, a thread preferably gets back the runner it used last, keeping its caches warm.
  */
 public class RunnerPool <T> {
 
   /**
-   * Wrapper for the pool items to remember when they were inserted (what time).
+   * Only every given stats update of a thread goes to the histogram, its reservoir is synchronized.
    */
-  private static class QueueItem<T> implements Comparable<QueueItem> {
-    /**
-     * Timestamp of the insertion to the queue.
-     */
-    long timestamp;
+  static final int HISTOGRAM_SAMPLING = 16;
 
-    /**
-     * Runner instance itself.
-     */
-    T runner;
+  /**
+   * Runners in their slots, null if the runner is currently in use.
+   */
+  private final AtomicReferenceArray<T> slots;
 
-    QueueItem(T runner) {
-      this.runner = runner;
-      this.timestamp = System.currentTimeMillis();
-    }
+  /**
+   * Time when the runner in given slot was returned to the pool.
+   */
+  private final AtomicLongArray timestamps;
 
-    @Override
-    public int compareTo(@NotNull QueueItem other) {
-      return (int) (this.timestamp - other.timestamp);
-    }
-  }
+  /**
+   * Slot of each runner.
+   */
+  private final Map<T, Integer> slotIndexes;
+
+  /**
+   * One permit per runner that is available in the pool.
+   */
+  private final Semaphore available;
 
   /**
-   * Internal blocking queue with all available runners
+   * Slot of the runner that the current thread used last, only used when thread affinity is enabled.
    */
-  private final PriorityBlockingQueue<QueueItem<T>> queue;
+  private final ThreadLocal<Integer> lastSlot;
 
   /**
    * Runtime stats to keep info about available runners.
@@ -68,6 +77,11 @@ public class RunnerPool <T> {
    */
   private final Histogram histogram;
 
+  /**
+   * Number of stats updates done by the current thread, for sampling into the histogram without shared state.
+   */
+  private final ThreadLocal<int[]> statsUpdates = ThreadLocal.withInitial(() -> new int[1]);
+
   /**
    * Internal flag keeping state of the runner.
    */
@@ -79,12 +93,31 @@ public class RunnerPool <T> {
    * @param runners Runners that this pool object should manage
    */
   public RunnerPool(List<T> runners, RuntimeStats runtimeStats, Histogram histogram) {
-    queue = new PriorityBlockingQueue<>(runners.size());
-    runners.forEach(runner -> queue.add(new QueueItem<>(runner)));
+    this(runners, runtimeStats, histogram, false);
+  }
+
+  /**
+   * Create new runner pool.
+   *
+   * @param runners Runners that this pool object should manage
+   * @param threadAffinity Whether a thread should preferably get back the runner it used last
+   */
+  public RunnerPool(List<T> runners, RuntimeStats runtimeStats, Histogram histogram, boolean threadAffinity) {
+    slots = new AtomicReferenceArray<>(runners.size());
+    timestamps = new AtomicLongArray(runners.size());
+    slotIndexes = new IdentityHashMap<>();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < runners.size(); i++) {
+      slots.set(i, runners.get(i));
+      timestamps.set(i, now);
+      slotIndexes.put(runners.get(i), i);
+    }
+    available = new Semaphore(runners.size());
+    lastSlot = threadAffinity ? new ThreadLocal<>() : null;
 
     this.runtimeStats = runtimeStats;
-    this.runtimeStats.setTotalRunners(queue.size());
-    this.runtimeStats.setAvailableRunners(queue.size());
+    this.runtimeStats.setTotalRunners(runners.size());
+    this.runtimeStats.setAvailableRunners(runners.size());
     this.histogram = histogram;
     this.destroyed = new AtomicBoolean(false);
   }
@@ -99,13 +132,40 @@ public class RunnerPool <T> {
     validateNotDestroyed();
 
     try {
-      return queue.take().runner;
+      available.acquire();
     } catch (InterruptedException e) {
       throw new PipelineRuntimeException(ContainerError.CONTAINER_0801, e);
-    } finally {
-      runtimeStats.setAvailableRunners(queue.size());
-      histogram.update(queue.size());
     }
+
+    T runner = null;
+    int slot = -1;
+    if (lastSlot != null && lastSlot.get() != null) {
+      slot = lastSlot.get();
+      runner = take(slot);
+    }
+    // Having a permit guarantees that there is at least one runner that nobody else is going to take
+    if (runner == null) {
+      slot = findOldest();
+      if (slot >= 0) {
+        runner = take(slot);
+      }
+    }
+    // Lost the race for the oldest runner, rather than competing for the next oldest one take whichever is available
+    if (runner == null) {
+      int start = ThreadLocalRandom.current().nextInt(slots.length());
+      while (runner == null) {
+        for (int i = 0; i < slots.length() && runner == null; i++) {
+          slot = (start + i) % slots.length();
+          runner = take(slot);
+        }
+      }
+    }
+    if (lastSlot != null) {
+      lastSlot.set(slot);
+    }
+
+    updateStats();
+    return runner;
   }
 
   /**
@@ -115,23 +175,23 @@ public class RunnerPool <T> {
    * @return First runner that fits such criteria or null if there is no such runner
    */
   public T getIdleRunner(long idleTime) {
-    // Take the first runner
-    QueueItem<T> item = queue.poll();
-
     // All runners might be currently in use, which is fine in this case.
-    if(item == null) {
+    if (!available.tryAcquire()) {
       return null;
     }
 
-    // If the runner wasn't idle for the expected time, we need to put it back to the queue (it will be added to the
-    // begging again).
-    if((System.currentTimeMillis() - item.timestamp) < idleTime) {
-      queue.add(item);
-      return null;
+    while (true) {
+      int slot = findOldest();
+      // Runner that was returned first is the one that is idle for the longest time
+      if (slot < 0 || (System.currentTimeMillis() - timestamps.get(slot)) < idleTime) {
+        available.release();
+        return null;
+      }
+      T runner = take(slot);
+      if (runner != null) {
+        return runner;
+      }
     }
-
-    // Otherwise we do have runner that hasn't been used for at least idleTime, so we can return it now
-    return item.runner;
   }
 
   /**
@@ -142,9 +202,14 @@ public class RunnerPool <T> {
   public void returnRunner(T runner) throws PipelineRuntimeException {
     validateNotDestroyed();
 
-    queue.add(new QueueItem<>(runner));
-    runtimeStats.setAvailableRunners(queue.size());
-    histogram.update(queue.size());
+    Integer slot = slotIndexes.get(runner);
+    if (slot == null) {
+      throw new IllegalArgumentException("Runner doesn't belong to this pool: " + runner);
+    }
+    timestamps.set(slot, System.currentTimeMillis());
+    slots.set(slot, runner);
+    available.release();
+    updateStats();
   }
 
   /**
@@ -161,8 +226,50 @@ public class RunnerPool <T> {
 
     // Validate that this thread pool have all runners back, otherwise we're missing something and that is sign of
     // a trouble.
-    if(queue.size() < runtimeStats.getTotalRunners()) {
-      throw new PipelineRuntimeException(ContainerError.CONTAINER_0802, queue.size(), runtimeStats.getTotalRunners());
+    if(available.availablePermits() < runtimeStats.getTotalRunners()) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0802, available.availablePermits(), runtimeStats.getTotalRunners());
+    }
+  }
+
+  /**
+   * Take runner from the given slot.
+   *
+   * @return Runner or null if the slot is empty or the runner was taken by someone else in the meantime
+   */
+  private T take(int slot) {
+    T runner = slots.get(slot);
+    if (runner != null && slots.compareAndSet(slot, runner, null)) {
+      return runner;
+    }
+    return null;
+  }
+
+  /**
+   * Find slot with runner that was returned to the pool first.
+   *
+   * @return Slot index or -1 if all slots are empty
+   */
+  private int findOldest() {
+    int oldest = -1;
+    long oldestTimestamp = Long.MAX_VALUE;
+    for (int i = 0; i < slots.length(); i++) {
+      if (slots.get(i) != null) {
+        long timestamp = timestamps.get(i);
+        if (timestamp < oldestTimestamp) {
+          oldest = i;
+          oldestTimestamp = timestamp;
+        }
+      }
+    }
+    return oldest;
+  }
+
+  private void updateStats() {
+    int availableRunners = available.availablePermits();
+    runtimeStats.setAvailableRunners(availableRunners);
+    int[] updates = statsUpdates.get();
+    if (updates[0]++ % HISTOGRAM_SAMPLING == 0) {
+      histogram.update(availableRunners);
     }
   }
 
@@ -173,7 +280,7 @@ public class RunnerPool <T> {
    */
   private void validateNotDestroyed() throws PipelineRuntimeException {
     if(destroyed.get()) {
-      throw new PipelineRuntimeException(ContainerError.CONTAINER_0803, queue.size(), runtimeStats.getTotalRunners());
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0803, available.availablePermits(), runtimeStats.getTotalRunners());
     }
   }
 }
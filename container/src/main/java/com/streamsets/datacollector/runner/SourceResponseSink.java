@@ -28,11 +28,11 @@ public class SourceResponseSink {
     this.responseRecords = new ArrayList<>();
   }
 
-  public void addResponse(Record record) {
+  public synchronized void addResponse(Record record) {
     responseRecords.add(record);
   }
 
-  public List<Record> getResponseRecords() {
+  public synchronized List<Record> getResponseRecords() {
     return responseRecords;
   }
 
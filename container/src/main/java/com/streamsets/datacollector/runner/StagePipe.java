@@ -36,6 +36,7 @@ import com.streamsets.datacollector.validation.Issue;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.StageType;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,9 @@ public class StagePipe extends Pipe<StagePipe.Context> {
   public static final String RUNTIME_STATS_GAUGE = "RuntimeStatsGauge";
   private Timer processingTimer;
   private Counter memoryConsumedCounter;
+  private boolean incrementalMemoryAccounting;
+  // Memory reported by the stage itself, null if the stage is not reporting any
+  private Counter memoryReportedCounter;
   private Meter inputRecordsMeter;
   private Meter outputRecordsMeter;
   private Meter errorRecordsMeter;
@@ -208,7 +212,12 @@ public class StagePipe extends Pipe<StagePipe.Context> {
         }
       }
       this.context = pipeContext;
-      if (configuration.get("monitor.memory", false)) {
+      incrementalMemoryAccounting = configuration.get("monitor.memory", false)
+          && configuration.get("monitor.memory.incremental", false);
+      if (incrementalMemoryAccounting) {
+        StageContext stageContext = getStage().getContext();
+        memoryReportedCounter = stageContext.getCounter(MemoryUsageReporter.COUNTER_NAME);
+      } else if (configuration.get("monitor.memory", false)) {
         LOG.info("Starting memory collector for {}", getStage().getInfo().getInstanceName());
         scheduledExecutorService.submit(
           new MemoryMonitor(memoryConsumedCounter, () -> new MemoryUsageCollector.Builder()
@@ -254,6 +263,9 @@ public class StagePipe extends Pipe<StagePipe.Context> {
     if (isSource()) {
       pipeBatch.setNewOffset(newOffset);
     }
+    if (incrementalMemoryAccounting) {
+      updateMemoryConsumed(batchMaker.getRecordBytes());
+    }
 
     batchMetrics = finishBatchAndCalculateMetrics(
       start,
@@ -363,6 +375,23 @@ public class StagePipe extends Pipe<StagePipe.Context> {
     return memoryConsumedCounter.getCount();
   }
 
+  public boolean isIncrementalMemoryAccounting() {
+    return incrementalMemoryAccounting;
+  }
+
+  /**
+   * Memory consumed by the stage is the memory reported by the stage plus the estimated size of the records it
+   * produced in the last batch.
+   */
+  private void updateMemoryConsumed(long recordBytes) {
+    long bytes = recordBytes;
+    if (memoryReportedCounter != null) {
+      bytes += memoryReportedCounter.getCount();
+    }
+    // Same units as MemoryMonitor
+    memoryConsumedCounter.inc((bytes / 1000000) - memoryConsumedCounter.getCount());
+  }
+
   public Map<String, Object> getBatchMetrics() {
     return batchMetrics;
   }
@@ -181,6 +181,11 @@ public class PreviewStageLibraryTask extends TaskWrapper implements StageLibrary
     return library.getLoadedStageLibraries();
   }
 
+  @Override
+  public Map<String, Long> getStartupTimings() {
+    return library.getStartupTimings();
+  }
+
   @Override
   public void releaseStageClassLoader(ClassLoader classLoader) {
     if (classLoader != PLUG_STAGE.getClass().getClassLoader()) {
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.google.common.base.Preconditions;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.runner.SourceOffsetTracker;
+import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.lib.util.ThreadUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Offset tracker that coalesces commits coming from multiple threads into a single write of the offsets.
+ *
+ * Committing thread is blocked until its offset has been persisted (at-least-once). Whichever thread finds no write
+ * in progress becomes the "leader", optionally waits for the group commit window so that other threads can join,
+ * and then persists all offsets committed so far on behalf of every waiting thread. Commits arriving while a write
+ * is in progress are persisted together by the next leader.
+ *
+ * The offsets are either persisted by rewriting the offset file or, when journaling is enabled, by appending only the
+ * changed entities to the offset journal that is compacted into the offset file every given number of entries.
+ */
+public class GroupCommitSourceOffsetTracker implements SourceOffsetTracker {
+  private static final Logger LOG = LoggerFactory.getLogger(GroupCommitSourceOffsetTracker.class);
+
+  private final String pipelineName;
+  private final String rev;
+  private final RuntimeInfo runtimeInfo;
+  private final long groupCommitWindowMillis;
+  private final int journalCompactionEntries;
+  private final File journalFile;
+  private OffsetJournal journal;
+
+  // All following fields are guarded by "this"
+  private final Map<String, String> offsets;
+  private final Map<String, String> pendingChanges;
+  private long requestedGeneration;
+  private long persistedGeneration;
+  private long failedGeneration;
+  private RuntimeException failure;
+  private boolean persisting;
+
+  private volatile long lastBatchTime;
+  private volatile boolean finished;
+
+  /**
+   * @param groupCommitWindowMillis Time the leader waits for other commits before writing, 0 to write right away
+   * @param journal Append changes to offset journal rather then rewriting the whole offset file
+   * @param journalCompactionEntries Number of journal entries after which the journal is compacted into offset file
+   */
+  public GroupCommitSourceOffsetTracker(
+      String pipelineName,
+      String rev,
+      RuntimeInfo runtimeInfo,
+      long groupCommitWindowMillis,
+      boolean journal,
+      int journalCompactionEntries
+  ) {
+    Preconditions.checkArgument(groupCommitWindowMillis >= 0, "groupCommitWindowMillis cannot be negative");
+    Preconditions.checkArgument(journalCompactionEntries > 0, "journalCompactionEntries must be greater than zero");
+    this.pipelineName = pipelineName;
+    this.rev = rev;
+    this.runtimeInfo = runtimeInfo;
+    this.groupCommitWindowMillis = groupCommitWindowMillis;
+    this.journalCompactionEntries = journalCompactionEntries;
+    this.offsets = new HashMap<>(OffsetFileUtil.saveIfEmpty(runtimeInfo, pipelineName, rev));
+    this.pendingChanges = new LinkedHashMap<>();
+    if (journal) {
+      journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev);
+      // Start with a fresh journal, the loaded offsets already contain all changes from the previous one
+      compactJournal(offsets);
+    } else {
+      journalFile = null;
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return finished;
+  }
+
+  @Override
+  public void commitOffset(String entity, String newOffset) {
+    // Update last batch time
+    lastBatchTime = System.currentTimeMillis();
+
+    // Committing "null" entity doesn't change anything and hence there is nothing to persist
+    if(entity == null) {
+      return;
+    }
+
+    // Backward compatibility calculation
+    if(Source.POLL_SOURCE_OFFSET_KEY.equals(entity)) {
+      finished = newOffset == null;
+    }
+
+    long generation;
+    synchronized (this) {
+      if (newOffset == null) {
+        offsets.remove(entity);
+      } else {
+        offsets.put(entity, newOffset);
+      }
+      pendingChanges.put(entity, newOffset);
+      generation = ++requestedGeneration;
+    }
+
+    awaitPersisted(generation);
+  }
+
+  /**
+   * Block until offsets of given generation are persisted, persisting them if no other thread is doing so.
+   */
+  private void awaitPersisted(long generation) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        synchronized (this) {
+          while (persistedGeneration < generation && failedGeneration < generation && persisting) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              // We can't return before the offset is persisted, remember the interrupt for later
+              interrupted = true;
+            }
+          }
+          if (persistedGeneration >= generation) {
+            return;
+          }
+          if (failedGeneration >= generation) {
+            throw failure;
+          }
+          persisting = true;
+        }
+        persist();
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void persist() {
+    if (groupCommitWindowMillis > 0) {
+      ThreadUtil.sleep(groupCommitWindowMillis);
+    }
+
+    Map<String, String> snapshot;
+    Map<String, String> changes;
+    long generation;
+    synchronized (this) {
+      snapshot = new HashMap<>(offsets);
+      changes = new LinkedHashMap<>(pendingChanges);
+      pendingChanges.clear();
+      generation = requestedGeneration;
+    }
+
+    RuntimeException error = null;
+    try {
+      if (journalFile == null) {
+        OffsetFileUtil.saveOffsets(runtimeInfo, pipelineName, rev, snapshot);
+      } else if (journal == null || journal.getEntries() >= journalCompactionEntries) {
+        compactJournal(snapshot);
+      } else {
+        journal.append(changes);
+      }
+    } catch (IOException e) {
+      error = new IllegalStateException(e);
+    } catch (RuntimeException e) {
+      error = e;
+    }
+
+    synchronized (this) {
+      persisting = false;
+      if (error == null) {
+        persistedGeneration = generation;
+      } else {
+        LOG.error("Failed to persist offsets for pipeline {}: {}", pipelineName, error.toString(), error);
+        // Changes committed in the meantime are newer, but the failed ones still needs to be persisted eventually
+        changes.forEach(pendingChanges::putIfAbsent);
+        failedGeneration = generation;
+        failure = error;
+      }
+      notifyAll();
+    }
+  }
+
+  private void compactJournal(Map<String, String> snapshot) {
+    try {
+      if (journal != null) {
+        journal.close();
+        journal = null;
+      }
+      // Rewriting the offset file also removes the journal
+      String snapshotTag = OffsetFileUtil.saveOffsetsForJournal(runtimeInfo, pipelineName, rev, snapshot);
+      journal = new OffsetJournal(journalFile, snapshotTag);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public synchronized Map<String, String> getOffsets() {
+    return Collections.unmodifiableMap(new HashMap<>(offsets));
+  }
+
+  @Override
+  public long getLastBatchTime() {
+    return lastBatchTime;
+  }
+}
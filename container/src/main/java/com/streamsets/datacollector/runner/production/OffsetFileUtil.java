@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.runner.production;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.hash.Hashing;
 import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
@@ -23,6 +24,7 @@ import com.streamsets.datacollector.restapi.bean.BeanHelper;
 import com.streamsets.datacollector.restapi.bean.SourceOffsetJson;
 import com.streamsets.datacollector.util.PipelineDirectoryUtil;
 import com.streamsets.pipeline.api.impl.Utils;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,13 +32,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class OffsetFileUtil {
   private static final Logger LOG = LoggerFactory.getLogger(ProductionSourceOffsetTracker.class);
 
   private static final String OFFSET_FILE = "offset.json";
+  private static final String OFFSET_JOURNAL_FILE = "offset.journal";
   private static final Map<String, String> DEFAULT_OFFSET = Collections.emptyMap();
   private static final int MAX_RETRIES = 5;
 
@@ -46,6 +51,10 @@ public class OffsetFileUtil {
     return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_FILE);
   }
 
+  public static File getPipelineOffsetJournalFile(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_JOURNAL_FILE);
+  }
+
   public static Map<String, String> saveIfEmpty(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     File pipelineOffsetFile =  getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
     SourceOffset sourceOffset;
@@ -56,8 +65,7 @@ public class OffsetFileUtil {
       } else {
         sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, DEFAULT_OFFSET);
         try (OutputStream os = ds.getOutputStream()) {
-          ObjectMapperFactory.get().writeValue(os, BeanHelper.wrapSourceOffset(sourceOffset));
-          ds.commit(os);
+          writeOffsetFile(ds, os, BeanHelper.wrapSourceOffset(sourceOffset));
         } finally {
           ds.release();
         }
@@ -69,12 +77,23 @@ public class OffsetFileUtil {
   }
 
   public static void saveOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev, Map<String, String> offset) {
+    saveOffsetsForJournal(runtimeInfo, pipelineName, rev, offset);
+  }
+
+  /**
+   * Saves the offsets and returns the tag of the written offset file, the tag of a journal that extends it.
+   */
+  static String saveOffsetsForJournal(
+      RuntimeInfo runtimeInfo,
+      String pipelineName,
+      String rev,
+      Map<String, String> offset
+  ) {
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
     SourceOffset sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, offset);
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
     try (OutputStream os = dataStore.getOutputStream()) {
-      ObjectMapperFactory.get().writeValue(os, BeanHelper.wrapSourceOffset(sourceOffset));
-      dataStore.commit(os);
+      return writeOffsetFile(dataStore, os, BeanHelper.wrapSourceOffset(sourceOffset));
     } catch (IOException e) {
       LOG.error("Failed to save offset={}. Reason {}", sourceOffset.getOffsets(), e.toString(), e);
       throw new IllegalStateException(e);
@@ -87,8 +106,7 @@ public class OffsetFileUtil {
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
     try (OutputStream os = dataStore.getOutputStream()) {
-      ObjectMapperFactory.get().writeValue(os, offset);
-      dataStore.commit(os);
+      writeOffsetFile(dataStore, os, offset);
     } catch (IOException e) {
       LOG.error("Failed to save offset={}. Reason {}", offset, e.toString(), e);
       throw new IllegalStateException(e);
@@ -148,12 +166,43 @@ public class OffsetFileUtil {
   }
 
   private static SourceOffset readSourceOffsetFromDataStore(DataStore ds) throws IOException {
+    byte[] offsetFile;
     try (InputStream is = ds.getInputStream()) {
-      SourceOffsetJson sourceOffsetJson = ObjectMapperFactory.get().readValue(is, SourceOffsetJson.class);
-      SourceOffset sourceOffset = BeanHelper.unwrapSourceOffset(sourceOffsetJson);
-      SourceOffsetUpgrader.upgrade(sourceOffset);
-      return sourceOffset;
+      offsetFile = IOUtils.toByteArray(is);
+    }
+    SourceOffsetJson sourceOffsetJson = ObjectMapperFactory.get().readValue(offsetFile, SourceOffsetJson.class);
+    SourceOffset sourceOffset = BeanHelper.unwrapSourceOffset(sourceOffsetJson);
+    SourceOffsetUpgrader.upgrade(sourceOffset);
+    File journalFile = new File(ds.getFile().getParentFile(), OFFSET_JOURNAL_FILE);
+    if (journalFile.exists()) {
+      Map<String, String> offsets = new HashMap<>();
+      if (sourceOffset.getOffsets() != null) {
+        offsets.putAll(sourceOffset.getOffsets());
+      }
+      OffsetJournal.replay(journalFile, getSnapshotTag(offsetFile), offsets);
+      sourceOffset.setOffsets(offsets);
     }
+    return sourceOffset;
+  }
+
+  /**
+   * Writes and commits the offset file, returning its tag.
+   *
+   * The changes recorded in the journal (if any) are not needed once the offset file is fully rewritten, so the journal
+   * is removed before the commit: a crash in between leaves the previous offset file without its journal (offsets go
+   * back, records are read again) rather than a stale journal replayed over the new offset file. The journal also
+   * records the tag of the offset file it extends, so that one left behind anyway is ignored.
+   */
+  private static String writeOffsetFile(DataStore dataStore, OutputStream os, Object value) throws IOException {
+    byte[] offsetFile = ObjectMapperFactory.get().writeValueAsBytes(value);
+    os.write(offsetFile);
+    Files.deleteIfExists(new File(dataStore.getFile().getParentFile(), OFFSET_JOURNAL_FILE).toPath());
+    dataStore.commit(os);
+    return getSnapshotTag(offsetFile);
+  }
+
+  private static String getSnapshotTag(byte[] offsetFile) {
+    return Hashing.murmur3_128().hashBytes(offsetFile).toString();
   }
 }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append only journal of offset changes that is stored next to the offset file.
+ *
+ * Every entry is a single line with JSON map of the entities changed since the previous entry, a null offset means
+ * that the entity was removed. The offset file with the journal entries applied in order gives the current offsets.
+ *
+ * The first line holds the tag of the offset file the journal extends, a journal that does not match the current
+ * offset file is left over from before the offset file was rewritten and is ignored.
+ */
+class OffsetJournal implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffsetJournal.class);
+  private static final TypeReference<Map<String, String>> ENTRY_TYPE = new TypeReference<Map<String, String>>() {};
+  private static final String HEADER_PREFIX = "#snapshot ";
+
+  private final File file;
+  private final FileChannel channel;
+  private int entries;
+
+  /**
+   * Starts a new journal extending the offset file with the given tag.
+   */
+  OffsetJournal(File file, String snapshotTag) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(
+        file.toPath(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING
+    );
+    write(HEADER_PREFIX + snapshotTag + "\n");
+  }
+
+  /**
+   * Appends one entry and forces it to the disk.
+   */
+  void append(Map<String, String> changes) throws IOException {
+    write(ObjectMapperFactory.getOneLine().writeValueAsString(changes) + "\n");
+    entries++;
+  }
+
+  private void write(String line) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Number of entries appended through this instance.
+   */
+  int getEntries() {
+    return entries;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Applies all entries of the given journal file to the offsets map if the journal extends the offset file with the
+   * given tag. The last entry is skipped if it was not completely written out.
+   */
+  static void replay(File file, String snapshotTag, Map<String, String> offsets) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
+    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    if (lines.isEmpty()) {
+      return;
+    }
+    if (!lines.get(0).equals(HEADER_PREFIX + snapshotTag)) {
+      LOG.warn("Ignoring offset journal '{}' as it does not extend the current offset file", file);
+      return;
+    }
+    for (int i = 1; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isEmpty()) {
+        continue;
+      }
+      Map<String, String> changes;
+      try {
+        changes = ObjectMapperFactory.get().readValue(line, ENTRY_TYPE);
+      } catch (IOException e) {
+        if (i == lines.size() - 1) {
+          LOG.warn("Ignoring incomplete last entry of offset journal '{}': {}", file, e.toString());
+          break;
+        }
+        throw new IOException(Utils.format("Corrupted entry {} in offset journal '{}': {}", i, file, e), e);
+      }
+      for (Map.Entry<String, String> change : changes.entrySet()) {
+        if (change.getValue() == null) {
+          offsets.remove(change.getKey());
+        } else {
+          offsets.put(change.getKey(), change.getValue());
+        }
+      }
+    }
+  }
+}
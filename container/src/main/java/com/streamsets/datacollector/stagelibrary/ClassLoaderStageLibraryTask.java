@@ -24,6 +24,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.datacollector.classpath.ClasspathValidator;
 import com.streamsets.datacollector.classpath.ClasspathValidatorResult;
 import com.streamsets.datacollector.config.CredentialStoreDefinition;
@@ -85,6 +86,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -92,6 +94,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLibraryTask {
@@ -115,6 +120,9 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
 
   private static final String DEFAULT_REQUIRED_STAGELIBS = "";
 
+  private static final String CONFIG_LOAD_THREADS = "stagelibs.load.threads";
+  private static final int DEFAULT_LOAD_THREADS = Runtime.getRuntime().availableProcessors();
+
   private static final Logger LOG = LoggerFactory.getLogger(ClassLoaderStageLibraryTask.class);
 
   private final RuntimeInfo runtimeInfo;
@@ -137,6 +145,7 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
   private Map<String, StageLibraryDelegateDefinitition> delegateMap;
   private ObjectMapper json;
   private KeyedObjectPool<String, ClassLoader> privateClassLoaderPool;
+  private Map<String, Long> startupTimings;
 
   @Inject
   public ClassLoaderStageLibraryTask(RuntimeInfo runtimeInfo, BuildInfo buildInfo, Configuration configuration) {
@@ -225,6 +234,8 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
   @Override
   public void initTask() {
     super.initTask();
+    Map<String, Long> timings = new LinkedHashMap<>();
+    long phaseStart = System.currentTimeMillis();
     stageClassLoaders = runtimeInfo.getStageLibraryClassLoaders();
     if (!stageClassLoaders.isEmpty()) {
       resolveClassLoaderMethods(stageClassLoaders.get(0));
@@ -233,6 +244,7 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
     if(configuration.get(CONFIG_CP_VALIDATION, DEFAULT_CP_VALIDATION)) {
       validateStageClasspaths();
     }
+    phaseStart = recordPhase(timings, "classpathValidation", phaseStart);
 
     // Load all stages and other objects from the libraries
     json = ObjectMapperFactory.get();
@@ -248,6 +260,7 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
     delegateList = new ArrayList<>();
     delegateMap = new HashMap<>();
     loadStages();
+    phaseStart = recordPhase(timings, "libraryLoading", phaseStart);
     stageLibraries = ImmutableList.copyOf(stageLibraries);
     stageList = ImmutableList.copyOf(stageList);
     stageMap = ImmutableMap.copyOf(stageMap);
@@ -276,6 +289,7 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
     validateServices(stageList, serviceList);
     validateDelegates(delegateList);
     validateRequiredStageLibraries();
+    phaseStart = recordPhase(timings, "definitionValidation", phaseStart);
 
     // initializing the list of targets that can be used for error handling
     ErrorHandlingChooserValues.setErrorHandlingOptions(this);
@@ -302,6 +316,20 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
     poolConfig.setBlockWhenExhausted(false);
     poolConfig.setMaxWaitMillis(0);
     privateClassLoaderPool = new GenericKeyedObjectPool<>(new ClassLoaderFactory(stageClassLoaders), poolConfig);
+    recordPhase(timings, "initialization", phaseStart);
+    startupTimings = ImmutableMap.copyOf(timings);
+    LOG.info("Stage library startup timings in ms: {}", startupTimings);
+  }
+
+  private static long recordPhase(Map<String, Long> timings, String phase, long phaseStart) {
+    long now = System.currentTimeMillis();
+    timings.put(phase, now - phaseStart);
+    return now;
+  }
+
+  @Override
+  public Map<String, Long> getStartupTimings() {
+    return startupTimings;
   }
 
   /**
@@ -466,7 +494,22 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
         Utils.format("Could not load runtime configuration, '{}'", e.toString()), e);
     }
 
+    int threads = Math.max(1, Math.min(
+        configuration.get(CONFIG_LOAD_THREADS, DEFAULT_LOAD_THREADS),
+        stageClassLoaders.size()
+    ));
+    ExecutorService executor = Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder().setNameFormat("stage-library-loader-%d").setDaemon(true).build()
+    );
     try {
+      long start = System.currentTimeMillis();
+      // libraries are loaded concurrently, their definitions are merged in the order of the class loaders
+      List<Future<LibraryDefinitions>> futures = new ArrayList<>();
+      for (ClassLoader cl : stageClassLoaders) {
+        futures.add(executor.submit(() -> loadLibrary(cl, javaVersion, sdcVersion)));
+      }
+
       int libs = 0;
       int stages = 0;
       int lineagePublishers = 0;
@@ -474,102 +517,46 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
       int services = 0;
       int interceptors = 0;
       int delegates = 0;
-      long start = System.currentTimeMillis();
-      LocaleInContext.set(Locale.getDefault());
-      for (ClassLoader cl : stageClassLoaders) {
-        try {
-          // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
-          String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
-          if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
-            if(javaVersion.matches(unsupportedJvmVersion)) {
-              LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", StageLibraryUtils.getLibraryName(cl));
-              continue;
-            } else {
-              LOG.debug("Stage lib {} passed java compatibility test for '{}'", StageLibraryUtils.getLibraryName(cl), unsupportedJvmVersion);
-            }
-          }
-
-          // And that this SDC is at least on requested version
-          String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
-          if(!StringUtils.isEmpty(minSdcVersion)) {
-            if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
-              throw new IllegalArgumentException(
-                  Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
-                  StageLibraryUtils.getLibraryName(cl),
-                  minSdcVersion,
-                  buildInfo.getVersion()
-                ));
-            }
-          }
-
-          // Load stages from the stage library
-          StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
-          LOG.debug("Loading stages and plugins from library '{}'", libDef.getName());
-          stageLibraries.add(libDef);
-          libs++;
-
-          // Load Stages
-          for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
-            stages++;
-            StageDefinition stage = StageDefinitionExtractor.get().extract(libDef, klass, Utils.formatL("Library='{}'", libDef.getName()));
-            String key = createKey(libDef.getName(), stage.getName());
-            LOG.debug("Loaded stage '{}'  version {}", key, stage.getVersion());
-            stageList.add(stage);
-            stageMap.put(key, stage);
-          }
-
-          // Load Lineage publishers
-          for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
-            lineagePublishers++;
-            LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), lineage.getName());
-            LOG.debug("Loaded lineage plugin '{}'", key);
-            lineagePublisherDefinitions.add(lineage);
-            lineagePublisherDefinitionMap.put(key, lineage);
-          }
-
-          // Load Credential stores
-          for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
-            credentialStores++;
-            CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getName());
-            LOG.debug("Loaded credential store '{}'", key);
-            credentialStoreDefinitions.add(def);
-          }
-
-          // Load Services
-          for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
-            services++;
-            ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
-            serviceList.add(def);
-            serviceMap.put(def.getProvides(), def);
-          }
-
-          // Load Interceptors
-          for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
-            interceptors++;
-            InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
-            interceptorList.add(def);
-          }
-
-          // Load Delegates
-          for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
-            delegates++;
-            StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getExportedInterface().getCanonicalName());
-            LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
-            delegateList.add(def);
-            delegateMap.put(key, def);
-          }
-        } catch (IOException | ClassNotFoundException ex) {
-          throw new RuntimeException(
-              Utils.format("Could not load stages definition from '{}', {}", cl, ex.toString()), ex);
+      for (Future<LibraryDefinitions> future : futures) {
+        LibraryDefinitions lib = getLibraryDefinitions(future);
+        if (lib == null) {
+          continue;
+        }
+        String libName = lib.libDef.getName();
+        stageLibraries.add(lib.libDef);
+        libs++;
+
+        for (StageDefinition stage : lib.stages) {
+          stages++;
+          stageList.add(stage);
+          stageMap.put(createKey(libName, stage.getName()), stage);
+        }
+        for (LineagePublisherDefinition lineage : lib.lineagePublishers) {
+          lineagePublishers++;
+          lineagePublisherDefinitions.add(lineage);
+          lineagePublisherDefinitionMap.put(createKey(libName, lineage.getName()), lineage);
+        }
+        for (CredentialStoreDefinition def : lib.credentialStores) {
+          credentialStores++;
+          credentialStoreDefinitions.add(def);
+        }
+        for (ServiceDefinition def : lib.services) {
+          services++;
+          serviceList.add(def);
+          serviceMap.put(def.getProvides(), def);
+        }
+        for (InterceptorDefinition def : lib.interceptors) {
+          interceptors++;
+          interceptorList.add(def);
+        }
+        for (StageLibraryDelegateDefinitition def : lib.delegates) {
+          delegates++;
+          delegateList.add(def);
+          delegateMap.put(createKey(libName, def.getExportedInterface().getCanonicalName()), def);
         }
       }
       LOG.info(
-        "Loaded '{}' libraries with a total of '{}' stages, '{}' lineage publishers, '{}' services, '{}' interceptors, '{}' delegates and '{}' credentialStores in '{}ms'",
+        "Loaded '{}' libraries with a total of '{}' stages, '{}' lineage publishers, '{}' services, '{}' interceptors, '{}' delegates and '{}' credentialStores in '{}ms' using '{}' threads",
         libs,
         stages,
         lineagePublishers,
@@ -577,13 +564,133 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
         interceptors,
         delegates,
         credentialStores,
-        System.currentTimeMillis() - start
+        System.currentTimeMillis() - start,
+        threads
       );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private LibraryDefinitions getLibraryDefinitions(Future<LibraryDefinitions> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while loading stage libraries", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+
+  /**
+   * Extracts the definitions of a stage library, returns null if the library is not supported by the current JVM.
+   */
+  private LibraryDefinitions loadLibrary(ClassLoader cl, String javaVersion, Version sdcVersion) {
+    LocaleInContext.set(Locale.getDefault());
+    try {
+      // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
+      String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
+      if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
+        if(javaVersion.matches(unsupportedJvmVersion)) {
+          LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", StageLibraryUtils.getLibraryName(cl));
+          return null;
+        } else {
+          LOG.debug("Stage lib {} passed java compatibility test for '{}'", StageLibraryUtils.getLibraryName(cl), unsupportedJvmVersion);
+        }
+      }
+
+      // And that this SDC is at least on requested version
+      String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
+      if(!StringUtils.isEmpty(minSdcVersion)) {
+        if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
+          throw new IllegalArgumentException(
+              Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
+              StageLibraryUtils.getLibraryName(cl),
+              minSdcVersion,
+              buildInfo.getVersion()
+            ));
+        }
+      }
+
+      // Load stages from the stage library
+      StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
+      LOG.debug("Loading stages and plugins from library '{}'", libDef.getName());
+      LibraryDefinitions lib = new LibraryDefinitions(libDef);
+
+      // Load Stages
+      for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
+        StageDefinition stage = StageDefinitionExtractor.get().extract(libDef, klass, Utils.formatL("Library='{}'", libDef.getName()));
+        LOG.debug("Loaded stage '{}'  version {}", createKey(libDef.getName(), stage.getName()), stage.getVersion());
+        lib.stages.add(stage);
+      }
+
+      // Load Lineage publishers
+      for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
+        LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded lineage plugin '{}'", createKey(libDef.getName(), lineage.getName()));
+        lib.lineagePublishers.add(lineage);
+      }
+
+      // Load Credential stores
+      for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
+        CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded credential store '{}'", createKey(libDef.getName(), def.getName()));
+        lib.credentialStores.add(def);
+      }
+
+      // Load Services
+      for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
+        ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
+        lib.services.add(def);
+      }
+
+      // Load Interceptors
+      for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
+        InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
+        lib.interceptors.add(def);
+      }
+
+      // Load Delegates
+      for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
+        StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
+        lib.delegates.add(def);
+      }
+      return lib;
+    } catch (IOException | ClassNotFoundException ex) {
+      throw new RuntimeException(
+          Utils.format("Could not load stages definition from '{}', {}", cl, ex.toString()), ex);
     } finally {
       LocaleInContext.set(null);
     }
   }
 
+  /**
+   * Definitions extracted from a single stage library.
+   */
+  private static class LibraryDefinitions {
+    private final StageLibraryDefinition libDef;
+    private final List<StageDefinition> stages = new ArrayList<>();
+    private final List<LineagePublisherDefinition> lineagePublishers = new ArrayList<>();
+    private final List<CredentialStoreDefinition> credentialStores = new ArrayList<>();
+    private final List<ServiceDefinition> services = new ArrayList<>();
+    private final List<InterceptorDefinition> interceptors = new ArrayList<>();
+    private final List<StageLibraryDelegateDefinitition> delegates = new ArrayList<>();
+
+    private LibraryDefinitions(StageLibraryDefinition libDef) {
+      this.libDef = libDef;
+    }
+  }
+
   private <T> List<Class<? extends T>> loadClassesFromResource(
     StageLibraryDefinition libDef,
     ClassLoader cl,
@@ -81,4 +81,9 @@ public interface StageLibraryTask extends Task, ClassLoaderReleaser {
   StageLibraryDelegateDefinitition getStageLibraryDelegateDefinition(String  stageLibrary, Class exportedInterface);
 
   List<StageLibraryDefinition> getLoadedStageLibraries();
+
+  /**
+   * Returns the time in milliseconds spent in each phase of the initialization of the stage libraries.
+   */
+  Map<String, Long> getStartupTimings();
 }
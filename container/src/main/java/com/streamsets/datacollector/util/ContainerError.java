@@ -141,6 +141,7 @@ public enum ContainerError implements ErrorCode {
   CONTAINER_0801("Thread unexpectedly interrupted"),
   CONTAINER_0802("Detected run away pipeline runners (only {} out of {} runners have finished)"),
   CONTAINER_0803("Trying to acquire pipeline runner after the pool was destroyed."),
+  CONTAINER_0804("Pipeline origin thread did not stop in {} ms after it was interrupted"),
 
   //PipelineConfigurationUpgrader
   CONTAINER_0900("Error while upgrading stage configuration from version '{}' to version '{}': {}"),
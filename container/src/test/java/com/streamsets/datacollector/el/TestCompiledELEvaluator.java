@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.el;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.datacollector.definition.ConcreteELDefinitionExtractor;
+import com.streamsets.datacollector.definition.ELDefinitionExtractor;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.ElFunction;
+import com.streamsets.pipeline.api.ElParam;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.el.ELEvalException;
+import com.streamsets.pipeline.lib.el.MathEL;
+import com.streamsets.pipeline.lib.el.RecordEL;
+import com.streamsets.pipeline.lib.el.StringEL;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+public class TestCompiledELEvaluator {
+  private ELDefinitionExtractor elDefinitionExtractor = ConcreteELDefinitionExtractor.get();
+
+  private static final List<String> EXPRESSIONS = ImmutableList.of(
+      "constant string",
+      "${1 + 2 * 3}",
+      "${record:value('/a')}",
+      "${record:value('/b') + 1}",
+      "${record:value('/b') * record:value('/c') / 2}",
+      "${record:type('/a') == STRING}",
+      "${record:exists('/missing') ? 'yes' : 'no'}",
+      "${empty record:value('/a')}",
+      "${not record:exists('/a')}",
+      "${-record:value('/b')}",
+      "prefix ${record:value('/a')} and ${str:toUpper(record:value('/a'))} suffix",
+      "${str:substring(record:value('/a'), 1, 3)}",
+      "${str:substring(record:value('/a'), '1', 3.0)}",
+      "${str:concat(str:trim('  x  '), str:toLower(record:value('/a')))}",
+      "${str:length(record:value('/missing'))}",
+      "${math:max(record:value('/b'), record:value('/c'))}",
+      "${math:abs(-1.5) + math:ceil(record:value('/c'))}",
+      "${record:value('/map')['key']}",
+      "${record:value('/map/key')}",
+      "${record:exists('/map/key') and not record:exists('/map/missing')}",
+      "${record:value('/map/missing')}",
+      "${record:attribute('attr')}",
+      "${myVariable}",
+      "${test:fail()}",
+      "${test:echo(record:value('/a'))}",
+      "${unknown:function()}",
+      "${str:toUpper('a', 'b')}",
+      "${undefinedVariable}",
+      "${str:substring(record:value('/a'), 'not a number', 3)}"
+  );
+
+  @Test
+  public void testSameResultsAsInterpreted() throws Exception {
+    Record record = new RecordImpl("s", "s", null, null);
+    record.set(Field.create(new HashMap<>(ImmutableMap.of(
+        "a", Field.create("Hello"),
+        "b", Field.create(10),
+        "c", Field.create(2.5),
+        "map", Field.create(new HashMap<>(ImmutableMap.of("key", Field.create("value"))))
+    ))));
+    record.getHeader().setAttribute("attr", "attrValue");
+
+    for (Class<?> type : ImmutableList.<Class<?>>of(Object.class, String.class, Boolean.class, Long.class)) {
+      ELEvaluator interpreted = createEvaluator(false);
+      ELEvaluator compiled = createEvaluator(true);
+      for (String expression : EXPRESSIONS) {
+        ELVariables variables = new ELVariables();
+        variables.addVariable("myVariable", "myValue");
+        RecordEL.setRecordInContext(variables, record);
+
+        // Evaluate twice, the second evaluation is using already compiled expression
+        for (int i = 0; i < 2; i++) {
+          Object expected = null;
+          ELEvalException expectedException = null;
+          try {
+            expected = interpreted.eval(variables, expression, type);
+          } catch (ELEvalException e) {
+            expectedException = e;
+          }
+          try {
+            Object actual = compiled.eval(variables, expression, type);
+            Assert.assertNull(expression + " as " + type, expectedException);
+            Assert.assertEquals(expression + " as " + type, expected, actual);
+          } catch (ELEvalException e) {
+            Assert.assertNotNull(expression + " as " + type + ": " + e, expectedException);
+            Assert.assertEquals(expectedException.getErrorCode(), e.getErrorCode());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFunctionExceptionIsPropagated() throws Exception {
+    ELEvaluator evaluator = createEvaluator(true);
+    try {
+      evaluator.eval(new ELVariables(), "${test:fail()}", Object.class);
+      Assert.fail();
+    } catch (ELEvalException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("Failure from function"));
+    }
+  }
+
+  @Test
+  public void testLiteralPathResolvedOnce() throws Exception {
+    ELEvaluator evaluator = createEvaluator(true);
+    ELVariables variables = new ELVariables();
+    evaluator.eval(variables, "${test:path('/a/b')}", String.class);
+    String first = TestEl.lastPath;
+    evaluator.eval(variables, "${test:path('/a/b')}", String.class);
+    // the same instance is passed on every evaluation, so its parsed form is found in the path cache right away
+    Assert.assertEquals("/a/b", TestEl.lastPath);
+    Assert.assertSame(first, TestEl.lastPath);
+  }
+
+  private ELEvaluator createEvaluator(boolean compilationEnabled) {
+    ELEvaluator evaluator = new ELEvaluator(
+        "test",
+        elDefinitionExtractor,
+        RecordEL.class,
+        StringEL.class,
+        MathEL.class,
+        TestEl.class
+    );
+    evaluator.setCompilationEnabled(compilationEnabled);
+    return evaluator;
+  }
+
+  public static class TestEl {
+    static String lastPath;
+
+    @ElFunction(prefix = "test", name = "path")
+    public static String path(@ElParam("fieldPath") String fieldPath) {
+      lastPath = fieldPath;
+      return fieldPath;
+    }
+
+    @ElFunction(prefix = "test", name = "fail")
+    public static String fail() {
+      throw new IllegalStateException("Failure from function");
+    }
+
+    @ElFunction(prefix = "test", name = "echo")
+    public static String echo(@ElParam("value") String value) {
+      return value;
+    }
+  }
+}
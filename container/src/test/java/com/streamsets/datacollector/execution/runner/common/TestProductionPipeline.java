@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.execution.runner.common;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.blobstore.BlobStoreTask;
 import com.streamsets.datacollector.config.MemoryLimitConfiguration;
 import com.streamsets.datacollector.config.MemoryLimitExceeded;
@@ -64,6 +65,7 @@ import com.streamsets.pipeline.api.base.BaseSource;
 import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.impl.ErrorMessage;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.util.ThreadUtil;
 import org.apache.commons.io.FileUtils;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -87,10 +89,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class TestProductionPipeline {
 
@@ -100,6 +105,8 @@ public class TestProductionPipeline {
   private static final String SNAPSHOT_NAME = "snapshot";
   private MetricRegistry runtimeInfoMetrics;
   private MemoryLimitConfiguration memoryLimit;
+  private int pipelinedBatches;
+  private long pipelinedBatchesShutdownTimeout;
   private RuntimeInfo runtimeInfo;
   private ProductionPipelineRunner lastCreatedRunner;
 
@@ -133,6 +140,8 @@ public class TestProductionPipeline {
                                   Arrays.asList(getClass().getClassLoader()));
     runtimeInfo.init();
     memoryLimit = new MemoryLimitConfiguration();
+    pipelinedBatches = 0;
+    pipelinedBatchesShutdownTimeout = Constants.PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_DEFAULT;
     MetricsConfigurator.registerJmxMetrics(runtimeInfoMetrics);
 
     MockStages.setSourceCapture(null);
@@ -281,6 +290,204 @@ public class TestProductionPipeline {
     Assert.assertTrue(capture.lastBatchTime < endTime);
   }
 
+  private static class SequenceSource extends BaseSource {
+    public List<String> offsets = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
+      offsets.add(lastSourceOffset);
+      Record record = getContext().createRecord("s:" + lastSourceOffset);
+      record.set(Field.create(lastSourceOffset));
+      batchMaker.addRecord(record);
+      int offset = Integer.parseInt(lastSourceOffset);
+      return offset < 5 ? String.valueOf(offset + 1) : null;
+    }
+  }
+
+  private static class SequenceTarget extends BaseTarget {
+    public List<String> values = new ArrayList<>();
+
+    @Override
+    public void write(Batch batch) throws StageException {
+      Iterator<Record> it = batch.getRecords();
+      while(it.hasNext()) {
+        values.add(it.next().get().getValueAsString());
+      }
+    }
+  }
+
+  @Test
+  public void testProductionRunPipelinedBatches() throws Exception {
+    pipelinedBatches = 2;
+    SequenceSource source = new SequenceSource();
+    SequenceTarget target = new SequenceTarget();
+    MockStages.setSourceCapture(source);
+    MockStages.setTargetCapture(target);
+    ProductionPipeline pipeline = createProductionPipeline(DeliveryGuarantee.AT_LEAST_ONCE, false, PipelineType.DEFAULT);
+    pipeline.registerStatusListener(new MyStateListener());
+    pipeline.run();
+
+    // Origin reads ahead from the offset it produced last, the batches are still processed in order
+    Assert.assertEquals(ImmutableList.of("1", "2", "3", "4", "5"), source.offsets);
+    Assert.assertEquals(ImmutableList.of("1", "2", "3", "4", "5"), target.values);
+    Assert.assertTrue(pipeline.getCommittedOffsets().isEmpty());
+  }
+
+  @Test
+  public void testPipelinedBatchesStop() throws Exception {
+    pipelinedBatches = 2;
+    SequenceSource source = new SequenceSource();
+    AtomicReference<ProductionPipeline> pipelineRef = new AtomicReference<>();
+    SequenceTarget target = new SequenceTarget() {
+      @Override
+      public void write(Batch batch) throws StageException {
+        super.write(batch);
+        if (values.contains("2")) {
+          // Wait until the origin read ahead, then stop
+          long deadline = System.currentTimeMillis() + 10000;
+          while (source.offsets.size() < 4 && System.currentTimeMillis() < deadline) {
+            ThreadUtil.sleep(10);
+          }
+          pipelineRef.get().stop();
+        }
+      }
+    };
+    MockStages.setSourceCapture(source);
+    MockStages.setTargetCapture(target);
+    ProductionPipeline pipeline = createProductionPipeline(DeliveryGuarantee.AT_LEAST_ONCE, false, PipelineType.DEFAULT);
+    pipelineRef.set(pipeline);
+    pipeline.registerStatusListener(new MyStateListener());
+    pipeline.run();
+
+    // Batches read ahead were neither processed nor committed
+    Assert.assertTrue(source.offsets.size() >= 4);
+    Assert.assertEquals(ImmutableList.of("1", "2"), target.values);
+    Assert.assertEquals("3", pipeline.getCommittedOffsets().get(Source.POLL_SOURCE_OFFSET_KEY));
+  }
+
+  @Test
+  public void testPipelinedBatchesFailure() throws Exception {
+    pipelinedBatches = 2;
+    SequenceSource source = new SequenceSource();
+    SequenceTarget target = new SequenceTarget() {
+      @Override
+      public void write(Batch batch) throws StageException {
+        // Fail once the origin read ahead
+        long deadline = System.currentTimeMillis() + 10000;
+        while (source.offsets.size() < 4 && System.currentTimeMillis() < deadline) {
+          ThreadUtil.sleep(10);
+        }
+        super.write(batch);
+        if (values.contains("2")) {
+          throw new RuntimeException("Downstream failure");
+        }
+      }
+    };
+    MockStages.setSourceCapture(source);
+    MockStages.setTargetCapture(target);
+    ProductionPipeline pipeline = createProductionPipeline(DeliveryGuarantee.AT_LEAST_ONCE, false, PipelineType.DEFAULT);
+    pipeline.registerStatusListener(new MyStateListener());
+    try {
+      pipeline.run();
+      Assert.fail("Expected the downstream failure");
+    } catch (Exception e) {
+      // expected
+    }
+
+    // Neither the failed batch nor the batches read ahead were committed
+    Assert.assertTrue(source.offsets.size() >= 4);
+    Assert.assertEquals(ImmutableList.of("1", "2"), target.values);
+    Assert.assertEquals("2", pipeline.getCommittedOffsets().get(Source.POLL_SOURCE_OFFSET_KEY));
+  }
+
+  private static class SequenceOffsetCommitterSource extends SequenceSource implements OffsetCommitter {
+    public List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
+      threads.add(Thread.currentThread().getName());
+      return super.produce(lastSourceOffset, maxBatchSize, batchMaker);
+    }
+
+    @Override
+    public void commit(String offset) throws StageException {
+    }
+  }
+
+  @Test
+  public void testPipelinedBatchesOffsetCommitter() throws Exception {
+    pipelinedBatches = 2;
+    SequenceOffsetCommitterSource source = new SequenceOffsetCommitterSource();
+    SequenceTarget target = new SequenceTarget();
+    MockStages.setSourceCapture(source);
+    MockStages.setTargetCapture(target);
+    ProductionPipeline pipeline = createProductionPipeline(DeliveryGuarantee.AT_LEAST_ONCE, false, PipelineType.OFFSET_COMMITTERS);
+    pipeline.registerStatusListener(new MyStateListener());
+    pipeline.run();
+
+    // Origin committing its own offsets never reads ahead, it runs in the pipeline thread
+    Assert.assertEquals(ImmutableList.of("1", "2", "3", "4", "5"), source.offsets);
+    Assert.assertEquals(ImmutableList.of("1", "2", "3", "4", "5"), target.values);
+    for (String thread : source.threads) {
+      Assert.assertFalse(thread, thread.startsWith("Pipeline Origin Runner"));
+    }
+  }
+
+  @Test
+  public void testPipelinedBatchesOriginNotStopping() throws Exception {
+    pipelinedBatches = 2;
+    pipelinedBatchesShutdownTimeout = 100;
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    SequenceSource source = new SequenceSource() {
+      @Override
+      public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
+        if ("2".equals(lastSourceOffset)) {
+          // Origin that ignores interrupts
+          blocked.countDown();
+          long deadline = System.currentTimeMillis() + 10000;
+          while (release.getCount() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+              release.await(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+              // ignored on purpose
+            }
+          }
+        }
+        return super.produce(lastSourceOffset, maxBatchSize, batchMaker);
+      }
+    };
+    AtomicReference<ProductionPipeline> pipelineRef = new AtomicReference<>();
+    SequenceTarget target = new SequenceTarget() {
+      @Override
+      public void write(Batch batch) throws StageException {
+        super.write(batch);
+        try {
+          Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+          pipelineRef.get().stop();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    MockStages.setSourceCapture(source);
+    MockStages.setTargetCapture(target);
+    ProductionPipeline pipeline = createProductionPipeline(DeliveryGuarantee.AT_LEAST_ONCE, false, PipelineType.DEFAULT);
+    pipelineRef.set(pipeline);
+    pipeline.registerStatusListener(new MyStateListener());
+    try {
+      pipeline.run();
+      Assert.fail("Expected the stop to fail");
+    } catch (PipelineRuntimeException e) {
+      Assert.assertEquals(ContainerError.CONTAINER_0804, e.getErrorCode());
+    } finally {
+      release.countDown();
+    }
+
+    Assert.assertEquals(ImmutableList.of("1"), target.values);
+    Assert.assertTrue(pipeline.isExecutionFailed());
+  }
+
   @Test
   public void testMemoryLimit() throws Exception {
     memoryLimit = new MemoryLimitConfiguration(MemoryLimitExceeded.STOP_PIPELINE, 1);
@@ -411,6 +618,8 @@ public class TestProductionPipeline {
     BlockingQueue<Object> productionObserveRequests = new ArrayBlockingQueue<>(100, true /* FIFO */);
     Configuration config = new Configuration();
     config.set("monitor.memory", true);
+    config.set(Constants.PIPELINED_BATCHES_KEY, pipelinedBatches);
+    config.set(Constants.PIPELINED_BATCHES_SHUTDOWN_TIMEOUT_MS_KEY, pipelinedBatchesShutdownTimeout);
     ProductionPipelineRunner runner = new ProductionPipelineRunner(
       PIPELINE_NAME,
       REVISION,
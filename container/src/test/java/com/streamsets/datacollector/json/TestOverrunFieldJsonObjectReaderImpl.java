@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.google.common.base.Strings;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public class TestOverrunFieldJsonObjectReaderImpl {
+
+  private static final String OBJECTS = "{\"s\":\"a\",\"i\":1,\"l\":10000000000,\"b\":123456789012345678901234567890," +
+      "\"d\":1.5,\"t\":true,\"n\":null,\"m\":{\"x\":[1,\"y\",{}]},\"e\":[]}\n{\"s\":\"b\"}  [3]";
+
+  private static OverrunReader createReader(String json) {
+    return new OverrunReader(new StringReader(json), 1000, false, false);
+  }
+
+  @Test
+  public void testFieldTypes() throws Exception {
+    OverrunFieldJsonObjectReaderImpl reader = new OverrunFieldJsonObjectReaderImpl(
+        createReader(OBJECTS),
+        0,
+        1000,
+        Mode.MULTIPLE_OBJECTS
+    );
+    Assert.assertEquals(Field.class, reader.getExpectedClass());
+
+    Field field = (Field) reader.read();
+    Assert.assertEquals(Field.Type.MAP, field.getType());
+    Map<String, Field> map = field.getValueAsMap();
+    Assert.assertEquals(Field.create("a"), map.get("s"));
+    Assert.assertEquals(Field.create(1), map.get("i"));
+    Assert.assertEquals(Field.create(10000000000L), map.get("l"));
+    Assert.assertEquals(Field.create(new BigDecimal("123456789012345678901234567890")), map.get("b"));
+    Assert.assertEquals(Field.create(1.5), map.get("d"));
+    Assert.assertEquals(Field.create(true), map.get("t"));
+    Assert.assertEquals(Field.create(Field.Type.STRING, null), map.get("n"));
+    Assert.assertTrue(map.get("e").getValueAsList().isEmpty());
+
+    List<Field> list = map.get("m").getValueAsMap().get("x").getValueAsList();
+    Assert.assertEquals(Field.create(1), list.get(0));
+    Assert.assertEquals(Field.create("y"), list.get(1));
+    Assert.assertTrue(list.get(2).getValueAsMap().isEmpty());
+
+    field = (Field) reader.read();
+    Assert.assertEquals("b", field.getValueAsMap().get("s").getValueAsString());
+    field = (Field) reader.read();
+    Assert.assertEquals(Field.create(3), field.getValueAsList().get(0));
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testSameOffsetsAsObjectReader() throws Exception {
+    for (Mode mode : Mode.values()) {
+      String json = mode == Mode.ARRAY_OBJECTS ? "[" + OBJECTS.replace("\n", ",").replace("  ", ",") + "]" : OBJECTS;
+      OverrunJsonObjectReaderImpl objectReader = new OverrunJsonObjectReaderImpl(createReader(json), 0, 1000, mode);
+      OverrunJsonObjectReaderImpl fieldReader = new OverrunFieldJsonObjectReaderImpl(createReader(json), 0, 1000, mode);
+      Object value;
+      do {
+        Assert.assertEquals(mode.name(), objectReader.getReaderPosition(), fieldReader.getReaderPosition());
+        value = objectReader.read();
+        Assert.assertEquals(value == null, fieldReader.read() == null);
+      } while (value != null);
+      Assert.assertEquals(mode.name(), objectReader.getReaderPosition(), fieldReader.getReaderPosition());
+    }
+  }
+
+  @Test
+  public void testMaxObjectLength() throws Exception {
+    OverrunFieldJsonObjectReaderImpl reader = new OverrunFieldJsonObjectReaderImpl(
+        createReader("[\"a\", \"A\"]\n[\"" + Strings.repeat("x", 60) + "\", \"X\"]\n[\"b\", \"B\"]"),
+        0,
+        50,
+        Mode.MULTIPLE_OBJECTS
+    );
+    Assert.assertEquals(Field.create("a"), ((Field) reader.read()).getValueAsList().get(0));
+    try {
+      reader.read();
+      Assert.fail("Expected ObjectLengthException");
+    } catch (ObjectLengthException ex) {
+      // Expected
+    }
+    // Parser skips the long object and continues with the next one
+    Assert.assertEquals(Field.create("b"), ((Field) reader.read()).getValueAsList().get(0));
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+}
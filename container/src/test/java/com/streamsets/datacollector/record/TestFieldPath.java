@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TestFieldPath {
+
+  @Test
+  public void testCompileCached() {
+    FieldPath path = FieldPath.compile("/a/b[1]/'c/d'");
+    Assert.assertSame(path, FieldPath.compile("/a/b[1]/'c/d'"));
+    Assert.assertEquals("/a/b[1]/'c/d'", path.getPath());
+    Assert.assertFalse(path.isRoot());
+    Assert.assertEquals(5, path.getElements().size());
+    Assert.assertEquals("c/d", path.getElements().get(4).getName());
+    Assert.assertEquals(1, path.getElements().get(3).getIndex());
+
+    Assert.assertTrue(FieldPath.compile("").isRoot());
+    Assert.assertTrue(FieldPath.compile("/").isRoot());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testElementsImmutable() {
+    FieldPath.compile("/a").getElements().clear();
+  }
+
+  @Test
+  public void testInvalidPath() {
+    long size = FieldPath.getCacheSize();
+    try {
+      FieldPath.compile("a/b");
+      Assert.fail();
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+    Assert.assertEquals(size, FieldPath.getCacheSize());
+  }
+
+  @Test
+  public void testCacheBounded() {
+    for (int i = 0; i < FieldPath.MAX_CACHED_PATHS * 2; i++) {
+      FieldPath.compile("/bounded" + i);
+    }
+    Assert.assertTrue(FieldPath.getCacheSize() <= FieldPath.MAX_CACHED_PATHS);
+  }
+
+  @Test
+  public void testRecordAccessors() {
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("a", Field.create(new ArrayList<>(ImmutableList.of(Field.create(1), Field.create(2)))));
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    record.set(Field.create(map));
+
+    FieldPath path = FieldPath.compile("/a[1]");
+    Assert.assertTrue(record.has(path));
+    Assert.assertEquals(Field.create(2), record.get(path));
+    Assert.assertEquals(Field.create(2), record.set(path, Field.create(3)));
+    Assert.assertEquals(Field.create(3), record.get("/a[1]"));
+
+    FieldPath newPath = FieldPath.compile("/b");
+    Assert.assertFalse(record.has(newPath));
+    Assert.assertNull(record.set(newPath, Field.create("x")));
+    Assert.assertEquals(Field.create("x"), record.delete(newPath));
+    Assert.assertNull(record.get(newPath));
+
+    Field root = Field.create(ImmutableMap.of("c", Field.create(true)));
+    record.set(FieldPath.compile("/"), root);
+    Assert.assertSame(root, record.get(FieldPath.compile("")));
+  }
+}
@@ -182,6 +182,56 @@ public class TestRecordImpl {
     Assert.assertNotSame(clone, record);
   }
 
+  @Test
+  public void testCopyOnWrite() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("A"));
+    map.put("b", Field.create("B"));
+    record.set(Field.create(map));
+    record.getHeader().setAttribute("h", "H");
+
+    RecordImpl copy1 = record.createCopyOnWrite();
+    RecordImpl copy2 = record.createCopyOnWrite();
+    Assert.assertEquals(record, copy1);
+    Assert.assertEquals(record, copy2);
+    Assert.assertNotSame(record, copy1);
+    Assert.assertNotSame(copy1.getHeader(), copy2.getHeader());
+    // the field tree is shared until modified
+    Assert.assertSame(record.get(), copy1.get());
+    Assert.assertSame(copy1.get(), copy2.get());
+
+    copy1.set("/a", Field.create("X"));
+    Assert.assertEquals("X", copy1.get("/a").getValueAsString());
+    Assert.assertEquals("A", copy2.get("/a").getValueAsString());
+    Assert.assertEquals("A", record.get("/a").getValueAsString());
+    Assert.assertNotSame(copy1.get(), copy2.get());
+
+    copy2.delete("/b");
+    Assert.assertFalse(copy2.has("/b"));
+    Assert.assertTrue(copy1.has("/b"));
+    Assert.assertTrue(record.has("/b"));
+
+    // deleting a path that does not exist does not need a private copy
+    RecordImpl copy3 = record.createCopyOnWrite();
+    Assert.assertNull(copy3.delete("/nonexisting"));
+    Assert.assertSame(record.get(), copy3.get());
+
+    copy1.getHeader().setAttribute("h", "X");
+    copy2.getHeader().deleteAttribute("h");
+    copy3.getHeader().setStagesPath("s");
+    Assert.assertEquals("X", copy1.getHeader().getAttribute("h"));
+    Assert.assertNull(copy2.getHeader().getAttribute("h"));
+    Assert.assertEquals("H", copy3.getHeader().getAttribute("h"));
+    Assert.assertEquals("H", record.getHeader().getAttribute("h"));
+    Assert.assertEquals("s", copy3.getHeader().getStagesPath());
+    Assert.assertNull(record.getHeader().getStagesPath());
+
+    // modifications of the original record are not visible to the copies either
+    record.set("/c", Field.create("C"));
+    Assert.assertFalse(copy3.has("/c"));
+  }
+
   // tests for field-path expressions
 
   @Test
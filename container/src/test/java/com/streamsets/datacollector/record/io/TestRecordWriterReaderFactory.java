@@ -15,7 +15,9 @@
  */
 package com.streamsets.datacollector.record.io;
 
+import com.google.common.base.Strings;
 import com.streamsets.datacollector.el.ELVariables;
+import com.streamsets.datacollector.record.HeaderImpl;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.record.io.RecordEncoding;
 import com.streamsets.datacollector.record.io.RecordEncodingConstants;
@@ -25,6 +27,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.ext.RecordReader;
 import com.streamsets.pipeline.api.ext.RecordWriter;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -35,10 +38,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public  class TestRecordWriterReaderFactory {
@@ -86,6 +92,7 @@ public  class TestRecordWriterReaderFactory {
     testEncodingSelection(null, RecordEncodingConstants.JSON1_MAGIC_NUMBER);
     testEncodingSelection(RecordEncoding.JSON1.name(), RecordEncodingConstants.JSON1_MAGIC_NUMBER);
     testEncodingSelection(RecordEncoding.KRYO1.name(), RecordEncodingConstants.KRYO1_MAGIC_NUMBER);
+    testEncodingSelection(RecordEncoding.BIN1.name(), RecordEncodingConstants.BIN1_MAGIC_NUMBER);
   }
 
   private void testRecordWriterReader(RecordEncoding encoding) throws IOException {
@@ -214,6 +221,178 @@ public  class TestRecordWriterReaderFactory {
     testRecordReaderWithOffset(RecordEncoding.KRYO1);
   }
 
+  @Test
+  public void testBinaryRecordWriter() throws IOException {
+    testRecordWriterReader(RecordEncoding.BIN1);
+  }
+
+  @Test
+  public void testBinaryRecordWithOffset() throws IOException {
+    testRecordReaderWithOffset(RecordEncoding.BIN1);
+  }
+
+  private static Record createAllTypesRecord(int i) {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("attr", "value" + i);
+    HeaderImpl header = new HeaderImpl(
+        "stage",
+        "source::" + i,
+        "stage:stage2",
+        "tracking" + i,
+        null,
+        null,
+        null,
+        "sdc",
+        "pipeline",
+        "stage2",
+        "Stage 2",
+        "ERROR_01",
+        "Failed record " + i,
+        1234567890L + i,
+        null,
+        attributes,
+        "job"
+    );
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("boolean", Field.create(true));
+    map.put("char", Field.create('\u00e9'));
+    map.put("byte", Field.create((byte) -1));
+    map.put("short", Field.create((short) -300));
+    map.put("integer", Field.create(Integer.MIN_VALUE + i));
+    map.put("long", Field.create(Long.MAX_VALUE - i));
+    map.put("float", Field.create(1.5f));
+    map.put("double", Field.create(-0.1));
+    map.put("date", Field.create(Field.Type.DATE, new Date(-1000L * i)));
+    map.put("datetime", Field.create(Field.Type.DATETIME, new Date(1000L * i)));
+    map.put("time", Field.create(Field.Type.TIME, new Date(i)));
+    map.put("decimal", Field.create(new BigDecimal("-36.7147").movePointLeft(i)));
+    map.put("zoned", Field.create(ZonedDateTime.parse("2018-02-03T04:05:06.789+01:00[Europe/Paris]")));
+    map.put("string", Field.create("h\u00e9llo \u6771\u4eac " + i));
+    map.put("long string", Field.create(Strings.repeat("\u00e9", 10000)));
+    map.put("bytes", Field.create(new byte[] {0, 1, (byte) i}));
+    map.put("null", Field.create(Field.Type.INTEGER, null));
+    Field withAttributes = Field.create("value");
+    withAttributes.setAttribute("attr", "value" + i);
+    map.put("attributes", withAttributes);
+    map.put("list", Field.create(Arrays.asList(Field.create(1), null, Field.create(Field.Type.LIST, null))));
+    LinkedHashMap<String, Field> listMap = new LinkedHashMap<>();
+    listMap.put("b", Field.create("B"));
+    listMap.put("a", Field.create("A"));
+    map.put("listMap", Field.createListMap(listMap));
+    return new RecordImpl(header, Field.create(map));
+  }
+
+  @Test
+  public void testBinaryAllTypes() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(RecordEncoding.BIN1, os);
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      records.add(createAllTypesRecord(i));
+      writer.write(records.get(i));
+    }
+    writer.close();
+
+    List<Long> positions = new ArrayList<>();
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(os.toByteArray()), 0, -1);
+    for (Record record : records) {
+      positions.add(reader.getPosition());
+      Assert.assertEquals(record, reader.readRecord());
+    }
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+
+    // starting in the middle of the data rebuilds the dictionary from the records before the position
+    reader = RecordWriterReaderFactory.createRecordReader(
+        new ByteArrayInputStream(os.toByteArray()),
+        positions.get(50),
+        -1
+    );
+    Assert.assertEquals(records.get(50), reader.readRecord());
+    Assert.assertEquals(positions.get(51).longValue(), reader.getPosition());
+    reader.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testBinaryOffsetNotAtRecordBoundary() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(RecordEncoding.BIN1, os);
+    writer.write(createAllTypesRecord(0));
+    writer.write(createAllTypesRecord(1));
+    writer.close();
+    RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(os.toByteArray()), 10, -1);
+  }
+
+  @Test
+  public void testBinaryMaxObjectLength() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(RecordEncoding.BIN1, os);
+    List<Record> records = new ArrayList<>();
+    for (String value : new String[] {"a", Strings.repeat("x", 300), "b"}) {
+      List<Field> list = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        list.add(Field.create(value));
+      }
+      RecordImpl record = new RecordImpl("stage", "source", null, null);
+      record.set(Field.create(list));
+      records.add(record);
+      writer.write(record);
+    }
+    writer.close();
+
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(os.toByteArray()), 0, 1000);
+    Assert.assertEquals(records.get(0), reader.readRecord());
+    long offset = reader.getPosition();
+    try {
+      reader.readRecord();
+      Assert.fail("Expected ObjectLengthException");
+    } catch (ObjectLengthException ex) {
+      // Offset of the record start, not its length
+      Assert.assertEquals(offset, ex.getOffset());
+    }
+    // reader continues with the next record
+    Assert.assertEquals(records.get(2), reader.readRecord());
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+  }
+
+  @Test
+  public void testEncodingSizeAndRoundTrip() throws IOException {
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      RecordImpl record = new RecordImpl("stage", "source::" + i, null, null);
+      record.getHeader().setStagesPath("stage:stage2:stage3");
+      record.getHeader().setTrackingId("tracking::" + i);
+      Map<String, Field> map = new LinkedHashMap<>();
+      map.put("id", Field.create(i));
+      map.put("name", Field.create("name " + i));
+      map.put("amount", Field.create(new BigDecimal(i).movePointLeft(2)));
+      map.put("created", Field.create(Field.Type.DATETIME, new Date(i)));
+      map.put("active", Field.create(i % 2 == 0));
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    Map<RecordEncoding, Integer> sizes = new HashMap<>();
+    for (RecordEncoding encoding : RecordEncoding.values()) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(encoding, os);
+      for (Record record : records) {
+        writer.write(record);
+      }
+      writer.close();
+      sizes.put(encoding, os.size());
+
+      RecordReader reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(os.toByteArray()), 0, -1);
+      for (Record record : records) {
+        Assert.assertEquals(encoding.name(), record, reader.readRecord());
+      }
+      Assert.assertNull(reader.readRecord());
+      reader.close();
+    }
+    // The binary encoding doesn't repeat the field names and types as text
+    Assert.assertTrue(sizes.toString(), sizes.get(RecordEncoding.BIN1) < sizes.get(RecordEncoding.JSON1));
+  }
+
   @Test
   public void testDecimal() throws IOException {
     // We've picked this number because if it's casted to double, then it will lead to 36.7147000000000000483...
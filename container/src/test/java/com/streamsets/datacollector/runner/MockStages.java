@@ -747,6 +747,11 @@ public class MockStages {
       return Collections.emptyList();
     }
 
+    @Override
+    public Map<String, Long> getStartupTimings() {
+      return Collections.emptyMap();
+    }
+
     @Override
     public void releaseStageClassLoader(ClassLoader classLoader) {
     }
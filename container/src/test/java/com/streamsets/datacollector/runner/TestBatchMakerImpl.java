@@ -21,11 +21,13 @@ import com.streamsets.datacollector.config.StageConfiguration;
 import com.streamsets.datacollector.config.StageDefinition;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.runner.preview.StageConfigurationBuilder;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
 
 import com.streamsets.pipeline.api.StageType;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -102,6 +104,26 @@ public class TestBatchMakerImpl {
     Assert.assertEquals("2", records.get(1).getHeader().getAttribute("r"));
   }
 
+  @Test
+  public void testRecordBytesSampling() {
+    StagePipe pipe = Mockito.spy(createStagePipe(ImmutableList.of("o")));
+    Mockito.when(pipe.isIncrementalMemoryAccounting()).thenReturn(true);
+    BatchMakerImpl batchMaker = new BatchMakerImpl(pipe, false);
+    Assert.assertEquals(0, batchMaker.getRecordBytes());
+
+    Record record = new RecordImpl("i", "source", null, null);
+    record.set(Field.create("abcdefghijklmnopqrstuvwxyz"));
+    batchMaker.addRecord(record);
+    long recordBytes = batchMaker.getRecordBytes();
+    Assert.assertTrue(recordBytes > 0);
+
+    // Only some of the records are estimated, the rest is extrapolated
+    for (int i = 1; i < 10 * MemoryUsageReporter.ESTIMATE_SAMPLING; i++) {
+      batchMaker.addRecord(record);
+    }
+    Assert.assertEquals(10 * MemoryUsageReporter.ESTIMATE_SAMPLING * recordBytes, batchMaker.getRecordBytes());
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testBatchMakerSingleOutputWithSnapshot() {
@@ -17,6 +17,7 @@ package com.streamsets.datacollector.runner;
 
 import com.google.common.collect.ImmutableMap;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.runner.production.GroupCommitSourceOffsetTracker;
 import com.streamsets.datacollector.runner.production.OffsetFileUtil;
 import com.streamsets.datacollector.util.PipelineDirectoryUtil;
 import org.junit.Assert;
@@ -27,6 +28,7 @@ import org.mockito.Mockito;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 
 public class TestOffsetFileUtil {
@@ -60,4 +62,37 @@ public class TestOffsetFileUtil {
     OffsetFileUtil.resetOffsets(runtimeInfo, "foo", "1");
     Assert.assertEquals(0, OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1").size());
   }
+
+  @Test
+  public void testStaleJournalIgnored() throws Exception {
+    RuntimeInfo runtimeInfo = Mockito.mock(RuntimeInfo.class);
+    File offsetFolder = tempFolder.newFolder();
+    Mockito.when(runtimeInfo.getDataDir()).thenReturn(offsetFolder.getPath());
+    Files.createDirectories(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, "foo", "1").toPath());
+
+    GroupCommitSourceOffsetTracker offsetTracker = new GroupCommitSourceOffsetTracker(
+        "foo",
+        "1",
+        runtimeInfo,
+        0,
+        true,
+        10
+    );
+    offsetTracker.commitOffset("a", "1");
+    offsetTracker.commitOffset("b", "2");
+    File journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, "foo", "1");
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2"), OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1"));
+    File staleJournal = new File(offsetFolder, "stale.journal");
+    Files.copy(journalFile.toPath(), staleJournal.toPath());
+
+    // Journal left behind after the offset file was rewritten, as if the process crashed before removing it
+    OffsetFileUtil.saveOffsets(runtimeInfo, "foo", "1", ImmutableMap.of("a", "3"));
+    Files.copy(staleJournal.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Assert.assertEquals(ImmutableMap.of("a", "3"), OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1"));
+
+    // Same after a reset of the offsets
+    OffsetFileUtil.resetOffsets(runtimeInfo, "foo", "1");
+    Files.copy(staleJournal.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    Assert.assertTrue(OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1").isEmpty());
+  }
 }
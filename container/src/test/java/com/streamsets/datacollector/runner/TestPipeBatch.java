@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.runner;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.datacollector.config.PipelineConfiguration;
 import com.streamsets.datacollector.creation.InterceptorBean;
 import com.streamsets.datacollector.creation.PipelineBean;
@@ -23,6 +24,7 @@ import com.streamsets.datacollector.creation.PipelineBeanCreator;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
 import com.streamsets.datacollector.validation.Issue;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 
 import com.streamsets.pipeline.api.interceptor.BaseInterceptor;
@@ -32,6 +34,7 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -304,6 +307,131 @@ public class TestPipeBatch {
     assertEquals("A", snapshot.get("y").get(0).getHeader().getAttribute("a"));
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMoveLaneCopyingCopyOnWrite() throws Exception {
+    FullPipeBatch pipeBatch = new FullPipeBatch(null, null, -1, false);
+    pipeBatch.setCopyOnWrite(true);
+
+    PipelineBean pipelineBean = getPipelineBean();
+    StageRuntime[] stages = {
+      new StageRuntime(pipelineBean, pipelineBean.getOrigin(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList()),
+    };
+
+    StageContext context = Mockito.mock(StageContext.class);
+    Mockito.when(context.isPreview()).thenReturn(false);
+    stages[0].setContext(context);
+
+    List<String> stageOutputLanes = stages[0].getConfiguration().getOutputLanes();
+    StagePipe pipe = new StagePipe(stages[0], Collections.EMPTY_LIST,
+      LaneResolver.getPostFixed(stageOutputLanes, LaneResolver.STAGE_OUT), Collections.EMPTY_LIST);
+
+    BatchMakerImpl batchMaker = pipeBatch.startStage(pipe);
+    Record record = new RecordImpl("i", "source", null, null);
+    record.set(Field.create(new HashMap<>(ImmutableMap.of("a", Field.create("A")))));
+    record.getHeader().setAttribute("a", "A");
+    batchMaker.addRecord(record, stageOutputLanes.get(0));
+    pipeBatch.completeStage(batchMaker);
+
+    Record origRecord = pipeBatch.getFullPayload().get(pipe.getOutputLanes().get(0)).get(0);
+    pipeBatch.moveLaneCopying(pipe.getOutputLanes().get(0), ImmutableList.of("x", "y"));
+    Record copiedRecordX = pipeBatch.getFullPayload().get("x").get(0);
+    Record copiedRecordY = pipeBatch.getFullPayload().get("y").get(0);
+
+    assertEquals(origRecord, copiedRecordX);
+    assertEquals(origRecord, copiedRecordY);
+    Assert.assertNotSame(copiedRecordX, copiedRecordY);
+    Assert.assertSame(copiedRecordX.get(), copiedRecordY.get());
+
+    copiedRecordX.set("/a", Field.create("X"));
+    copiedRecordX.getHeader().setAttribute("a", "X");
+    assertEquals("X", copiedRecordX.get("/a").getValueAsString());
+    assertEquals("A", copiedRecordY.get("/a").getValueAsString());
+    assertEquals("X", copiedRecordX.getHeader().getAttribute("a"));
+    assertEquals("A", copiedRecordY.getHeader().getAttribute("a"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMoveLaneCopyingCopyOnWriteWithSnapshot() throws Exception {
+    FullPipeBatch pipeBatch = new FullPipeBatch(null, null, -1, true);
+    pipeBatch.setCopyOnWrite(true);
+
+    PipelineBean pipelineBean = getPipelineBean();
+    StageRuntime[] stages = {
+      new StageRuntime(pipelineBean, pipelineBean.getOrigin(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList()),
+    };
+
+    StageContext context = Mockito.mock(StageContext.class);
+    Mockito.when(context.isPreview()).thenReturn(false);
+    stages[0].setContext(context);
+
+    List<String> stageOutputLanes = stages[0].getConfiguration().getOutputLanes();
+    StagePipe pipe = new StagePipe(stages[0], Collections.EMPTY_LIST,
+      LaneResolver.getPostFixed(stageOutputLanes, LaneResolver.STAGE_OUT), Collections.EMPTY_LIST);
+
+    BatchMakerImpl batchMaker = pipeBatch.startStage(pipe);
+    Record record = new RecordImpl("i", "source", null, null);
+    record.set(Field.create(new HashMap<>(ImmutableMap.of("a", Field.create("A")))));
+    batchMaker.addRecord(record, stageOutputLanes.get(0));
+    pipeBatch.completeStage(batchMaker);
+
+    pipeBatch.moveLaneCopying(pipe.getOutputLanes().get(0), ImmutableList.of("x", "y"));
+    Record copiedRecordX = pipeBatch.getFullPayload().get("x").get(0);
+    Record copiedRecordY = pipeBatch.getFullPayload().get("y").get(0);
+
+    // capturing a snapshot keeps the full copies
+    assertEquals(copiedRecordX, copiedRecordY);
+    Assert.assertNotSame(copiedRecordX.get(), copiedRecordY.get());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testStageOrder() throws Exception {
+    FullPipeBatch pipeBatch = new FullPipeBatch(null, null, -1, true);
+
+    PipelineBean pipelineBean = getPipelineBean();
+    StageRuntime[] stages = {
+      new StageRuntime(pipelineBean, pipelineBean.getOrigin(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList()),
+      new StageRuntime(pipelineBean, pipelineBean.getPipelineStageBeans().getStages().get(0), Collections.emptyList(), Collections.emptyList(), Collections.emptyList())
+    };
+    String source = stages[0].getInfo().getInstanceName();
+    String target = stages[1].getInfo().getInstanceName();
+    pipeBatch.setStageOrder(ImmutableList.of(source, target));
+
+    StageContext context = Mockito.mock(StageContext.class);
+    Mockito.when(context.isPreview()).thenReturn(false);
+    stages[0].setContext(context);
+    stages[1].setContext(context);
+
+    // Stages of parallel branches can complete in any order
+    StagePipe targetPipe = new StagePipe(stages[1], Collections.EMPTY_LIST, Collections.EMPTY_LIST, Collections.EMPTY_LIST);
+    pipeBatch.overrideStageOutput(targetPipe, new StageOutput(
+      target,
+      Collections.emptyMap(),
+      Collections.emptyList(),
+      Collections.emptyList(),
+      Collections.emptyList()
+    ));
+    StagePipe sourcePipe = new StagePipe(stages[0], Collections.EMPTY_LIST, Collections.EMPTY_LIST, Collections.EMPTY_LIST);
+    pipeBatch.overrideStageOutput(sourcePipe, new StageOutput(
+      source,
+      Collections.emptyMap(),
+      Collections.emptyList(),
+      Collections.emptyList(),
+      Collections.emptyList()
+    ));
+    pipeBatch.getErrorSink().addRecord(target, new RecordImpl("i", "target", null, null));
+    pipeBatch.getErrorSink().addRecord(source, new RecordImpl("i", "source", null, null));
+
+    // Outputs are still in the pipeline order
+    List<StageOutput> stageOutputs = pipeBatch.getSnapshotsOfAllStagesOutput();
+    assertEquals(2, stageOutputs.size());
+    assertEquals(source, stageOutputs.get(0).getInstanceName());
+    assertEquals(target, stageOutputs.get(1).getInstanceName());
+    assertEquals(ImmutableList.of(source, target), new ArrayList<>(pipeBatch.getErrorSink().getErrorRecords().keySet()));
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testOverride() throws Exception {
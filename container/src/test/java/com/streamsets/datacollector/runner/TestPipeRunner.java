@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TestPipeRunner {
+
+  private ExecutorService executor;
+  private PipeRunner runner;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+
+    // a -> (b, c) -> d
+    runner = new PipeRunner("pipeline", "0", 0, new MetricRegistry(), ImmutableList.of(
+      createPipe("a", ImmutableList.of("origin"), ImmutableList.of("a1", "a2")),
+      createPipe("b", ImmutableList.of("a1"), ImmutableList.of("b")),
+      createPipe("c", ImmutableList.of("a2"), ImmutableList.of("c")),
+      createPipe("d", ImmutableList.of("b", "c"), Collections.emptyList())
+    ));
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSequential() throws Exception {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    runner.executeBatch("key", "offset", 0, pipe -> processed.add(getName(pipe)));
+    Assert.assertEquals(ImmutableList.of("a", "b", "c", "d"), processed);
+  }
+
+  @Test
+  public void testParallelBranches() throws Exception {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    // Both branches have to be running at the same time to get through
+    CountDownLatch branches = new CountDownLatch(2);
+
+    runner.executeBatch("key", "offset", 0, executor, pipe -> {
+      String name = getName(pipe);
+      if ("b".equals(name) || "c".equals(name)) {
+        branches.countDown();
+        try {
+          Assert.assertTrue(branches.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      processed.add(name);
+    });
+
+    Assert.assertEquals(4, processed.size());
+    Assert.assertEquals("a", processed.get(0));
+    Assert.assertEquals("d", processed.get(3));
+  }
+
+  @Test
+  public void testFailedBranch() throws Exception {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    try {
+      runner.executeBatch("key", "offset", 0, executor, pipe -> {
+        String name = getName(pipe);
+        if ("b".equals(name)) {
+          throw new StageException(TestStageContext.TestError.TEST, "b");
+        }
+        processed.add(name);
+      });
+      Assert.fail("Expected StageException");
+    } catch (StageException e) {
+      Assert.assertEquals(TestStageContext.TestError.TEST, e.getErrorCode());
+    }
+
+    // Independent branch finishes, but the merge is never processed
+    Assert.assertEquals(ImmutableList.of("a", "c"), processed);
+  }
+
+  private static Pipe createPipe(String name, List<String> inputLanes, List<String> outputLanes) {
+    Stage.Info info = Mockito.mock(Stage.Info.class);
+    Mockito.when(info.getInstanceName()).thenReturn(name);
+    StageRuntime stageRuntime = Mockito.mock(StageRuntime.class);
+    Mockito.when(stageRuntime.getInfo()).thenReturn(info);
+
+    Pipe pipe = Mockito.mock(Pipe.class);
+    Mockito.when(pipe.getStage()).thenReturn(stageRuntime);
+    Mockito.when(pipe.getInputLanes()).thenReturn(inputLanes);
+    Mockito.when(pipe.getOutputLanes()).thenReturn(outputLanes);
+    Mockito.when(pipe.getEventLanes()).thenReturn(Collections.emptyList());
+    return pipe;
+  }
+
+  private static String getName(Pipe pipe) {
+    return pipe.getStage().getInfo().getInstanceName();
+  }
+}
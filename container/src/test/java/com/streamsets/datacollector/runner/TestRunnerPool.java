@@ -19,9 +19,21 @@ import com.codahale.metrics.ExponentiallyDecayingReservoir;
 import com.codahale.metrics.Histogram;
 import com.google.common.collect.ImmutableList;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class TestRunnerPool {
 
   private RunnerPool<String> runnerPool;
@@ -82,4 +94,275 @@ public class TestRunnerPool {
     Assert.assertEquals("a", runnerPool.getRunner());
     Assert.assertEquals("b", runnerPool.getRunner());
   }
+
+  @Test
+  public void testThreadAffinity() throws Exception {
+    RuntimeStats runtimeStats = new RuntimeStats();
+    RunnerPool<String> pool = new RunnerPool<>(
+      ImmutableList.of("a", "b", "c"),
+      runtimeStats,
+      new Histogram(new ExponentiallyDecayingReservoir()),
+      true
+    );
+
+    // Without a previous runner, the one that is idle the longest is used
+    String runner = pool.getRunner();
+    Assert.assertEquals("a", runner);
+    Assert.assertEquals(2, runtimeStats.getAvailableRunners());
+    pool.returnRunner(runner);
+    Assert.assertEquals(3, runtimeStats.getAvailableRunners());
+
+    // Even though "b" and "c" are idle for longer, the thread gets back "a"
+    Thread.sleep(10);
+    Assert.assertEquals("a", pool.getRunner());
+
+    // Another thread gets runner that is idle the longest
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Assert.assertEquals("b", executor.submit(() -> pool.getRunner()).get());
+
+      // Last runner is not available, so the oldest one is used instead
+      Assert.assertEquals("c", pool.getRunner());
+      pool.returnRunner("c");
+      pool.returnRunner("a");
+      Assert.assertEquals("c", pool.getRunner());
+      pool.returnRunner("c");
+
+      // The other thread still gets its runner back
+      pool.returnRunner("b");
+      Assert.assertEquals("b", executor.submit(() -> pool.getRunner()).get());
+      pool.returnRunner("b");
+    } finally {
+      executor.shutdownNow();
+    }
+    pool.destroy();
+  }
+
+  @Test
+  public void testHistogramSampling() throws Exception {
+    Histogram histogram = new Histogram(new ExponentiallyDecayingReservoir());
+    RuntimeStats runtimeStats = new RuntimeStats();
+    RunnerPool<String> pool = new RunnerPool<>(ImmutableList.of("a", "b"), runtimeStats, histogram);
+
+    // Available runners are always up to date, the histogram only gets every HISTOGRAM_SAMPLING-th update
+    for (int i = 0; i < 2 * RunnerPool.HISTOGRAM_SAMPLING; i++) {
+      String runner = pool.getRunner();
+      Assert.assertEquals(1, runtimeStats.getAvailableRunners());
+      pool.returnRunner(runner);
+      Assert.assertEquals(2, runtimeStats.getAvailableRunners());
+    }
+    Assert.assertEquals(4, histogram.getCount());
+    pool.destroy();
+  }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    testConcurrentUse(false);
+    testConcurrentUse(true);
+  }
+
+  private void testConcurrentUse(boolean threadAffinity) throws Exception {
+    int runners = 4;
+    int threads = 8;
+    int iterations = 1000;
+    List<String> runnerList = new ArrayList<>();
+    for (int i = 0; i < runners; i++) {
+      runnerList.add("runner-" + i);
+    }
+    RuntimeStats runtimeStats = new RuntimeStats();
+    RunnerPool<String> pool = new RunnerPool<>(
+      runnerList,
+      runtimeStats,
+      new Histogram(new ExponentiallyDecayingReservoir()),
+      threadAffinity
+    );
+
+    // Every runner must be used by at most one thread at a time
+    ConcurrentHashMap<String, Boolean> inUse = new ConcurrentHashMap<>();
+    AtomicBoolean failed = new AtomicBoolean(false);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < iterations; i++) {
+            String runner = pool.getRunner();
+            if (inUse.putIfAbsent(runner, Boolean.TRUE) != null) {
+              failed.set(true);
+            }
+            inUse.remove(runner);
+            pool.returnRunner(runner);
+
+            // Idle runner detection is running concurrently in the production pipeline runner
+            if (i % 100 == 0) {
+              String idle = pool.getIdleRunner(0);
+              if (idle != null) {
+                if (inUse.putIfAbsent(idle, Boolean.TRUE) != null) {
+                  failed.set(true);
+                }
+                inUse.remove(idle);
+                pool.returnRunner(idle);
+              }
+            }
+          }
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertFalse(failed.get());
+    Assert.assertEquals(runners, runtimeStats.getAvailableRunners());
+    pool.destroy();
+  }
+
+  /**
+   * Get and return operations of the benchmarked pool implementations.
+   */
+  private interface BenchmarkPool {
+    String get() throws Exception;
+    void put(String runner) throws Exception;
+  }
+
+  /**
+   * Previous implementation of the runner pool, kept to compare with the lock-free slots.
+   */
+  private static class QueueRunnerPool {
+
+    private static class QueueItem implements Comparable<QueueItem> {
+      final long timestamp;
+      final String runner;
+
+      QueueItem(String runner) {
+        this.runner = runner;
+        this.timestamp = System.currentTimeMillis();
+      }
+
+      @Override
+      public int compareTo(QueueItem other) {
+        return (int) (this.timestamp - other.timestamp);
+      }
+    }
+
+    private final PriorityBlockingQueue<QueueItem> queue;
+    private final RuntimeStats runtimeStats;
+    private final Histogram histogram;
+
+    QueueRunnerPool(List<String> runners, RuntimeStats runtimeStats, Histogram histogram) {
+      this.queue = new PriorityBlockingQueue<>(runners.size());
+      runners.forEach(runner -> queue.add(new QueueItem(runner)));
+      this.runtimeStats = runtimeStats;
+      this.histogram = histogram;
+    }
+
+    String getRunner() throws InterruptedException {
+      try {
+        return queue.take().runner;
+      } finally {
+        runtimeStats.setAvailableRunners(queue.size());
+        histogram.update(queue.size());
+      }
+    }
+
+    void returnRunner(String runner) {
+      queue.add(new QueueItem(runner));
+      runtimeStats.setAvailableRunners(queue.size());
+      histogram.update(queue.size());
+    }
+  }
+
+  /**
+   * Contention benchmark, only run with -Drunnerpool.benchmark=true as the timings are not asserted.
+   */
+  @Test
+  public void testContention() throws Exception {
+    Assume.assumeTrue("Benchmark only runs with -Drunnerpool.benchmark=true", Boolean.getBoolean("runnerpool.benchmark"));
+
+    List<String> runnerList = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      runnerList.add("runner-" + i);
+    }
+
+    QueueRunnerPool queuePool = new QueueRunnerPool(
+      runnerList,
+      new RuntimeStats(),
+      new Histogram(new ExponentiallyDecayingReservoir())
+    );
+    testContention("queue", runnerList.size(), new BenchmarkPool() {
+      @Override
+      public String get() throws Exception {
+        return queuePool.getRunner();
+      }
+
+      @Override
+      public void put(String runner) {
+        queuePool.returnRunner(runner);
+      }
+    });
+
+    for (boolean threadAffinity : new boolean[] {false, true}) {
+      RunnerPool<String> pool = new RunnerPool<>(
+        runnerList,
+        new RuntimeStats(),
+        new Histogram(new ExponentiallyDecayingReservoir()),
+        threadAffinity
+      );
+      testContention(threadAffinity ? "slots with affinity" : "slots", runnerList.size(), new BenchmarkPool() {
+        @Override
+        public String get() throws Exception {
+          return pool.getRunner();
+        }
+
+        @Override
+        public void put(String runner) throws Exception {
+          pool.returnRunner(runner);
+        }
+      });
+      pool.destroy();
+    }
+  }
+
+  private void testContention(String name, int runners, BenchmarkPool pool) throws Exception {
+    int threads = 32;
+    int iterations = 10000;
+
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < iterations; i++) {
+            pool.put(pool.get());
+          }
+          return null;
+        }));
+      }
+
+      long startTime = System.nanoTime();
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(5, TimeUnit.MINUTES);
+      }
+      long elapsed = System.nanoTime() - startTime;
+      System.out.println(String.format(
+        "RunnerPool contention (%s, threads=%d, runners=%d): %d ns per get/return",
+        name,
+        threads,
+        runners,
+        elapsed / ((long) threads * iterations)
+      ));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -18,6 +18,7 @@ package com.streamsets.datacollector.runner;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.Executor;
@@ -25,6 +26,7 @@ import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.Target;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -218,6 +220,65 @@ public class TestStagePipe {
     Assert.assertTrue(process);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testIncrementalMemoryAccounting() throws Exception {
+    MockStages.setProcessorCapture(new Processor() {
+      private MemoryUsageReporter memoryUsage;
+
+      @Override
+      public List<ConfigIssue> init(Info info, Context context) {
+        memoryUsage = new MemoryUsageReporter(context);
+        return Collections.emptyList();
+      }
+
+      @Override
+      public void process(Batch batch, BatchMaker batchMaker) throws StageException {
+        memoryUsage.add(5 * 1000 * 1000);
+      }
+
+      @Override
+      public void destroy() {
+      }
+    });
+    Configuration configuration = new Configuration();
+    configuration.set("monitor.memory", true);
+    configuration.set("monitor.memory.incremental", true);
+    PipelineRunner pipelineRunner = Mockito.mock(PipelineRunner.class);
+    Mockito.when(pipelineRunner.getMetrics()).thenReturn(new MetricRegistry());
+    Mockito.when(pipelineRunner.getRuntimeInfo()).thenReturn(Mockito.mock(RuntimeInfo.class));
+    Pipeline pipeline = new MockPipelineBuilder()
+      .withConfiguration(configuration)
+      .withPipelineConf(MockStages.createPipelineConfigurationSourceProcessorTarget())
+      .build(pipelineRunner);
+    StagePipe pipe = (StagePipe) pipeline.getRunners().get(0).get(2);
+    BatchMakerImpl batchMaker = Mockito.mock(BatchMakerImpl.class);
+    Mockito.when(batchMaker.getLanes()).thenReturn(ImmutableList.of("p"));
+    Mockito.when(batchMaker.getRecordBytes()).thenReturn(3L * 1000 * 1000);
+
+    BatchImpl batch = Mockito.mock(BatchImpl.class);
+    Mockito.when(batch.getSize()).thenReturn(1);
+
+    PipeBatch pipeBatch = Mockito.mock(FullPipeBatch.class);
+    Mockito.when(pipeBatch.startStage(Mockito.eq(pipe))).thenReturn(batchMaker);
+    Mockito.when(pipeBatch.getBatch(Mockito.eq(pipe))).thenReturn(batch);
+    Mockito.when(pipeBatch.getErrorSink()).thenReturn(errorSink);
+    Mockito.when(pipeBatch.getEventSink()).thenReturn(eventSink);
+
+    Assert.assertTrue(pipe.init(new PipeContext()).isEmpty());
+    Assert.assertTrue(pipe.isIncrementalMemoryAccounting());
+
+    // Reported memory plus the records produced in the batch
+    pipe.process(pipeBatch);
+    Assert.assertEquals(8, pipe.getMemoryConsumed());
+
+    Mockito.when(batchMaker.getRecordBytes()).thenReturn(0L);
+    pipe.process(pipeBatch);
+    Assert.assertEquals(10, pipe.getMemoryConsumed());
+
+    pipe.destroy(pipeBatch);
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testTarget() throws Exception {
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.codahale.metrics.MetricRegistry;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
+import com.streamsets.datacollector.util.PipelineDirectoryUtil;
+import com.streamsets.pipeline.api.Source;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestGroupCommitSourceOffsetTracker {
+
+  private static final String PIPELINE_NAME = "myGroupCommitPipeline";
+  private static final String PIPELINE_REV = "2.0";
+
+  private RuntimeInfo info;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException {
+    System.setProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR, "./target/var-group-commit");
+    FileUtils.deleteQuietly(new File(System.getProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR)));
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.getProperties().remove(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR);
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    info = new StandaloneRuntimeInfo(
+      RuntimeModule.SDC_PROPERTY_PREFIX,
+      new MetricRegistry(),
+      Arrays.asList(TestGroupCommitSourceOffsetTracker.class.getClassLoader())
+    );
+    Files.createDirectories(PipelineDirectoryUtil.getPipelineDir(info, PIPELINE_NAME, PIPELINE_REV).toPath());
+    OffsetFileUtil.resetOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+  }
+
+  @Test
+  public void testCommitOffset() {
+    GroupCommitSourceOffsetTracker offsetTracker = new GroupCommitSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        0,
+        false,
+        1
+    );
+    Assert.assertFalse(offsetTracker.isFinished());
+    Assert.assertTrue(offsetTracker.getOffsets().isEmpty());
+
+    offsetTracker.commitOffset(Source.POLL_SOURCE_OFFSET_KEY, "abc");
+    offsetTracker.commitOffset("key", "offset");
+    Assert.assertEquals(2, offsetTracker.getOffsets().size());
+    Assert.assertEquals(offsetTracker.getOffsets(), OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV));
+
+    offsetTracker.commitOffset("key", null);
+    Assert.assertEquals(1, offsetTracker.getOffsets().size());
+    Assert.assertEquals(offsetTracker.getOffsets(), OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV));
+
+    offsetTracker.commitOffset(Source.POLL_SOURCE_OFFSET_KEY, null);
+    Assert.assertTrue(offsetTracker.isFinished());
+  }
+
+  @Test
+  public void testConcurrentCommits() throws Exception {
+    testConcurrentCommits(false);
+  }
+
+  @Test
+  public void testConcurrentCommitsWithJournal() throws Exception {
+    testConcurrentCommits(true);
+  }
+
+  private void testConcurrentCommits(boolean journal) throws Exception {
+    GroupCommitSourceOffsetTracker offsetTracker = new GroupCommitSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        1,
+        journal,
+        10
+    );
+
+    int threads = 8;
+    int commits = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        String entity = "entity-" + t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < commits; i++) {
+            offsetTracker.commitOffset(entity, String.valueOf(i));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Map<String, String> persisted = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(threads, persisted.size());
+    for (int t = 0; t < threads; t++) {
+      Assert.assertEquals(String.valueOf(commits - 1), persisted.get("entity-" + t));
+    }
+    Assert.assertEquals(persisted, offsetTracker.getOffsets());
+
+    // Tracker created on top of existing offsets (and journal) starts from them
+    GroupCommitSourceOffsetTracker restarted = new GroupCommitSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        0,
+        journal,
+        10
+    );
+    Assert.assertEquals(persisted, restarted.getOffsets());
+  }
+
+  @Test
+  public void testJournal() throws Exception {
+    GroupCommitSourceOffsetTracker offsetTracker = new GroupCommitSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        0,
+        true,
+        3
+    );
+    File journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(info, PIPELINE_NAME, PIPELINE_REV);
+
+    offsetTracker.commitOffset("a", "1");
+    offsetTracker.commitOffset("b", "1");
+    offsetTracker.commitOffset("a", null);
+    // header with the offset file tag and three entries
+    Assert.assertEquals(4, Files.readAllLines(journalFile.toPath()).size());
+
+    Map<String, String> persisted = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(1, persisted.size());
+    Assert.assertEquals("1", persisted.get("b"));
+
+    // Fourth commit compacts the journal into the offset file
+    offsetTracker.commitOffset("c", "1");
+    Assert.assertEquals(1, Files.readAllLines(journalFile.toPath()).size());
+    persisted = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(2, persisted.size());
+    Assert.assertEquals("1", persisted.get("c"));
+
+    // Incompletely written last entry is ignored
+    offsetTracker.commitOffset("d", "1");
+    Files.write(journalFile.toPath(), "{\"e\":".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    persisted = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(3, persisted.size());
+    Assert.assertEquals("1", persisted.get("d"));
+    Assert.assertFalse(persisted.containsKey("e"));
+
+    // Reset of the offsets removes the journal
+    OffsetFileUtil.resetOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertFalse(journalFile.exists());
+    Assert.assertTrue(OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).isEmpty());
+  }
+}
@@ -43,6 +43,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -122,6 +123,45 @@ public class TestClassLoaderStageLibraryTask {
     Assert.assertTrue(foundAutoC);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testParallelLoading() {
+    File configDir = new File("target", UUID.randomUUID().toString()).getAbsoluteFile();
+    List<ClassLoader> classLoaders = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      classLoaders.add(new SDCClassLoader("library", "lib" + i, Collections.<URL>emptyList(),
+          getClass().getClassLoader(), new String[0], new SystemPackage(new String[0]),
+          new ApplicationPackage(new TreeSet<String>()), false, false, false));
+    }
+    RuntimeInfo runtimeInfo = Mockito.mock(RuntimeInfo.class);
+    Mockito.when(runtimeInfo.getConfigDir()).thenReturn(configDir.getAbsolutePath());
+    Mockito.when(runtimeInfo.getStageLibraryClassLoaders()).thenReturn((List) classLoaders);
+
+    Configuration configuration = new Configuration();
+    configuration.set("stagelibs.load.threads", 4);
+    ClassLoaderStageLibraryTask library = new ClassLoaderStageLibraryTask(runtimeInfo, new DataCollectorBuildInfo(), configuration);
+    library.initTask();
+
+    // the libraries are merged in the order of their class loaders
+    Assert.assertEquals(4, library.getLoadedStageLibraries().size());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals(
+          StageLibraryUtils.getLibraryName(classLoaders.get(i)),
+          library.getLoadedStageLibraries().get(i).getName()
+      );
+      Assert.assertEquals(
+          library.getLoadedStageLibraries().get(i).getName(),
+          library.getStages().get(i).getLibrary()
+      );
+    }
+    Assert.assertEquals(4, library.getStages().size());
+
+    Assert.assertEquals(
+        ImmutableList.of("classpathValidation", "libraryLoading", "definitionValidation", "initialization"),
+        ImmutableList.copyOf(library.getStartupTimings().keySet())
+    );
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testIncorrectSdcMinVersion() {
@@ -28,6 +28,7 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,6 +48,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
 
 public class DirectorySpooler {
   private static final Logger LOG = LoggerFactory.getLogger(DirectorySpooler.class);
@@ -66,6 +68,9 @@ public class DirectorySpooler {
   private final boolean processSubdirectories;
   private final long spoolingPeriodSec;
   private final WrappedFileSystem fs;
+  private final boolean incrementalDiscovery;
+  private final long reconciliationPeriodMillis;
+  private final String discoveryIndexDir;
   private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
 
   private final long intervalMillis;
@@ -91,6 +96,9 @@ public class DirectorySpooler {
     private boolean processSubdirectories;
     private long spoolingPeriodSec = 5;
     private WrappedFileSystem fs;
+    private boolean incrementalDiscovery;
+    private long reconciliationPeriodSec = 300;
+    private String discoveryIndexDir;
 
     private Builder() {
       postProcessing = FilePostProcessing.NONE;
@@ -181,6 +189,23 @@ public class DirectorySpooler {
       return this;
     }
 
+    public Builder setIncrementalDiscovery(boolean incrementalDiscovery) {
+      this.incrementalDiscovery = incrementalDiscovery;
+      return this;
+    }
+
+    public Builder setReconciliationPeriodSec(long reconciliationPeriodSec) {
+      Preconditions.checkArgument(reconciliationPeriodSec > 0, "reconciliation period must be greater than zero");
+      this.reconciliationPeriodSec = reconciliationPeriodSec;
+      return this;
+    }
+
+    public Builder setDiscoveryIndexDir(String dir) {
+      this.discoveryIndexDir = Preconditions.checkNotNull(dir, "dir cannot be null");
+      Preconditions.checkArgument(new File(dir).isAbsolute(), Utils.formatL("dir '{}' must be an absolute path", dir));
+      return this;
+    }
+
     public DirectorySpooler build() {
       Preconditions.checkArgument(context != null, "context not specified");
       Preconditions.checkArgument(spoolDir != null, "spool dir not specified");
@@ -204,7 +229,10 @@ public class DirectorySpooler {
           useLastModifiedTimestamp,
           processSubdirectories,
           spoolingPeriodSec,
-          fs
+          fs,
+          incrementalDiscovery,
+          reconciliationPeriodSec,
+          discoveryIndexDir
       );
     }
   }
@@ -236,6 +264,9 @@ public class DirectorySpooler {
         false,
         processSubdirectories,
         5,
+        null,
+        false,
+        300,
         null
     );
   }
@@ -254,7 +285,10 @@ public class DirectorySpooler {
       final boolean useLastModified,
       boolean processSubdirectories,
       long spoolingPeriodSec,
-      WrappedFileSystem fs
+      WrappedFileSystem fs,
+      boolean incrementalDiscovery,
+      long reconciliationPeriodSec,
+      String discoveryIndexDir
   ) {
     this.context = context;
     this.spoolDir = spoolDir;
@@ -270,6 +304,9 @@ public class DirectorySpooler {
     this.processSubdirectories = processSubdirectories;
     this.spoolingPeriodSec = spoolingPeriodSec;
     this.fs = fs;
+    this.incrementalDiscovery = incrementalDiscovery;
+    this.reconciliationPeriodMillis = TimeUnit.SECONDS.toMillis(reconciliationPeriodSec);
+    this.discoveryIndexDir = discoveryIndexDir;
 
     pathComparator = fs.getComparator(useLastModified);
     intervalMillis = 5000;
@@ -289,6 +326,12 @@ public class DirectorySpooler {
   private Meter spoolQueueMeter;
   private Counter pendingFilesCounter;
 
+  // incremental discovery, the changed paths reported by the watcher are only accessed by the file finder
+  private volatile FileDiscoveryIndex index;
+  private DirectoryWatcher watcher;
+  private final Set<String> changedPaths = new HashSet<>();
+  private volatile long lastReconciliation;
+
   private volatile boolean running;
 
   volatile FilePurger purger;
@@ -365,6 +408,10 @@ public class DirectorySpooler {
 
     scheduledExecutor = new SafeScheduledExecutorService(1, "directory-dirspooler");
 
+    if (incrementalDiscovery) {
+      startIncrementalDiscovery();
+    }
+
     findAndQueueFiles(true, false);
 
     finder = new FileFinder();
@@ -377,6 +424,24 @@ public class DirectorySpooler {
     }
   }
 
+  private void startIncrementalDiscovery() throws IOException {
+    File indexFile = null;
+    if (!StringUtils.isEmpty(discoveryIndexDir) && !context.isPreview()) {
+      indexFile = new File(
+          discoveryIndexDir,
+          Utils.format("{}-{}.index", context.getPipelineId(), context.getStageInfo().getInstanceName())
+      );
+    }
+    index = new FileDiscoveryIndex(indexFile);
+    index.load();
+
+    // started before the first scan so the files created meanwhile are reported
+    watcher = fs.watchDirectories(findDirectories(), processSubdirectories && useLastModified);
+    if (watcher == null) {
+      LOG.info("Directory '{}' cannot be watched, scanning it every '{}' seconds", spoolDirPath, spoolingPeriodSec);
+    }
+  }
+
   public void destroy() {
     running = false;
     try {
@@ -387,6 +452,18 @@ public class DirectorySpooler {
     } catch (RuntimeException ex) {
       LOG.warn("Error during scheduledExecutor.shutdownNow(), {}", ex.toString(), ex);
     }
+    try {
+      if (watcher != null) {
+        watcher.close();
+        watcher = null;
+      }
+      if (index != null) {
+        index.close();
+        index = null;
+      }
+    } catch (IOException ex) {
+      LOG.warn("Error while stopping the incremental discovery, {}", ex.toString(), ex);
+    }
   }
 
   public boolean isRunning() {
@@ -528,7 +605,18 @@ public class DirectorySpooler {
     return !waitForPathAppearance;
   }
 
-  public synchronized WrappedFile poolForFile(long wait, TimeUnit timeUnit) throws InterruptedException {
+  public WrappedFile poolForFile(long wait, TimeUnit timeUnit) throws InterruptedException {
+    return poolForFile(wait, timeUnit, () -> false);
+  }
+
+  /**
+   * Same as {@link #poolForFile(long, TimeUnit)}, but stops waiting for a file as soon as the condition is true.
+   */
+  public synchronized WrappedFile poolForFile(
+      long wait,
+      TimeUnit timeUnit,
+      BooleanSupplier stopWaiting
+  ) throws InterruptedException {
     Preconditions.checkArgument(wait >= 0, "wait must be zero or greater");
     Preconditions.checkNotNull(timeUnit, "timeUnit cannot be null");
 
@@ -545,6 +633,9 @@ public class DirectorySpooler {
     long initial = System.currentTimeMillis();
 
     while (!context.isStopped() && System.currentTimeMillis() - initial < wait && next == null) {
+      if (stopWaiting.getAsBoolean()) {
+        break;
+      }
       closeLock.readLock().lock();
       try {
         next = filesQueue.poll();
@@ -563,6 +654,10 @@ public class DirectorySpooler {
         closeLock.readLock().unlock();
       }
 
+      if (next != null) {
+        addToIndex(next);
+      }
+
       if (next == null) {
         Thread.sleep(intervalMillis);
       }
@@ -603,15 +698,7 @@ public class DirectorySpooler {
     }
   }
 
-  private List<WrappedFile> findAndQueueFiles(
-      final boolean includeStartingFile,
-      boolean checkCurrent
-  ) throws IOException {
-    if (filesQueue.size() >= maxSpoolFiles) {
-      LOG.debug(Utils.format("Exceeded max number '{}' of spool files in directory", maxSpoolFiles));
-      return null;
-    }
-
+  private List<WrappedFile> findDirectories() throws IOException {
     final List<WrappedFile> directories = new ArrayList<>();
 
     if (processSubdirectories && useLastModified) {
@@ -630,7 +717,23 @@ public class DirectorySpooler {
     } else {
       directories.add(spoolDirPath);
     }
+    return directories;
+  }
 
+  private List<WrappedFile> findAndQueueFiles(
+      final boolean includeStartingFile,
+      boolean checkCurrent
+  ) throws IOException {
+    if (filesQueue.size() >= maxSpoolFiles) {
+      LOG.debug(Utils.format("Exceeded max number '{}' of spool files in directory", maxSpoolFiles));
+      return null;
+    }
+
+    final long scanStart = System.currentTimeMillis();
+    final List<WrappedFile> directories = findDirectories();
+    // paths found by the scan, to drop the index entries that cannot be reported anymore
+    final Set<String> foundPaths = (index != null) ? new HashSet<>() : null;
+    boolean complete = true;
 
     for (WrappedFile dir : directories) {
       try {
@@ -638,36 +741,127 @@ public class DirectorySpooler {
 
         fs.addFiles(dir, currentFile, matchingFile, includeStartingFile, useLastModified);
 
-        if (matchingFile.size() > 0) {
-          try {
-            // if there are matching files, acquire write lock
-            closeLock.writeLock().lock();
-
-            for (WrappedFile file : matchingFile) {
-              if (!running) {
-                return null;
-              }
-              if (fs.isDirectory(file)) {
-                continue;
-              }
-              LOG.trace("Found file '{}'", file);
-              addFileToQueue(file, checkCurrent);
-            }
-          } finally {
-            closeLock.writeLock().unlock();
+        if (index != null) {
+          for (WrappedFile file : matchingFile) {
+            foundPaths.add(file.getAbsolutePath());
+          }
+          if (checkCurrent) {
+            matchingFile.removeIf(this::isIndexed);
           }
         }
+
+        if (!queueFiles(matchingFile, checkCurrent)) {
+          return null;
+        }
       } catch (Exception ex) {
+        complete = false;
         LOG.error("findAndQueueFiles(): newDirectoryStream failed. " + ex.getMessage(), ex);
       }
     }
 
+    if (index != null && complete) {
+      index.retain(foundPaths);
+      changedPaths.removeAll(foundPaths);
+      lastReconciliation = scanStart;
+    }
+
     spoolQueueMeter.mark(filesQueue.size());
     pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
     LOG.debug("Found '{}' files", filesQueue.size());
     return directories;
   }
 
+  /**
+   * Queues the files reported by the watcher, the same way a scan would find them, without listing the directories.
+   */
+  private void queueChangedFiles() {
+    if (changedPaths.isEmpty()) {
+      return;
+    }
+    if (filesQueue.size() >= maxSpoolFiles) {
+      LOG.debug(Utils.format("Exceeded max number '{}' of spool files in directory", maxSpoolFiles));
+      return;
+    }
+
+    final long scanTime = System.currentTimeMillis();
+    List<WrappedFile> matchingFile = new ArrayList<>();
+    Iterator<String> iterator = changedPaths.iterator();
+    while (iterator.hasNext()) {
+      WrappedFile file = fs.getFile(iterator.next());
+      try {
+        if (fs.exists(file) && !fs.isDirectory(file) && fs.patternMatches(file.getFileName())) {
+          // SDC-3551: Pick up only files with mtime strictly less than scan time, the others are checked again later
+          if (Math.max(fs.getLastModifiedTime(file), fs.getChangedTime(file)) >= scanTime) {
+            continue;
+          }
+          if (isNewerThanCurrent(file) && !isIndexed(file)) {
+            matchingFile.add(file);
+          }
+        }
+      } catch (IOException | RuntimeException ex) {
+        // the file may have been moved or deleted since the event
+        LOG.debug("Ignoring changed file '{}': {}", file, ex.toString(), ex);
+      }
+      iterator.remove();
+    }
+
+    if (queueFiles(matchingFile, true)) {
+      spoolQueueMeter.mark(filesQueue.size());
+      pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+      LOG.debug("Queued '{}' changed files", matchingFile.size());
+    }
+  }
+
+  private boolean queueFiles(List<WrappedFile> files, boolean checkCurrent) {
+    if (files.size() > 0) {
+      try {
+        // if there are matching files, acquire write lock
+        closeLock.writeLock().lock();
+
+        for (WrappedFile file : files) {
+          if (!running) {
+            return false;
+          }
+          if (fs.isDirectory(file)) {
+            continue;
+          }
+          LOG.trace("Found file '{}'", file);
+          addFileToQueue(file, checkCurrent);
+        }
+      } finally {
+        closeLock.writeLock().unlock();
+      }
+    }
+    return true;
+  }
+
+  private boolean isNewerThanCurrent(WrappedFile file) {
+    final WrappedFile current = currentFile;
+    return current == null || current.toString().isEmpty() || fs.compare(file, current, useLastModified) > 0;
+  }
+
+  private boolean isIndexed(WrappedFile file) {
+    final String path = file.getAbsolutePath();
+    try {
+      return index.contains(path) && index.contains(path, fs.getLastModifiedTime(file), file.getSize());
+    } catch (IOException ex) {
+      LOG.debug("Could not check file '{}' against the discovery index: {}", file, ex.toString(), ex);
+      return false;
+    }
+  }
+
+  private void addToIndex(WrappedFile file) {
+    // the spooler may be destroyed meanwhile
+    final FileDiscoveryIndex index = this.index;
+    if (index != null && !context.isPreview()) {
+      try {
+        index.add(file.getAbsolutePath(), fs.getLastModifiedTime(file), file.getSize());
+      } catch (IOException ex) {
+        LOG.warn("Could not add file '{}' to the discovery index: {}", file, ex.toString(), ex);
+      }
+    }
+  }
+
   void handleOlderFiles(final WrappedFile startingFile) throws IOException {
     if (postProcessing != FilePostProcessing.NONE) {
       final ArrayList<WrappedFile> toProcess = new ArrayList<>();
@@ -728,7 +922,21 @@ public class DirectorySpooler {
       // by using current we give a chance to have unprocessed files out of order
       LOG.debug("Starting file finder from '{}'", currentFile);
       try {
-        findAndQueueFiles(false, true);
+        boolean scan = watcher == null || System.currentTimeMillis() - lastReconciliation >= reconciliationPeriodMillis;
+        if (watcher != null) {
+          Set<String> changed = watcher.poll();
+          if (changed != null) {
+            changedPaths.addAll(changed);
+          } else {
+            LOG.debug("Lost file events in directory '{}', scanning it", spoolDirPath);
+            scan = true;
+          }
+        }
+        if (scan) {
+          findAndQueueFiles(false, true);
+        } else {
+          queueChangedFiles();
+        }
       } catch (Exception ex) {
         LOG.warn("Error while scanning directory '{}' for files newer than '{}': {}", archiveDirPath, currentFile,
             ex.toString(), ex);
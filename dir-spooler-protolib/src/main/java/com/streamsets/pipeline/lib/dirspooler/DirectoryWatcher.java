@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import java.io.Closeable;
+import java.util.Set;
+
+/**
+ * Reports the files created or modified in the watched directories, used by the dirspooler in incremental
+ * discovery mode so it does not have to list the directories to find the new files.
+ */
+public interface DirectoryWatcher extends Closeable {
+  /**
+   * Returns the absolute paths of the entries created or modified since the previous call.
+   *
+   * @return  the {@code Set<String>} of changed paths, or {@code null} if events were lost and the directories
+   * must be scanned
+   */
+  Set<String> poll();
+}
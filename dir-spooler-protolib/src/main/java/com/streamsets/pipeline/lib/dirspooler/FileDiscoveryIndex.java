@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the files handed out for processing with their modification time and size, files reported again by the
+ * directory watcher or by the reconciliation scans are queued again only if they changed.
+ * <p/>
+ * When a file is given the index is persisted in it as an append only log, which is compacted when loaded and when
+ * entries are dropped. A record truncated by a crash ends the log.
+ */
+class FileDiscoveryIndex implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(FileDiscoveryIndex.class);
+
+  private final File file;
+  private final Map<String, Entry> entries;
+  private DataOutputStream log;
+
+  FileDiscoveryIndex(File file) {
+    this.file = file;
+    entries = new HashMap<>();
+  }
+
+  synchronized void load() throws IOException {
+    entries.clear();
+    if (file != null && file.exists()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        while (true) {
+          String path = in.readUTF();
+          entries.put(path, new Entry(in.readLong(), in.readLong()));
+        }
+      } catch (EOFException ex) {
+        LOG.debug("Loaded '{}' entries from discovery index '{}'", entries.size(), file);
+      }
+    }
+    compact();
+  }
+
+  synchronized boolean contains(String path) {
+    return entries.containsKey(path);
+  }
+
+  /**
+   * Tells whether the file has already been handed out for processing and has not changed since.
+   */
+  synchronized boolean contains(String path, long lastModifiedTime, long size) {
+    Entry entry = entries.get(path);
+    return entry != null && entry.lastModifiedTime == lastModifiedTime && entry.size == size;
+  }
+
+  synchronized void add(String path, long lastModifiedTime, long size) throws IOException {
+    entries.put(path, new Entry(lastModifiedTime, size));
+    if (log != null) {
+      write(log, path, entries.get(path));
+      log.flush();
+    }
+  }
+
+  /**
+   * Drops the entries of the files not found by a reconciliation scan, they cannot be reported again.
+   */
+  synchronized void retain(Set<String> paths) throws IOException {
+    if (entries.keySet().retainAll(paths)) {
+      compact();
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private void compact() throws IOException {
+    if (file == null) {
+      return;
+    }
+    closeLog();
+    File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+        write(out, entry.getKey(), entry.getValue());
+      }
+    }
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+  }
+
+  private static void write(DataOutputStream out, String path, Entry entry) throws IOException {
+    out.writeUTF(path);
+    out.writeLong(entry.lastModifiedTime);
+    out.writeLong(entry.size);
+  }
+
+  private void closeLog() throws IOException {
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closeLog();
+  }
+
+  private static class Entry {
+    private final long lastModifiedTime;
+    private final long size;
+
+    private Entry(long lastModifiedTime, long size) {
+      this.lastModifiedTime = lastModifiedTime;
+      this.size = size;
+    }
+  }
+}
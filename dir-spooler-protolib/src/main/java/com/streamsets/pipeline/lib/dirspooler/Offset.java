@@ -30,8 +30,10 @@ public class Offset {
   private static final String ZERO = "0";
   public static final String NULL_FILE = "NULL_FILE_ID-48496481-5dc5-46ce-9c31-3ab3e034730c";
   private static final String POS = "POS";
+  private static final String SPLITS = "SPLITS";
   private final String file;
   private String fileOffset;
+  private String splits;
 
   public Offset(String version, String offsetString) throws StageException {
     if (version.equals(VERSION_ONE)) {
@@ -42,6 +44,11 @@ public class Offset {
     }
   }
 
+  public Offset(String version, String file, String offset, String splits) throws StageException {
+    this(version, file, offset);
+    this.splits = splits;
+  }
+
   public Offset(String version, String file, String offset) throws StageException {
     this.file = file;
 
@@ -50,6 +57,7 @@ public class Offset {
         if (offset.startsWith("{")) {
           Map<String, String> map = OffsetUtil.deserializeOffsetMap(offset);
           this.fileOffset = map.get(POS) == null ? ZERO : map.get(POS);
+          this.splits = map.get(SPLITS);
         } else {
           this.fileOffset = offset;
         }
@@ -64,6 +72,9 @@ public class Offset {
   public String getOffsetString() throws StageException {
     Map<String, String> map = new HashMap<>();
     map.put(POS, getOffset());
+    if (splits != null) {
+      map.put(SPLITS, splits);
+    }
 
     try {
       return OffsetUtil.serializeOffsetMap(map);
@@ -80,6 +91,13 @@ public class Offset {
     return fileOffset;
   }
 
+  /**
+   * Returns the positions in the splits of a file read by several runners, null if the file is not split.
+   */
+  public String getSplits() {
+    return splits;
+  }
+
   public String getRawFile() {
     return file;
   }
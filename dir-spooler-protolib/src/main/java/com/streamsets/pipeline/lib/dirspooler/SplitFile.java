@@ -0,0 +1,361 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import com.google.common.io.ByteStreams;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Large file read concurrently by the runners, cut in splits (byte ranges) starting at line boundaries.
+ * <p/>
+ * Each split is parsed as a separate stream, the splits after the first one are prefixed with the header line when
+ * the data format has one. The positions in the splits are relative to their streams, they are all kept in the
+ * offset of the file, whose position only becomes -1 once all the splits have been read.
+ */
+class SplitFile {
+  private static final String MINUS_ONE = "-1";
+  private static final String ZERO = "0";
+  private static final String SPLIT_SEPARATOR = ";";
+  // lines longer than this are not expected in line oriented formats, the file is not split
+  private static final int MAX_HEADER_LENGTH = 1024 * 1024;
+  // bytes looked at around the start of a split to find the end of the previous JSON object and the start of the next
+  private static final int JSON_CHECK_WINDOW = 4096;
+
+  private final String name;
+  private final WrappedFile file;
+  private final byte[] header;
+  private final List<Split> splits;
+  private int remaining;
+  private boolean finished;
+  private long recordCount;
+  private long errorCount;
+
+  private SplitFile(String name, WrappedFile file, byte[] header) {
+    this.name = name;
+    this.file = file;
+    this.header = header;
+    splits = new ArrayList<>();
+  }
+
+  /**
+   * Cuts the file in splits of about the given size.
+   *
+   * @param name the name of the file in the offsets
+   * @param withHeader true if the first line of the file is a header, repeated at the beginning of every split
+   */
+  static SplitFile create(String name, WrappedFile file, long splitSize, boolean withHeader) throws IOException {
+    SplitFile splitFile = new SplitFile(name, file, withHeader ? readHeader(file) : null);
+    long size = file.getSize();
+    long start = 0;
+    while (start < size) {
+      long end = (size - start > splitSize) ? findLineStart(file, start + splitSize) : size;
+      splitFile.splits.add(splitFile.new Split(start, Math.min(end, size), ZERO));
+      start = end;
+    }
+    splitFile.remaining = splitFile.splits.size();
+    return splitFile;
+  }
+
+  /**
+   * Restores the splits of a file from its offset.
+   */
+  static SplitFile restore(String name, WrappedFile file, String splits, boolean withHeader) throws IOException {
+    SplitFile splitFile = new SplitFile(name, file, withHeader ? readHeader(file) : null);
+    for (String split : splits.split(SPLIT_SEPARATOR)) {
+      int dash = split.indexOf('-');
+      int colon = split.indexOf(':');
+      if (dash < 0 || colon < dash) {
+        throw new IOException(Utils.format("Invalid split '{}' in the offset of file '{}'", split, name));
+      }
+      String position = split.substring(colon + 1);
+      splitFile.splits.add(splitFile.new Split(
+          Long.parseLong(split.substring(0, dash)),
+          Long.parseLong(split.substring(dash + 1, colon)),
+          position
+      ));
+      if (!MINUS_ONE.equals(position)) {
+        splitFile.remaining++;
+      }
+    }
+    return splitFile;
+  }
+
+  /**
+   * Checks that every split starts with a JSON object right after the end of another, which is not the case when the
+   * objects are pretty printed over several lines.
+   *
+   * @throws IOException if the file cannot be read or a split would start in the middle of an object
+   */
+  void checkJsonObjects() throws IOException {
+    if (splits.size() < 2) {
+      return;
+    }
+    for (Split split : splits.subList(1, splits.size())) {
+      if (lastNonWhitespace(split.start) != '}' || firstNonWhitespace(split.start) != '{') {
+        throw new IOException(Utils.format(
+            "A JSON object of file '{}' spans the split at position '{}'",
+            name,
+            split.start
+        ));
+      }
+    }
+  }
+
+  // last non whitespace byte of the lines before the given position, -1 if there is none within JSON_CHECK_WINDOW
+  private int lastNonWhitespace(long position) throws IOException {
+    long from = Math.max(0, position - JSON_CHECK_WINDOW);
+    int last = -1;
+    try (InputStream is = ByteStreams.limit(new BufferedInputStream(file.getInputStream()), position)) {
+      ByteStreams.skipFully(is, from);
+      int b;
+      while ((b = is.read()) >= 0) {
+        if (!Character.isWhitespace(b)) {
+          last = b;
+        }
+      }
+    }
+    return last;
+  }
+
+  // first non whitespace byte at or after the given position, -1 if there is none within JSON_CHECK_WINDOW
+  private int firstNonWhitespace(long position) throws IOException {
+    long to = position + JSON_CHECK_WINDOW;
+    try (InputStream is = ByteStreams.limit(new BufferedInputStream(file.getInputStream()), to)) {
+      ByteStreams.skipFully(is, position);
+      int b;
+      while ((b = is.read()) >= 0) {
+        if (!Character.isWhitespace(b)) {
+          return b;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static byte[] readHeader(WrappedFile file) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    try (InputStream is = new BufferedInputStream(file.getInputStream())) {
+      int b;
+      while ((b = is.read()) >= 0) {
+        header.write(b);
+        if (b == '\n') {
+          break;
+        }
+        if (header.size() > MAX_HEADER_LENGTH) {
+          throw new IOException(Utils.format("Header line of file '{}' is too long", file.getAbsolutePath()));
+        }
+      }
+    }
+    return header.toByteArray();
+  }
+
+  // position after the first line feed at or after the given position, or the file size if there is none
+  private static long findLineStart(WrappedFile file, long position) throws IOException {
+    try (InputStream is = new BufferedInputStream(file.getInputStream())) {
+      ByteStreams.skipFully(is, position);
+      int b;
+      while ((b = is.read()) >= 0) {
+        position++;
+        if (b == '\n') {
+          return position;
+        }
+      }
+    }
+    return position;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  WrappedFile getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the splits that have not been read completely.
+   */
+  synchronized List<Split> getPendingSplits() {
+    List<Split> pending = new ArrayList<>();
+    for (Split split : splits) {
+      if (!MINUS_ONE.equals(split.position)) {
+        pending.add(split);
+      }
+    }
+    return pending;
+  }
+
+  synchronized List<Split> getSplits() {
+    return Collections.unmodifiableList(splits);
+  }
+
+  /**
+   * Returns the offset of the file with the given position in the split and the last committed positions in the
+   * other splits.
+   */
+  synchronized String getOffsetString(Split current, String position) throws StageException {
+    StringBuilder sb = new StringBuilder();
+    for (Split split : splits) {
+      if (sb.length() > 0) {
+        sb.append(SPLIT_SEPARATOR);
+      }
+      sb.append(split.start).append('-').append(split.end).append(':');
+      sb.append(split == current ? position : split.position);
+    }
+    return new Offset(Offset.VERSION_ONE, name, ZERO, sb.toString()).getOffsetString();
+  }
+
+  /**
+   * Returns the offset of the file once all the splits have been read.
+   */
+  String getFinishedOffsetString() throws StageException {
+    return new Offset(Offset.VERSION_ONE, name, MINUS_ONE).getOffsetString();
+  }
+
+  /**
+   * Records the position in the split once the batch read up to it has been processed.
+   *
+   * @return true for the split completing the file, only once
+   */
+  synchronized boolean commit(Split split, String position, long records, long errors) {
+    recordCount += records;
+    errorCount += errors;
+    if (MINUS_ONE.equals(position) && !MINUS_ONE.equals(split.position)) {
+      remaining--;
+    }
+    split.position = position;
+    if (remaining == 0 && !finished) {
+      finished = true;
+      return true;
+    }
+    return false;
+  }
+
+  synchronized long getRecordCount() {
+    return recordCount;
+  }
+
+  synchronized long getErrorCount() {
+    return errorCount;
+  }
+
+  class Split {
+    private final long start;
+    private final long end;
+    private String position;
+
+    private Split(long start, long end, String position) {
+      this.start = start;
+      this.end = end;
+      this.position = position;
+    }
+
+    SplitFile getSplitFile() {
+      return SplitFile.this;
+    }
+
+    long getStart() {
+      return start;
+    }
+
+    long getEnd() {
+      return end;
+    }
+
+    /**
+     * Returns the last committed position in the split.
+     */
+    String getPosition() {
+      synchronized (SplitFile.this) {
+        return position;
+      }
+    }
+
+    /**
+     * Checks that the split does not start in the middle of a delimited record: the line feed before the split must
+     * not be escaped and the quotes of its first line must be balanced. Only that line is read, a quoted value
+     * spanning more than two lines may go unnoticed.
+     *
+     * @param quote the quote char, or -1 if the format has none
+     * @param escape the escape char, or -1 if the format has none
+     * @throws IOException if the file cannot be read or the split starts in the middle of a record
+     */
+    void checkDelimitedStart(int quote, int escape) throws IOException {
+      if (start == 0) {
+        return;
+      }
+      try (InputStream is = ByteStreams.limit(new BufferedInputStream(file.getInputStream()), end)) {
+        boolean spanning = false;
+        if (start >= 2) {
+          ByteStreams.skipFully(is, start - 2);
+          spanning = escape >= 0 && is.read() == escape;
+          ByteStreams.skipFully(is, 1);
+        } else {
+          ByteStreams.skipFully(is, start);
+        }
+        boolean quoted = false;
+        boolean escaping = false;
+        int b;
+        while (!spanning && (b = is.read()) >= 0 && b != '\n') {
+          if (escaping) {
+            escaping = false;
+          } else if (b == escape) {
+            escaping = true;
+          } else if (b == quote) {
+            quoted = !quoted;
+          }
+        }
+        if (spanning || quoted) {
+          throw new IOException(Utils.format("A record of file '{}' spans the split at position '{}'", name, start));
+        }
+      }
+    }
+
+    /**
+     * Opens the stream of the split, prefixed with the header line of the file if it has one.
+     */
+    InputStream open() throws IOException {
+      InputStream is = file.getInputStream();
+      try {
+        ByteStreams.skipFully(is, start);
+      } catch (IOException ex) {
+        is.close();
+        throw ex;
+      }
+      is = ByteStreams.limit(is, end - start);
+      if (header != null && start > 0) {
+        is = new SequenceInputStream(new ByteArrayInputStream(header), is);
+      }
+      return is;
+    }
+
+    @Override
+    public String toString() {
+      return Utils.format("{}[{}-{}]", name, start, end);
+    }
+  }
+}
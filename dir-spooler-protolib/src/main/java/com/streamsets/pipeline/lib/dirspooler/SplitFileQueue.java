@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import com.streamsets.pipeline.config.Compression;
+import com.streamsets.pipeline.config.CsvHeader;
+import com.streamsets.pipeline.config.CsvMode;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.JsonMode;
+import com.streamsets.pipeline.config.OnParseError;
+import com.streamsets.pipeline.stage.origin.lib.DataParserFormatConfig;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Splits of the large files, shared by the runners. Runners done with their file read the pending splits before
+ * asking the spooler for a new file.
+ */
+class SplitFileQueue {
+  private static final long MB = 1024 * 1024;
+  private static final int NONE = -1;
+
+  private final long splitSize;
+  private final DataFormat dataFormat;
+  private final boolean withHeader;
+  private final int quote;
+  private final int escape;
+  private final Deque<SplitFile.Split> pending;
+
+  SplitFileQueue(SpoolDirConfigBean conf) {
+    splitSize = conf.splitSizeMB * MB;
+    dataFormat = conf.dataFormat;
+    withHeader = conf.dataFormat == DataFormat.DELIMITED &&
+        conf.dataFormatConfig.csvHeader != CsvHeader.NO_HEADER;
+    quote = getQuote(conf.dataFormatConfig);
+    int escapeChar = getEscape(conf.dataFormatConfig);
+    // quotes escaped by quotes are doubled quotes, which leave the field quoted when they are simply counted
+    escape = (escapeChar == quote) ? NONE : escapeChar;
+    pending = new ArrayDeque<>();
+  }
+
+  private static int getQuote(DataParserFormatConfig format) {
+    if (format.csvFileFormat == CsvMode.CUSTOM) {
+      return format.csvCustomQuote;
+    }
+    Character quote = format.csvFileFormat.getFormat().getQuoteCharacter();
+    return (quote != null) ? quote : NONE;
+  }
+
+  private static int getEscape(DataParserFormatConfig format) {
+    if (format.csvFileFormat == CsvMode.CUSTOM) {
+      return format.csvCustomEscape;
+    }
+    Character escape = format.csvFileFormat.getFormat().getEscapeCharacter();
+    return (escape != null) ? escape : NONE;
+  }
+
+  /**
+   * Returns why the files cannot be split with the given configuration, null if they can.
+   */
+  static String checkSplittable(SpoolDirConfigBean conf) {
+    DataParserFormatConfig format = conf.dataFormatConfig;
+    switch (conf.dataFormat) {
+      case TEXT:
+        if (format.useCustomDelimiter) {
+          return "text with a custom delimiter";
+        }
+        break;
+      case DELIMITED:
+        if (format.csvSkipStartLines > 0) {
+          return "delimited data with lines to skip";
+        }
+        // the first line of every split is checked byte by byte for quoted fields spanning lines
+        if (getQuote(format) > Byte.MAX_VALUE || getEscape(format) > Byte.MAX_VALUE) {
+          return "delimited data with non ASCII quote or escape characters";
+        }
+        break;
+      case JSON:
+        if (format.jsonContent != JsonMode.MULTIPLE_OBJECTS) {
+          return "JSON array of objects";
+        }
+        break;
+      case LOG:
+        if (format.onParseError == OnParseError.INCLUDE_AS_STACK_TRACE) {
+          return "log lines with stack traces";
+        }
+        break;
+      default:
+        return conf.dataFormat.getLabel() + " data format";
+    }
+    if (format.compression != Compression.NONE) {
+      return "compressed files";
+    }
+    if (!isLineFeedSafe(format.charset)) {
+      return format.charset + " charset";
+    }
+    return null;
+  }
+
+  // the splits are cut after line feed bytes, they cannot be part of a multi byte char
+  private static boolean isLineFeedSafe(String charsetName) {
+    try {
+      Charset charset = Charset.forName(charsetName);
+      return Arrays.equals("\n".getBytes(charset), new byte[] {'\n'}) &&
+          (charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1);
+    } catch (IllegalArgumentException | UnsupportedOperationException ex) {
+      return false;
+    }
+  }
+
+  boolean isSplittable(WrappedFile file) throws IOException {
+    return file.getSize() > splitSize;
+  }
+
+  /**
+   * Splits the file, or restores its splits from its offset, and queues the splits to read.
+   *
+   * @throws IOException if the file cannot be read or its JSON objects span the splits, it is then read in a single
+   * thread
+   */
+  SplitFile add(String name, WrappedFile file, String savedSplits) throws IOException {
+    SplitFile splitFile;
+    if (savedSplits != null) {
+      splitFile = SplitFile.restore(name, file, savedSplits, withHeader);
+    } else {
+      splitFile = SplitFile.create(name, file, splitSize, withHeader);
+      // records span lines in pretty printed JSON
+      if (dataFormat == DataFormat.JSON) {
+        splitFile.checkJsonObjects();
+      }
+    }
+    synchronized (this) {
+      pending.addAll(splitFile.getPendingSplits());
+    }
+    return splitFile;
+  }
+
+  /**
+   * Checks that the split can be read on its own before reading its first record. Delimited records must not span
+   * lines, which is only checked at the start of the split by the runner reading it, so in parallel for all the splits.
+   *
+   * @throws IOException if the file cannot be read or a record spans the start of the split
+   */
+  void checkStart(SplitFile.Split split) throws IOException {
+    if (dataFormat == DataFormat.DELIMITED) {
+      split.checkDelimitedStart(quote, escape);
+    }
+  }
+
+  synchronized SplitFile.Split poll() {
+    return pending.poll();
+  }
+
+  synchronized boolean hasPending() {
+    return !pending.isEmpty();
+  }
+}
@@ -24,6 +24,7 @@ import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,7 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
   private int numberOfThreads;
   private ExecutorService executorService;
   private WrappedFileSystem fs;
+  private SplitFileQueue splitFiles;
 
   abstract public WrappedFileSystem getFs();
 
@@ -122,6 +124,20 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
 
     validateInitialFileToProcess(issues);
 
+    if (conf.incrementalDiscovery && conf.discoveryIndexDir != null && !conf.discoveryIndexDir.isEmpty()) {
+      validateDiscoveryIndexDir(issues);
+    }
+
+    String notSplittable = conf.splitLargeFiles ? SplitFileQueue.checkSplittable(conf) : null;
+    if (notSplittable != null) {
+      issues.add(getContext().createConfigIssue(
+          GROUP_FILE_CONFIG_NAME,
+          SPOOLDIR_CONFIG_BEAN_PREFIX + "splitLargeFiles",
+          Errors.SPOOLDIR_36,
+          notSplittable
+      ));
+    }
+
     if (conf.errorArchiveDir != null && !conf.errorArchiveDir.isEmpty()) {
       validateDir(conf.errorArchiveDir,
           GROUPS_POST_PROCESSING_CONFIG_NAME,
@@ -190,8 +206,18 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
       builder.setContext(getContext());
       this.useLastModified = conf.useLastModified == FileOrdering.TIMESTAMP;
       builder.setUseLastModifiedTimestamp(useLastModified);
+      if (conf.incrementalDiscovery) {
+        builder.setIncrementalDiscovery(true);
+        builder.setReconciliationPeriodSec(conf.reconciliationPeriod);
+        if (conf.discoveryIndexDir != null && !conf.discoveryIndexDir.isEmpty()) {
+          builder.setDiscoveryIndexDir(conf.discoveryIndexDir);
+        }
+      }
       spooler = builder.build();
       spooler.init(conf.initialFileToProcess);
+
+      // a single runner gains nothing from reading a file in splits
+      splitFiles = (conf.splitLargeFiles && numberOfThreads > 1) ? new SplitFileQueue(conf) : null;
     }
 
     return issues;
@@ -262,6 +288,17 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
     }
   }
 
+  // the index is always kept in the local file system
+  private void validateDiscoveryIndexDir(List<ConfigIssue> issues) {
+    File dir = new File(conf.discoveryIndexDir);
+    String config = SPOOLDIR_CONFIG_BEAN_PREFIX + "discoveryIndexDir";
+    if (!dir.isAbsolute() || !dir.exists()) {
+      issues.add(getContext().createConfigIssue(GROUP_FILE_CONFIG_NAME, config, Errors.SPOOLDIR_12, dir));
+    } else if (!dir.isDirectory()) {
+      issues.add(getContext().createConfigIssue(GROUP_FILE_CONFIG_NAME, config, Errors.SPOOLDIR_13, dir));
+    }
+  }
+
   private void validateInitialFileToProcess(List<ConfigIssue> issues) {
     if (conf.initialFileToProcess != null && !conf.initialFileToProcess.isEmpty()) {
       WrappedFile file = fs.getFile(conf.initialFileToProcess);
@@ -364,6 +401,7 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
         .spooler(getSpooler())
         .conf(conf)
         .wrappedFileSystem(getFs())
+        .splitFiles(splitFiles)
         .build();
   }
 }
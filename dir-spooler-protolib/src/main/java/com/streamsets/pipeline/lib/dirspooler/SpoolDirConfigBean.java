@@ -61,6 +61,36 @@ public class SpoolDirConfigBean {
   )
   public int numberOfThreads = 1;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Split Large Files",
+      description = "Reads the parts of large files in parallel threads. The files are cut at line boundaries. " +
+          "Delimited records must not contain quoted or escaped line feeds, a part starting in the middle of a " +
+          "record cannot be read. Files with pretty printed JSON objects are read in a single thread.",
+      displayPosition = 12,
+      group = "FILES",
+      dependsOn = "dataFormat",
+      triggeredByValue = {"TEXT", "DELIMITED", "JSON", "LOG"}
+  )
+  public boolean splitLargeFiles = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "128",
+      label = "Split Size (MB)",
+      description = "Files larger than this size are read in parts of about this size",
+      displayPosition = 13,
+      group = "FILES",
+      dependsOn = "splitLargeFiles",
+      triggeredByValue = "true",
+      min = 1,
+      max = Integer.MAX_VALUE
+  )
+  public int splitSizeMB = 128;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -186,6 +216,46 @@ public class SpoolDirConfigBean {
   )
   public long spoolingPeriod = 5;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Incremental File Discovery",
+      description = "Watches the directories for new files instead of listing them every spooling period. " +
+          "The directories are still scanned every reconciliation period.",
+      displayPosition = 62,
+      group = "FILES"
+  )
+  public boolean incrementalDiscovery = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "300",
+      label = "Reconciliation Period (secs)",
+      description = "Time between the scans of the directories, to find the files the watcher did not report",
+      displayPosition = 63,
+      group = "FILES",
+      dependsOn = "incrementalDiscovery",
+      triggeredByValue = "true",
+      min = 1,
+      max = Integer.MAX_VALUE
+  )
+  public long reconciliationPeriod = 300;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.STRING,
+      label = "Discovery Index Directory",
+      description = "Local directory to persist the index of the processed files across pipeline runs. " +
+          "When empty the index is kept in memory.",
+      displayPosition = 64,
+      group = "FILES",
+      dependsOn = "incrementalDiscovery",
+      triggeredByValue = "true"
+  )
+  public String discoveryIndexDir;
+
   @ConfigDef(
       required = false,
       type = ConfigDef.Type.STRING,
@@ -64,6 +64,7 @@ public class SpoolDirRunnable implements Runnable {
   private static final String MINUS_ONE = "-1";
   private static final String ZERO = "0";
   private static final String BASE_DIR = "baseDir";
+  private static final String SPLIT_START = "splitStart";
 
   public static final String FILE_SEPARATOR = System.getProperty("file.separator");
 
@@ -76,6 +77,7 @@ public class SpoolDirRunnable implements Runnable {
   private final Map<String, Object> gaugeMap;
   private final boolean useLastModified;
   private final WrappedFileSystem fs;
+  private final SplitFileQueue splitFiles;
 
   private DataParser parser;
   private SpoolDirConfigBean conf;
@@ -96,6 +98,8 @@ public class SpoolDirRunnable implements Runnable {
   private ErrorRecordHandler errorRecordHandler;
 
   private WrappedFile currentFile;
+  private SplitFile.Split currentSplit;
+  private String splitPosition;
 
   public SpoolDirRunnable(
       PushSource.Context context,
@@ -106,6 +110,20 @@ public class SpoolDirRunnable implements Runnable {
       DirectorySpooler spooler,
       SpoolDirConfigBean conf,
       WrappedFileSystem fs
+  ) {
+    this(context, threadNumber, batchSize, offsets, lastSourcFileName, spooler, conf, fs, null);
+  }
+
+  SpoolDirRunnable(
+      PushSource.Context context,
+      int threadNumber,
+      int batchSize,
+      Map<String, Offset> offsets,
+      String lastSourcFileName,
+      DirectorySpooler spooler,
+      SpoolDirConfigBean conf,
+      WrappedFileSystem fs,
+      SplitFileQueue splitFiles
   ) {
     this.context = context;
     this.threadNumber = threadNumber;
@@ -120,6 +138,7 @@ public class SpoolDirRunnable implements Runnable {
     this.rateLimitElVars = context.createELVars();
     this.useLastModified = conf.useLastModified == FileOrdering.TIMESTAMP;
     this.fs = fs;
+    this.splitFiles = splitFiles;
 
     // Metrics
     this.gaugeMap = context.createGauge(SPOOL_DIR_METRICS + threadNumber).getValue();
@@ -136,7 +155,11 @@ public class SpoolDirRunnable implements Runnable {
       BatchContext batchContext = context.startBatch();
       this.errorRecordHandler = new DefaultErrorRecordHandler(context, batchContext);
       try {
-        offset = produce(offset, batchContext);
+        if (hasSplitToRead(offset)) {
+          offset = produceSplit(offset, batchContext);
+        } else {
+          offset = produce(offset, batchContext);
+        }
       } catch (StageException ex) {
         handleStageError(ex.getErrorCode(), ex);
       }
@@ -168,7 +191,7 @@ public class SpoolDirRunnable implements Runnable {
                   fullPath
               );
             }
-            nextAvailFile = spooler.poolForFile(conf.poolingTimeoutSecs, TimeUnit.SECONDS);
+            nextAvailFile = pollForFile();
           } while (!isFileFromSpoolerEligible(nextAvailFile, fullPath, offset));
 
           if (nextAvailFile == null) {
@@ -178,8 +201,8 @@ public class SpoolDirRunnable implements Runnable {
                 conf.poolingTimeoutSecs
             );
 
-            // no-more-data event needs to be sent.
-            shouldSendNoMoreDataEvent = true;
+            // no-more-data event needs to be sent, unless the wait was cut short by splits to read.
+            shouldSendNoMoreDataEvent = splitFiles == null || !splitFiles.hasPending();
 
           } else {
             // since we have data to process, don't trigger the no-more-data event.
@@ -237,6 +260,11 @@ public class SpoolDirRunnable implements Runnable {
       LOG.error(ex.toString(), ex);
     }
 
+    SplitFile splitFile = getSplitFile(file, offset);
+    if (splitFile != null) {
+      return registerSplitFile(splitFile, lastSourceFile, batchContext);
+    }
+
     if (currentFile != null && !offset.equals(MINUS_ONE)) {
       // we have a file to process (from before or new from dirspooler)
       try {
@@ -246,20 +274,7 @@ public class SpoolDirRunnable implements Runnable {
         offset = generateBatch(currentFile, offset, batchSize, batchContext.getBatchMaker());
 
         if (MINUS_ONE.equals(offset)) {
-          SpoolDirEvents.FINISHED_FILE.create(context, batchContext)
-              .with("filepath", currentFile.getAbsolutePath())
-              .with("error-count", perFileErrorCount)
-              .with("record-count", perFileRecordCount)
-              .createAndSend();
-
-          LineageEvent event = context.createLineageEvent(LineageEventType.ENTITY_READ);
-          event.setSpecificAttribute(LineageSpecificAttribute.ENTITY_NAME, currentFile.getAbsolutePath());
-          event.setSpecificAttribute(LineageSpecificAttribute.ENDPOINT_TYPE, EndPointType.LOCAL_FS.name());
-          event.setSpecificAttribute(LineageSpecificAttribute.DESCRIPTION, conf.filePattern);
-          Map<String, String> props = new HashMap<>();
-          props.put("Record Count", Long.toString(perFileRecordCount));
-          event.setProperties(props);
-          context.publishLineageEvent(event);
+          sendFinishedFileEvents(currentFile, perFileRecordCount, perFileErrorCount, batchContext);
         }
       } catch (BadSpoolFileException ex) {
         LOG.error(Errors.SPOOLDIR_01.getMessage(), ex.getFile(), ex.getPos(), ex.toString(), ex);
@@ -313,6 +328,168 @@ public class SpoolDirRunnable implements Runnable {
     return newOffset;
   }
 
+  private void sendFinishedFileEvents(
+      WrappedFile file,
+      long recordCount,
+      long errorCount,
+      BatchContext batchContext
+  ) {
+    SpoolDirEvents.FINISHED_FILE.create(context, batchContext)
+        .with("filepath", file.getAbsolutePath())
+        .with("error-count", errorCount)
+        .with("record-count", recordCount)
+        .createAndSend();
+
+    LineageEvent event = context.createLineageEvent(LineageEventType.ENTITY_READ);
+    event.setSpecificAttribute(LineageSpecificAttribute.ENTITY_NAME, file.getAbsolutePath());
+    event.setSpecificAttribute(LineageSpecificAttribute.ENDPOINT_TYPE, EndPointType.LOCAL_FS.name());
+    event.setSpecificAttribute(LineageSpecificAttribute.DESCRIPTION, conf.filePattern);
+    Map<String, String> props = new HashMap<>();
+    props.put("Record Count", Long.toString(recordCount));
+    event.setProperties(props);
+    context.publishLineageEvent(event);
+  }
+
+  private WrappedFile pollForFile() throws InterruptedException {
+    if (splitFiles == null) {
+      return spooler.poolForFile(conf.poolingTimeoutSecs, TimeUnit.SECONDS);
+    }
+    // stop waiting for a new file when another runner queued the splits of a large file
+    return spooler.poolForFile(conf.poolingTimeoutSecs, TimeUnit.SECONDS, splitFiles::hasPending);
+  }
+
+  /**
+   * Splits are read by runners that are not half way through a file.
+   */
+  private boolean hasSplitToRead(Offset offset) {
+    if (splitFiles == null) {
+      return false;
+    }
+    if (currentSplit == null && (currentFile == null || MINUS_ONE.equals(offset.getOffset()))) {
+      currentSplit = splitFiles.poll();
+      if (currentSplit != null) {
+        splitPosition = currentSplit.getPosition();
+      }
+    }
+    return currentSplit != null;
+  }
+
+  /**
+   * Returns the splits of the file about to be read if it is a large file, or if it was split before a restart.
+   */
+  private SplitFile getSplitFile(String file, String offset) {
+    if (splitFiles == null || currentFile == null || parser != null || !ZERO.equals(offset)) {
+      return null;
+    }
+    Offset fileOffset = offsets.get(file);
+    String savedSplits = (fileOffset != null) ? fileOffset.getSplits() : null;
+    try {
+      if (savedSplits != null || splitFiles.isSplittable(currentFile)) {
+        return splitFiles.add(file, currentFile, savedSplits);
+      }
+    } catch (IOException ex) {
+      LOG.warn("Could not split file '{}', reading it in a single thread: {}", currentFile, ex.toString(), ex);
+    }
+    return null;
+  }
+
+  /**
+   * Commits the splits of a large file, which are then read by all the runners. The offset of the file is only
+   * kept by the runner reading its last split.
+   */
+  private Offset registerSplitFile(
+      SplitFile splitFile,
+      String lastSourceFile,
+      BatchContext batchContext
+  ) throws StageException {
+    // all the splits may have been read before a restart
+    boolean finished = splitFile.getPendingSplits().isEmpty();
+    if (finished) {
+      sendFinishedFileEvents(splitFile.getFile(), splitFile.getRecordCount(), splitFile.getErrorCount(), batchContext);
+    }
+    String offsetString = finished ? splitFile.getFinishedOffsetString() : splitFile.getOffsetString(null, null);
+    boolean batchProcessed = context.processBatch(batchContext, splitFile.getName(), offsetString);
+    if (batchProcessed && !context.isPreview()) {
+      if (lastSourceFile != null && !lastSourceFile.equals(splitFile.getName())) {
+        context.commitOffset(lastSourceFile, null);
+      }
+      if (finished) {
+        spooler.doPostProcessing(fs.getFile(conf.spoolDir, splitFile.getName()));
+      }
+    }
+    currentFile = null;
+    updateGauge(Status.BATCH_GENERATED, null);
+    return new Offset(Offset.VERSION_ONE, finished ? splitFile.getName() : null, MINUS_ONE);
+  }
+
+  private Offset produceSplit(Offset lastSourceOffset, BatchContext batchContext) throws StageException {
+    SplitFile.Split split = currentSplit;
+    SplitFile splitFile = split.getSplitFile();
+    perFileRecordCount = 0;
+    perFileErrorCount = 0;
+    updateSplitGauge(Status.READING, split, splitPosition);
+
+    String position;
+    try {
+      position = generateBatch(splitFile.getFile(), split, splitPosition, batchSize, batchContext.getBatchMaker());
+    } catch (BadSpoolFileException ex) {
+      LOG.error(Errors.SPOOLDIR_01.getMessage(), ex.getFile(), ex.getPos(), ex.toString(), ex);
+      context.reportError(Errors.SPOOLDIR_01, ex.getFile(), ex.getPos(), ex.toString(), ex);
+      // the other splits are still being read, the file cannot be moved to the error directory
+      position = MINUS_ONE;
+    }
+
+    boolean batchProcessed = context.processBatch(
+        batchContext,
+        splitFile.getName(),
+        splitFile.getOffsetString(split, position)
+    );
+    if (!batchProcessed) {
+      // the split is read again from its last committed position
+      IOUtils.closeQuietly(parser);
+      parser = null;
+      updateSplitGauge(Status.BATCH_GENERATED, split, splitPosition);
+      return lastSourceOffset;
+    }
+
+    boolean fileFinished = splitFile.commit(split, position, perFileRecordCount, perFileErrorCount);
+    splitPosition = position;
+    if (MINUS_ONE.equals(position)) {
+      currentSplit = null;
+    }
+    Offset newOffset = fileFinished ? finishSplitFile(splitFile, lastSourceOffset) : lastSourceOffset;
+    updateSplitGauge(Status.BATCH_GENERATED, split, position);
+    return newOffset;
+  }
+
+  /**
+   * Sends the events of a split file once all its splits have been read, in a batch of its own which also commits
+   * its final offset. The runner then keeps the offset of the file as if it had read it entirely.
+   */
+  private Offset finishSplitFile(SplitFile splitFile, Offset lastSourceOffset) throws StageException {
+    BatchContext batchContext = context.startBatch();
+    sendFinishedFileEvents(splitFile.getFile(), splitFile.getRecordCount(), splitFile.getErrorCount(), batchContext);
+    boolean batchProcessed = context.processBatch(
+        batchContext,
+        splitFile.getName(),
+        splitFile.getFinishedOffsetString()
+    );
+    if (!batchProcessed || context.isPreview()) {
+      return lastSourceOffset;
+    }
+    spooler.doPostProcessing(fs.getFile(conf.spoolDir, splitFile.getName()));
+
+    // the offset of a file this runner has not finished yet is kept
+    String lastSourceFile = lastSourceOffset.getRawFile();
+    if (lastSourceFile != null && !MINUS_ONE.equals(lastSourceOffset.getOffset())) {
+      return lastSourceOffset;
+    }
+    if (lastSourceFile != null && !lastSourceFile.equals(splitFile.getName())) {
+      context.commitOffset(lastSourceFile, null);
+    }
+    return new Offset(Offset.VERSION_ONE, splitFile.getName(), MINUS_ONE);
+  }
+
   /**
    * Processes a batch from the specified file and offset up to a maximum batch size. If the file is fully processed
    * it must return -1, otherwise it must return the offset to continue from next invocation.
@@ -320,12 +497,27 @@ public class SpoolDirRunnable implements Runnable {
   public String generateBatch(WrappedFile file, String offset, int maxBatchSize, BatchMaker batchMaker) throws
       StageException,
       BadSpoolFileException {
+    return generateBatch(file, null, offset, maxBatchSize, batchMaker);
+  }
+
+  private String generateBatch(
+      WrappedFile file,
+      SplitFile.Split split,
+      String offset,
+      int maxBatchSize,
+      BatchMaker batchMaker
+  ) throws StageException, BadSpoolFileException {
     if (offset == null) {
       offset = "0";
     }
     String sourceFile = file.getFileName();
     try {
-      if (parser == null) {
+      if (parser == null && split != null) {
+        if (ZERO.equals(offset)) {
+          splitFiles.checkStart(split);
+        }
+        parser = SpoolDirUtil.getParser(split, parserFactory, offset);
+      } else if (parser == null) {
         parser = SpoolDirUtil.getParser(
             fs,
             file,
@@ -340,6 +532,9 @@ public class SpoolDirRunnable implements Runnable {
       }
 
       Map<String, Object> recordHeaderAttr = generateHeaderAttrs(file);
+      if (split != null) {
+        recordHeaderAttr.put(SPLIT_START, split.getStart());
+      }
 
       for (int i = 0; i < maxBatchSize; i++) {
         try {
@@ -548,6 +743,11 @@ public class SpoolDirRunnable implements Runnable {
     );
   }
 
+  private void updateSplitGauge(Status status, SplitFile.Split split, String position) {
+    updateGauge(status, position);
+    gaugeMap.put(CURRENT_FILE, split.toString());
+  }
+
   /**
    * Handle Exception
    */
@@ -28,6 +28,7 @@ public class SpoolDirRunnableBuilder {
   private DirectorySpooler spooler;
   private SpoolDirConfigBean conf;
   private WrappedFileSystem fs;
+  private SplitFileQueue splitFiles;
 
   public SpoolDirRunnableBuilder() {}
 
@@ -71,7 +72,22 @@ public class SpoolDirRunnableBuilder {
     return this;
   }
 
+  SpoolDirRunnableBuilder splitFiles(SplitFileQueue splitFiles) {
+    this.splitFiles = splitFiles;
+    return this;
+  }
+
   public SpoolDirRunnable build() {
-    return new SpoolDirRunnable(context, threadNumber, batchSize, offsets, lastSourcFileName, spooler, conf, fs);
+    return new SpoolDirRunnable(
+        context,
+        threadNumber,
+        batchSize,
+        offsets,
+        lastSourcFileName,
+        spooler,
+        conf,
+        fs,
+        splitFiles
+    );
   }
 }
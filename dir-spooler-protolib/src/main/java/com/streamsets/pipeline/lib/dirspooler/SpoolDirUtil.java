@@ -99,4 +99,16 @@ public class SpoolDirUtil {
 
     return parser;
   }
-}
\ No newline at end of file
+
+  /*
+   * Returns the parser of a split of a large file, records are identified by the split start in their file
+   */
+  static DataParser getParser(
+      SplitFile.Split split,
+      DataParserFactory parserFactory,
+      String offset
+  ) throws DataParserException, IOException {
+    WrappedFile file = split.getSplitFile().getFile();
+    return parserFactory.getParser(file.getFileName() + "::" + split.getStart(), split.open(), offset);
+  }
+}
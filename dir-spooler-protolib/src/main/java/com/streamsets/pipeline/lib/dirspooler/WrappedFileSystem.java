@@ -162,6 +162,15 @@ public interface WrappedFileSystem {
    */
   boolean findDirectoryPathCreationWatcher(List<WrappedFile> spoolDirPath);
 
+  /**
+   * Starts watching the directories for created or modified files.
+   *
+   * @param dirPaths the list of directories {@link WrappedFile}
+   * @param recursive {@code true} to also watch the subdirectories, including the ones created later
+   * @return  the {@link DirectoryWatcher}, or {@code null} if the file system does not support watching directories
+   */
+  DirectoryWatcher watchDirectories(List<WrappedFile> dirPaths, boolean recursive) throws IOException;
+
   /**
    * Returns the FileRef Builder for whole file data format
    *
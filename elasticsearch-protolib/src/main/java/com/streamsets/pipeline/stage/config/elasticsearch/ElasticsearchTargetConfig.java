@@ -164,4 +164,29 @@ public class ElasticsearchTargetConfig extends ElasticsearchConfig {
       group = "ELASTIC_SEARCH"
   )
   public String rawAdditionalProperties;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "5120",
+      label = "Max Bulk Request Size (KB)",
+      description = "Batches larger than this are split in several bulk requests",
+      min = 1,
+      displayPosition = 130,
+      group = "ELASTIC_SEARCH"
+  )
+  public int maxBulkRequestSizeKB = 5120;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Max Concurrent Bulk Requests",
+      description = "Number of bulk requests of a batch sent at the same time. With more than one, operations on " +
+          "the same document in different bulk requests may be applied out of order.",
+      min = 1,
+      displayPosition = 140,
+      group = "ELASTIC_SEARCH"
+  )
+  public int maxConcurrentBulkRequests = 1;
 }
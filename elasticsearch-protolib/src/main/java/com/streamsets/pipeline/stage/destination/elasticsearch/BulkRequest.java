@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of a bulk request, written in place by the target, and the records of its operations in the same order so
+ * the items of the response can be mapped back to the records.
+ * <p/>
+ * Bulk requests are reused by the following batches, the buffer keeps its size up to twice the maximum request size.
+ */
+class BulkRequest {
+  private static final int INITIAL_SIZE = 64 * 1024;
+
+  private final Buffer buffer;
+  private final Charset charset;
+  private final ContentType contentType;
+  private final List<Record> records;
+
+  BulkRequest(int maxSize, Charset charset) {
+    buffer = new Buffer(Math.min(INITIAL_SIZE, maxSize), 2 * maxSize);
+    this.charset = charset;
+    contentType = ContentType.create(ContentType.APPLICATION_JSON.getMimeType(), charset);
+    records = new ArrayList<>();
+  }
+
+  void reset() {
+    buffer.reset();
+    records.clear();
+  }
+
+  DataGeneratorBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Returns the writer for the action metadata, it is the same writer the data generators use for the documents.
+   */
+  Writer getWriter() {
+    return buffer.getWriter(charset);
+  }
+
+  /**
+   * Flushes the chars pending in the writer into the buffer.
+   */
+  void flush() throws IOException {
+    getWriter().flush();
+  }
+
+  int size() {
+    return buffer.size();
+  }
+
+  /**
+   * Drops everything written after the given size, used when a record could not be written completely.
+   */
+  void truncate(int size) {
+    buffer.truncate(size);
+  }
+
+  void addRecord(Record record) {
+    records.add(record);
+  }
+
+  List<Record> getRecords() {
+    return records;
+  }
+
+  boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  /**
+   * Returns an entity backed by the buffer, it must not be used after the request is reset.
+   */
+  HttpEntity getEntity() {
+    return buffer.toEntity(contentType);
+  }
+
+  private static class Buffer extends DataGeneratorBuffer {
+
+    Buffer(int initialSize, int maxRetainedSize) {
+      super(initialSize, maxRetainedSize);
+    }
+
+    synchronized HttpEntity toEntity(ContentType contentType) {
+      return new ByteArrayEntity(buf, 0, count, contentType);
+    }
+  }
+}
@@ -46,15 +46,16 @@ import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchTargetCon
 import com.streamsets.pipeline.stage.config.elasticsearch.Errors;
 import com.streamsets.pipeline.stage.config.elasticsearch.Groups;
 import org.apache.commons.lang.StringUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.Header;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
@@ -66,6 +67,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
 public class ElasticsearchTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchTarget.class);
@@ -79,6 +83,10 @@ public class ElasticsearchTarget extends BaseTarget {
   private ELEval parentIdEval;
   private ELEval routingEval;
   private DataGeneratorFactory generatorFactory;
+  private Charset charset;
+  private String additionalProperties;
+  private int maxBulkRequestSize;
+  private final List<BulkRequest> bulkRequests = new ArrayList<>();
   private ErrorRecordHandler errorRecordHandler;
   private ElasticsearchStageDelegate delegate;
 
@@ -194,6 +202,7 @@ public class ElasticsearchTarget extends BaseTarget {
       // try to create JSONObject from input, validation issue if it fails.
       JsonParser parser = new JsonParser();
       parser.parse(conf.rawAdditionalProperties).getAsJsonObject();
+      additionalProperties = addAdditionalProperties();
     }catch (Exception e){
       issues.add(getContext().createConfigIssue(
           Groups.ELASTIC_SEARCH.name(),
@@ -207,10 +216,12 @@ public class ElasticsearchTarget extends BaseTarget {
 
     issues = delegate.init("elasticSearchConfig", issues);
 
+    charset = Charset.forName(conf.charset);
     generatorFactory = new DataGeneratorFactoryBuilder(getContext(), DataGeneratorFormat.JSON)
         .setMode(Mode.MULTIPLE_OBJECTS)
-        .setCharset(Charset.forName(conf.charset))
+        .setCharset(charset)
         .build();
+    maxBulkRequestSize = conf.maxBulkRequestSizeKB * 1024;
 
     return issues;
   }
@@ -249,15 +260,13 @@ public class ElasticsearchTarget extends BaseTarget {
     TimeNowEL.setTimeNowInContext(elVars, getBatchTime());
     Iterator<Record> it = batch.getRecords();
 
-    StringBuilder bulkRequest = new StringBuilder();
-
-    //we need to keep the records in order of appearance in case we have indexing errors
-    //and error handling is TO_ERROR
-    List<Record> records = new ArrayList<>();
+    // Batches are split in bulk requests of bounded size, each request keeps its records in order of appearance
+    // in case we have indexing errors and error handling is TO_ERROR
+    int requestCount = 0;
+    BulkRequest request = getBulkRequest(requestCount++);
 
     while (it.hasNext()) {
       Record record = it.next();
-      records.add(record);
 
       try {
         RecordEL.setRecordInContext(elVars, record);
@@ -275,14 +284,9 @@ public class ElasticsearchTarget extends BaseTarget {
         if (!StringUtils.isEmpty(conf.routingTemplate)) {
           routing = routingEval.eval(elVars, conf.routingTemplate, String.class);
         }
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataGenerator generator = generatorFactory.getGenerator(baos);
-        generator.write(record);
-        generator.close();
 
         int opCode = -1;
         String opType = record.getHeader().getAttribute(OperationType.SDC_OPERATION_TYPE);
-        String recordJson = new String(baos.toByteArray(), StandardCharsets.UTF_8).replace("\n", "");
         // Check if the operation code from header attribute is valid
         if (!StringUtils.isEmpty(opType)) {
           try {
@@ -307,7 +311,14 @@ public class ElasticsearchTarget extends BaseTarget {
           // No header attribute set. Use default.
           opCode = conf.defaultOperation.code;
         }
-        bulkRequest.append(getOperation(index, type, id, parent, routing, recordJson, opCode));
+        if (opCode == -1) {
+          // Record was discarded or sent to error
+          continue;
+        }
+        writeOperation(request, record, index, type, id, parent, routing, opCode);
+        if (request.size() >= maxBulkRequestSize) {
+          request = getBulkRequest(requestCount++);
+        }
       } catch (IOException ex) {
         errorRecordHandler.onError(
             new OnRecordErrorException(
@@ -321,51 +332,116 @@ public class ElasticsearchTarget extends BaseTarget {
       }
     }
 
-    if (!records.isEmpty()) {
-      try {
-        HttpEntity entity = new StringEntity(bulkRequest.toString(), ContentType.APPLICATION_JSON);
-        Response response;
-        response = delegate.performRequest(
+    List<BulkRequest> requests = new ArrayList<>(bulkRequests.subList(0, requestCount));
+    requests.removeIf(BulkRequest::isEmpty);
+    if (!requests.isEmpty()) {
+      sendBulkRequests(requests);
+    }
+  }
+
+  private BulkRequest getBulkRequest(int i) {
+    if (i == bulkRequests.size()) {
+      bulkRequests.add(new BulkRequest(maxBulkRequestSize, charset));
+    }
+    BulkRequest request = bulkRequests.get(i);
+    request.reset();
+    return request;
+  }
+
+  /**
+   * Sends the bulk requests, up to the configured number at the same time, then handles their responses in order.
+   */
+  private void sendBulkRequests(List<BulkRequest> requests) throws StageException {
+    Header[] headers = delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get());
+    Semaphore permits = new Semaphore(conf.maxConcurrentBulkRequests);
+    List<CompletableFuture<Response>> responses = new ArrayList<>(requests.size());
+    try {
+      for (BulkRequest request : requests) {
+        permits.acquire();
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        responses.add(response);
+        delegate.performRequestAsync(
             "POST",
             "/_bulk",
             conf.params,
-            entity,
-            delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get())
-        );
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        response.getEntity().writeTo(baos);
-        JsonObject json = new JsonParser().parse(baos.toString()).getAsJsonObject();
-        baos.close();
-
-        // Handle errors in bulk requests individually.
-        boolean errors = json.get("errors").getAsBoolean();
-        if (errors) {
-          List<ErrorItem> errorItems;
-          switch (getContext().getOnErrorRecord()) {
-            case DISCARD:
-              break;
-            case TO_ERROR:
-              errorItems = extractErrorItems(json);
-              for (ErrorItem item : errorItems) {
-                Record record = records.get(item.index);
-                getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
+            request.getEntity(),
+            new ResponseListener() {
+              @Override
+              public void onSuccess(Response result) {
+                permits.release();
+                response.complete(result);
               }
-              break;
-            case STOP_PIPELINE:
-              errorItems = extractErrorItems(json);
-              throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
-            default:
-              throw new IllegalStateException(
-                  Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
-              );
-          }
-        }
+
+              @Override
+              public void onFailure(Exception exception) {
+                permits.release();
+                response.completeExceptionally(exception);
+              }
+            },
+            headers
+        );
+      }
+      // Wait for all the requests before handling errors, so no request is still using its buffer afterwards
+      permits.acquire(conf.maxConcurrentBulkRequests);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      // Buffers of requests still in flight must not be reused
+      bulkRequests.clear();
+      throw new StageException(Errors.ELASTICSEARCH_17, batchSize(requests), ex.toString(), ex);
+    }
+
+    for (int i = 0; i < requests.size(); i++) {
+      List<Record> records = requests.get(i).getRecords();
+      try {
+        handleBulkResponse(records, responses.get(i).join());
+      } catch (CompletionException ex) {
+        Throwable cause = ex.getCause();
+        errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), cause.toString(), cause));
       } catch (IOException ex) {
         errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
       }
     }
   }
 
+  private static int batchSize(List<BulkRequest> requests) {
+    int size = 0;
+    for (BulkRequest request : requests) {
+      size += request.getRecords().size();
+    }
+    return size;
+  }
+
+  private void handleBulkResponse(List<Record> records, Response response) throws IOException, StageException {
+    JsonObject json;
+    try (Reader reader = new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8)) {
+      json = new JsonParser().parse(reader).getAsJsonObject();
+    }
+
+    // Handle errors in bulk requests individually.
+    boolean errors = json.get("errors").getAsBoolean();
+    if (errors) {
+      List<ErrorItem> errorItems;
+      switch (getContext().getOnErrorRecord()) {
+        case DISCARD:
+          break;
+        case TO_ERROR:
+          errorItems = extractErrorItems(json);
+          for (ErrorItem item : errorItems) {
+            Record record = records.get(item.index);
+            getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
+          }
+          break;
+        case STOP_PIPELINE:
+          errorItems = extractErrorItems(json);
+          throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
+        default:
+          throw new IllegalStateException(
+              Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
+          );
+      }
+    }
+  }
+
   Date setBatchTime() {
     batchTime = new Date();
     return batchTime;
@@ -375,52 +451,105 @@ public class ElasticsearchTarget extends BaseTarget {
     return batchTime;
   }
 
-  private String getOperation(String index, String type, String id, String parent, String routing, String record, int opCode) {
-    StringBuilder op = new StringBuilder();
-    switch (opCode) {
-      case OperationType.UPSERT_CODE:
-        getOperationMetadata("index", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
-        break;
-      case OperationType.INSERT_CODE:
-        getOperationMetadata("create", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
-        break;
-      case OperationType.UPDATE_CODE:
-        getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc\":%s}%n", record));
-        break;
-      case OperationType.MERGE_CODE:
-        getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc_as_upsert\": \"true\", \"doc\":%s}%n", record));
-        break;
-      case OperationType.DELETE_CODE:
-        getOperationMetadata("delete", index, type, id, parent, routing, op);
-        break;
-      default:
-        LOG.error("Operation {} not supported", opCode);
-        throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
+  /**
+   * Writes the action metadata and the document of the record in the bulk request, without intermediate strings.
+   */
+  private void writeOperation(
+      BulkRequest request,
+      Record record,
+      String index,
+      String type,
+      String id,
+      String parent,
+      String routing,
+      int opCode
+  ) throws IOException, StageException {
+    int start = request.size();
+    boolean written = false;
+    try {
+      Writer writer = request.getWriter();
+      switch (opCode) {
+        case OperationType.UPSERT_CODE:
+          writeOperationMetadata(writer, "index", index, type, id, parent, routing);
+          writeDocument(request, record);
+          break;
+        case OperationType.INSERT_CODE:
+          writeOperationMetadata(writer, "create", index, type, id, parent, routing);
+          writeDocument(request, record);
+          break;
+        case OperationType.UPDATE_CODE:
+          writeOperationMetadata(writer, "update", index, type, id, parent, routing);
+          writer.write("{\"doc\":");
+          writeDocument(request, record);
+          writer.write('}');
+          break;
+        case OperationType.MERGE_CODE:
+          writeOperationMetadata(writer, "update", index, type, id, parent, routing);
+          writer.write("{\"doc_as_upsert\": \"true\", \"doc\":");
+          writeDocument(request, record);
+          writer.write('}');
+          break;
+        case OperationType.DELETE_CODE:
+          writeOperationMetadata(writer, "delete", index, type, id, parent, routing);
+          break;
+        default:
+          LOG.error("Operation {} not supported", opCode);
+          throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
+      }
+      if (opCode != OperationType.DELETE_CODE) {
+        writer.write('\n');
+      }
+      request.flush();
+      request.addRecord(record);
+      written = true;
+    } finally {
+      if (!written) {
+        request.truncate(start);
+      }
     }
-    return op.toString();
   }
 
-  private void getOperationMetadata(String operation, String index, String type, String id, String parent, String routing, StringBuilder sb) {
-    sb.append(String.format("{\"%s\":{\"_index\":\"%s\",\"_type\":\"%s\"", operation, index, type));
+  // Documents are generated with the same writer as the metadata, one generator per record writes no separator
+  private void writeDocument(BulkRequest request, Record record) throws IOException, StageException {
+    try (DataGenerator generator = generatorFactory.getGenerator(request.getBuffer())) {
+      generator.write(record);
+    }
+  }
+
+  private void writeOperationMetadata(
+      Writer writer,
+      String operation,
+      String index,
+      String type,
+      String id,
+      String parent,
+      String routing
+  ) throws IOException {
+    writer.write("{\"");
+    writer.write(operation);
+    writer.write("\":{\"_index\":\"");
+    writer.write(index);
+    writer.write("\",\"_type\":\"");
+    writer.write(type);
+    writer.write('"');
     if (!StringUtils.isEmpty(id)) {
-      sb.append(String.format(",\"_id\":\"%s\"", id));
+      writer.write(",\"_id\":\"");
+      writer.write(id);
+      writer.write('"');
     }
     if (!StringUtils.isEmpty(parent)) {
-      sb.append(String.format(",\"parent\":\"%s\"", parent));
+      writer.write(",\"parent\":\"");
+      writer.write(parent);
+      writer.write('"');
     }
     if (!StringUtils.isEmpty(routing)) {
-      sb.append(String.format(",\"routing\":\"%s\"", routing));
+      writer.write(",\"routing\":\"");
+      writer.write(routing);
+      writer.write('"');
     }
     // Add additional properties from JSON editor.
-    String additionalProperties = addAdditionalProperties();
-    if (!StringUtils.isEmpty(additionalProperties)){
-      sb.append(additionalProperties);
-    }
-    sb.append(String.format("}}%n"));
+    writer.write(additionalProperties);
+    writer.write("}}\n");
   }
 
   @VisibleForTesting
@@ -195,6 +195,11 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
   }
   private ElasticsearchTarget createTarget(String timeDriver, String indexEL, String docIdEL, ElasticsearchOperationType op,
                                            String parent, String routing) {
+    return new ElasticsearchTarget(createConfig(timeDriver, indexEL, docIdEL, op, parent, routing));
+  }
+
+  private ElasticsearchTargetConfig createConfig(String timeDriver, String indexEL, String docIdEL,
+                                                 ElasticsearchOperationType op, String parent, String routing) {
     ElasticsearchTargetConfig conf = new ElasticsearchTargetConfig();
     conf.httpUris = Collections.singletonList("127.0.0.1:" + esHttpPort);
     conf.timeDriver = timeDriver;
@@ -210,7 +215,7 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     conf.securityConfig = new SecurityConfig();
     conf.rawAdditionalProperties =  "{\n\"_retry_on_conflict\":1\n}";
 
-    return new ElasticsearchTarget(conf);
+    return conf;
   }
 
   @Test
@@ -333,6 +338,48 @@ public class ElasticSearchTargetIT extends ElasticsearchBaseIT {
     }
   }
 
+  @Test
+  public void testWriteRecordsInSeveralBulkRequests() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(
+        "${time:now()}",
+        "${record:value('/index')}",
+        "",
+        ElasticsearchOperationType.INDEX,
+        "",
+        ""
+    );
+    conf.maxBulkRequestSizeKB = 1;
+    conf.maxConcurrentBulkRequests = 3;
+    Target target = new ElasticsearchTarget(conf);
+    TargetRunner runner = new TargetRunner.Builder(ElasticSearchDTarget.class, target).setOnRecordError(OnRecordError.TO_ERROR).build();
+    try {
+      runner.runInit();
+      List<Record> records = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        Record record = RecordCreator.create();
+        // Invalid (upper case) index names fail individually, at different positions of the bulk requests
+        String index = (i % 7 == 0) ? "BULK" : "bulk";
+        record.set(Field.create(ImmutableMap.of("a", Field.create("Hello " + i),
+                                                "index", Field.create(index), "type", Field.create("t"))));
+        records.add(record);
+      }
+      runner.runWrite(records);
+      Assert.assertEquals(15, runner.getErrorRecords().size());
+      for (Record record : runner.getErrorRecords()) {
+        Assert.assertEquals("BULK", record.get("/index").getValueAsString());
+      }
+      Assert.assertTrue(runner.getErrors().isEmpty());
+
+      prepareElasticSearchServerForQueries();
+
+      SearchResponse response = esServer.client().prepareSearch("bulk").setTypes("t")
+                                        .setSearchType(SearchType.DEFAULT).execute().actionGet();
+      Assert.assertEquals(85, response.getHits().getTotalHits());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
   @Test(expected = StageException.class)
   public void testWriteRecordsOnErrorStopPipeline() throws Exception {
     Target target = createTarget();
@@ -29,7 +29,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
@@ -39,7 +39,6 @@ import com.streamsets.pipeline.stage.pubsub.lib.Groups;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -55,6 +54,7 @@ public class PubSubTarget extends BaseTarget {
 
   private Publisher publisher;
   private DataGeneratorFactory generatorFactory;
+  private DataGeneratorBuffer buffer;
   private List<PendingMessage> pendingMessages = new ArrayList<>();
   private ErrorRecordHandler errorRecordHandler;
   private CredentialsProvider credentialsProvider;
@@ -96,6 +96,7 @@ public class PubSubTarget extends BaseTarget {
         issues
     )) {
       generatorFactory = conf.dataFormatConfig.getDataGeneratorFactory();
+      buffer = new DataGeneratorBuffer();
     }
 
     ProjectTopicName topic = ProjectTopicName.of(conf.credentials.projectId, conf.topicId);
@@ -169,16 +170,14 @@ public class PubSubTarget extends BaseTarget {
   }
 
   private void publish(Record record) throws StageException {
-    ByteArrayOutputStream os = new ByteArrayOutputStream();
-    try (DataGenerator generator = generatorFactory.getGenerator(os)) {
-      generator.write(record);
+    ByteString data;
+    try {
+      data = ByteString.copyFrom(generatorFactory.serialize(record, buffer));
     } catch (IOException | DataGeneratorException e) {
       errorRecordHandler.onError(new OnRecordErrorException(record, Errors.PUBSUB_06, e.toString(), e));
       return;
     }
 
-    ByteString data = ByteString.copyFrom(os.toByteArray());
-
     Map<String, String> attributes = new HashMap<>();
     Record.Header header = record.getHeader();
     header.getAttributeNames().forEach(k -> attributes.put(k, header.getAttribute(k)));
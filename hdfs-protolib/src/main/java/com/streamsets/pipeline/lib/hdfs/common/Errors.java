@@ -94,6 +94,9 @@ public enum Errors implements ErrorCode {
   HADOOPFS_60("Invalid Data Format {}, should be {} for File Type {}."),
   HADOOPFS_61("You must specify at least one of Hadoop FS URI, Hadoop FS Configuration Directory or fs.defaultFS"),
   HADOOPFS_62("Can't resolve credential: {}"),
+  HADOOPFS_63("Avro schema can't be converted to a Parquet schema: {}"),
+  HADOOPFS_64("Avro schema location {} is not supported for Parquet files"),
+  HADOOPFS_65("Compression codec {} is not supported for Parquet files"),
 
   ;
 
@@ -20,7 +20,7 @@ import com.streamsets.pipeline.api.Label;
 
 @GenerateResourceBundle
 public enum HdfsFileType implements Label {
-  TEXT("Text files"), SEQUENCE_FILE("Sequence files"), WHOLE_FILE("Whole File");
+  TEXT("Text files"), SEQUENCE_FILE("Sequence files"), WHOLE_FILE("Whole File"), PARQUET_FILE("Parquet files");
 
   private String label;
   HdfsFileType(String label) {
@@ -29,6 +29,7 @@ import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.el.SdcEL;
 import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.DestinationAvroSchemaSource;
 import com.streamsets.pipeline.config.TimeZoneChooserValues;
 import com.streamsets.pipeline.lib.el.DataUtilEL;
 import com.streamsets.pipeline.lib.el.RecordEL;
@@ -37,8 +38,10 @@ import com.streamsets.pipeline.lib.el.TimeNowEL;
 import com.streamsets.pipeline.lib.hdfs.common.Errors;
 import com.streamsets.pipeline.lib.hdfs.common.HdfsBaseConfigBean;
 import com.streamsets.pipeline.stage.destination.hdfs.writer.ActiveRecordWriters;
+import com.streamsets.pipeline.stage.destination.hdfs.writer.ParquetRecordWriteSupport;
 import com.streamsets.pipeline.stage.destination.hdfs.writer.RecordWriterManager;
 import com.streamsets.pipeline.stage.destination.lib.DataGeneratorFormatConfig;
+import org.apache.avro.SchemaParseException;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -46,6 +49,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,7 +93,7 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
       displayPosition = 106,
       group = "OUTPUT_FILES",
       dependsOn = "fileType",
-      triggeredByValue = {"TEXT", "SEQUENCE_FILE"}
+      triggeredByValue = {"TEXT", "SEQUENCE_FILE", "PARQUET_FILE"}
   )
   public String fileNameSuffix;
 
@@ -157,7 +161,7 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     group = "OUTPUT_FILES",
     min = 0,
     dependsOn = "fileType",
-    triggeredByValue = {"TEXT", "SEQUENCE_FILE"}
+    triggeredByValue = {"TEXT", "SEQUENCE_FILE", "PARQUET_FILE"}
   )
   public long maxRecordsPerFile;
 
@@ -171,7 +175,7 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     group = "OUTPUT_FILES",
     min = 0,
     dependsOn = "fileType",
-    triggeredByValue = {"TEXT", "SEQUENCE_FILE"}
+    triggeredByValue = {"TEXT", "SEQUENCE_FILE", "PARQUET_FILE"}
   )
   public long maxFileSize;
 
@@ -188,7 +192,7 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     elDefs = {TimeEL.class},
     evaluation = ConfigDef.Evaluation.EXPLICIT,
     dependsOn = "fileType",
-    triggeredByValue = {"TEXT", "SEQUENCE_FILE"}
+    triggeredByValue = {"TEXT", "SEQUENCE_FILE", "PARQUET_FILE"}
   )
   public String idleTimeout;
 
@@ -201,7 +205,7 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     displayPosition = 160,
     group = "OUTPUT_FILES",
     dependsOn = "fileType",
-    triggeredByValue = {"TEXT", "SEQUENCE_FILE"}
+    triggeredByValue = {"TEXT", "SEQUENCE_FILE", "PARQUET_FILE"}
   )
   @ValueChooserModel(CompressionChooserValues.class)
   public CompressionMode compression;
@@ -261,6 +265,24 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
   @ValueChooserModel(HdfsSequenceFileCompressionTypeChooserValues.class)
   public HdfsSequenceFileCompressionType seqFileCompressionType;
 
+  @ConfigDef(
+    required = true,
+    type = ConfigDef.Type.NUMBER,
+    defaultValue = "32",
+    label = "Row Group Size (MB)",
+    description = "Size of the Parquet row groups. A row group is buffered in memory for each open file until it is " +
+      "full, so this bounds the memory used by each file. A Parquet file is only readable once it is closed: the " +
+      "files left open by an unexpected stop are deleted on restart, so their records are lost. Use the maximum " +
+      "records, maximum file size or idle timeout to bound how many records an open file holds.",
+    displayPosition = 195,
+    group = "OUTPUT_FILES",
+    min = 1,
+    max = 1024,
+    dependsOn = "fileType",
+    triggeredByValue = "PARQUET_FILE"
+  )
+  public int parquetRowGroupSize = 32;
+
   @ConfigDef(
     required = true,
     type = ConfigDef.Type.STRING,
@@ -459,6 +481,10 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
       fileNameEL = dataGeneratorFormatConfig.fileNameEL;
     }
 
+    if (fileType == HdfsFileType.PARQUET_FILE) {
+      validateStageForParquetFile(context, issues);
+    }
+
     SequenceFile.CompressionType compressionType = (seqFileCompressionType != null)
       ? seqFileCompressionType.getType() : null;
     try {
@@ -527,6 +553,9 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
         if (idleTimeSecs > 0) {
           mgr.setIdleTimeoutSeconds(idleTimeSecs);
         }
+        if (fileType == HdfsFileType.PARQUET_FILE) {
+          initParquetFiles(mgr);
+        }
 
         // We're skipping all hdfs-target-directory related validations if we're getting the configuration from header
         if(dirPathTemplateInHeader) {
@@ -585,6 +614,9 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
           if (idleTimeSecs > 0) {
             mgr.setIdleTimeoutSeconds(idleTimeSecs);
           }
+          if (fileType == HdfsFileType.PARQUET_FILE) {
+            initParquetFiles(mgr);
+          }
 
           // validate if the lateRecordsDirPathTemplate can be resolved by Els constants
           if (mgr.validateDirTemplate(
@@ -846,6 +878,81 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     }
   }
 
+  private void validateStageForParquetFile(Stage.Context context, List<Stage.ConfigIssue> issues) {
+    if (dataFormat != DataFormat.AVRO) {
+      issues.add(
+          context.createConfigIssue(
+              Groups.DATA_FORMAT.name(),
+              getConfigBeanPrefix() + "dataFormat",
+              Errors.HADOOPFS_60,
+              dataFormat.name(),
+              DataFormat.AVRO.getLabel(),
+              HdfsFileType.PARQUET_FILE.getLabel()
+          )
+      );
+    } else if (dataGeneratorFormatConfig.avroSchemaSource == DestinationAvroSchemaSource.REGISTRY) {
+      issues.add(
+          context.createConfigIssue(
+              Groups.DATA_FORMAT.name(),
+              getConfigBeanPrefix() + "dataGeneratorFormatConfig.avroSchemaSource",
+              Errors.HADOOPFS_64,
+              dataGeneratorFormatConfig.avroSchemaSource.getLabel()
+          )
+      );
+    } else if (dataGeneratorFormatConfig.avroSchemaSource == DestinationAvroSchemaSource.INLINE) {
+      try {
+        new ParquetRecordWriteSupport(dataGeneratorFormatConfig.avroSchema);
+      } catch (SchemaParseException ex) {
+        // Already reported by the data format validation
+        LOG.debug("Invalid Avro schema: {}", ex.toString(), ex);
+      } catch (StageException ex) {
+        issues.add(
+            context.createConfigIssue(
+                Groups.DATA_FORMAT.name(),
+                getConfigBeanPrefix() + "dataGeneratorFormatConfig.avroSchema",
+                ex.getErrorCode(),
+                ex.getParams()
+            )
+        );
+      }
+    }
+
+    if (getParquetCompression() == null) {
+      issues.add(
+          context.createConfigIssue(
+              Groups.OUTPUT_FILES.name(),
+              getConfigBeanPrefix() + "compression",
+              Errors.HADOOPFS_65,
+              compression.getLabel()
+          )
+      );
+    }
+  }
+
+  /**
+   * Returns the Parquet codec of the configured compression, null if Parquet does not support it.
+   */
+  private CompressionCodecName getParquetCompression() {
+    switch (compression) {
+      case NONE:
+        return CompressionCodecName.UNCOMPRESSED;
+      case GZIP:
+        return CompressionCodecName.GZIP;
+      case SNAPPY:
+        return CompressionCodecName.SNAPPY;
+      default:
+        return null;
+    }
+  }
+
+  private void initParquetFiles(RecordWriterManager mgr) {
+    if (dataGeneratorFormatConfig.avroSchemaSource == DestinationAvroSchemaSource.INLINE) {
+      mgr.setParquetAvroSchema(dataGeneratorFormatConfig.avroSchema);
+    }
+    mgr.setParquetRowGroupSize(parquetRowGroupSize * MEGA_BYTE);
+    mgr.setParquetCompression(getParquetCompression());
+  }
+
   protected boolean validateHadoopDir(final Stage.Context context, final String configName, final String configGroup,
       String dirPathTemplate, final List<Stage.ConfigIssue> issues) {
     if (!dirPathTemplate.startsWith("/")) {
@@ -24,15 +24,19 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.generator.StreamCloseEventHandler;
 import com.streamsets.pipeline.lib.hdfs.common.Errors;
+import com.streamsets.pipeline.stage.destination.hdfs.HdfsFileType;
 import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -41,6 +45,8 @@ import java.util.concurrent.TimeUnit;
 
 final class DefaultFsHelper implements FsHelper {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultFsHelper.class);
+  // magic number, footer length and magic number again
+  private static final int PARQUET_MIN_FILE_LENGTH = 2 * ParquetFileWriter.MAGIC.length + 4;
 
   // we use/reuse Path as they are expensive to create (it increases the performance by at least 3%)
   private final Path tempFilePath;
@@ -94,7 +100,9 @@ final class DefaultFsHelper implements FsHelper {
         if (globStatus != null) {
           for (FileStatus status : globStatus) {
             LOG.debug("Found uncommitted file '{}'", status.getPath());
-            recordWriterManager.renameToFinalName(fs, status.getPath());
+            if (!discardIncompleteParquetFile(fs, status.getPath())) {
+              recordWriterManager.renameToFinalName(fs, status.getPath());
+            }
           }
         }
       }
@@ -103,10 +111,41 @@ final class DefaultFsHelper implements FsHelper {
 
   @Override
   public void handleAlreadyExistingFile(FileSystem fs, Path tempPath) throws StageException, IOException {
+    if (discardIncompleteParquetFile(fs, tempPath)) {
+      return;
+    }
     Path path = recordWriterManager.renameToFinalName(fs, tempPath);
     LOG.warn("Path[{}] - Found previous file '{}', committing it", tempPath, path);
   }
 
+  /**
+   * A Parquet file gets its footer when it is closed, without it the file can't be read. Such a file was left open
+   * by a previous run that did not stop properly, so it is deleted instead of being committed: the records of the
+   * batches written to it since it was opened are lost.
+   *
+   * @return true if the file was an incomplete Parquet file and was deleted
+   */
+  private boolean discardIncompleteParquetFile(FileSystem fs, Path path) throws IOException {
+    if (recordWriterManager.getFileType() != HdfsFileType.PARQUET_FILE) {
+      return false;
+    }
+    long length = fs.getFileStatus(path).getLen();
+    if (length >= PARQUET_MIN_FILE_LENGTH) {
+      byte[] magic = new byte[ParquetFileWriter.MAGIC.length];
+      try (FSDataInputStream in = fs.open(path)) {
+        in.readFully(length - magic.length, magic);
+      }
+      if (Arrays.equals(ParquetFileWriter.MAGIC, magic)) {
+        return false;
+      }
+    }
+    LOG.warn("Path[{}] - Found previous Parquet file without footer, deleting it, its records are lost", path);
+    if (!fs.delete(path, false)) {
+      throw new IOException(Utils.format("Could not delete '{}'", path));
+    }
+    return true;
+  }
+
   @Override
   public Path renameAndGetPath(FileSystem fs, Path tempPath) throws IOException, StageException {
     Path finalPath =  new Path(tempPath.getParent(), (StringUtils.isEmpty(uniquePrefix) ? "" : (uniquePrefix + "_") ) + UUID.randomUUID().toString() + recordWriterManager.getExtension());
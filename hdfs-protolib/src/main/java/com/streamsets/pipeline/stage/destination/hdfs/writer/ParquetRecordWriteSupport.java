@@ -0,0 +1,640 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.hdfs.writer;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import com.streamsets.pipeline.lib.util.AvroTypeUtil;
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.ParquetEncodingException;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes SDC records into Parquet files, encoding the values of the fields straight into the columns.
+ * <p/>
+ * The layout of the file is given by an Avro schema, converted to the Parquet schema the same way Parquet converts
+ * Avro schemas (lists and maps use the 3-level representation). The Avro schema is stored in the file metadata so
+ * that the files can be read back as Avro records.
+ */
+public final class ParquetRecordWriteSupport extends WriteSupport<Record> {
+  static final String AVRO_SCHEMA_METADATA_KEY = "parquet.avro.schema";
+
+  private static final String LIST_REPEATED_NAME = "list";
+  private static final String LIST_ELEMENT_NAME = "element";
+  private static final String MAP_REPEATED_NAME = "key_value";
+  private static final String MAP_KEY_NAME = "key";
+  private static final String MAP_VALUE_NAME = "value";
+
+  private final String avroSchemaJson;
+  private final Schema avroSchema;
+  private final MessageType parquetSchema;
+  private final RecordNode root;
+  private RecordConsumer consumer;
+
+  public ParquetRecordWriteSupport(String avroSchemaJson) throws StageException {
+    this.avroSchemaJson = avroSchemaJson;
+    avroSchema = AvroTypeUtil.parseSchema(avroSchemaJson);
+    if (avroSchema.getType() != Schema.Type.RECORD) {
+      throw new StageException(com.streamsets.pipeline.lib.hdfs.common.Errors.HADOOPFS_63, avroSchema.getType());
+    }
+    Map<String, Object> defaultValues;
+    try {
+      defaultValues = AvroTypeUtil.getDefaultValuesFromSchema(avroSchema, new HashSet<String>());
+    } catch (IOException e) {
+      throw new DataGeneratorException(Errors.AVRO_GENERATOR_01, avroSchema.getFullName(), e.toString(), e);
+    }
+    root = new RecordNode(avroSchema, false, new HashSet<String>(), defaultValues);
+    parquetSchema = new MessageType(avroSchema.getFullName(), root.getParquetFields());
+  }
+
+  public String getAvroSchema() {
+    return avroSchemaJson;
+  }
+
+  MessageType getParquetSchema() {
+    return parquetSchema;
+  }
+
+  @Override
+  public WriteContext init(Configuration configuration) {
+    return new WriteContext(parquetSchema, Collections.singletonMap(AVRO_SCHEMA_METADATA_KEY, avroSchema.toString()));
+  }
+
+  @Override
+  public void prepareForWrite(RecordConsumer recordConsumer) {
+    this.consumer = recordConsumer;
+  }
+
+  /**
+   * Checks that the record can be written with the schema of the file, without writing anything. A record failing
+   * half way through would leave the columns of the row group inconsistent, so each record is checked first.
+   */
+  public void validate(Record record) throws StageException {
+    root.writeFields(record, record.get(), "", null);
+  }
+
+  @Override
+  public void write(Record record) {
+    consumer.startMessage();
+    try {
+      root.writeFields(record, record.get(), "", consumer);
+    } catch (StageException e) {
+      // The record was validated before
+      throw new ParquetEncodingException(e.toString(), e);
+    }
+    consumer.endMessage();
+  }
+
+  /**
+   * Builds the Parquet writers writing through a given write support.
+   */
+  public static final class Builder extends ParquetWriter.Builder<Record, Builder> {
+    private final ParquetRecordWriteSupport writeSupport;
+
+    public Builder(Path path, ParquetRecordWriteSupport writeSupport) {
+      super(path);
+      this.writeSupport = writeSupport;
+    }
+
+    @Override
+    protected Builder self() {
+      return this;
+    }
+
+    @Override
+    protected WriteSupport<Record> getWriteSupport(Configuration conf) {
+      return writeSupport;
+    }
+  }
+
+  private static Node createNode(
+      Schema schema,
+      Set<String> parentRecords,
+      Map<String, Object> defaultValues
+  ) throws StageException {
+    boolean optional = false;
+    if (schema.getType() == Schema.Type.UNION) {
+      // Only the nullable unions have an equivalent in Parquet, an optional field
+      List<Schema> types = schema.getTypes();
+      if (types.size() == 2 && types.get(0).getType() == Schema.Type.NULL) {
+        schema = types.get(1);
+      } else if (types.size() == 2 && types.get(1).getType() == Schema.Type.NULL) {
+        schema = types.get(0);
+      } else {
+        throw new StageException(com.streamsets.pipeline.lib.hdfs.common.Errors.HADOOPFS_63, schema);
+      }
+      optional = true;
+    }
+    switch (schema.getType()) {
+      case RECORD:
+        return new RecordNode(schema, optional, parentRecords, defaultValues);
+      case ARRAY:
+        return new ArrayNode(schema, optional, createNode(schema.getElementType(), parentRecords, defaultValues));
+      case MAP:
+        return new MapNode(schema, optional, createNode(schema.getValueType(), parentRecords, defaultValues));
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+      case ENUM:
+      case BYTES:
+      case FIXED:
+        return new PrimitiveNode(schema, optional);
+      default:
+        throw new StageException(com.streamsets.pipeline.lib.hdfs.common.Errors.HADOOPFS_63, schema);
+    }
+  }
+
+  private abstract static class Node {
+    final Schema schema;
+    final Type.Repetition repetition;
+
+    Node(Schema schema, boolean optional) {
+      this.schema = schema;
+      this.repetition = optional ? Type.Repetition.OPTIONAL : Type.Repetition.REQUIRED;
+    }
+
+    abstract Type toParquetType(String name);
+
+    /**
+     * Writes the non null value of the field, only checks it if the consumer is null.
+     */
+    abstract void writeValue(Record record, Field field, String path, RecordConsumer consumer) throws StageException;
+
+    void write(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      try {
+        writeValue(record, field, path, consumer);
+      } catch (IllegalArgumentException | ClassCastException e) {
+        throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, schema.getType(), field.getType(), e);
+      }
+    }
+  }
+
+  private static final class RecordNode extends Node {
+    private final String[] names;
+    private final Schema[] schemas;
+    private final Node[] fields;
+    private final String[] defaultKeys;
+    private final boolean[] hasDefaults;
+    private final Object[] defaults;
+
+    RecordNode(
+        Schema schema,
+        boolean optional,
+        Set<String> parentRecords,
+        Map<String, Object> defaultValues
+    ) throws StageException {
+      super(schema, optional);
+      if (!parentRecords.add(schema.getFullName())) {
+        // Parquet has no recursive types
+        throw new StageException(com.streamsets.pipeline.lib.hdfs.common.Errors.HADOOPFS_63, schema.getFullName());
+      }
+      List<Schema.Field> avroFields = schema.getFields();
+      names = new String[avroFields.size()];
+      schemas = new Schema[avroFields.size()];
+      fields = new Node[avroFields.size()];
+      defaultKeys = new String[avroFields.size()];
+      hasDefaults = new boolean[avroFields.size()];
+      defaults = new Object[avroFields.size()];
+      for (int i = 0; i < fields.length; i++) {
+        Schema.Field avroField = avroFields.get(i);
+        names[i] = avroField.name();
+        schemas[i] = avroField.schema();
+        fields[i] = createNode(avroField.schema(), parentRecords, defaultValues);
+        // the default can be null
+        defaultKeys[i] = schema.getFullName() + AvroTypeUtil.SCHEMA_PATH_SEPARATOR + avroField.name();
+        hasDefaults[i] = defaultValues.containsKey(defaultKeys[i]);
+        defaults[i] = defaultValues.get(defaultKeys[i]);
+      }
+      parentRecords.remove(schema.getFullName());
+    }
+
+    List<Type> getParquetFields() {
+      List<Type> parquetFields = new ArrayList<>(fields.length);
+      for (int i = 0; i < fields.length; i++) {
+        parquetFields.add(fields[i].toParquetType(names[i]));
+      }
+      return parquetFields;
+    }
+
+    @Override
+    Type toParquetType(String name) {
+      return new GroupType(repetition, name, getParquetFields());
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      if (consumer != null) {
+        consumer.startGroup();
+      }
+      writeFields(record, field, path, consumer);
+      if (consumer != null) {
+        consumer.endGroup();
+      }
+    }
+
+    /**
+     * Writes the fields of the record with the same rules as AvroTypeUtil.sdcRecordToAvro(): fields missing in the
+     * record and null values get the default of the schema. A missing field without default is an error even if it
+     * is optional, a null value without default is only an error if the field is required.
+     */
+    void writeFields(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      Map<String, Field> map = field.getValueAsMap();
+      for (int i = 0; i < fields.length; i++) {
+        String fieldPath = path + "/" + names[i];
+        if (!map.containsKey(names[i]) && !hasDefaults[i]) {
+          throw new DataGeneratorException(Errors.AVRO_GENERATOR_00, record.getHeader().getSourceId(), defaultKeys[i]);
+        }
+        Field value = map.get(names[i]);
+        if ((value == null || value.getValue() == null) && defaults[i] != null) {
+          value = AvroTypeUtil.avroToSdcField(record, schemas[i], defaults[i]);
+        }
+        if (value == null || value.getValue() == null) {
+          if (fields[i].repetition == Type.Repetition.REQUIRED) {
+            throw new DataGeneratorException(
+                Errors.AVRO_GENERATOR_01,
+                record.getHeader().getSourceId(),
+                defaultKeys[i]
+            );
+          }
+          continue;
+        }
+        if (consumer != null) {
+          consumer.startField(names[i], i);
+        }
+        fields[i].write(record, value, fieldPath, consumer);
+        if (consumer != null) {
+          consumer.endField(names[i], i);
+        }
+      }
+    }
+  }
+
+  private static final class ArrayNode extends Node {
+    private final Node element;
+
+    ArrayNode(Schema schema, boolean optional, Node element) {
+      super(schema, optional);
+      this.element = element;
+    }
+
+    @Override
+    Type toParquetType(String name) {
+      return new GroupType(
+          repetition,
+          name,
+          OriginalType.LIST,
+          new GroupType(Type.Repetition.REPEATED, LIST_REPEATED_NAME, element.toParquetType(LIST_ELEMENT_NAME))
+      );
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      List<Field> list = field.getValueAsList();
+      if (consumer != null) {
+        consumer.startGroup();
+        if (!list.isEmpty()) {
+          consumer.startField(LIST_REPEATED_NAME, 0);
+        }
+      }
+      for (int i = 0; i < list.size(); i++) {
+        Field value = list.get(i);
+        if (consumer != null) {
+          consumer.startGroup();
+        }
+        if (value != null && value.getValue() != null) {
+          if (consumer != null) {
+            consumer.startField(LIST_ELEMENT_NAME, 0);
+          }
+          element.write(record, value, path + "[" + i + "]", consumer);
+          if (consumer != null) {
+            consumer.endField(LIST_ELEMENT_NAME, 0);
+          }
+        } else if (element.repetition == Type.Repetition.REQUIRED) {
+          throw new DataGeneratorException(
+              Errors.AVRO_GENERATOR_00,
+              record.getHeader().getSourceId(),
+              path + "[" + i + "]"
+          );
+        }
+        if (consumer != null) {
+          consumer.endGroup();
+        }
+      }
+      if (consumer != null) {
+        if (!list.isEmpty()) {
+          consumer.endField(LIST_REPEATED_NAME, 0);
+        }
+        consumer.endGroup();
+      }
+    }
+  }
+
+  private static final class MapNode extends Node {
+    private final Node value;
+
+    MapNode(Schema schema, boolean optional, Node value) {
+      super(schema, optional);
+      this.value = value;
+    }
+
+    @Override
+    Type toParquetType(String name) {
+      return new GroupType(
+          repetition,
+          name,
+          OriginalType.MAP,
+          new GroupType(
+              Type.Repetition.REPEATED,
+              MAP_REPEATED_NAME,
+              Types.required(PrimitiveTypeName.BINARY).as(OriginalType.UTF8).named(MAP_KEY_NAME),
+              value.toParquetType(MAP_VALUE_NAME)
+          )
+      );
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      Map<String, Field> map = field.getValueAsMap();
+      if (consumer != null) {
+        consumer.startGroup();
+        if (!map.isEmpty()) {
+          consumer.startField(MAP_REPEATED_NAME, 0);
+        }
+      }
+      for (Map.Entry<String, Field> entry : map.entrySet()) {
+        String entryPath = path + "/" + entry.getKey();
+        if (consumer != null) {
+          consumer.startGroup();
+          consumer.startField(MAP_KEY_NAME, 0);
+          consumer.addBinary(Binary.fromString(entry.getKey()));
+          consumer.endField(MAP_KEY_NAME, 0);
+        }
+        Field entryValue = entry.getValue();
+        if (entryValue != null && entryValue.getValue() != null) {
+          if (consumer != null) {
+            consumer.startField(MAP_VALUE_NAME, 1);
+          }
+          value.write(record, entryValue, entryPath, consumer);
+          if (consumer != null) {
+            consumer.endField(MAP_VALUE_NAME, 1);
+          }
+        } else if (value.repetition == Type.Repetition.REQUIRED) {
+          throw new DataGeneratorException(Errors.AVRO_GENERATOR_00, record.getHeader().getSourceId(), entryPath);
+        }
+        if (consumer != null) {
+          consumer.endGroup();
+        }
+      }
+      if (consumer != null) {
+        if (!map.isEmpty()) {
+          consumer.endField(MAP_REPEATED_NAME, 0);
+        }
+        consumer.endGroup();
+      }
+    }
+  }
+
+  private enum Kind {
+    BOOLEAN, INT, DATE, TIME_MILLIS, LONG, TIMESTAMP_MILLIS, FLOAT, DOUBLE, STRING, ENUM, BYTES, DECIMAL, FIXED
+  }
+
+  private static final class PrimitiveNode extends Node {
+    private final Kind kind;
+    private final int precision;
+    private final int scale;
+    private final Set<String> symbols;
+
+    PrimitiveNode(Schema schema, boolean optional) {
+      super(schema, optional);
+      String logicalType = schema.getProp(AvroTypeUtil.LOGICAL_TYPE);
+      if (logicalType == null) {
+        logicalType = "";
+      }
+      int decimalPrecision = 0;
+      int decimalScale = 0;
+      Set<String> enumSymbols = null;
+      switch (schema.getType()) {
+        case BOOLEAN:
+          kind = Kind.BOOLEAN;
+          break;
+        case INT:
+          if (AvroTypeUtil.LOGICAL_TYPE_DATE.equals(logicalType)) {
+            kind = Kind.DATE;
+          } else if (AvroTypeUtil.LOGICAL_TYPE_TIME_MILLIS.equals(logicalType)) {
+            kind = Kind.TIME_MILLIS;
+          } else {
+            kind = Kind.INT;
+          }
+          break;
+        case LONG:
+          // micros logical types are written as plain longs, like the Avro generator does
+          kind = AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MILLIS.equals(logicalType) ? Kind.TIMESTAMP_MILLIS : Kind.LONG;
+          break;
+        case FLOAT:
+          kind = Kind.FLOAT;
+          break;
+        case DOUBLE:
+          kind = Kind.DOUBLE;
+          break;
+        case STRING:
+          kind = Kind.STRING;
+          break;
+        case ENUM:
+          kind = Kind.ENUM;
+          enumSymbols = new HashSet<>(schema.getEnumSymbols());
+          break;
+        case BYTES:
+          if (AvroTypeUtil.LOGICAL_TYPE_DECIMAL.equals(logicalType)) {
+            kind = Kind.DECIMAL;
+            decimalPrecision = schema.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_PRECISION).asInt();
+            decimalScale = schema.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_SCALE) == null
+                ? 0
+                : schema.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_SCALE).asInt();
+          } else {
+            kind = Kind.BYTES;
+          }
+          break;
+        case FIXED:
+          kind = Kind.FIXED;
+          break;
+        default:
+          throw new IllegalStateException("Unexpected schema type " + schema.getType());
+      }
+      this.precision = decimalPrecision;
+      this.scale = decimalScale;
+      this.symbols = enumSymbols;
+    }
+
+    @Override
+    Type toParquetType(String name) {
+      switch (kind) {
+        case BOOLEAN:
+          return Types.primitive(PrimitiveTypeName.BOOLEAN, repetition).named(name);
+        case INT:
+          return Types.primitive(PrimitiveTypeName.INT32, repetition).named(name);
+        case DATE:
+          return Types.primitive(PrimitiveTypeName.INT32, repetition).as(OriginalType.DATE).named(name);
+        case TIME_MILLIS:
+          return Types.primitive(PrimitiveTypeName.INT32, repetition).as(OriginalType.TIME_MILLIS).named(name);
+        case LONG:
+          return Types.primitive(PrimitiveTypeName.INT64, repetition).named(name);
+        case TIMESTAMP_MILLIS:
+          return Types.primitive(PrimitiveTypeName.INT64, repetition).as(OriginalType.TIMESTAMP_MILLIS).named(name);
+        case FLOAT:
+          return Types.primitive(PrimitiveTypeName.FLOAT, repetition).named(name);
+        case DOUBLE:
+          return Types.primitive(PrimitiveTypeName.DOUBLE, repetition).named(name);
+        case STRING:
+          return Types.primitive(PrimitiveTypeName.BINARY, repetition).as(OriginalType.UTF8).named(name);
+        case ENUM:
+          return Types.primitive(PrimitiveTypeName.BINARY, repetition).as(OriginalType.ENUM).named(name);
+        case BYTES:
+          return Types.primitive(PrimitiveTypeName.BINARY, repetition).named(name);
+        case DECIMAL:
+          return Types.primitive(PrimitiveTypeName.BINARY, repetition)
+              .as(OriginalType.DECIMAL)
+              .precision(precision)
+              .scale(scale)
+              .named(name);
+        case FIXED:
+          return Types.primitive(PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY, repetition)
+              .length(schema.getFixedSize())
+              .named(name);
+        default:
+          throw new IllegalStateException("Unexpected kind " + kind);
+      }
+    }
+
+    @Override
+    void writeValue(Record record, Field field, String path, RecordConsumer consumer) throws StageException {
+      switch (kind) {
+        case BOOLEAN:
+          boolean booleanValue = field.getValueAsBoolean();
+          if (consumer != null) {
+            consumer.addBoolean(booleanValue);
+          }
+          break;
+        case INT:
+          int intValue = field.getValueAsInteger();
+          if (consumer != null) {
+            consumer.addInteger(intValue);
+          }
+          break;
+        case DATE:
+          int days = AvroTypeUtil.millisToDays(field.getValueAsDate().getTime());
+          if (consumer != null) {
+            consumer.addInteger(days);
+          }
+          break;
+        case TIME_MILLIS:
+          int millis = (int) field.getValueAsTime().getTime();
+          if (consumer != null) {
+            consumer.addInteger(millis);
+          }
+          break;
+        case LONG:
+          long longValue = field.getValueAsLong();
+          if (consumer != null) {
+            consumer.addLong(longValue);
+          }
+          break;
+        case TIMESTAMP_MILLIS:
+          long timestamp = field.getValueAsDatetime().getTime();
+          if (consumer != null) {
+            consumer.addLong(timestamp);
+          }
+          break;
+        case FLOAT:
+          float floatValue = field.getValueAsFloat();
+          if (consumer != null) {
+            consumer.addFloat(floatValue);
+          }
+          break;
+        case DOUBLE:
+          double doubleValue = field.getValueAsDouble();
+          if (consumer != null) {
+            consumer.addDouble(doubleValue);
+          }
+          break;
+        case ENUM:
+          if (!symbols.contains(field.getValueAsString())) {
+            throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, schema.getType(), field.getType());
+          }
+          // fall through
+        case STRING:
+          String stringValue = field.getValueAsString();
+          if (consumer != null) {
+            consumer.addBinary(Binary.fromString(stringValue));
+          }
+          break;
+        case BYTES:
+          byte[] bytes = field.getValueAsByteArray();
+          if (consumer != null) {
+            consumer.addBinary(Binary.fromConstantByteArray(bytes));
+          }
+          break;
+        case DECIMAL:
+          BigDecimal decimal;
+          try {
+            decimal = field.getValueAsDecimal().setScale(scale);
+          } catch (ArithmeticException e) {
+            throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, "logical type: decimal", field.getType(), e);
+          }
+          if (consumer != null) {
+            consumer.addBinary(Binary.fromConstantByteArray(decimal.unscaledValue().toByteArray()));
+          }
+          break;
+        case FIXED:
+          byte[] fixed = field.getValueAsByteArray();
+          if (fixed.length != schema.getFixedSize()) {
+            throw new DataGeneratorException(Errors.AVRO_GENERATOR_05, schema.getType(), field.getType());
+          }
+          if (consumer != null) {
+            consumer.addBinary(Binary.fromConstantByteArray(fixed));
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unexpected kind " + kind);
+      }
+    }
+  }
+}
@@ -24,13 +24,18 @@ import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.el.RecordEL;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.generator.StreamCloseEventHandler;
+import com.streamsets.pipeline.lib.generator.avro.BaseAvroDataGenerator;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.stage.destination.hdfs.IdleClosedException;
 import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
+import org.apache.parquet.hadoop.ParquetWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +70,12 @@ public class RecordWriter {
   private Text key;
   private Text value;
   private boolean seqFile;
+
+  private ParquetWriter<Record> parquetWriter;
+  private ParquetRecordWriteSupport parquetWriteSupport;
+  private boolean parquetSchemaInHeader;
+  private boolean parquetFile;
+
   private boolean idleClosed;
   private Future<Void> currentIdleCloseFuture = null;
   private ActiveRecordWriters writers = null;
@@ -119,6 +130,16 @@ public class RecordWriter {
     this.idleTimeout = idleTimeout;
   }
 
+  public RecordWriter(Path path, long timeToLiveMillis, ParquetWriter<Record> parquetWriter,
+                      ParquetRecordWriteSupport parquetWriteSupport, boolean parquetSchemaInHeader) {
+    this(path, timeToLiveMillis, null);
+    this.parquetWriter = parquetWriter;
+    this.parquetWriteSupport = parquetWriteSupport;
+    this.parquetSchemaInHeader = parquetSchemaInHeader;
+    parquetFile = true;
+    this.idleTimeout = -1L;
+  }
+
   public Path getPath() {
     return path;
   }
@@ -158,6 +179,21 @@ public class RecordWriter {
         dg.close();
         value.set(new String(baos.toByteArray(), StandardCharsets.UTF_8));
         seqWriter.append(key, value);
+      } else if (parquetWriter != null) {
+        if (parquetSchemaInHeader) {
+          String avroSchema = AvroTypeUtil.getAvroSchemaFromHeader(record, BaseAvroDataGenerator.AVRO_SCHEMA_HEADER);
+          if (!avroSchema.equals(parquetWriteSupport.getAvroSchema())) {
+            throw new DataGeneratorException(
+                Errors.AVRO_GENERATOR_04,
+                record.getHeader().getSourceId(),
+                parquetWriteSupport.getAvroSchema(),
+                avroSchema
+            );
+          }
+        }
+        // Nothing is buffered for a record that can't be written
+        parquetWriteSupport.validate(record);
+        parquetWriter.write(record);
       } else {
         throw new IOException(Utils.format("RecordWriter '{}' is closed", path));
       }
@@ -185,6 +221,7 @@ public class RecordWriter {
       } else if (seqWriter != null) {
         seqWriter.hflush();
       }
+      // Nothing to flush for Parquet files, their row groups are written out when full or on close
     } finally {
       // reset this flag so we flush only when there is data.
       batchContainsData = false;
@@ -200,6 +237,9 @@ public class RecordWriter {
       length = textOutputStream.getByteCount();
     } else if (seqWriter != null) {
       length = seqWriter.getLength();
+    } else if (parquetWriter != null) {
+      // includes the row group buffered in memory
+      length = parquetWriter.getDataSize();
     }
     return length;
   }
@@ -226,6 +266,8 @@ public class RecordWriter {
         generator.close();
       } else if (seqWriter != null) {
         seqWriter.close();
+      } else if (parquetWriter != null) {
+        parquetWriter.close();
       }
       this.idleClosed = idleClosed;
       // writers can never be null, except in tests
@@ -235,6 +277,7 @@ public class RecordWriter {
     } finally {
       generator = null;
       seqWriter = null;
+      parquetWriter = null;
       closeLock.writeLock().unlock();
       //Gracefully Shutdown the thread, so rename goes through without glitch.
       idleCloseExecutor.shutdown();
@@ -260,9 +303,17 @@ public class RecordWriter {
     return seqFile;
   }
 
+  public boolean isParquetFile() {
+    return parquetFile;
+  }
+
+  ParquetRecordWriteSupport getParquetWriteSupport() {
+    return parquetWriteSupport;
+  }
+
   public boolean isClosed() {
     closeLock.readLock().lock();
-    boolean isClosed = (generator == null && seqWriter == null);
+    boolean isClosed = (generator == null && seqWriter == null && parquetWriter == null);
     closeLock.readLock().unlock();
     return isClosed;
   }
@@ -31,9 +31,11 @@ import com.streamsets.pipeline.config.WholeFileExistsAction;
 import com.streamsets.pipeline.lib.el.FakeRecordEL;
 import com.streamsets.pipeline.lib.el.TimeEL;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.avro.BaseAvroDataGenerator;
 import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Matcher;
 import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Pattern;
 import com.streamsets.pipeline.lib.hdfs.common.Errors;
+import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.stage.destination.hdfs.HdfsFileType;
 import com.streamsets.pipeline.stage.destination.hdfs.HdfsTarget;
 import com.streamsets.pipeline.stage.destination.hdfs.IdleClosedException;
@@ -44,6 +46,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,6 +83,10 @@ public class RecordWriterManager {
   private DataGeneratorFactory generatorFactory;
   private Target.Context context;
   private long idleTimeoutSeconds = -1L;
+  // null when the Avro schema of the Parquet files comes from the record header
+  private String parquetAvroSchema;
+  private int parquetRowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
+  private CompressionCodecName parquetCompression = CompressionCodecName.UNCOMPRESSED;
   private final boolean rollIfHeader;
   private final String rollHeaderName;
   private final FsHelper fsHelper;
@@ -144,6 +152,18 @@ public class RecordWriterManager {
     this.idleTimeoutSeconds = idleTimeoutSeconds;
   }
 
+  public void setParquetAvroSchema(String parquetAvroSchema) {
+    this.parquetAvroSchema = parquetAvroSchema;
+  }
+
+  public void setParquetRowGroupSize(int parquetRowGroupSize) {
+    this.parquetRowGroupSize = parquetRowGroupSize;
+  }
+
+  public void setParquetCompression(CompressionCodecName parquetCompression) {
+    this.parquetCompression = parquetCompression;
+  }
+
   public long getCutOffMillis() {
     return cutOffMillis;
   }
@@ -167,6 +187,10 @@ public class RecordWriterManager {
     return pathResolver.resolvePath(date, record);
   }
 
+  HdfsFileType getFileType() {
+    return fileType;
+  }
+
   String getExtension() {
     StringBuilder extension = new StringBuilder();
 
@@ -175,7 +199,8 @@ public class RecordWriterManager {
       extension = extension.append(fileNameSuffix);
     }
 
-    if(compressionCodec != null) {
+    // Parquet files are compressed by column chunks, they keep their extension
+    if(compressionCodec != null && fileType != HdfsFileType.PARQUET_FILE) {
       extension.append(compressionCodec.getDefaultExtension());
     }
     return extension.toString();
@@ -241,6 +266,11 @@ public class RecordWriterManager {
   }
 
   RecordWriter createWriter(FileSystem fs, Path path, long timeToLiveMillis) throws StageException, IOException {
+    return createWriter(fs, path, timeToLiveMillis, null);
+  }
+
+  RecordWriter createWriter(FileSystem fs, Path path, long timeToLiveMillis, Record record)
+      throws StageException, IOException {
     switch (fileType) {
       case WHOLE_FILE:
         OutputStream wholeFileOs = fsHelper.create(fs, path);
@@ -280,6 +310,26 @@ public class RecordWriterManager {
           throw new StageException(Errors.HADOOPFS_46, compressionType.name(), unsatisfiedLinkError,
             unsatisfiedLinkError);
         }
+      case PARQUET_FILE:
+        boolean schemaInHeader = parquetAvroSchema == null;
+        ParquetRecordWriteSupport writeSupport = new ParquetRecordWriteSupport(
+            schemaInHeader
+                ? AvroTypeUtil.getAvroSchemaFromHeader(record, BaseAvroDataGenerator.AVRO_SCHEMA_HEADER)
+                : parquetAvroSchema
+        );
+        // The row group is buffered in memory until it is full, which bounds the memory used by each open file
+        ParquetWriter<Record> parquetWriter =
+            new ParquetRecordWriteSupport.Builder(fs.makeQualified(path), writeSupport)
+                .withConf(hdfsConf)
+                .withCompressionCodec(parquetCompression)
+                .withRowGroupSize(parquetRowGroupSize)
+                .build();
+        RecordWriter parquetRecordWriter =
+            new RecordWriter(path, timeToLiveMillis, parquetWriter, writeSupport, schemaInHeader);
+        if (idleTimeoutSeconds != -1) {
+          parquetRecordWriter.setIdleTimeout(idleTimeoutSeconds);
+        }
+        return parquetRecordWriter;
       default:
         throw new UnsupportedOperationException(Utils.format("Unsupported file Type '{}'", fileType));
     }
@@ -294,7 +344,7 @@ public class RecordWriterManager {
         fsHelper.handleAlreadyExistingFile(fs, tempPath);
       }
       LOG.debug("Path[{}] - Create writer,  time to live '{}ms'", tempPath, writerTimeToLive);
-      writer = createWriter(fs, tempPath, writerTimeToLive);
+      writer = createWriter(fs, tempPath, writerTimeToLive, record);
     } else {
       LOG.warn("Path[{}] - Cannot not create writer, requested date already cut off", tempPath);
     }
@@ -379,6 +429,18 @@ public class RecordWriterManager {
       LOG.debug("Path[{}] - will be rolled because of roll attribute '{}' set to '{}' in the record : '{}'", writer.getPath(), rollHeaderName, record.getHeader().getAttribute(rollHeaderName), record.getHeader().getSourceId());
       return true;
     }
+    if (writer.isParquetFile() && parquetAvroSchema == null) {
+      // A Parquet file has a single schema, a record with another schema in its header goes to a new file
+      String avroSchema = record.getHeader().getAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER);
+      if (avroSchema != null && !avroSchema.equals(writer.getParquetWriteSupport().getAvroSchema())) {
+        LOG.debug(
+            "Path[{}] - will be rolled because the record '{}' has a different Avro schema",
+            writer.getPath(),
+            record.getHeader().getSourceId()
+        );
+        return true;
+      }
+    }
     return false;
   }
 
@@ -45,6 +45,11 @@ import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
 @ConfigGroups(Groups.class)
 @HideConfigs(value = {
     "conf.allowLateDirectory",
+    "conf.incrementalDiscovery",
+    "conf.reconciliationPeriod",
+    "conf.discoveryIndexDir",
+    "conf.splitLargeFiles",
+    "conf.splitSizeMB",
     "conf.dataFormatConfig.verifyChecksum",
     "conf.dataFormatConfig.avroSchemaSource"
 })
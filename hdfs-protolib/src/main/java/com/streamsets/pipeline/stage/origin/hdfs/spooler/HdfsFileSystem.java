@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.origin.hdfs.spooler;
 
+import com.streamsets.pipeline.lib.dirspooler.DirectoryWatcher;
 import com.streamsets.pipeline.lib.dirspooler.PathMatcherMode;
 import com.streamsets.pipeline.lib.io.fileref.AbstractSpoolerFileRef;
 import com.streamsets.pipeline.lib.dirspooler.WrappedFile;
@@ -320,6 +321,11 @@ public class HdfsFileSystem implements WrappedFileSystem {
     return true;
   }
 
+  public DirectoryWatcher watchDirectories(List<WrappedFile> dirPaths, boolean recursive) {
+    // HDFS does not support watching directories, the dirspooler falls back to scanning them
+    return null;
+  }
+
   public AbstractSpoolerFileRef.Builder getFileRefBuilder() {
     return new HdfsFileRef.Builder().fileSystem(fs);
   }
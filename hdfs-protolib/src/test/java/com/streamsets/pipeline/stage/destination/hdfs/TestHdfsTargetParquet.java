@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.hdfs;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.config.AvroCompression;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.config.DestinationAvroSchemaSource;
+import com.streamsets.pipeline.lib.hdfs.common.Errors;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import com.streamsets.pipeline.sdk.TargetRunner;
+import com.streamsets.pipeline.stage.destination.hdfs.util.HdfsTargetUtil;
+import com.streamsets.pipeline.stage.destination.lib.DataGeneratorFormatConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public class TestHdfsTargetParquet {
+
+  private static final String AVRO_SCHEMA = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+      "{\"name\": \"name\", \"type\": \"string\"}," +
+      "{\"name\": \"age\", \"type\": [\"null\", \"int\"]}" +
+      "]}";
+
+  private String testDir;
+
+  @Before
+  public void setUp() {
+    File dir = new File("target", UUID.randomUUID().toString()).getAbsoluteFile();
+    Assert.assertTrue(dir.mkdirs());
+    testDir = dir.getAbsolutePath();
+  }
+
+  private static DataGeneratorFormatConfig createAvroConfig(String avroSchema) {
+    DataGeneratorFormatConfig dataGeneratorFormatConfig = new DataGeneratorFormatConfig();
+    dataGeneratorFormatConfig.avroSchema = avroSchema;
+    dataGeneratorFormatConfig.avroCompression = AvroCompression.NULL;
+    dataGeneratorFormatConfig.avroSchemaSource = DestinationAvroSchemaSource.INLINE;
+    return dataGeneratorFormatConfig;
+  }
+
+  private HdfsTargetUtil.Builder parquetTargetBuilder(DataGeneratorFormatConfig dataGeneratorFormatConfig) {
+    return HdfsTargetUtil.newBuilder()
+        .dirPathTemplate(testDir + "/hdfs/")
+        .fileType(HdfsFileType.PARQUET_FILE)
+        .dataForamt(DataFormat.AVRO)
+        .dataGeneratorFormatConfig(dataGeneratorFormatConfig);
+  }
+
+  private static List<Stage.ConfigIssue> validate(HdfsTarget hdfsTarget) throws Exception {
+    TargetRunner runner = new TargetRunner.Builder(HdfsDTarget.class, hdfsTarget)
+        .setOnRecordError(OnRecordError.STOP_PIPELINE)
+        .build();
+    return runner.runValidateConfigs();
+  }
+
+  private static boolean containsIssue(List<Stage.ConfigIssue> issues, Errors error) {
+    for (Stage.ConfigIssue issue : issues) {
+      if (issue.toString().contains(error.name())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testValidConfigs() throws Exception {
+    Assert.assertTrue(validate(parquetTargetBuilder(createAvroConfig(AVRO_SCHEMA)).build()).isEmpty());
+  }
+
+  @Test
+  public void testInvalidDataFormat() throws Exception {
+    HdfsTarget hdfsTarget = parquetTargetBuilder(createAvroConfig(AVRO_SCHEMA))
+        .dataForamt(DataFormat.SDC_JSON)
+        .build();
+    List<Stage.ConfigIssue> issues = validate(hdfsTarget);
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(containsIssue(issues, Errors.HADOOPFS_60));
+  }
+
+  @Test
+  public void testUnsupportedAvroSchema() throws Exception {
+    // only the nullable unions have a Parquet equivalent
+    String avroSchema = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+        "{\"name\": \"id\", \"type\": [\"int\", \"string\"]}" +
+        "]}";
+    List<Stage.ConfigIssue> issues = validate(parquetTargetBuilder(createAvroConfig(avroSchema)).build());
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(containsIssue(issues, Errors.HADOOPFS_63));
+  }
+
+  @Test
+  public void testUnsupportedAvroSchemaSource() throws Exception {
+    DataGeneratorFormatConfig dataGeneratorFormatConfig = createAvroConfig(null);
+    dataGeneratorFormatConfig.avroSchemaSource = DestinationAvroSchemaSource.REGISTRY;
+    List<Stage.ConfigIssue> issues = validate(parquetTargetBuilder(dataGeneratorFormatConfig).build());
+    Assert.assertTrue(containsIssue(issues, Errors.HADOOPFS_64));
+  }
+
+  @Test
+  public void testUnsupportedCompression() throws Exception {
+    HdfsTarget hdfsTarget = parquetTargetBuilder(createAvroConfig(AVRO_SCHEMA))
+        .compression(CompressionMode.BZIP2)
+        .build();
+    List<Stage.ConfigIssue> issues = validate(hdfsTarget);
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(containsIssue(issues, Errors.HADOOPFS_65));
+  }
+
+  @Test
+  public void testWriteParquetFiles() throws Exception {
+    HdfsTarget hdfsTarget = parquetTargetBuilder(createAvroConfig(AVRO_SCHEMA))
+        .compression(CompressionMode.GZIP)
+        .maxRecordsPerFile(2)
+        .build();
+    TargetRunner runner = new TargetRunner.Builder(HdfsDTarget.class, hdfsTarget)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+    runner.runInit();
+
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Map<String, Field> map = new LinkedHashMap<>();
+      map.put("name", Field.create("a" + i));
+      map.put("age", Field.create(i));
+      Record record = RecordCreator.create();
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    // not in the schema, goes to error without breaking the file
+    Record invalid = RecordCreator.create();
+    invalid.set(Field.create(new LinkedHashMap<String, Field>()));
+    records.add(2, invalid);
+
+    runner.runWrite(records);
+    Assert.assertEquals(1, runner.getErrorRecords().size());
+    runner.runDestroy();
+
+    // the files roll every 2 records and are readable once closed
+    File[] files = new File(testDir, "hdfs").listFiles((dir, name) -> name.startsWith("foo"));
+    Assert.assertNotNull(files);
+    Assert.assertEquals(3, files.length);
+    Set<String> names = new HashSet<>();
+    for (File file : files) {
+      try (ParquetReader<Group> reader = ParquetReader.builder(
+          new GroupReadSupport(),
+          new Path(file.getAbsolutePath())
+      ).withConf(new Configuration()).build()) {
+        Group group;
+        while ((group = reader.read()) != null) {
+          names.add(group.getString("name", 0));
+        }
+      }
+    }
+    Assert.assertEquals(new HashSet<>(Arrays.asList("a0", "a1", "a2", "a3", "a4")), names);
+  }
+}
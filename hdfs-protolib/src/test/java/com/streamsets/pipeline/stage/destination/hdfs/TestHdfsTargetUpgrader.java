@@ -210,4 +210,32 @@ public class TestHdfsTargetUpgrader {
     Assert.assertTrue(configValues.containsKey("hdfsTargetConfigBean.rollHeaderName"));
     Assert.assertEquals("roll", configValues.get("hdfsTargetConfigBean.rollHeaderName"));
   }
+
+  @Test
+  public void testUpgradeV4ToV5() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    HdfsTargetUpgrader hdfsTargetUpgrader = new HdfsTargetUpgrader();
+    hdfsTargetUpgrader.upgrade("a", "b", "c", 4, 5, configs);
+
+    Assert.assertEquals(1, configs.size());
+    Assert.assertEquals("hdfsTargetConfigBean.parquetRowGroupSize", configs.get(0).getName());
+    Assert.assertEquals(32, configs.get(0).getValue());
+  }
+
+  @Test
+  public void testUpgradeV3ToV5() throws StageException {
+    List<Config> configs = new ArrayList<>();
+    configs.add(new Config("hdfsTargetConfigBean.dataGeneratorFormatConfig.avroSchema", "hello!!"));
+
+    HdfsTargetUpgrader hdfsTargetUpgrader = new HdfsTargetUpgrader();
+    hdfsTargetUpgrader.upgrade("a", "b", "c", 3, 5, configs);
+
+    HashMap<String, Object> configValues = new HashMap<>();
+    for(Config c : configs) {
+      configValues.put(c.getName(), c.getValue());
+    }
+    Assert.assertEquals("INLINE", configValues.get("hdfsTargetConfigBean.dataGeneratorFormatConfig.avroSchemaSource"));
+    Assert.assertEquals(32, configValues.get("hdfsTargetConfigBean.parquetRowGroupSize"));
+  }
 }
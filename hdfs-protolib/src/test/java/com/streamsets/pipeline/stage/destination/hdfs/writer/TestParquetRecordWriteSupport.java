@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.hdfs.writer;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class TestParquetRecordWriteSupport {
+
+  private static final String AVRO_SCHEMA = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+      "{\"name\": \"name\", \"type\": \"string\"}," +
+      "{\"name\": \"age\", \"type\": [\"null\", \"int\"]}," +
+      "{\"name\": \"dept\", \"type\": \"string\", \"default\": \"none\"}," +
+      "{\"name\": \"level\", \"type\": [\"int\", \"null\"], \"default\": 1}" +
+      "]}";
+
+  private static Record createRecord(Map<String, Field> map) {
+    Record record = RecordCreator.create();
+    record.set(Field.create(map));
+    return record;
+  }
+
+  private static Map<String, Field> createFields() {
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("name", Field.create("a"));
+    map.put("age", Field.create(42));
+    map.put("dept", Field.create("sales"));
+    map.put("level", Field.create(3));
+    return map;
+  }
+
+  private static void assertInvalid(Record record, Errors error) throws Exception {
+    try {
+      new ParquetRecordWriteSupport(AVRO_SCHEMA).validate(record);
+      Assert.fail("Expected " + error);
+    } catch (DataGeneratorException ex) {
+      Assert.assertEquals(error, ex.getErrorCode());
+    }
+  }
+
+  @Test
+  public void testNullValuesGetDefaults() throws Exception {
+    Map<String, Field> map = createFields();
+    map.put("age", Field.create(Field.Type.INTEGER, null));
+    map.put("dept", Field.create(Field.Type.STRING, null));
+    map.put("level", Field.create(Field.Type.INTEGER, null));
+    Record record = createRecord(map);
+
+    ParquetRecordWriteSupport writeSupport = new ParquetRecordWriteSupport(AVRO_SCHEMA);
+    writeSupport.validate(record);
+
+    File file = new File("target", UUID.randomUUID().toString() + ".parquet").getAbsoluteFile();
+    try (ParquetWriter<Record> writer = new ParquetRecordWriteSupport.Builder(
+        new Path(file.getAbsolutePath()),
+        writeSupport
+    ).withConf(new Configuration()).build()) {
+      writer.write(record);
+    }
+
+    try (ParquetReader<Group> reader = ParquetReader.builder(
+        new GroupReadSupport(),
+        new Path(file.getAbsolutePath())
+    ).withConf(new Configuration()).build()) {
+      Group group = reader.read();
+      Assert.assertEquals("a", group.getString("name", 0));
+      // optional field without default stays null
+      Assert.assertEquals(0, group.getFieldRepetitionCount("age"));
+      Assert.assertEquals("none", group.getString("dept", 0));
+      Assert.assertEquals(1, group.getInteger("level", 0));
+      Assert.assertNull(reader.read());
+    }
+  }
+
+  @Test
+  public void testRequiredNullValue() throws Exception {
+    Map<String, Field> map = createFields();
+    map.put("name", Field.create(Field.Type.STRING, null));
+    assertInvalid(createRecord(map), Errors.AVRO_GENERATOR_01);
+  }
+
+  @Test
+  public void testMissingFields() throws Exception {
+    // missing fields with a default are fine
+    Map<String, Field> map = createFields();
+    map.remove("dept");
+    map.remove("level");
+    new ParquetRecordWriteSupport(AVRO_SCHEMA).validate(createRecord(map));
+
+    // required field without default
+    map = createFields();
+    map.remove("name");
+    assertInvalid(createRecord(map), Errors.AVRO_GENERATOR_00);
+
+    // even optional fields must have a default when they are missing
+    map = createFields();
+    map.remove("age");
+    assertInvalid(createRecord(map), Errors.AVRO_GENERATOR_00);
+  }
+}
@@ -25,6 +25,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.avro.BaseAvroDataGenerator;
 import com.streamsets.pipeline.sdk.ContextInfoCreator;
 import com.streamsets.pipeline.sdk.RecordCreator;
 import com.streamsets.pipeline.stage.destination.hdfs.HdfsDTarget;
@@ -39,6 +40,10 @@ import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -405,6 +410,233 @@ public class TestRecordWriterManager {
     Assert.assertTrue("Path should not start with '_'", !finalPath.toString().startsWith("_"));
   }
 
+  private static final String PARQUET_AVRO_SCHEMA = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+      "{\"name\": \"name\", \"type\": \"string\"}," +
+      "{\"name\": \"age\", \"type\": [\"null\", \"int\"]}" +
+      "]}";
+
+  private RecordWriterManagerTestBuilder parquetManagerBuilder() throws URISyntaxException {
+    // each test gets its own directory, the temporary file name is the same for all the managers
+    return managerBuilder()
+      .dirPathTemplate(getTestDir().toString() + "/" + UUID.randomUUID().toString())
+      .fileType(HdfsFileType.PARQUET_FILE);
+  }
+
+  private static Record createParquetRecord(int i) {
+    Map<String, Field> map = new HashMap<>();
+    map.put("name", Field.create("a" + i));
+    map.put("age", Field.create(Field.Type.INTEGER, i == 0 ? 42 : null));
+    Record record = RecordCreator.create();
+    record.set(Field.create(map));
+    return record;
+  }
+
+  private int countParquetRecords(Path path) throws IOException {
+    int count = 0;
+    try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), path).withConf(hdfsConf).build()) {
+      while (reader.read() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private FileStatus[] getCommittedFiles(FileSystem fs, RecordWriterManager mgr, Date date) throws Exception {
+    return fs.globStatus(new Path(mgr.getDirPath(date), "prefix_*"));
+  }
+
+  @Test
+  public void testParquetFile() throws Exception {
+    RecordWriterManager mgr = managerBuilder()
+      .dirPathTemplate(getTestDir().toString() + "/${YYYY()}")
+      .fileType(HdfsFileType.PARQUET_FILE)
+      .build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+
+    FileSystem fs = FileSystem.get(uri, hdfsConf);
+    Path file = new Path(getTestDir(), UUID.randomUUID().toString());
+    RecordWriter writer = mgr.createWriter(fs, file, 50000);
+    Assert.assertTrue(writer.isParquetFile());
+    Assert.assertFalse(writer.isTextFile());
+    for (int i = 0; i < 2; i++) {
+      writer.write(createParquetRecord(i));
+    }
+    Assert.assertEquals(2, writer.getRecords());
+
+    // a record that does not match the schema is rejected and the file is still readable
+    Record invalid = RecordCreator.create();
+    invalid.set(Field.create(new HashMap<String, Field>()));
+    try {
+      writer.write(invalid);
+      Assert.fail();
+    } catch (DataGeneratorException ex) {
+      // expected
+    }
+    writer.close();
+
+    ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), file).withConf(hdfsConf).build();
+    Group group = reader.read();
+    Assert.assertEquals("a0", group.getString("name", 0));
+    Assert.assertEquals(42, group.getInteger("age", 0));
+    group = reader.read();
+    Assert.assertEquals("a1", group.getString("name", 0));
+    Assert.assertEquals(0, group.getFieldRepetitionCount("age"));
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testParquetThresholdRecords() throws Exception {
+    RecordWriterManager mgr = parquetManagerBuilder()
+      .cutOffRecords(2)
+      .cutOffSizeBytes(0)
+      .build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+
+    Date now = getFixedDate();
+    RecordWriter writer = mgr.getWriter(now, now, createParquetRecord(0));
+    Assert.assertNotNull(writer);
+    for (int i = 0; i < 2; i++) {
+      Assert.assertFalse(mgr.isOverThresholds(writer));
+      writer.write(createParquetRecord(i));
+      writer.flush();
+    }
+    Assert.assertTrue(mgr.isOverThresholds(writer));
+    Path path = mgr.commitWriter(writer);
+    Assert.assertEquals(2, countParquetRecords(path));
+  }
+
+  @Test
+  public void testParquetThresholdSize() throws Exception {
+    RecordWriterManager mgr = parquetManagerBuilder()
+      .cutOffRecords(0)
+      .cutOffSizeBytes(1024)
+      .build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+
+    Date now = getFixedDate();
+    RecordWriter writer = mgr.getWriter(now, now, createParquetRecord(0));
+    Assert.assertNotNull(writer);
+    Assert.assertFalse(mgr.isOverThresholds(writer));
+    // the size includes the row group buffered in memory, so the file rolls before any row group is written out
+    int records = 0;
+    while (!mgr.isOverThresholds(writer) && records < 10000) {
+      writer.write(createParquetRecord(records++));
+      writer.flush();
+    }
+    Assert.assertTrue(mgr.isOverThresholds(writer));
+    Assert.assertTrue(records > 1);
+    Assert.assertTrue(writer.getLength() >= 1024);
+    Path path = mgr.commitWriter(writer);
+    Assert.assertEquals(records, countParquetRecords(path));
+  }
+
+  @Test
+  public void testParquetIdleTimeout() throws Exception {
+    RecordWriterManager mgr = parquetManagerBuilder().build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+    mgr.setIdleTimeoutSeconds(1);
+
+    Date now = getFixedDate();
+    RecordWriter writer = mgr.getWriter(now, now, createParquetRecord(0));
+    writer.write(createParquetRecord(0));
+    writer.flush();
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!writer.isIdleClosed() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    Assert.assertTrue(writer.isIdleClosed());
+    Assert.assertTrue(writer.isClosed());
+
+    // the idle closed file has its footer and is committed
+    Path path = mgr.commitWriter(writer);
+    Assert.assertNotNull(path);
+    Assert.assertEquals(1, countParquetRecords(path));
+  }
+
+  @Test
+  public void testParquetShouldRollOnSchemaChange() throws Exception {
+    // the Avro schema comes from the record header
+    RecordWriterManager mgr = parquetManagerBuilder().build();
+
+    String otherSchema = "{\"type\": \"record\", \"name\": \"Employee\", \"fields\": [" +
+        "{\"name\": \"name\", \"type\": \"string\"}" +
+        "]}";
+    Record record = createParquetRecord(0);
+    record.getHeader().setAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER, PARQUET_AVRO_SCHEMA);
+    Record sameSchemaRecord = createParquetRecord(1);
+    sameSchemaRecord.getHeader().setAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER, PARQUET_AVRO_SCHEMA);
+    Record otherSchemaRecord = createParquetRecord(2);
+    otherSchemaRecord.getHeader().setAttribute(BaseAvroDataGenerator.AVRO_SCHEMA_HEADER, otherSchema);
+
+    Date now = getFixedDate();
+    RecordWriter writer = mgr.getWriter(now, now, record);
+    Assert.assertFalse(mgr.shouldRoll(writer, record));
+    writer.write(record);
+    Assert.assertFalse(mgr.shouldRoll(writer, sameSchemaRecord));
+    writer.write(sameSchemaRecord);
+    Assert.assertTrue(mgr.shouldRoll(writer, otherSchemaRecord));
+    try {
+      writer.write(otherSchemaRecord);
+      Assert.fail();
+    } catch (DataGeneratorException ex) {
+      // expected
+    }
+    Path path = mgr.commitWriter(writer);
+    Assert.assertEquals(2, countParquetRecords(path));
+
+    // a manager with an inline schema does not roll on the record header
+    mgr = parquetManagerBuilder().build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+    writer = mgr.getWriter(now, now, record);
+    Assert.assertFalse(mgr.shouldRoll(writer, otherSchemaRecord));
+    mgr.commitWriter(writer);
+  }
+
+  private static void createIncompleteParquetFile(FileSystem fs, Path path) throws IOException {
+    // what a Parquet writer leaves behind before it is closed: the magic number and no footer
+    try (OutputStream os = fs.create(path, false)) {
+      os.write(ParquetFileWriter.MAGIC);
+      os.write(new byte[16]);
+    }
+  }
+
+  @Test
+  public void testParquetAlreadyExistingFiles() throws Exception {
+    RecordWriterManager mgr = parquetManagerBuilder().build();
+    mgr.setParquetAvroSchema(PARQUET_AVRO_SCHEMA);
+
+    FileSystem fs = FileSystem.get(uri, hdfsConf);
+    Date now = getFixedDate();
+    Record record = createParquetRecord(0);
+    Path tempPath = mgr.getPath(now, record);
+
+    // a closed file that was not renamed is committed
+    RecordWriter writer = mgr.createWriter(fs, tempPath, Long.MAX_VALUE);
+    writer.write(record);
+    writer.close();
+    Assert.assertEquals(1, mgr.handleAlreadyExistingFiles());
+    Assert.assertFalse(fs.exists(tempPath));
+    FileStatus[] committed = getCommittedFiles(fs, mgr, now);
+    Assert.assertEquals(1, committed.length);
+    Assert.assertEquals(1, countParquetRecords(committed[0].getPath()));
+
+    // a file without footer can't be read, it is deleted instead of being committed
+    createIncompleteParquetFile(fs, tempPath);
+    Assert.assertEquals(1, mgr.handleAlreadyExistingFiles());
+    Assert.assertFalse(fs.exists(tempPath));
+    Assert.assertEquals(1, getCommittedFiles(fs, mgr, now).length);
+
+    // same when the file is found while creating a new writer
+    createIncompleteParquetFile(fs, tempPath);
+    writer = mgr.getWriter(now, now, record);
+    writer.write(record);
+    Path path = mgr.commitWriter(writer);
+    Assert.assertEquals(2, getCommittedFiles(fs, mgr, now).length);
+    Assert.assertEquals(1, countParquetRecords(path));
+  }
+
   @Test
   public void testThresholdRecords() throws Exception {
     RecordWriterManager mgr = managerBuilder()
@@ -652,23 +652,7 @@ public final class HiveMetastoreUtil {
       if (StringUtils.isEmpty(pair.getKey())) {
         throw new HiveStageCheckedException(Errors.HIVE_01, "Field name is empty");
       }
-      Field currField = pair.getValue();
-      switch(currField.getType()) {
-        case SHORT:
-          currField = Field.create(Field.Type.INTEGER, currField.getValue());
-          break;
-        case CHAR:
-          currField = Field.create(currField.getValueAsString());
-          break;
-        case DATETIME:
-          currField = Field.create(Field.Type.STRING, currField.getValue() == null ? null : datetimeFormat.get().format(currField.getValueAsDate()));
-          break;
-        case TIME:
-          currField = Field.create(Field.Type.STRING, currField.getValue() == null ? null : timeFormat.get().format(currField.getValueAsTime()));
-          break;
-        default:
-          break;
-      }
+      Field currField = convertFieldToHMSType(pair.getValue());
 
       // Set current field in the context - used by subsequent ELs (decimal resolution, comments, ...)
       FieldPathEL.setFieldInContext(variables, pair.getKey());
@@ -700,6 +684,38 @@ public final class HiveMetastoreUtil {
     return columns;
   }
 
+  /**
+   * Converts the fields of the types Hive has no column type for to the type they are stored as.
+   */
+  private static Field convertFieldToHMSType(Field field) {
+    switch(field.getType()) {
+      case SHORT:
+        return Field.create(Field.Type.INTEGER, field.getValue());
+      case CHAR:
+        return Field.create(field.getValueAsString());
+      case DATETIME:
+        return Field.create(Field.Type.STRING, field.getValue() == null ? null : datetimeFormat.get().format(field.getValueAsDate()));
+      case TIME:
+        return Field.create(Field.Type.STRING, field.getValue() == null ? null : timeFormat.get().format(field.getValueAsTime()));
+      default:
+        return field;
+    }
+  }
+
+  /**
+   * Converts the values of the record like {@link #convertRecordToHMSType} does, without computing the Hive types.
+   * The record must contain no decimal fields, their values depend on the resolved scale.
+   */
+  public static void convertRecordValuesToHMSType(Record record) {
+    for(Map.Entry<String, Field> pair : record.get().getValueAsMap().entrySet()) {
+      Field currField = pair.getValue();
+      Field converted = convertFieldToHMSType(currField);
+      if (converted != currField) {
+        pair.setValue(converted);
+      }
+    }
+  }
+
   /**
    * Checks if partition value contains unsupported character.
    * @param value String to check
@@ -118,6 +118,9 @@ public class HiveMetadataProcessor extends RecordProcessor {
   // The HMS cache is holding all info about tables
   private HMSCache cache;
 
+  // Shapes of the records already checked against their table, null when the comments are resolved per record
+  private RecordShapeCache recordShapes;
+
   private ErrorRecordHandler errorRecordHandler;
   private HiveMetadataProcessorELEvals elEvals = new HiveMetadataProcessorELEvals();
   private HiveQueryExecutor queryExecutor;
@@ -272,6 +275,10 @@ public class HiveMetadataProcessor extends RecordProcessor {
           }
         }
 
+        if (commentExpression == null || !commentExpression.contains("${")) {
+          recordShapes = new RecordShapeCache();
+        }
+
         databaseCache = CacheBuilder
           .newBuilder()
           .maximumSize(50)
@@ -405,20 +412,43 @@ public class HiveMetadataProcessor extends RecordProcessor {
         throw new HiveStageCheckedException(Errors.HIVE_METADATA_02, targetPath);
       }
 
+      // Records with the same shape as a record already checked against the cached table have the same Hive
+      // types, so they skip the type resolution and the diff with the table
+      TypeInfoCacheSupport.TypeInfo knownTableCache = null;
+      if (recordShapes != null) {
+        knownTableCache = cache.getIfPresent(HMSCacheType.TYPE_INFO, qualifiedName);
+        if (knownTableCache == null
+            || cache.getIfPresent(HMSCacheType.AVRO_SCHEMA_INFO, qualifiedName) == null
+            || !recordShapes.contains(qualifiedName, knownTableCache, record.get())) {
+          knownTableCache = null;
+        }
+      }
+
+      LinkedHashMap<String, HiveTypeInfo> recordStructure = null;
+      RecordShapeCache.Shape recordShape = null;
+      if (knownTableCache != null) {
+        HiveMetastoreUtil.convertRecordValuesToHMSType(record);
+      } else {
+        if (recordShapes != null) {
+          // Shape before the conversion to Hive types, the one the next records will be compared with
+          recordShape = RecordShapeCache.shapeOf(record.get());
+        }
+
         // Obtain the record structure from current record
-      LinkedHashMap<String, HiveTypeInfo> recordStructure = HiveMetastoreUtil.convertRecordToHMSType(
-          record,
-          elEvals.scaleEL,
-          elEvals.precisionEL,
-          elEvals.commentEL,
-          decimalDefaultsConfig.scaleExpression,
-          decimalDefaultsConfig.precisionExpression,
-          commentExpression,
-          variables
-      );
+        recordStructure = HiveMetastoreUtil.convertRecordToHMSType(
+            record,
+            elEvals.scaleEL,
+            elEvals.precisionEL,
+            elEvals.commentEL,
+            decimalDefaultsConfig.scaleExpression,
+            decimalDefaultsConfig.precisionExpression,
+            commentExpression,
+            variables
+        );
 
-      if (recordStructure.isEmpty()) {  // If record has no data to process, No-op
-        return;
+        if (recordStructure.isEmpty()) {  // If record has no data to process, No-op
+          return;
+        }
       }
 
       TBLPropertiesInfoCacheSupport.TBLPropertiesInfo tblPropertiesInfo = HiveMetastoreUtil.getCacheInfo(
@@ -448,6 +478,21 @@ public class HiveMetadataProcessor extends RecordProcessor {
           queryExecutor
       );
 
+      if (knownTableCache != null && knownTableCache != tableCache) {
+        // The table info was reloaded in the meantime, resolve the types of the already converted record again
+        knownTableCache = null;
+        recordStructure = HiveMetastoreUtil.convertRecordToHMSType(
+            record,
+            elEvals.scaleEL,
+            elEvals.precisionEL,
+            elEvals.commentEL,
+            decimalDefaultsConfig.scaleExpression,
+            decimalDefaultsConfig.precisionExpression,
+            commentExpression,
+            variables
+        );
+      }
+
       if (tableCache != null) {
         //Checks number and name of partitions.
         HiveMetastoreUtil.validatePartitionInformation(tableCache, partitionValMap, qualifiedName);
@@ -468,12 +513,14 @@ public class HiveMetadataProcessor extends RecordProcessor {
           }
         }
         // Validate that the columns from record itself does not clash with partition columns
-        for(String columnName : recordStructure.keySet()) {
-          if(cachedPartitionTypeInfoMap.containsKey(columnName)) {
-             throw new HiveStageCheckedException(
-                com.streamsets.pipeline.stage.lib.hive.Errors.HIVE_40,
-                columnName
-            );
+        if (recordStructure != null) {
+          for(String columnName : recordStructure.keySet()) {
+            if(cachedPartitionTypeInfoMap.containsKey(columnName)) {
+               throw new HiveStageCheckedException(
+                  com.streamsets.pipeline.stage.lib.hive.Errors.HIVE_40,
+                  columnName
+              );
+            }
           }
         }
       }
@@ -490,13 +537,19 @@ public class HiveMetadataProcessor extends RecordProcessor {
 
       // Build final structure of how the table should look like
       LinkedHashMap<String, HiveTypeInfo> finalStructure;
-      if(tableCache != null) {
+      if (knownTableCache != null && schemaCache != null) {
+        // Known shape, the table already has all the columns of the record and its avro schema is cached
+        finalStructure = null;
+      } else if(tableCache != null) {
         // Table already exists in Hive - so it's columns will be preserved and in their original order
         finalStructure = new LinkedHashMap<>();
         finalStructure.putAll(tableCache.getColumnTypeInfo());
 
         // If there is any diff (any new columns), we will append them at the end of the table
-        LinkedHashMap<String, HiveTypeInfo> columnDiff = tableCache.getDiff(recordStructure);
+        // (a record of known shape has no diff, but the avro schema has to be generated again)
+        LinkedHashMap<String, HiveTypeInfo> columnDiff = recordStructure == null
+            ? new LinkedHashMap<String, HiveTypeInfo>()
+            : tableCache.getDiff(recordStructure);
         if(!columnDiff.isEmpty()) {
           LOG.trace("Detected drift for table {} - new columns: {}", qualifiedName, StringUtils.join(columnDiff.keySet(), ","));
           schemaDrift = true;
@@ -510,7 +563,9 @@ public class HiveMetadataProcessor extends RecordProcessor {
       }
 
       // Generate schema only if the table do not exist or it's schema is changed.
-      if (schemaDrift) {
+      if (finalStructure == null) {
+        avroSchema = schemaCache.getSchema();
+      } else if (schemaDrift) {
         avroSchema = HiveMetastoreUtil.generateAvroSchema(finalStructure, qualifiedName);
         LOG.trace("Schema Drift. Generated new Avro schema for table {}: {}", qualifiedName, avroSchema);
 
@@ -526,8 +581,12 @@ public class HiveMetadataProcessor extends RecordProcessor {
           avroSchema = HiveMetastoreUtil.generateAvroSchema(finalStructure, qualifiedName);
           LOG.trace("Cold Start. Generated new Avro schema for table {}: {}", qualifiedName, avroSchema);
           updateAvroCache(schemaCache, avroSchema, qualifiedName);
-        } else  // No schema change, table already exists in Hive, and we have avro schema in cache.
+        } else { // No schema change, table already exists in Hive, and we have avro schema in cache.
           avroSchema = schemaCache.getSchema();
+          if (recordShape != null) {
+            recordShapes.add(qualifiedName, tableCache, recordShape);
+          }
+        }
       }
 
       if (partitioned) {
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.hive;
+
+import com.streamsets.pipeline.api.Field;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shapes (root field names and types) of the records that were already checked against a table without drift.
+ *
+ * The Hive types of a record only depend on its shape, as long as it has no decimal fields (their precision and scale
+ * are resolved for each record), so the records with a known shape can skip the conversion to Hive types, the diff
+ * with the table and the schema generation. The shapes of a table are dropped when its cached table info changes.
+ */
+class RecordShapeCache {
+  private static final int MAX_TABLES = 1000;
+  private static final int MAX_SHAPES_PER_TABLE = 100;
+
+  private final Map<String, TableShapes> tables = new LinkedHashMap<String, TableShapes>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, TableShapes> eldest) {
+      return size() > MAX_TABLES;
+    }
+  };
+
+  private static class TableShapes {
+    private final Object tableInfo;
+    private final Map<Long, Shape> shapes = new HashMap<>();
+
+    private TableShapes(Object tableInfo) {
+      this.tableInfo = tableInfo;
+    }
+  }
+
+  /**
+   * Field names and types of the root of a record, in order.
+   */
+  static final class Shape {
+    private final String[] names;
+    private final Field.Type[] types;
+    private final long fingerprint;
+
+    private Shape(Map<String, Field> fields) {
+      names = new String[fields.size()];
+      types = new Field.Type[fields.size()];
+      int i = 0;
+      for (Map.Entry<String, Field> entry : fields.entrySet()) {
+        names[i] = entry.getKey();
+        types[i] = entry.getValue().getType();
+        i++;
+      }
+      fingerprint = fingerprint(fields);
+    }
+
+    private boolean matches(Map<String, Field> fields) {
+      if (fields.size() != names.length) {
+        return false;
+      }
+      int i = 0;
+      for (Map.Entry<String, Field> entry : fields.entrySet()) {
+        if (entry.getValue().getType() != types[i] || !entry.getKey().equals(names[i])) {
+          return false;
+        }
+        i++;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns the fields of the root of the record if its shape can be cached, null otherwise.
+   */
+  private static Map<String, Field> getCacheableFields(Field root) {
+    if (root == null || !root.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP) || root.getValue() == null) {
+      return null;
+    }
+    Map<String, Field> fields = root.getValueAsMap();
+    if (fields.isEmpty()) {
+      return null;
+    }
+    for (Field field : fields.values()) {
+      if (field == null || field.getType() == Field.Type.DECIMAL) {
+        return null;
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Fingerprint of the field names and types, in order.
+   */
+  static long fingerprint(Map<String, Field> fields) {
+    long hash = 1125899906842597L;
+    for (Map.Entry<String, Field> entry : fields.entrySet()) {
+      hash = 31 * hash + entry.getKey().hashCode();
+      hash = 31 * hash + entry.getValue().getType().ordinal();
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the shape of the record root, or null if it can not be cached.
+   */
+  static Shape shapeOf(Field root) {
+    Map<String, Field> fields = getCacheableFields(root);
+    return fields == null ? null : new Shape(fields);
+  }
+
+  /**
+   * Returns true if a record of the same shape was added for the table with the same table info.
+   */
+  boolean contains(String qualifiedName, Object tableInfo, Field root) {
+    TableShapes table = tables.get(qualifiedName);
+    if (table == null || table.tableInfo != tableInfo) {
+      return false;
+    }
+    Map<String, Field> fields = getCacheableFields(root);
+    if (fields == null) {
+      return false;
+    }
+    Shape shape = table.shapes.get(fingerprint(fields));
+    return shape != null && shape.matches(fields);
+  }
+
+  /**
+   * Adds the shape for the table with the given table info, the shapes added with another table info are dropped.
+   */
+  void add(String qualifiedName, Object tableInfo, Shape shape) {
+    TableShapes table = tables.get(qualifiedName);
+    if (table == null || table.tableInfo != tableInfo || table.shapes.size() >= MAX_SHAPES_PER_TABLE) {
+      table = new TableShapes(tableInfo);
+      tables.put(qualifiedName, table);
+    }
+    table.shapes.put(shape.fingerprint, shape);
+  }
+}
@@ -42,6 +42,7 @@ import com.streamsets.pipeline.stage.lib.hive.HiveQueryExecutor;
 import com.streamsets.pipeline.stage.lib.hive.TestHiveMetastoreUtil;
 import com.streamsets.pipeline.stage.lib.hive.cache.HMSCache;
 import com.streamsets.pipeline.stage.lib.hive.cache.HMSCacheType;
+import com.streamsets.pipeline.stage.lib.hive.cache.TypeInfoCacheSupport;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.DecimalHiveTypeSupport;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.HiveType;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.HiveTypeInfo;
@@ -49,6 +50,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.api.support.membermodification.MemberMatcher;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
@@ -56,6 +59,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -659,4 +663,135 @@ public class TestHiveMetadataProcessor {
         hdfsRecord.getHeader().getAttribute("targetDirectory")
     );
   }
+
+  private static List<Record> createSameShapeRecords(int count) {
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Map<String, Field> map = new LinkedHashMap<>();
+      map.put("name", Field.create(Field.Type.STRING, "name" + i));
+      map.put("count", Field.create(Field.Type.SHORT, (short) i));
+      Record record = RecordCreator.create("s", "s:" + i);
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    return records;
+  }
+
+  private static HiveMetadataProcessor createShapeCachingProcessor() {
+    // A comment without expressions does not depend on the record, so the record shapes can be cached
+    return new HiveMetadataProcessorBuilder()
+        .database("")
+        .external(true)
+        .tablePathTemplate("/user/hive/some_directory/tbl")
+        .partitionPathTemplate("secret-value")
+        .commentEL("column comment")
+        .build();
+  }
+
+  private static void verifyConvertRecordToHMSTypeCalls(int times) throws Exception {
+    PowerMockito.verifyStatic(HiveMetastoreUtil.class, Mockito.times(times));
+    HiveMetastoreUtil.convertRecordToHMSType(
+        Mockito.any(Record.class),
+        Mockito.any(),
+        Mockito.any(),
+        Mockito.any(),
+        Mockito.anyString(),
+        Mockito.anyString(),
+        Mockito.anyString(),
+        Mockito.any(ELVars.class)
+    );
+  }
+
+  @Test
+  public void testKnownRecordShape() throws Exception {
+    HiveMetadataProcessor processor = createShapeCachingProcessor();
+    ProcessorRunner runner = getProcessRunner(processor);
+    runner.runInit();
+    // The first record creates the table, the second one is checked against it and the third one has a known shape
+    StageRunner.Output output = runner.runProcess(createSameShapeRecords(3));
+    verifyConvertRecordToHMSTypeCalls(2);
+    runner.runDestroy();
+
+    HiveMetadataProcessor fullPathProcessor = createShapeCachingProcessor();
+    ProcessorRunner fullPathRunner = getProcessRunner(fullPathProcessor);
+    fullPathRunner.runInit();
+    Whitebox.setInternalState(fullPathProcessor, "recordShapes", null);
+    StageRunner.Output fullPathOutput = fullPathRunner.runProcess(createSameShapeRecords(3));
+    fullPathRunner.runDestroy();
+
+    // Same metadata records (new table and new partition)
+    List<Record> metadataRecords = output.getRecords().get("hive");
+    List<Record> fullPathMetadataRecords = fullPathOutput.getRecords().get("hive");
+    Assert.assertEquals(2, metadataRecords.size());
+    Assert.assertEquals(fullPathMetadataRecords.size(), metadataRecords.size());
+    for (int i = 0; i < metadataRecords.size(); i++) {
+      Assert.assertEquals(fullPathMetadataRecords.get(i).get(), metadataRecords.get(i).get());
+    }
+
+    // Same data records, with the same avro schema and values converted to the same Hive types
+    List<Record> dataRecords = output.getRecords().get("hdfs");
+    List<Record> fullPathDataRecords = fullPathOutput.getRecords().get("hdfs");
+    Assert.assertEquals(3, dataRecords.size());
+    Assert.assertEquals(fullPathDataRecords.size(), dataRecords.size());
+    for (int i = 0; i < dataRecords.size(); i++) {
+      Record record = dataRecords.get(i);
+      Record fullPathRecord = fullPathDataRecords.get(i);
+      Assert.assertEquals(fullPathRecord.get(), record.get());
+      Assert.assertEquals(Field.Type.INTEGER, record.get("/count").getType());
+      Assert.assertEquals(
+          fullPathRecord.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_AVROSCHEMA),
+          record.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_AVROSCHEMA)
+      );
+      Assert.assertEquals(
+          fullPathRecord.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_TARGET_DIRECTORY),
+          record.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_TARGET_DIRECTORY)
+      );
+      Assert.assertEquals(
+          fullPathRecord.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_ROLL),
+          record.getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_ROLL)
+      );
+    }
+  }
+
+  @Test
+  public void testKnownRecordShapeAfterTableCacheReload() throws Exception {
+    HiveMetadataProcessor processor = createShapeCachingProcessor();
+    ProcessorRunner runner = getProcessRunner(processor);
+    runner.runInit();
+    runner.runProcess(createSameShapeRecords(3));
+    verifyConvertRecordToHMSTypeCalls(2);
+
+    // Reload the table info, the table now misses one of the columns of the known shape
+    String qualifiedName = HiveMetastoreUtil.getQualifiedTableName("default", "tbl");
+    HMSCache cache = (HMSCache) Whitebox.getInternalState(processor, "cache");
+    TypeInfoCacheSupport.TypeInfo tableCache = cache.getIfPresent(HMSCacheType.TYPE_INFO, qualifiedName);
+    Assert.assertNotNull(tableCache);
+    LinkedHashMap<String, HiveTypeInfo> columns = new LinkedHashMap<>(tableCache.getColumnTypeInfo());
+    Assert.assertNotNull(columns.remove("count"));
+    cache.put(
+        HMSCacheType.TYPE_INFO,
+        qualifiedName,
+        new TypeInfoCacheSupport.TypeInfo(columns, new LinkedHashMap<>(tableCache.getPartitionTypeInfo()))
+    );
+
+    // The record goes through the full conversion again and the drift is detected
+    StageRunner.Output output = runner.runProcess(createSameShapeRecords(1));
+    verifyConvertRecordToHMSTypeCalls(3);
+    Assert.assertEquals(0, runner.getErrorRecords().size());
+
+    List<Record> metadataRecords = output.getRecords().get("hive");
+    Assert.assertEquals(1, metadataRecords.size());
+    Record metadataRecord = metadataRecords.get(0);
+    Assert.assertEquals(
+        HiveMetastoreUtil.MetadataRecordType.TABLE.name(),
+        metadataRecord.get(HiveMetastoreUtil.SEP + HiveMetastoreUtil.METADATA_RECORD_TYPE).getValueAsString()
+    );
+    Assert.assertTrue(HiveMetastoreUtil.getAvroSchema(metadataRecord).contains("count"));
+
+    List<Record> dataRecords = output.getRecords().get("hdfs");
+    Assert.assertEquals(1, dataRecords.size());
+    Assert.assertEquals("true", dataRecords.get(0).getHeader().getAttribute(HiveMetadataProcessor.HDFS_HEADER_ROLL));
+    Assert.assertEquals(Field.Type.INTEGER, dataRecords.get(0).get("/count").getType());
+    runner.runDestroy();
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.hive;
+
+import com.streamsets.pipeline.api.Field;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+
+public class TestRecordShapeCache {
+
+  private static Field createRoot(Object... namesAndValues) {
+    LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      map.put((String) namesAndValues[i], (Field) namesAndValues[i + 1]);
+    }
+    return Field.createListMap(map);
+  }
+
+  @Test
+  public void testSameShape() {
+    RecordShapeCache shapes = new RecordShapeCache();
+    Object tableInfo = new Object();
+    Field root = createRoot("id", Field.create(1), "name", Field.create("a"));
+    Assert.assertFalse(shapes.contains("`db`.`t`", tableInfo, root));
+
+    shapes.add("`db`.`t`", tableInfo, RecordShapeCache.shapeOf(root));
+    // same names and types, different values
+    Field sameShape = createRoot("id", Field.create(2), "name", Field.create("b"));
+    Assert.assertTrue(shapes.contains("`db`.`t`", tableInfo, sameShape));
+    Assert.assertFalse(shapes.contains("`db`.`other`", tableInfo, root));
+  }
+
+  @Test
+  public void testDifferentShape() {
+    RecordShapeCache shapes = new RecordShapeCache();
+    Object tableInfo = new Object();
+    shapes.add("t", tableInfo, RecordShapeCache.shapeOf(createRoot("id", Field.create(1), "name", Field.create("a"))));
+
+    Assert.assertFalse(shapes.contains("t", tableInfo, createRoot("id", Field.create(1L), "name", Field.create("a"))));
+    Assert.assertFalse(shapes.contains("t", tableInfo, createRoot("name", Field.create("a"), "id", Field.create(1))));
+    Assert.assertFalse(shapes.contains("t", tableInfo, createRoot("id", Field.create(1))));
+    Assert.assertFalse(shapes.contains(
+        "t",
+        tableInfo,
+        createRoot("id", Field.create(1), "name", Field.create("a"), "extra", Field.create(true))
+    ));
+  }
+
+  @Test
+  public void testTableInfoChanged() {
+    RecordShapeCache shapes = new RecordShapeCache();
+    Field root = createRoot("id", Field.create(1));
+    shapes.add("t", new Object(), RecordShapeCache.shapeOf(root));
+
+    Object reloaded = new Object();
+    Assert.assertFalse(shapes.contains("t", reloaded, root));
+    shapes.add("t", reloaded, RecordShapeCache.shapeOf(root));
+    Assert.assertTrue(shapes.contains("t", reloaded, root));
+  }
+
+  @Test
+  public void testNotCacheable() {
+    Assert.assertNull(RecordShapeCache.shapeOf(createRoot("price", Field.create(new BigDecimal("1.5")))));
+    Assert.assertNull(RecordShapeCache.shapeOf(createRoot()));
+    Assert.assertNull(RecordShapeCache.shapeOf(Field.create("not a map")));
+    Assert.assertNull(RecordShapeCache.shapeOf(null));
+
+    RecordShapeCache shapes = new RecordShapeCache();
+    Assert.assertFalse(shapes.contains("t", new Object(), createRoot("price", Field.create(new BigDecimal("1.5")))));
+  }
+}
@@ -37,7 +37,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import java.util.List;
 
 @StageDef(
-    version = 3,
+    version = 4,
     label = "JDBC Lookup",
     description = "Lookup values via JDBC to enrich records.",
     icon = "rdbms.png",
@@ -117,6 +117,33 @@ public class JdbcLookupDProcessor extends DProcessor {
   )
   public int maxBlobSize;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Batch Lookups",
+      description = "Run the distinct lookups of the whole batch before processing the records, optionally in " +
+          "parallel on multiple connections",
+      displayPosition = 60,
+      group = "JDBC"
+  )
+  public boolean batchLookups;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "4",
+      label = "Lookup Threads",
+      description = "Number of lookups to run in parallel, limited by the maximum pool size",
+      min = 1,
+      max = Integer.MAX_VALUE,
+      displayPosition = 70,
+      group = "JDBC",
+      dependsOn = "batchLookups",
+      triggeredByValue = "true"
+  )
+  public int batchLookupThreads;
+
   @ConfigDefBean()
   public HikariPoolConfigBean hikariConfigBean;
 
@@ -133,7 +160,9 @@ public class JdbcLookupDProcessor extends DProcessor {
       maxClobSize,
       maxBlobSize,
       hikariConfigBean,
-      cacheConfig
+      cacheConfig,
+      batchLookups,
+      batchLookupThreads
     );
   }
 }
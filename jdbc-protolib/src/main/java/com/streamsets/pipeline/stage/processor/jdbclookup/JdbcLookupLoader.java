@@ -27,6 +27,7 @@ import com.streamsets.pipeline.lib.jdbc.JdbcErrors;
 import com.streamsets.pipeline.lib.jdbc.JdbcUtil;
 import com.streamsets.pipeline.lib.jdbc.UnknownTypeAction;
 import com.streamsets.pipeline.lib.jdbc.UtilsProvider;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<String, Field>>>> {
   private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupLoader.class);
@@ -54,6 +56,11 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
   private final Meter selectMeter;
   private final Timer selectTimer;
   private final JdbcUtil jdbcUtil;
+  // Estimated memory of the loaded values, used to estimate memory held by the cache. Only every
+  // MemoryUsageReporter.ESTIMATE_SAMPLING-th loaded value is estimated.
+  private final AtomicLong loadedEntries = new AtomicLong();
+  private final AtomicLong sampledEntries = new AtomicLong();
+  private final AtomicLong sampledBytes = new AtomicLong();
 
   public JdbcLookupLoader(
     Stage.Context context,
@@ -112,6 +119,11 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
         lookupItems.add(fields);
       }
 
+      if (loadedEntries.getAndIncrement() % MemoryUsageReporter.ESTIMATE_SAMPLING == 0) {
+        sampledBytes.addAndGet(estimate(lookupItems));
+        sampledEntries.incrementAndGet();
+      }
+
       // If no lookup items were found, use defaults
       if(lookupItems.isEmpty()) {
         return Optional.empty();
@@ -130,4 +142,25 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
 
     return Optional.of(lookupItems);
   }
+
+  /**
+   * Estimate the size of the loaded value, extrapolated from every MemoryUsageReporter.ESTIMATE_SAMPLING-th row.
+   */
+  private static long estimate(List<Map<String, Field>> lookupItems) {
+    long bytes = 0;
+    int sampledRows = 0;
+    for (int i = 0; i < lookupItems.size(); i += MemoryUsageReporter.ESTIMATE_SAMPLING) {
+      bytes += MemoryUsageReporter.estimate(Field.create(lookupItems.get(i)));
+      sampledRows++;
+    }
+    return sampledRows == 0 ? 0 : bytes * lookupItems.size() / sampledRows;
+  }
+
+  /**
+   * @return Estimated average number of bytes of a loaded value.
+   */
+  public long getAverageEntryBytes() {
+    long entries = sampledEntries.get();
+    return entries == 0 ? 0 : sampledBytes.get() / entries;
+  }
 }
@@ -37,6 +37,7 @@ import com.streamsets.pipeline.lib.jdbc.JdbcErrors;
 import com.streamsets.pipeline.lib.jdbc.JdbcFieldColumnMapping;
 import com.streamsets.pipeline.lib.jdbc.JdbcUtil;
 import com.streamsets.pipeline.lib.jdbc.UtilsProvider;
+import com.streamsets.pipeline.lib.util.MemoryUsageReporter;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.MissingValuesBehavior;
@@ -46,7 +47,12 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import com.streamsets.pipeline.stage.processor.kv.LookupUtils;
 import com.zaxxer.hikari.HikariDataSource;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -83,6 +89,8 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final int maxClobSize;
   private final int maxBlobSize;
   private final HikariPoolConfigBean hikariConfigBean;
+  private final boolean batchLookups;
+  private final int batchLookupThreads;
 
   private ErrorRecordHandler errorRecordHandler;
   private HikariDataSource dataSource = null;
@@ -93,12 +101,20 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private LoadingCache<String, Optional<List<Map<String, Field>>>> cache;
   private Optional<List<Map<String, Field>>> defaultValue;
   private CacheCleaner cacheCleaner;
+  private JdbcLookupLoader loader;
+  private MemoryUsageReporter memoryUsage;
   private final MissingValuesBehavior missingValuesBehavior;
 
   private List<ExecutorService> generationExecutors = new ArrayList<>();
   private int preprocessThreads = 0;
   private JdbcUtil jdbcUtil;
 
+  // Batch lookups: executor running the lookups (null when running in the processing thread) and per batch state
+  private ExecutorService lookupExecutor;
+  private Map<Record, String> batchQueries;
+  private Map<String, Optional<List<Map<String, Field>>>> batchResults;
+  private Map<String, ExecutionException> batchErrors;
+
   public JdbcLookupProcessor(
       String query,
       List<JdbcFieldColumnMapping> columnMappings,
@@ -108,6 +124,32 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       int maxBlobSize,
       HikariPoolConfigBean hikariConfigBean,
       CacheConfig cacheConfig
+  ) {
+    this(
+        query,
+        columnMappings,
+        multipleValuesBehavior,
+        missingValuesBehavior,
+        maxClobSize,
+        maxBlobSize,
+        hikariConfigBean,
+        cacheConfig,
+        false,
+        1
+    );
+  }
+
+  public JdbcLookupProcessor(
+      String query,
+      List<JdbcFieldColumnMapping> columnMappings,
+      MultipleValuesBehavior multipleValuesBehavior,
+      MissingValuesBehavior missingValuesBehavior,
+      int maxClobSize,
+      int maxBlobSize,
+      HikariPoolConfigBean hikariConfigBean,
+      CacheConfig cacheConfig,
+      boolean batchLookups,
+      int batchLookupThreads
   ) {
     this.query = query;
     this.columnMappings = columnMappings;
@@ -117,6 +159,8 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     this.maxBlobSize = maxBlobSize;
     this.hikariConfigBean = hikariConfigBean;
     this.cacheConfig = cacheConfig;
+    this.batchLookups = batchLookups;
+    this.batchLookupThreads = batchLookupThreads;
   }
 
   /** {@inheritDoc} */
@@ -151,7 +195,17 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     if (issues.isEmpty()) {
       cache = buildCache();
       cacheCleaner = new CacheCleaner(cache, "JdbcLookupProcessor", 10 * 60 * 1000);
-      if (cacheConfig.enabled) {
+      memoryUsage = new MemoryUsageReporter(getContext());
+      if (batchLookups) {
+        // Each lookup thread needs its own connection
+        int threads = Math.min(batchLookupThreads, hikariConfigBean.maximumPoolSize);
+        if (threads > 1) {
+          lookupExecutor = Executors.newFixedThreadPool(
+              threads,
+              new ThreadFactoryBuilder().setNameFormat("JDBC Lookup Batch Loader-%d").setDaemon(true).build()
+          );
+        }
+      } else if (cacheConfig.enabled) {
         preprocessThreads = Math.min(hikariConfigBean.minIdle, Runtime.getRuntime().availableProcessors()-1);
         preprocessThreads = Math.max(preprocessThreads, 1);
       }
@@ -235,6 +289,9 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   /** {@inheritDoc} */
   @Override
   public void destroy() {
+    if (lookupExecutor != null) {
+      lookupExecutor.shutdownNow();
+    }
     jdbcUtil.closeQuietly(dataSource);
     for (ExecutorService generationExecutor : generationExecutors) {
       generationExecutor.shutdown();
@@ -296,18 +353,103 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     if (preprocessThreads > 0) {
       preprocess(batch);
     }
+    if (batchLookups) {
+      lookupBatch(batch);
+    }
     //Normal processing per record
-    super.process(batch, batchMaker);
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchQueries = null;
+      batchResults = null;
+      batchErrors = null;
+    }
+    memoryUsage.set(cache.size() * loader.getAverageEntryBytes());
+  }
+
+  /**
+   * Runs all distinct lookups of the batch that are not cached yet, in parallel if configured so. The records are
+   * then processed as usual using the results gathered here. Anything that wasn't resolved here (query that failed
+   * to evaluate, interrupted lookups) is simply looked up again while processing the record.
+   */
+  private void lookupBatch(Batch batch) {
+    batchQueries = new IdentityHashMap<>();
+    Set<String> missingQueries = new LinkedHashSet<>();
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      try {
+        ELVars elVars = getContext().createELVars();
+        RecordEL.setRecordInContext(elVars, record);
+        String preparedQuery = queryEval.eval(elVars, query, String.class);
+        batchQueries.put(record, preparedQuery);
+        if (cache.getIfPresent(preparedQuery) == null) {
+          missingQueries.add(preparedQuery);
+        }
+      } catch (ELEvalException e) {
+        // Reported when processing the record
+        LOG.debug("Can't evaluate query for record {}: {}", record.getHeader().getSourceId(), e.toString());
+      }
+    }
+
+    batchResults = new ConcurrentHashMap<>();
+    batchErrors = new ConcurrentHashMap<>();
+    List<Callable<Void>> lookups = new ArrayList<>(missingQueries.size());
+    for (String preparedQuery : missingQueries) {
+      lookups.add(() -> {
+        try {
+          batchResults.put(preparedQuery, cache.get(preparedQuery));
+        } catch (ExecutionException e) {
+          batchErrors.put(preparedQuery, e);
+        }
+        return null;
+      });
+    }
+
+    if (lookupExecutor == null || lookups.size() < 2) {
+      for (Callable<Void> lookup : lookups) {
+        try {
+          lookup.call();
+        } catch (Exception e) {
+          // Not thrown by the lookups
+          throw new IllegalStateException(e);
+        }
+      }
+    } else {
+      try {
+        lookupExecutor.invokeAll(lookups);
+      } catch (InterruptedException e) {
+        LOG.debug("Interrupted while waiting for batch lookups");
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private Optional<List<Map<String, Field>>> lookup(String preparedQuery) throws ExecutionException {
+    if (batchResults != null) {
+      ExecutionException error = batchErrors.get(preparedQuery);
+      if (error != null) {
+        throw error;
+      }
+      Optional<List<Map<String, Field>>> entry = batchResults.get(preparedQuery);
+      if (entry != null) {
+        return entry;
+      }
+    }
+    return cache.get(preparedQuery);
   }
 
   /** {@inheritDoc} */
   @Override
   protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
     try {
-      ELVars elVars = getContext().createELVars();
-      RecordEL.setRecordInContext(elVars, record);
-      String preparedQuery = queryEval.eval(elVars, query, String.class);
-      Optional<List<Map<String, Field>>> entry = cache.get(preparedQuery);
+      String preparedQuery = (batchQueries == null) ? null : batchQueries.get(record);
+      if (preparedQuery == null) {
+        ELVars elVars = getContext().createELVars();
+        RecordEL.setRecordInContext(elVars, record);
+        preparedQuery = queryEval.eval(elVars, query, String.class);
+      }
+      Optional<List<Map<String, Field>>> entry = lookup(preparedQuery);
 
       if (!entry.isPresent()) {
         // No results
@@ -401,7 +543,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
 
   @SuppressWarnings("unchecked")
   private LoadingCache<String, Optional<List<Map<String, Field>>>> buildCache() {
-    JdbcLookupLoader loader = new JdbcLookupLoader(
+    loader = new JdbcLookupLoader(
       getContext(),
       dataSource,
       columnsToTypes,
@@ -409,6 +551,6 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       maxBlobSize,
       errorRecordHandler
     );
-    return LookupUtils.buildCache(loader, cacheConfig, defaultValue);
+    return LookupUtils.buildCache(loader, cacheConfig, defaultValue, getContext());
   }
 }
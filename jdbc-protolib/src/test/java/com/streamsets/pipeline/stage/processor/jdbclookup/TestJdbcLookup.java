@@ -260,6 +260,60 @@ public class TestJdbcLookup {
     Assert.assertEquals(3, outputRecords.get(2).get("[2]").getValueAsInteger());
   }
 
+  @Test
+  public void testBatchLookups() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.batchLookups = true;
+    processor.batchLookupThreads = 4;
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.SPLIT_INTO_MULTIPLE_RECORDS)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.PASS_RECORD_ON)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = new ArrayList<>();
+    String[][] names = {
+        {"Adam", "Kunicki"},
+        {"Jon", "Natkins"},
+        {"Pat", "Patterson"},
+        {"Girish", "Pancha"},
+        {"Jon", "Daulton"},
+        {"Adam", "Kunicki"},
+    };
+    for (String[] name : names) {
+      Record record = RecordCreator.create();
+      List<Field> fields = new ArrayList<>();
+      fields.add(Field.create(name[0]));
+      fields.add(Field.create(name[1]));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+
+      // Results are in the order of the input records, multiple rows are split into multiple records
+      Assert.assertEquals(7, outputRecords.size());
+      Assert.assertEquals(1, outputRecords.get(0).get("[2]").getValueAsInteger());
+      Assert.assertEquals(2, outputRecords.get(1).get("[2]").getValueAsInteger());
+      Assert.assertNull(outputRecords.get(2).get("[2]"));
+      Assert.assertEquals(4, outputRecords.get(3).get("[2]").getValueAsInteger());
+      Assert.assertEquals(5, outputRecords.get(4).get("[2]").getValueAsInteger());
+      Assert.assertEquals(3, outputRecords.get(5).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, outputRecords.get(6).get("[2]").getValueAsInteger());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
   @Test
   public void testMultiRecordMissingRow() throws Exception {
     thrown.expect(OnRecordErrorException.class);
@@ -56,4 +56,39 @@ public class TestJdbcLookupUpgrader {
 
     UpgraderTestUtils.assertExists(upgradedConfigs, "missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR);
   }
+
+  @Test
+  public void testUpgradeV3toV4() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 3, 4, configs);
+
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookups", false);
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookupThreads", 4);
+  }
+
+  @Test
+  public void testUpgradeV1toV4() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 1, 4, configs);
+
+    UpgraderTestUtils.assertAllExist(upgradedConfigs,
+        "cacheConfig.enabled",
+        "cacheConfig.maxSize",
+        "cacheConfig.evictionPolicyType",
+        "cacheConfig.expirationTime",
+        "cacheConfig.timeUnit"
+    );
+    UpgraderTestUtils.assertExists(upgradedConfigs, "missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR);
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookups", false);
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookupThreads", 4);
+
+    // Upgrading only to an intermediate version doesn't add the later configs
+    configs = new ArrayList<>();
+    upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 1, 2, configs);
+    UpgraderTestUtils.assertNoneExist(upgradedConfigs, "missingValuesBehavior", "batchLookups");
+  }
 }
@@ -30,6 +30,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.api.service.dataformats.DataFormatGeneratorService;
 import com.streamsets.pipeline.api.service.dataformats.DataGenerator;
 import com.streamsets.pipeline.lib.el.RecordEL;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.jms.config.JmsErrors;
 import com.streamsets.pipeline.lib.jms.config.JmsGroups;
 import com.streamsets.pipeline.stage.common.CredentialsConfig;
@@ -48,7 +49,6 @@ import javax.jms.MessageProducer;
 import javax.jms.Session;
 import javax.naming.InitialContext;
 import javax.naming.NameNotFoundException;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
@@ -72,6 +72,7 @@ public class JmsMessageProducerImpl implements JmsMessageProducer {
   private Session session;
   private Destination destination;
   private LoadingCache<String, MessageProducer> messageProducers;
+  private final DataGeneratorBuffer baos = new DataGeneratorBuffer();
 
   public JmsMessageProducerImpl(
     InitialContext initialContext,
@@ -166,7 +167,6 @@ public class JmsMessageProducerImpl implements JmsMessageProducer {
   @Override
   public int put(Batch batch) throws StageException {
     Iterator<Record> records = batch.getRecords();
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
     int count = 0;
     while (records.hasNext()) {
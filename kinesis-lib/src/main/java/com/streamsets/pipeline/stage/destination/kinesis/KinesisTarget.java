@@ -34,7 +34,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.aws.AwsRegion;
 import com.streamsets.pipeline.lib.el.ELUtils;
 import com.streamsets.pipeline.lib.el.RecordEL;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
@@ -49,7 +49,6 @@ import com.streamsets.pipeline.stage.lib.kinesis.RandomPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -73,6 +72,7 @@ public class KinesisTarget extends BaseTarget {
 
   private ErrorRecordHandler errorRecordHandler;
   private DataGeneratorFactory generatorFactory;
+  private DataGeneratorBuffer buffer;
   private KinesisProducer kinesisProducer;
   private Partitioner partitioner;
 
@@ -131,6 +131,7 @@ public class KinesisTarget extends BaseTarget {
           issues
       );
       generatorFactory = conf.dataFormatConfig.getDataGeneratorFactory();
+      buffer = new DataGeneratorBuffer(ONE_MB);
       try {
         KinesisProducerConfiguration producerConfig = KinesisProducerConfiguration
             .fromProperties(additionalConfigs)
@@ -195,23 +196,20 @@ public class KinesisTarget extends BaseTarget {
 
     while (batchIterator.hasNext()) {
       Record record = batchIterator.next();
-      ByteArrayOutputStream bytes = new ByteArrayOutputStream(ONE_MB);
       try {
-        DataGenerator generator = generatorFactory.getGenerator(bytes);
-        generator.write(record);
-        generator.close();
+        byte[] bytes = generatorFactory.serialize(record, buffer);
 
-        if (bytes.size() > ONE_MB) {
+        if (bytes.length > ONE_MB) {
           errorRecordHandler.onError(
               new OnRecordErrorException(
                   record,
                   Errors.KINESIS_08,
-                  bytes.size()
+                  bytes.length
               )
           );
           continue;
         }
-        ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+        ByteBuffer data = ByteBuffer.wrap(bytes);
 
         String partitionerKey = null;
         if (conf.partitionStrategy == PartitionStrategy.EXPRESSION) {
@@ -184,7 +184,7 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
 
     if (issues.isEmpty()) {
       store = new KuduLookupLoader(getContext(), kuduClient, keyColumns, columnToField, conf);
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(store, conf.cache, getContext());
       cacheCleaner = new CacheCleaner(cache, "KuduLookupProcessor", 10 * 60 * 1000);
     }
     return issues;
@@ -86,6 +86,19 @@ public class CacheConfig {
   @ValueChooserModel(TimeUnitChooserValues.class)
   public TimeUnit timeUnit = TimeUnit.SECONDS;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      label = "Share Cache Across Threads",
+      defaultValue = "false",
+      description = "In multithreaded pipelines, select to use a single cache for all the pipeline runners instead of " +
+        "one cache per runner. Values looked up by a runner are then available to all the others.",
+      displayPosition = 145,
+      dependencies = @Dependency(configName = "enabled", triggeredByValues = "true"),
+      group = "#0"
+  )
+  public boolean shared = false;
+
     @ConfigDef(
       required = true,
       type = ConfigDef.Type.BOOLEAN,
@@ -18,6 +18,7 @@ package com.streamsets.pipeline.stage.processor.kv;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -25,10 +26,13 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
 
 public class LookupUtils {
   private static final Logger LOG = LoggerFactory.getLogger(LookupUtils.class);
+  private static final String SHARED_CACHE_KEY = "lookup.shared.cache";
+  private static final String SHARED_CACHE_GAUGE = "Shared Lookup Cache";
 
   private LookupUtils() {}
 
@@ -56,6 +60,72 @@ public class LookupUtils {
     );
   }
 
+  /**
+   * Same as {@link #buildCache(CacheLoader, CacheConfig)}, the cache being shared by all the pipeline runners of the
+   * stage when enabled in the configuration.
+   */
+  @NotNull
+  public static<Key, Value> LoadingCache<Key, Value> buildCache(
+    CacheLoader<Key, Value> cacheLoader,
+    CacheConfig conf,
+    Stage.Context context
+  ) {
+    if(!conf.enabled || !conf.shared) {
+      return buildCache(cacheLoader, conf);
+    }
+    if(conf.retryOnCacheMiss) {
+      throw new IllegalArgumentException("This stage does not support retry on cache miss feature.");
+    }
+
+    return new SharedLoadingCache<>(LookupUtils.<Key, Value>getSharedCache(conf, context), cacheLoader);
+  }
+
+  /**
+   * Same as {@link #buildCache(CacheLoader, CacheConfig, Optional)}, the cache being shared by all the pipeline
+   * runners of the stage when enabled in the configuration.
+   */
+  @NotNull
+  @SuppressWarnings("unchecked")
+  public static<Key, Value> LoadingCache<Key, Optional<Value>> buildCache(
+    CacheLoader<Key, Optional<Value>> cacheLoader,
+    CacheConfig conf,
+    Optional<Value> defaultValue,
+    Stage.Context context
+  ) {
+    if(!conf.enabled || !conf.shared) {
+      return buildCache(cacheLoader, conf, defaultValue);
+    }
+
+    return new OptionalLoadingCache(
+      !conf.retryOnCacheMiss,
+      new SharedLoadingCache<>(LookupUtils.<Key, Optional<Value>>getSharedCache(conf, context), cacheLoader),
+      defaultValue
+    );
+  }
+
+  @SuppressWarnings("unchecked")
+  private static<Key, Value> SharedLoadingCache.Shared<Key, Value> getSharedCache(
+    CacheConfig conf,
+    Stage.Context context
+  ) {
+    SharedLoadingCache.Shared<Key, Value> shared;
+    Map<String, Object> runnerSharedMap = context.getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      shared = (SharedLoadingCache.Shared<Key, Value>) runnerSharedMap.get(SHARED_CACHE_KEY);
+      if(shared == null) {
+        shared = new SharedLoadingCache.Shared<>(createBuilder(conf).build());
+        runnerSharedMap.put(SHARED_CACHE_KEY, shared);
+      }
+    }
+
+    // the metrics are per runner, they all show the statistics of the shared cache
+    Map<String, Object> gauge = context.createGauge(SHARED_CACHE_GAUGE).getValue();
+    gauge.put("Hits", shared.hits);
+    gauge.put("Loads", shared.loads);
+    gauge.put("Load Time (ms)", shared.loadTimeMillis);
+    return shared;
+  }
+
   private static CacheBuilder createBuilder(CacheConfig conf) {
     CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
 
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * View of a cache shared by all the pipeline runners of a stage, loading the missing values with the loader of the
+ * stage instance using it. Concurrent loads of the same key are coalesced, the threads asking for a key being loaded
+ * wait for that load.
+ */
+public class SharedLoadingCache<Key, Value> implements LoadingCache<Key, Value> {
+
+  private final Shared<Key, Value> shared;
+  private final CacheLoader<Key, Value> loader;
+
+  SharedLoadingCache(Shared<Key, Value> shared, CacheLoader<Key, Value> loader) {
+    this.shared = shared;
+    this.loader = loader;
+  }
+
+  /**
+   * Cache and statistics shared by the runners, the statistics are exposed as live gauge values.
+   */
+  static class Shared<Key, Value> {
+    private final Cache<Key, Value> cache;
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong loads = new AtomicLong();
+    // sub-millisecond loads are accumulated in nanoseconds, the gauge shows the total in milliseconds
+    final AtomicLong loadTimeNanos = new AtomicLong();
+    final Number loadTimeMillis = new Millis(loadTimeNanos);
+
+    Shared(Cache<Key, Value> cache) {
+      this.cache = cache;
+    }
+  }
+
+  /**
+   * Live gauge value of a time accumulated in nanoseconds, converted to milliseconds when it is read.
+   */
+  private static class Millis extends Number {
+    private final AtomicLong nanos;
+
+    Millis(AtomicLong nanos) {
+      this.nanos = nanos;
+    }
+
+    @Override
+    public int intValue() {
+      return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+      return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public float floatValue() {
+      return longValue();
+    }
+
+    @Override
+    public double doubleValue() {
+      return longValue();
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(longValue());
+    }
+  }
+
+  private Value load(Key key) throws Exception {
+    long start = System.nanoTime();
+    try {
+      return loader.load(key);
+    } finally {
+      recordLoads(1, start);
+    }
+  }
+
+  private void recordLoads(int count, long start) {
+    shared.loads.addAndGet(count);
+    shared.loadTimeNanos.addAndGet(System.nanoTime() - start);
+  }
+
+  @Override
+  public Value get(Key key) throws ExecutionException {
+    Value value = shared.cache.getIfPresent(key);
+    if (value != null) {
+      shared.hits.incrementAndGet();
+      return value;
+    }
+    return shared.cache.get(key, () -> load(key));
+  }
+
+  @Override
+  public Value getUnchecked(Key key) {
+    try {
+      return get(key);
+    } catch (ExecutionException e) {
+      throw new UncheckedExecutionException(e.getCause());
+    }
+  }
+
+  @Override
+  public ImmutableMap<Key, Value> getAll(Iterable<? extends Key> keys) throws ExecutionException {
+    Map<Key, Value> present = shared.cache.getAllPresent(keys);
+    shared.hits.addAndGet(present.size());
+
+    Set<Key> missing = new LinkedHashSet<>();
+    for (Key key : keys) {
+      if (!present.containsKey(key)) {
+        missing.add(key);
+      }
+    }
+    Map<Key, Value> loaded = ImmutableMap.of();
+    if (!missing.isEmpty()) {
+      loaded = loadAll(missing);
+    }
+
+    // same order as the keys, like the loading caches
+    ImmutableMap.Builder<Key, Value> result = ImmutableMap.builder();
+    Set<Key> added = new LinkedHashSet<>();
+    for (Key key : keys) {
+      if (added.add(key)) {
+        Value value = present.containsKey(key) ? present.get(key) : loaded.get(key);
+        result.put(key, (value != null) ? value : get(key));
+      }
+    }
+    return result.build();
+  }
+
+  private Map<Key, Value> loadAll(Set<Key> keys) throws ExecutionException {
+    long start = System.nanoTime();
+    Map<Key, Value> loaded;
+    try {
+      loaded = loader.loadAll(keys);
+    } catch (UnsupportedOperationException e) {
+      // loaded one by one
+      return ImmutableMap.of();
+    } catch (RuntimeException e) {
+      throw new UncheckedExecutionException(e);
+    } catch (Error e) {
+      throw new ExecutionError(e);
+    } catch (Exception e) {
+      throw new ExecutionException(e);
+    }
+    recordLoads(keys.size(), start);
+    shared.cache.putAll(loaded);
+    return loaded;
+  }
+
+  @Override
+  public Value apply(Key key) {
+    return getUnchecked(key);
+  }
+
+  @Override
+  public void refresh(Key key) {
+    shared.cache.invalidate(key);
+    getUnchecked(key);
+  }
+
+  @Override
+  public ConcurrentMap<Key, Value> asMap() {
+    return shared.cache.asMap();
+  }
+
+  @Nullable
+  @Override
+  public Value getIfPresent(Object key) {
+    return shared.cache.getIfPresent(key);
+  }
+
+  @Override
+  public Value get(Key key, Callable<? extends Value> valueLoader) throws ExecutionException {
+    return shared.cache.get(key, valueLoader);
+  }
+
+  @Override
+  public ImmutableMap<Key, Value> getAllPresent(Iterable<?> keys) {
+    return shared.cache.getAllPresent(keys);
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    shared.cache.put(key, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends Key, ? extends Value> m) {
+    shared.cache.putAll(m);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    shared.cache.invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll(Iterable<?> keys) {
+    shared.cache.invalidateAll(keys);
+  }
+
+  @Override
+  public void invalidateAll() {
+    shared.cache.invalidateAll();
+  }
+
+  @Override
+  public long size() {
+    return shared.cache.size();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return shared.cache.stats();
+  }
+
+  @Override
+  public void cleanUp() {
+    shared.cache.cleanUp();
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestLookupUtils {
+  private Map<String, Object> runnerSharedMap;
+  private Map<String, Object> gauge;
+  private CacheConfig conf;
+
+  @Before
+  public void setUp() {
+    runnerSharedMap = new HashMap<>();
+    gauge = new ConcurrentHashMap<>();
+    conf = new CacheConfig();
+    conf.enabled = true;
+    conf.shared = true;
+    conf.evictionPolicyType = EvictionPolicyType.EXPIRE_AFTER_WRITE;
+    conf.expirationTime = 1;
+    conf.timeUnit = TimeUnit.HOURS;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Stage.Context createContext() {
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.getStageRunnerSharedMap()).thenReturn(runnerSharedMap);
+    Gauge<Map<String, Object>> metric = Mockito.mock(Gauge.class);
+    Mockito.when(metric.getValue()).thenReturn(gauge);
+    Mockito.when(context.createGauge(Mockito.anyString())).thenReturn(metric);
+    return context;
+  }
+
+  private static class CountingLoader extends CacheLoader<String, String> {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger bulkLoads = new AtomicInteger();
+    private final CountDownLatch release;
+
+    private CountingLoader(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public String load(String key) throws Exception {
+      loads.incrementAndGet();
+      release.await();
+      return key.toUpperCase();
+    }
+
+    @Override
+    public Map<String, String> loadAll(Iterable<? extends String> keys) {
+      bulkLoads.incrementAndGet();
+      Map<String, String> values = new HashMap<>();
+      for (String key : keys) {
+        values.put(key, key.toUpperCase());
+      }
+      return values;
+    }
+  }
+
+  @Test
+  public void testSharedAcrossRunners() throws Exception {
+    CountingLoader loader1 = new CountingLoader(new CountDownLatch(0));
+    CountingLoader loader2 = new CountingLoader(new CountDownLatch(0));
+    LoadingCache<String, String> cache1 = LookupUtils.buildCache(loader1, conf, createContext());
+    LoadingCache<String, String> cache2 = LookupUtils.buildCache(loader2, conf, createContext());
+
+    Assert.assertEquals("A", cache1.get("a"));
+    Assert.assertEquals("A", cache2.get("a"));
+    Assert.assertEquals(1, loader1.loads.get());
+    Assert.assertEquals(0, loader2.loads.get());
+
+    // only the keys missing from the shared cache are loaded
+    Assert.assertEquals(
+        ImmutableMap.of("a", "A", "b", "B", "c", "C"),
+        cache2.getAll(ImmutableList.of("a", "b", "c"))
+    );
+    Assert.assertEquals(1, loader2.bulkLoads.get());
+    Assert.assertEquals(3, cache1.size());
+
+    Assert.assertEquals(2L, ((Number) gauge.get("Hits")).longValue());
+    Assert.assertEquals(3L, ((Number) gauge.get("Loads")).longValue());
+  }
+
+  @Test
+  public void testSubMillisecondLoadTime() throws Exception {
+    // each load takes a fraction of a millisecond, which does not add up if truncated to milliseconds
+    CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+      @Override
+      public String load(String key) {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < TimeUnit.MICROSECONDS.toNanos(200)) {
+          // busy wait
+        }
+        return key.toUpperCase();
+      }
+    };
+    LoadingCache<String, String> cache = LookupUtils.buildCache(loader, conf, createContext());
+    for (int i = 0; i < 50; i++) {
+      cache.get("key" + i);
+    }
+
+    Assert.assertEquals(50L, ((Number) gauge.get("Loads")).longValue());
+    Number loadTime = (Number) gauge.get("Load Time (ms)");
+    Assert.assertTrue(loadTime.longValue() >= 10);
+
+    // the gauge value is converted from the accumulated nanoseconds whenever it is read
+    for (int i = 50; i < 100; i++) {
+      cache.get("key" + i);
+    }
+    Assert.assertTrue(loadTime.longValue() >= 20);
+    Assert.assertEquals(String.valueOf(loadTime.longValue()), loadTime.toString());
+  }
+
+  @Test
+  public void testConcurrentLoadsCoalesced() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ImmutableList.Builder<CountingLoader> loaders = ImmutableList.builder();
+      ImmutableList.Builder<Future<String>> futures = ImmutableList.builder();
+      for (int i = 0; i < 4; i++) {
+        CountingLoader loader = new CountingLoader(release);
+        LoadingCache<String, String> cache = LookupUtils.buildCache(loader, conf, createContext());
+        loaders.add(loader);
+        futures.add(executor.submit(() -> cache.get("key")));
+      }
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<String> future : futures.build()) {
+        Assert.assertEquals("KEY", future.get(10, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(1, loaders.build().stream().mapToInt(loader -> loader.loads.get()).sum());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testNotShared() throws Exception {
+    conf.shared = false;
+    CountingLoader loader1 = new CountingLoader(new CountDownLatch(0));
+    CountingLoader loader2 = new CountingLoader(new CountDownLatch(0));
+    LoadingCache<String, Optional<String>> cache1 = LookupUtils.buildCache(
+        new OptionalLoader(loader1), conf, Optional.empty(), createContext()
+    );
+    LoadingCache<String, Optional<String>> cache2 = LookupUtils.buildCache(
+        new OptionalLoader(loader2), conf, Optional.empty(), createContext()
+    );
+
+    Assert.assertEquals(Optional.of("A"), cache1.get("a"));
+    Assert.assertEquals(Optional.of("A"), cache2.get("a"));
+    Assert.assertEquals(1, loader1.loads.get());
+    Assert.assertEquals(1, loader2.loads.get());
+    Assert.assertTrue(runnerSharedMap.isEmpty());
+  }
+
+  private static class OptionalLoader extends CacheLoader<String, Optional<String>> {
+    private final CacheLoader<String, String> loader;
+
+    private OptionalLoader(CacheLoader<String, String> loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public Optional<String> load(String key) throws Exception {
+      return Optional.of(loader.load(key));
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.maprfs;
+
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.api.StageException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestMapRFSTargetUpgrader {
+
+  private static Map<String, Object> getConfigValues(List<Config> configs) {
+    Map<String, Object> configValues = new HashMap<>();
+    for (Config config : configs) {
+      configValues.put(config.getName(), config.getValue());
+    }
+    return configValues;
+  }
+
+  @Test
+  public void testUpgradeV2ToV3() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    new MapRFSTargetUpgrader().upgrade("a", "b", "c", 2, 3, configs);
+
+    Assert.assertEquals(1, configs.size());
+    Assert.assertEquals(32, getConfigValues(configs).get("hdfsTargetConfigBean.parquetRowGroupSize"));
+  }
+
+  @Test
+  public void testUpgradeV1ToV3() throws StageException {
+    List<Config> configs = new ArrayList<>();
+    configs.add(new Config("hdfsTargetConfigBean.dataGeneratorFormatConfig.avroSchema", "{}"));
+
+    new MapRFSTargetUpgrader().upgrade("a", "b", "c", 1, 3, configs);
+
+    Map<String, Object> configValues = getConfigValues(configs);
+    Assert.assertEquals("INLINE", configValues.get("hdfsTargetConfigBean.dataGeneratorFormatConfig.avroSchemaSource"));
+    Assert.assertEquals(32, configValues.get("hdfsTargetConfigBean.parquetRowGroupSize"));
+  }
+}
@@ -84,7 +84,7 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
     }
 
     MongoDBLookupLoader lookupLoader = new MongoDBLookupLoader(mongoCollection);
-    cache = LookupUtils.buildCache(lookupLoader, configBean.cacheConfig);
+    cache = LookupUtils.buildCache(lookupLoader, configBean.cacheConfig, getContext());
     cacheCleaner = new CacheCleaner(cache, "MongoDBProcessor", 10 * 60 * 1000);
     return issues;
   }
@@ -34,6 +34,7 @@ import com.streamsets.pipeline.api.service.dataformats.DataFormatGeneratorServic
 import com.streamsets.pipeline.api.service.dataformats.DataGenerator;
 import com.streamsets.pipeline.api.service.dataformats.DataGeneratorException;
 import com.streamsets.pipeline.lib.el.RecordEL;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.pulsar.config.PulsarErrors;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
@@ -45,7 +46,6 @@ import org.apache.pulsar.client.api.TypedMessageBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -67,6 +67,7 @@ public class PulsarMessageProducerImpl implements PulsarMessageProducer {
   private ErrorRecordHandler errorHandler;
   private PulsarClient pulsarClient;
   private LoadingCache<String, Producer> messageProducers;
+  private final DataGeneratorBuffer byteArrayOutputStream = new DataGeneratorBuffer();
 
   public PulsarMessageProducerImpl(PulsarTargetConfig pulsarTargetConfig, Stage.Context context) {
     this.pulsarConfig = Preconditions.checkNotNull(pulsarTargetConfig);
@@ -152,7 +153,6 @@ public class PulsarMessageProducerImpl implements PulsarMessageProducer {
 
     if (batch != null) {
       Iterator<Record> recordIterator = batch.getRecords();
-      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
 
       while (recordIterator.hasNext()) {
         byteArrayOutputStream.reset();
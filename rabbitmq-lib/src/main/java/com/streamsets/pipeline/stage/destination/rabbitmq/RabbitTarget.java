@@ -23,6 +23,7 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorBuffer;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.rabbitmq.config.Errors;
 import com.streamsets.pipeline.lib.rabbitmq.config.RabbitExchangeConfigBean;
@@ -33,7 +34,6 @@ import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Iterator;
@@ -44,6 +44,7 @@ public class RabbitTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(RabbitTarget.class);
   private RabbitTargetConfigBean conf = null;
   private DataGeneratorFactory generatorFactory = null;
+  private DataGeneratorBuffer baos = new DataGeneratorBuffer();
   private RabbitCxnManager rabbitCxnManager = new RabbitCxnManager();
   private AMQP.BasicProperties.Builder builder = new AMQP.BasicProperties.Builder();
   private ErrorRecordHandler errorRecordHandler = null;
@@ -111,7 +112,6 @@ public class RabbitTarget extends BaseTarget {
   @Override
   public void write(Batch batch) throws StageException {
     Iterator<Record> records = batch.getRecords();
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try {
       if (this.conf.singleMessagePerBatch) {
         baos.reset();
@@ -102,7 +102,7 @@ public class RedisLookupProcessor extends BaseProcessor {
       error = new DefaultErrorRecordHandler(getContext());
       keyExprEval = getContext().createELEval("keyExpr");
       store = new RedisStore(conf);
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(store, conf.cache, getContext());
 
       cacheCleaner = new CacheCleaner(cache, "RedisLookupProcessor", 10 * 60 * 1000);
     }
@@ -37,7 +37,8 @@ import com.streamsets.pipeline.lib.salesforce.ForceLookupConfigBean;
 @HideConfigs({
   "forceConfig.useCompression",
   "forceConfig.showTrace",
-  "forceConfig.cacheConfig.retryOnCacheMiss"
+  "forceConfig.cacheConfig.retryOnCacheMiss",
+  "forceConfig.cacheConfig.shared"
 })
 public class ForceLookupDProcessor extends DProcessor {
   @ConfigDefBean
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Growable byte buffer for destinations that serialize records one at a time, one message per record.
+ *
+ * The buffer is meant to be reused for all the records, one generator at a time. Data generator factories
+ * recognize it and keep the expensive parts of their generators (char encoders, format specific writers) with the
+ * buffer, so only the generator itself is created for each record.
+ */
+public class DataGeneratorBuffer extends ByteArrayOutputStream {
+  // Buffers grown by an unusually large record are not kept for the following records
+  private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+  private final int initialSize;
+  private final int maxRetainedSize;
+  private final Map<Object, Object> states = new HashMap<>();
+  private Charset charset;
+  private Writer writer;
+
+  public DataGeneratorBuffer() {
+    this(1024);
+  }
+
+  public DataGeneratorBuffer(int initialSize) {
+    this(initialSize, MAX_RETAINED_SIZE);
+  }
+
+  /**
+   * Creates a buffer that keeps its grown byte array for the following records as long as it does not exceed
+   * the given size.
+   */
+  public DataGeneratorBuffer(int initialSize, int maxRetainedSize) {
+    super(initialSize);
+    this.initialSize = initialSize;
+    this.maxRetainedSize = Math.max(initialSize, maxRetainedSize);
+  }
+
+  /**
+   * Discards the contents of the buffer, including chars still pending in the writer of a generator that failed.
+   */
+  @Override
+  public synchronized void reset() {
+    flushWriter();
+    super.reset();
+    if (buf.length > maxRetainedSize) {
+      buf = new byte[initialSize];
+    }
+  }
+
+  /**
+   * Discards the contents of the buffer after the given size, including chars still pending in the writer of a
+   * generator that failed. Used to drop a partially written record when the buffer holds several of them.
+   */
+  public synchronized void truncate(int size) {
+    flushWriter();
+    count = Math.min(count, size);
+  }
+
+  private void flushWriter() {
+    if (writer != null) {
+      try {
+        writer.flush();
+      } catch (IOException ex) {
+        writer = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the writer for generators writing chars into the buffer. The writer is shared by all the generators,
+   * closing it only flushes the pending chars into the buffer.
+   */
+  public Writer getWriter(Charset charset) {
+    if (writer == null || !charset.equals(this.charset)) {
+      this.charset = charset;
+      writer = new FilterWriter(new OutputStreamWriter(this, charset)) {
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      };
+    }
+    return writer;
+  }
+
+  /**
+   * Returns the state the given owner kept with the buffer, null if none.
+   */
+  public Object getState(Object owner) {
+    return states.get(owner);
+  }
+
+  /**
+   * Keeps state of the given owner (typically a data generator factory) with the buffer for the following records.
+   */
+  public void setState(Object owner, Object state) {
+    states.put(owner, state);
+  }
+
+}
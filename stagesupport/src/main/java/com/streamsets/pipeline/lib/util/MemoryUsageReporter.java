@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.codahale.metrics.Counter;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports memory held by a stage (caches, buffers, ...) to the data collector.
+ *
+ * When the data collector is configured with incremental memory accounting (monitor.memory.incremental), the reported
+ * value is used instead of walking the stage's object graph to enforce the pipeline memory limit. The reporter has to
+ * be created in the stage's init(). The value is reported per pipeline runner, so stages that share a structure between
+ * runners should report the size of the whole structure from each runner.
+ */
+public class MemoryUsageReporter {
+
+  /**
+   * Name of the custom counter with reported number of bytes.
+   */
+  public static final String COUNTER_NAME = "memoryUsage";
+
+  /**
+   * The estimate walks the whole object, callers estimating many similar objects (records in a batch, rows of a result
+   * set, ...) should only estimate every ESTIMATE_SAMPLING-th of them and extrapolate.
+   */
+  public static final int ESTIMATE_SAMPLING = 16;
+
+  // Rough estimates of the object sizes on 64-bit JVM with compressed references
+  private static final long RECORD_OVERHEAD = 128;
+  private static final long FIELD_OVERHEAD = 32;
+  private static final long MAP_OVERHEAD = 48;
+  private static final long MAP_ENTRY_OVERHEAD = 48;
+  private static final long LIST_OVERHEAD = 40;
+  private static final long LIST_ELEMENT_OVERHEAD = 8;
+  private static final long ARRAY_OVERHEAD = 16;
+  private static final long STRING_OVERHEAD = 40;
+  private static final long BOXED_VALUE = 16;
+  private static final long BOXED_WIDE_VALUE = 24;
+  private static final long COMPLEX_VALUE = 64;
+
+  private final Counter counter;
+
+  public MemoryUsageReporter(Stage.Context context) {
+    this.counter = context.createCounter(COUNTER_NAME);
+  }
+
+  /**
+   * Set the number of bytes held by the stage.
+   */
+  public void set(long bytes) {
+    counter.inc(bytes - counter.getCount());
+  }
+
+  /**
+   * Add to the number of bytes held by the stage, negative value to subtract.
+   */
+  public void add(long bytes) {
+    counter.inc(bytes);
+  }
+
+  public long get() {
+    return counter.getCount();
+  }
+
+  /**
+   * Estimate the number of bytes the record occupies on the heap.
+   */
+  public static long estimate(Record record) {
+    long size = RECORD_OVERHEAD;
+    Record.Header header = record.getHeader();
+    for (String name : header.getAttributeNames()) {
+      size += MAP_ENTRY_OVERHEAD + estimate(name) + estimate(header.getAttribute(name));
+    }
+    Field root = record.get();
+    if (root != null) {
+      size += estimate(root);
+    }
+    return size;
+  }
+
+  /**
+   * Estimate the number of bytes the field (including nested fields) occupies on the heap.
+   */
+  @SuppressWarnings("unchecked")
+  public static long estimate(Field field) {
+    long size = FIELD_OVERHEAD;
+    Map<String, String> attributes = field.getAttributes();
+    if (attributes != null) {
+      size += MAP_OVERHEAD;
+      for (Map.Entry<String, String> entry : attributes.entrySet()) {
+        size += MAP_ENTRY_OVERHEAD + estimate(entry.getKey()) + estimate(entry.getValue());
+      }
+    }
+    Object value = field.getValue();
+    if (value == null) {
+      return size;
+    }
+    switch (field.getType()) {
+      case BOOLEAN:
+      case CHAR:
+      case BYTE:
+      case SHORT:
+      case INTEGER:
+      case FLOAT:
+        return size + BOXED_VALUE;
+      case LONG:
+      case DOUBLE:
+      case DATE:
+      case DATETIME:
+      case TIME:
+        return size + BOXED_WIDE_VALUE;
+      case STRING:
+        return size + estimate((String) value);
+      case BYTE_ARRAY:
+        return size + ARRAY_OVERHEAD + ((byte[]) value).length;
+      case MAP:
+      case LIST_MAP:
+        size += MAP_OVERHEAD;
+        for (Map.Entry<String, Field> entry : ((Map<String, Field>) value).entrySet()) {
+          size += MAP_ENTRY_OVERHEAD + estimate(entry.getKey());
+          if (entry.getValue() != null) {
+            size += estimate(entry.getValue());
+          }
+        }
+        return size;
+      case LIST:
+        size += LIST_OVERHEAD;
+        for (Field element : (List<Field>) value) {
+          size += LIST_ELEMENT_OVERHEAD;
+          if (element != null) {
+            size += estimate(element);
+          }
+        }
+        return size;
+      default:
+        // DECIMAL, ZONED_DATETIME, FILE_REF, ...
+        return size + COMPLEX_VALUE;
+    }
+  }
+
+  private static long estimate(String value) {
+    return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.codahale.metrics.Counter;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestMemoryUsageReporter {
+
+  @Test
+  public void testReport() {
+    Counter counter = new Counter();
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.createCounter(MemoryUsageReporter.COUNTER_NAME)).thenReturn(counter);
+
+    MemoryUsageReporter reporter = new MemoryUsageReporter(context);
+    reporter.add(100);
+    reporter.add(50);
+    Assert.assertEquals(150, counter.getCount());
+    reporter.add(-30);
+    Assert.assertEquals(120, reporter.get());
+    reporter.set(10);
+    Assert.assertEquals(10, counter.getCount());
+  }
+
+  @Test
+  public void testEstimate() {
+    long empty = MemoryUsageReporter.estimate(Field.create(Field.Type.STRING, null));
+    long shortString = MemoryUsageReporter.estimate(Field.create("a"));
+    long longString = MemoryUsageReporter.estimate(Field.create("abcdefghijklmnopqrstuvwxyz"));
+    Assert.assertTrue(empty > 0);
+    Assert.assertTrue(shortString > empty);
+    Assert.assertEquals(50, longString - shortString);
+
+    long bytes = MemoryUsageReporter.estimate(Field.create(new byte[1000]));
+    Assert.assertTrue(bytes > 1000);
+
+    // Nested fields are included
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("abcdefghijklmnopqrstuvwxyz"));
+    map.put("b", Field.create(Arrays.asList(Field.create(1), Field.create(new byte[1000]))));
+    long nested = MemoryUsageReporter.estimate(Field.create(map));
+    Assert.assertTrue(nested > longString + bytes);
+
+    Record record = Mockito.mock(Record.class);
+    Record.Header header = Mockito.mock(Record.Header.class);
+    Mockito.when(record.getHeader()).thenReturn(header);
+    Mockito.when(header.getAttributeNames()).thenReturn(Collections.emptySet());
+    Mockito.when(record.get()).thenReturn(Field.create(map));
+    long recordWithoutAttributes = MemoryUsageReporter.estimate(record);
+    Assert.assertTrue(recordWithoutAttributes > nested);
+
+    Mockito.when(header.getAttributeNames()).thenReturn(Collections.singleton("attribute"));
+    Mockito.when(header.getAttribute("attribute")).thenReturn("value");
+    Assert.assertTrue(MemoryUsageReporter.estimate(record) > recordWithoutAttributes);
+  }
+}